@@ -0,0 +1,150 @@
+package edu.biu.SCProtocols.OTExtensionBenchmark.src;
+
+import java.net.InetSocketAddress;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.comm.CommunicationSetup;
+import edu.biu.scapi.comm.ConnectivitySuccessVerifier;
+import edu.biu.scapi.comm.LoadParties;
+import edu.biu.scapi.comm.NaiveSuccess;
+import edu.biu.scapi.comm.Party;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionGeneralRInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionGeneralSInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionMaliciousReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionMaliciousSender;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTMaliciousKOSExtensionReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTMaliciousKOSExtensionSender;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.simplestOT.OTSimplestOTBatchReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.simplestOT.OTSimplestOTBatchSender;
+import edu.biu.scapi.tools.metrics.Histogram;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.RecordingMetricsRecorder;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * This application compares the pure Java malicious OT extension (KOS) with the native one.<p>
+ * Each party runs in its own process: 
+ * OTExtensionBenchmark sender|receiver java|native [number of OTs] [number of executions] <p>
+ * The first execution runs the base OTs and is not included in the throughput. 
+ * The base OTs of the Java extension are the simplest OT over the default elliptic curve. They run only once and do not affect the measurement. 
+ * Since the simplest OT is only secure against semi-honest adversaries, the Java extension in this benchmark is not secure against malicious 
+ * adversaries; it measures the cost of the KOS extension itself.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTExtensionBenchmark {
+	
+	private static final int DEFAULT_NUMBER_OF_OTS = 1000000;
+	private static final int DEFAULT_NUMBER_OF_EXECUTIONS = 10;
+	private static final int ELEMENT_SIZE = 128;	//The size of each x0, x1 in bits.
+	private static final String NATIVE_ADDRESS = "127.0.0.1";
+	private static final int NATIVE_PORT = 7766;
+	
+	/**
+	 * Runs one party of the benchmark.
+	 * 
+	 * @param args sender or receiver, java or native, and optionally the number of OTs and the number of executions.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.out.println("usage: OTExtensionBenchmark sender|receiver java|native [number of OTs] [number of executions]");
+			return;
+		}
+		boolean isSender = args[0].equals("sender");
+		boolean isJava = args[1].equals("java");
+		int numOfOts = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_NUMBER_OF_OTS;
+		int numOfExecutions = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_NUMBER_OF_EXECUTIONS;
+		
+		//The native extension connects by itself and ignores the channel. The Java extension uses the channel.
+		Channel channel = null;
+		if (isJava) {
+			channel = setCommunication(isSender ? "Parties1.properties" : "Parties0.properties");
+		}
+		
+		RecordingMetricsRecorder recorder = new RecordingMetricsRecorder();
+		Metrics.setRecorder(recorder);
+		SecureRandom random = new SecureRandom();
+		try {
+			if (isSender) {
+				OTBatchSender sender;
+				if (isJava) {
+					sender = new OTMaliciousKOSExtensionSender(new OTSimplestOTBatchReceiver(), random);
+				} else {
+					sender = new OTExtensionMaliciousSender(NATIVE_ADDRESS, NATIVE_PORT, numOfOts);
+				}
+				byte[] x0 = new byte[numOfOts * ELEMENT_SIZE / 8];
+				byte[] x1 = new byte[numOfOts * ELEMENT_SIZE / 8];
+				random.nextBytes(x0);
+				random.nextBytes(x1);
+				for (int i = 0; i <= numOfExecutions; i++) {
+					Span span = recorder.startSpan((i == 0) ? "benchmark.firstExecution" : "benchmark.execution");
+					try {
+						sender.transfer(channel, new OTExtensionGeneralSInput(x0, x1, numOfOts));
+					} finally {
+						span.end();
+					}
+				}
+			} else {
+				OTBatchReceiver receiver;
+				if (isJava) {
+					receiver = new OTMaliciousKOSExtensionReceiver(new OTSimplestOTBatchSender(), random);
+				} else {
+					receiver = new OTExtensionMaliciousReceiver(NATIVE_ADDRESS, NATIVE_PORT, numOfOts);
+				}
+				byte[] sigma = new byte[numOfOts];
+				for (int j = 0; j < numOfOts; j++) {
+					sigma[j] = (byte) random.nextInt(2);
+				}
+				for (int i = 0; i <= numOfExecutions; i++) {
+					Span span = recorder.startSpan((i == 0) ? "benchmark.firstExecution" : "benchmark.execution");
+					try {
+						receiver.transfer(channel, new OTExtensionGeneralRInput(sigma, ELEMENT_SIZE));
+					} finally {
+						span.end();
+					}
+				}
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			return;
+		}
+		
+		//Print the durations (in nanoseconds) of all the phases and the throughput.
+		System.out.print(recorder.getReport());
+		Histogram executions = recorder.getHistogram("benchmark.execution");
+		if (executions != null && executions.getSum() > 0) {
+			double otsPerSecond = (double) numOfOts * executions.getCount() * 1000000000 / executions.getSum();
+			System.out.println(args[1] + " " + args[0] + ": " + Math.round(otsPerSecond) + " OTs per second");
+		}
+	}
+	
+	/**
+	 * 
+	 * Loads parties from a file and sets up the channel.
+	 *  
+	 * @return the channel with the other party.
+	 */
+	private static Channel setCommunication(String partiesFile) {
+		
+		LoadParties loadParties = new LoadParties(partiesFile);
+	
+		//Prepare the parties list.
+		List<Party> listOfParties = loadParties.getPartiesList();
+	
+		//Create the communication setup.
+		CommunicationSetup commSetup = new CommunicationSetup();
+	
+		ConnectivitySuccessVerifier naive = new NaiveSuccess();
+		
+		Map<InetSocketAddress, Channel> connections = commSetup.prepareForCommunication(listOfParties, naive, 200000);
+			
+		//Return the channel with the other party. There was only one channel created.
+		return (Channel)((connections.values()).toArray())[0];
+	}
+}
@@ -6,14 +6,11 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
 import edu.biu.scapi.circuits.circuit.BooleanCircuit;
-import edu.biu.scapi.circuits.encryption.AESFixedKeyMultiKeyEncryption;
-import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
 import edu.biu.scapi.comm.Channel;
 import edu.biu.scapi.comm.CommunicationSetup;
 import edu.biu.scapi.comm.ConnectivitySuccessVerifier;
@@ -22,6 +19,9 @@ import edu.biu.scapi.comm.NaiveSuccess;
 import edu.biu.scapi.comm.Party;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTSemiHonestExtensionSender;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.RecordingMetricsRecorder;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This application runs party one of Yao protocol.
@@ -31,6 +31,10 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTSemiHonest
  */
 public class App1 {
 	
+	private static final int NUMBER_OF_EXECUTIONS = 100;
+	private static final int BATCH_SIZE = 10;
+	private static final int NUMBER_OF_THREADS = 4;
+	
 	/**
 	 * Execute Yao protocol's party one.
 	 * 
@@ -54,27 +58,31 @@ public class App1 {
 			BooleanCircuit bc = new BooleanCircuit(new File("AES_Final-2.txt"));
 			//Create the OT sender.
 			OTBatchSender otSender = new OTSemiHonestExtensionSender(party,163,1);
-			//Create the encryption scheme.
-			MultiKeyEncryptionScheme mes = new AESFixedKeyMultiKeyEncryption();
-			Date start = new Date();
-			//Run the protocol multiple times.
-			for(int i=0; i<100;i++){
+			//Create the engine once. It keeps the garbled circuits and the thread pool between the executions.
+			SemiHonestYaoEngine engine = new SemiHonestYaoEngine(channel, bc, otSender, NUMBER_OF_THREADS);
+			//Record the timing of all the phases of the protocol.
+			RecordingMetricsRecorder recorder = new RecordingMetricsRecorder();
+			Metrics.setRecorder(recorder);
+			//Run the protocol multiple times, in batches.
+			for(int i=0; i<NUMBER_OF_EXECUTIONS; i+=BATCH_SIZE){
 				
-				Date before = new Date();
 				//Get the inputs of P1.
-				ArrayList<Byte> ungarbledInput = readInputs();
-				Date after = new Date();
-				long time = (after.getTime() - before.getTime());
-				System.out.println("read inputs took " +time + " milis");
-				//Create Party one with the previous created objects.
-				PartyOne p1 = new PartyOne(channel, bc, mes, otSender);
+				List<ArrayList<Byte>> ungarbledInputs = new ArrayList<ArrayList<Byte>>();
+				Span span = recorder.startSpan("readInputs");
+				try {
+					for (int j=0; j<BATCH_SIZE; j++){
+						ungarbledInputs.add(readInputs());
+					}
+				} finally {
+					span.end();
+				}
 			
-				//Run party 1 of Yao protocol.
-				p1.run(ungarbledInput);
+				//Run party 1 of Yao protocol on the batch.
+				engine.runPartyOne(ungarbledInputs);
 			}
-			Date end = new Date();
-			long time = (end.getTime() - start.getTime())/100;
-			System.out.println("Yao's protocol party 1 took " +time + " milis");
+			engine.close();
+			//Print the durations (in nanoseconds) and sizes of all the phases.
+			System.out.print(recorder.getReport());
 			
 			
 		} catch (Exception e) {
@@ -5,14 +5,12 @@ import java.io.FileNotFoundException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
 import edu.biu.scapi.circuits.circuit.BooleanCircuit;
-import edu.biu.scapi.circuits.encryption.AESFixedKeyMultiKeyEncryption;
-import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
 import edu.biu.scapi.comm.Channel;
 import edu.biu.scapi.comm.CommunicationSetup;
 import edu.biu.scapi.comm.ConnectivitySuccessVerifier;
@@ -21,6 +19,9 @@ import edu.biu.scapi.comm.NaiveSuccess;
 import edu.biu.scapi.comm.Party;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTSemiHonestExtensionReceiver;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.RecordingMetricsRecorder;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This application runs party two of Yao protocol.
@@ -30,6 +31,10 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTSemiHonest
  */
 public class App2 {
 	
+	private static final int NUMBER_OF_EXECUTIONS = 100;
+	private static final int BATCH_SIZE = 10;
+	private static final int NUMBER_OF_THREADS = 4;
+	
 	/**
 	 * @param args no arguments should be passed
 	 */
@@ -51,29 +56,31 @@ public class App2 {
 			//OTBatchReceiver otReceiver = new OTSemiHonestDDHBatchOnByteArrayReceiver(dlog, kdf, random);
 			OTBatchReceiver otReceiver = new OTSemiHonestExtensionReceiver(party,163,1);
 			
-			//Create the encryption scheme.
-			MultiKeyEncryptionScheme mes = new AESFixedKeyMultiKeyEncryption();
-			Date start = new Date();
-			//Run the protocol multiple times.
-			for(int i=0; i<100;i++){
-				
-				Date before = new Date();
-				//Create Party two with the previous created objects.
-				//ArrayList<Byte> ungarbledInput = readInputs();
-				byte[] ungarbledInput = readInputsAsArray();
-				Date after = new Date();
-				long time = (after.getTime() - before.getTime());
-				System.out.println("read inputs took " +time + " milis");
+			//Create the engine once. It keeps the garbled circuits and the thread pool between the executions.
+			SemiHonestYaoEngine engine = new SemiHonestYaoEngine(channel, bc, otReceiver, NUMBER_OF_THREADS);
+			//Record the timing of all the phases of the protocol.
+			RecordingMetricsRecorder recorder = new RecordingMetricsRecorder();
+			Metrics.setRecorder(recorder);
+			//Run the protocol multiple times, in batches.
+			for(int i=0; i<NUMBER_OF_EXECUTIONS; i+=BATCH_SIZE){
 				
-				//init the P1 yao protocol
-				PartyTwo p2 = new PartyTwo(channel, bc, mes, otReceiver);
+				//Get the inputs of P2.
+				List<byte[]> ungarbledInputs = new ArrayList<byte[]>();
+				Span span = recorder.startSpan("readInputs");
+				try {
+					for (int j=0; j<BATCH_SIZE; j++){
+						ungarbledInputs.add(readInputsAsArray());
+					}
+				} finally {
+					span.end();
+				}
 			
-				//Run party two of Yao protocol.
-				p2.run(ungarbledInput);
+				//Run party two of Yao protocol on the batch.
+				engine.runPartyTwo(ungarbledInputs);
 			}
-			Date end = new Date();
-			long time = (end.getTime() - start.getTime())/100;
-			System.out.println("Yao's protocol party 2 took " +time + " milis");
+			engine.close();
+			//Print the durations (in nanoseconds) and sizes of all the phases.
+			System.out.print(recorder.getReport());
 			
 			
 		} catch (Exception e) {
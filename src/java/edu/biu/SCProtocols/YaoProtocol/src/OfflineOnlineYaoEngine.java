@@ -0,0 +1,453 @@
+package edu.biu.SCProtocols.YaoProtocol.src;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import edu.biu.scapi.circuits.circuit.BooleanCircuit;
+import edu.biu.scapi.circuits.circuit.Wire;
+import edu.biu.scapi.circuits.encryption.AESFixedKeyMultiKeyEncryption;
+import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
+import edu.biu.scapi.circuits.garbledCircuit.CircuitCreationValues;
+import edu.biu.scapi.circuits.garbledCircuit.FreeXORGarblingParameters;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuit;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuitImp;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledTablesHolder;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledWire;
+import edu.biu.scapi.circuits.garbledCircuit.PackedTranslationTable;
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.exceptions.InvalidDlogGroupException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+import edu.biu.scapi.exceptions.NotAllInputsSetException;
+import edu.biu.scapi.interactiveMidProtocols.ot.OTOnByteArrayROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionRandomRInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionRandomSInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionSOutput;
+import edu.biu.scapi.primitives.prg.PseudorandomGenerator;
+import edu.biu.scapi.primitives.prg.ScPrgFromPrf;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * An implementation of the semi-honest Yao protocol that is split into an offline phase and an online phase. <p>
+ * 
+ * In the offline phase, which does not depend on the inputs, party one garbles circuits from random seeds and sends their garbled 
+ * tables and translation tables to party two, and both parties run a random OT extension 
+ * ({@link OTExtensionRandomSInput}) for the input wires of party two. Party one gets two random strings x0, x1 for each wire and 
+ * party two gets a random bit r and the string x_r. The results are kept by both parties in a bounded pool. <p>
+ * 
+ * The online phase consumes one precomputed execution and takes a single round: party two sends e = b XOR r for each of its input 
+ * bits b, and party one answers with the keys of its own inputs together with k0 XOR x_e and k1 XOR x_(1-e) for each input wire of 
+ * party two (Beaver's derandomization). Party two unmasks the keys of its inputs with x_r and evaluates the circuit. <p>
+ * 
+ * Both parties share the channel between the phases, so {@link #precompute(int)} should be called by both parties at the same point, 
+ * for example when there are no pending requests. If the pool is empty when an online execution starts, both parties precompute a 
+ * single execution on demand, and the event is counted by {@link #getNumberOfPoolExhaustions()}. <p>
+ * 
+ * Each entry in the pool of party two holds the garbled tables of a circuit, so the capacity of the pool should be chosen according 
+ * to the size of the circuit. Both parties should use the same circuit and capacity.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OfflineOnlineYaoEngine {
+	
+	private static final int SEED_SIZE = 16;	//The size in bytes of the seeds of the garbled circuits.
+	
+	/**
+	 * A precomputed execution of party one: the keys of both parties' input wires and the random OT strings of party two's inputs.
+	 */
+	private static class GarblerExecution {
+		private byte[] partyOneKeys;	//Both keys of each input wire of party one, one after the other.
+		private byte[] partyTwoKeys;	//Both keys of each input wire of party two, one after the other.
+		private byte[] x0;				//The first random OT string of each input wire of party two.
+		private byte[] x1;				//The second random OT string of each input wire of party two.
+	}
+	
+	/**
+	 * A precomputed execution of party two: the garbled circuit and the random OT choices and outputs.
+	 */
+	private static class EvaluatorExecution {
+		private GarbledTablesHolder garbledTables;
+		private PackedTranslationTable translationTable;
+		private byte[] r;				//The random choice bit of each input wire.
+		private byte[] xr;				//The random OT string that matches each choice bit.
+	}
+	
+	private Channel channel;
+	private OTBatchSender otSender;				//The OT sender, in case this is party one.
+	private OTBatchReceiver otReceiver;			//The OT receiver, in case this is party two.
+	private GarbledBooleanCircuit circuit;
+	private int keySize;						//The size in bytes of the keys of the encryption scheme.
+	private SecureRandom random;
+	private List<Integer> partyOneIndices;
+	private List<Integer> partyTwoIndices;
+	
+	private int capacity;
+	private ArrayDeque<GarblerExecution> garblerPool = new ArrayDeque<GarblerExecution>();
+	private ArrayDeque<EvaluatorExecution> evaluatorPool = new ArrayDeque<EvaluatorExecution>();
+	
+	private long precomputedExecutions;
+	private long onlineExecutions;
+	private long poolExhaustions;
+	
+	/**
+	 * Creates the engine of party one, which garbles the circuits and acts as the OT sender. 
+	 * The circuits use {@link AESFixedKeyMultiKeyEncryption} and {@link ScPrgFromPrf}.
+	 * @param channel The channel between both parties.
+	 * @param bc The boolean circuit to evaluate.
+	 * @param otSender The OT extension sender. It should support {@link OTExtensionRandomSInput}.
+	 * @param capacity The maximal number of precomputed executions.
+	 * @param random Used to sample the seeds of the circuits.
+	 */
+	public OfflineOnlineYaoEngine(Channel channel, BooleanCircuit bc, OTBatchSender otSender, int capacity, SecureRandom random){
+		this(channel, bc, otSender, capacity, random, new AESFixedKeyMultiKeyEncryption(), new ScPrgFromPrf());
+	}
+	
+	/**
+	 * Creates the engine of party one, which garbles the circuits and acts as the OT sender.
+	 * @param channel The channel between both parties.
+	 * @param bc The boolean circuit to evaluate.
+	 * @param otSender The OT extension sender. It should support {@link OTExtensionRandomSInput}.
+	 * @param capacity The maximal number of precomputed executions.
+	 * @param random Used to sample the seeds of the circuits.
+	 * @param mes The encryption scheme of the garbled circuit. Party two should use a scheme of the same type.
+	 * @param prg Generates the keys of the circuit from a seed. It should accept a 128 bit key.
+	 */
+	public OfflineOnlineYaoEngine(Channel channel, BooleanCircuit bc, OTBatchSender otSender, int capacity, SecureRandom random, 
+			MultiKeyEncryptionScheme mes, PseudorandomGenerator prg){
+		this(channel, bc, capacity, random, mes, prg);
+		this.otSender = otSender;
+	}
+	
+	/**
+	 * Creates the engine of party two, which computes the circuits and acts as the OT receiver. 
+	 * The circuits use {@link AESFixedKeyMultiKeyEncryption}.
+	 * @param channel The channel between both parties.
+	 * @param bc The boolean circuit to evaluate.
+	 * @param otReceiver The OT extension receiver. It should support {@link OTExtensionRandomRInput}.
+	 * @param capacity The maximal number of precomputed executions.
+	 * @param random Used to sample the random OT choice bits.
+	 */
+	public OfflineOnlineYaoEngine(Channel channel, BooleanCircuit bc, OTBatchReceiver otReceiver, int capacity, SecureRandom random){
+		this(channel, bc, otReceiver, capacity, random, new AESFixedKeyMultiKeyEncryption());
+	}
+	
+	/**
+	 * Creates the engine of party two, which computes the circuits and acts as the OT receiver.
+	 * @param channel The channel between both parties.
+	 * @param bc The boolean circuit to evaluate.
+	 * @param otReceiver The OT extension receiver. It should support {@link OTExtensionRandomRInput}.
+	 * @param capacity The maximal number of precomputed executions.
+	 * @param random Used to sample the random OT choice bits.
+	 * @param mes The encryption scheme of the garbled circuit. Party one should use a scheme of the same type.
+	 */
+	public OfflineOnlineYaoEngine(Channel channel, BooleanCircuit bc, OTBatchReceiver otReceiver, int capacity, SecureRandom random, 
+			MultiKeyEncryptionScheme mes){
+		this(channel, bc, capacity, random, mes, null);
+		this.otReceiver = otReceiver;
+	}
+	
+	private OfflineOnlineYaoEngine(Channel channel, BooleanCircuit bc, int capacity, SecureRandom random, MultiKeyEncryptionScheme mes, 
+			PseudorandomGenerator prg){
+		if (capacity <= 0){
+			throw new IllegalArgumentException("the capacity of the pool should be positive");
+		}
+		this.channel = channel;
+		this.capacity = capacity;
+		this.random = random;
+		//Party two only computes the circuit, so it does not need a prg.
+		FreeXORGarblingParameters parameters = new FreeXORGarblingParameters(bc, mes, false);
+		circuit = (prg == null) ? new GarbledBooleanCircuitImp(parameters) : new GarbledBooleanCircuitImp(parameters, prg);
+		keySize = mes.getCipherSize();
+		try {
+			partyOneIndices = bc.getInputWireIndices(1);
+			partyTwoIndices = bc.getInputWireIndices(2);
+		} catch (NoSuchPartyException e) {
+			throw new IllegalArgumentException("the circuit should have two parties");
+		}
+	}
+	
+	/**
+	 * Runs the offline phase for the given number of executions, or less if the pool would exceed its capacity.<p>
+	 * Both parties should call this function with the same number.
+	 * @param numberOfExecutions The number of executions to precompute.
+	 * @return the number of executions that were added to the pool.
+	 */
+	public int precompute(int numberOfExecutions) throws IOException, ClassNotFoundException, CheatAttemptException, InvalidDlogGroupException {
+		Span span = Metrics.getRecorder().startSpan("yao.offline");
+		try {
+			int count = Math.min(numberOfExecutions, capacity - getPoolSize());
+			if (count <= 0){
+				return 0;
+			}
+			if (otSender != null){
+				precomputePartyOne(count);
+			} else{
+				precomputePartyTwo(count);
+			}
+			precomputedExecutions += count;
+			return count;
+		} finally {
+			span.end();
+		}
+	}
+	
+	private void precomputePartyOne(int count) throws IOException, ClassNotFoundException, CheatAttemptException, InvalidDlogGroupException {
+		int n2 = partyTwoIndices.size();
+		GarblerExecution[] executions = new GarblerExecution[count];
+		
+		//Garble the circuits and send each one as soon as it is garbled, so that only one set of garbled tables is held in memory.
+		byte[] seed = new byte[SEED_SIZE];
+		for (int i = 0; i < count; i++){
+			random.nextBytes(seed);
+			CircuitCreationValues values;
+			try {
+				values = circuit.garble(seed);
+			} catch (InvalidKeyException e) {
+				// Should not occur since the prg accepts a 128 bit key, which is the size of the seed.
+				throw new IllegalStateException(e);
+			}
+			channel.send(circuit.getGarbledTables());
+			channel.send(circuit.getPackedTranslationTable());
+			
+			executions[i] = new GarblerExecution();
+			executions[i].partyOneKeys = getKeys(values.getAllInputWireValues(), partyOneIndices);
+			executions[i].partyTwoKeys = getKeys(values.getAllInputWireValues(), partyTwoIndices);
+		}
+		
+		//Run a single random OT extension for the input wires of party two in all the circuits.
+		OTExtensionSOutput output = (OTExtensionSOutput) otSender.transfer(channel, new OTExtensionRandomSInput(count * n2, keySize * 8));
+		for (int i = 0; i < count; i++){
+			executions[i].x0 = new byte[n2 * keySize];
+			executions[i].x1 = new byte[n2 * keySize];
+			System.arraycopy(output.getX0Arr(), i * n2 * keySize, executions[i].x0, 0, n2 * keySize);
+			System.arraycopy(output.getX1Arr(), i * n2 * keySize, executions[i].x1, 0, n2 * keySize);
+			garblerPool.add(executions[i]);
+		}
+	}
+	
+	private void precomputePartyTwo(int count) throws IOException, ClassNotFoundException, CheatAttemptException {
+		int n2 = partyTwoIndices.size();
+		EvaluatorExecution[] executions = new EvaluatorExecution[count];
+		
+		//Receive the garbled tables and translation table of each circuit.
+		for (int i = 0; i < count; i++){
+			executions[i] = new EvaluatorExecution();
+			Serializable msg = channel.receive();
+			if (!(msg instanceof GarbledTablesHolder)){
+				throw new CheatAttemptException("the received message should be an instance of GarbledTablesHolder");
+			}
+			executions[i].garbledTables = (GarbledTablesHolder) msg;
+			msg = channel.receive();
+			if (!(msg instanceof PackedTranslationTable)){
+				throw new CheatAttemptException("the received message should be an instance of PackedTranslationTable");
+			}
+			executions[i].translationTable = (PackedTranslationTable) msg;
+		}
+		
+		//Run a single random OT extension for the input wires in all the circuits, using random choice bits.
+		byte[] sigmaArr = new byte[count * n2];
+		for (int i = 0; i < sigmaArr.length; i++){
+			sigmaArr[i] = (byte) (random.nextBoolean() ? 1 : 0);
+		}
+		byte[] xSigma = ((OTOnByteArrayROutput) otReceiver.transfer(channel, new OTExtensionRandomRInput(sigmaArr, keySize * 8))).getXSigma();
+		for (int i = 0; i < count; i++){
+			executions[i].r = new byte[n2];
+			executions[i].xr = new byte[n2 * keySize];
+			System.arraycopy(sigmaArr, i * n2, executions[i].r, 0, n2);
+			System.arraycopy(xSigma, i * n2 * keySize, executions[i].xr, 0, n2 * keySize);
+			evaluatorPool.add(executions[i]);
+		}
+	}
+	
+	/**
+	 * Returns both keys of the given wires, one after the other.
+	 */
+	private byte[] getKeys(Map<Integer, SecretKey[]> allInputWireValues, List<Integer> indices){
+		byte[] keys = new byte[indices.size() * 2 * keySize];
+		for (int i = 0; i < indices.size(); i++){
+			SecretKey[] wireKeys = allInputWireValues.get(indices.get(i));
+			System.arraycopy(wireKeys[0].getEncoded(), 0, keys, 2 * i * keySize, keySize);
+			System.arraycopy(wireKeys[1].getEncoded(), 0, keys, (2 * i + 1) * keySize, keySize);
+		}
+		return keys;
+	}
+	
+	/**
+	 * Runs the online phase of party one on the given input, using a precomputed execution.
+	 * @param ungarbledInput Holds 0 or 1 for each of party one's input wires.
+	 * @throws IllegalStateException if this is the engine of party two.
+	 * @throws CheatAttemptException if the message of party two is not of the expected type or size.
+	 */
+	public void runPartyOne(ArrayList<Byte> ungarbledInput) throws IOException, ClassNotFoundException, CheatAttemptException, InvalidDlogGroupException {
+		Span span = Metrics.getRecorder().startSpan("yao.online.partyOne");
+		try {
+			if (otSender == null){
+				throw new IllegalStateException("this is the engine of party two");
+			}
+			int n1 = partyOneIndices.size();
+			int n2 = partyTwoIndices.size();
+			//Check the input before a precomputed execution is consumed, since its keys are chosen by the input bits.
+			if (ungarbledInput.size() != n1){
+				throw new IllegalArgumentException("the input should have " + n1 + " bits");
+			}
+			for (Byte bit : ungarbledInput){
+				if (bit == null || (bit != 0 && bit != 1)){
+					throw new IllegalArgumentException("the input bits should be 0 or 1");
+				}
+			}
+			if (garblerPool.isEmpty()){
+				poolExhaustions++;
+				Metrics.getRecorder().incrementCounter("yao.pool.exhaustions", 1);
+				precompute(1);
+			}
+			GarblerExecution execution = garblerPool.poll();
+			onlineExecutions++;
+		
+			//Receive the masked input bits of party two.
+			Serializable msg = channel.receive();
+			if (!(msg instanceof byte[]) || ((byte[]) msg).length != n2){
+				throw new CheatAttemptException("the received message should be an array of " + n2 + " masked input bits");
+			}
+			byte[] e = (byte[]) msg;
+		
+			//Send the keys of party one's inputs followed by both masked keys of each input wire of party two.
+			byte[] answer = new byte[(n1 + 2 * n2) * keySize];
+			for (int i = 0; i < n1; i++){
+				System.arraycopy(execution.partyOneKeys, (2 * i + ungarbledInput.get(i)) * keySize, answer, i * keySize, keySize);
+			}
+			for (int i = 0; i < n2; i++){
+				if (e[i] != 0 && e[i] != 1){
+					throw new CheatAttemptException("the masked input bits should be 0 or 1");
+				}
+				//y0 = k0 XOR x_e and y1 = k1 XOR x_(1-e).
+				byte[] first = (e[i] == 0) ? execution.x0 : execution.x1;
+				byte[] second = (e[i] == 0) ? execution.x1 : execution.x0;
+				int answerOffset = (n1 + 2 * i) * keySize;
+				for (int j = 0; j < keySize; j++){
+					answer[answerOffset + j] = (byte) (execution.partyTwoKeys[2 * i * keySize + j] ^ first[i * keySize + j]);
+					answer[answerOffset + keySize + j] = (byte) (execution.partyTwoKeys[(2 * i + 1) * keySize + j] ^ second[i * keySize + j]);
+				}
+			}
+			channel.send(answer);
+		} finally {
+			span.end();
+		}
+	}
+	
+	/**
+	 * Runs the online phase of party two on the given input, using a precomputed execution.
+	 * @param ungarbledInput Holds 0 or 1 for each of party two's input wires.
+	 * @return the output of the circuit.
+	 * @throws IllegalStateException if this is the engine of party one.
+	 * @throws CheatAttemptException if the message of party one is not of the expected type or size.
+	 */
+	public Map<Integer, Wire> runPartyTwo(byte[] ungarbledInput) throws IOException, ClassNotFoundException, CheatAttemptException, InvalidDlogGroupException, NotAllInputsSetException {
+		Span span = Metrics.getRecorder().startSpan("yao.online.partyTwo");
+		try {
+			if (otReceiver == null){
+				throw new IllegalStateException("this is the engine of party one");
+			}
+			int n1 = partyOneIndices.size();
+			int n2 = partyTwoIndices.size();
+			//Check the input before a precomputed execution is consumed.
+			if (ungarbledInput.length != n2){
+				throw new IllegalArgumentException("the input should have " + n2 + " bits");
+			}
+			for (byte bit : ungarbledInput){
+				if (bit != 0 && bit != 1){
+					throw new IllegalArgumentException("the input bits should be 0 or 1");
+				}
+			}
+			if (evaluatorPool.isEmpty()){
+				poolExhaustions++;
+				Metrics.getRecorder().incrementCounter("yao.pool.exhaustions", 1);
+				precompute(1);
+			}
+			EvaluatorExecution execution = evaluatorPool.poll();
+			onlineExecutions++;
+		
+			//Send the input bits masked by the random OT choices.
+			byte[] e = new byte[n2];
+			for (int i = 0; i < n2; i++){
+				e[i] = (byte) (ungarbledInput[i] ^ execution.r[i]);
+			}
+			channel.send(e);
+		
+			Serializable msg = channel.receive();
+			if (!(msg instanceof byte[]) || ((byte[]) msg).length != (n1 + 2 * n2) * keySize){
+				throw new CheatAttemptException("the received message should be the keys of the input wires");
+			}
+			byte[] answer = (byte[]) msg;
+		
+			HashMap<Integer, GarbledWire> inputs = new HashMap<Integer, GarbledWire>();
+			for (int i = 0; i < n1; i++){
+				inputs.put(partyOneIndices.get(i), new GarbledWire(new SecretKeySpec(answer, i * keySize, keySize, "")));
+			}
+			for (int i = 0; i < n2; i++){
+				//The key of the input is y_b XOR x_r.
+				int answerOffset = (n1 + 2 * i + ungarbledInput[i]) * keySize;
+				byte[] key = new byte[keySize];
+				for (int j = 0; j < keySize; j++){
+					key[j] = (byte) (answer[answerOffset + j] ^ execution.xr[i * keySize + j]);
+				}
+				inputs.put(partyTwoIndices.get(i), new GarbledWire(new SecretKeySpec(key, "")));
+			}
+		
+			circuit.setGarbledTables(execution.garbledTables);
+			circuit.setPackedTranslationTable(execution.translationTable);
+			circuit.setInputs(inputs);
+			return circuit.translate(circuit.compute());
+		} finally {
+			span.end();
+		}
+	}
+	
+	/**
+	 * @return the maximal number of precomputed executions.
+	 */
+	public int getPoolCapacity(){
+		return capacity;
+	}
+	
+	/**
+	 * @return the number of precomputed executions that were not used yet.
+	 */
+	public int getPoolSize(){
+		return (otSender != null) ? garblerPool.size() : evaluatorPool.size();
+	}
+	
+	/**
+	 * @return the number of executions that were precomputed, including the ones that were precomputed on demand.
+	 */
+	public long getNumberOfPrecomputedExecutions(){
+		return precomputedExecutions;
+	}
+	
+	/**
+	 * @return the number of online executions.
+	 */
+	public long getNumberOfOnlineExecutions(){
+		return onlineExecutions;
+	}
+	
+	/**
+	 * @return the number of online executions that found the pool empty and had to precompute an execution on demand.
+	 */
+	public long getNumberOfPoolExhaustions(){
+		return poolExhaustions;
+	}
+}
@@ -2,7 +2,6 @@ package edu.biu.SCProtocols.YaoProtocol.src;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -22,6 +21,9 @@ import edu.biu.scapi.exceptions.NoSuchPartyException;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSInput;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionGeneralSInput;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.MetricsRecorder;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This is an implementation of party one of Yao protocol.
@@ -48,12 +50,13 @@ public class PartyOne {
 		this.otSender = otSender;
 		
 		//Create the garbled circuit.
-		Date before = new Date();
-		GarblingParameters input = new FreeXORGarblingParameters(bc, mes, false);
-		circuit = new GarbledBooleanCircuitImp(input);
-		Date after = new Date();
-		long time = (after.getTime() - before.getTime());
-		System.out.println("create circuit took " +time + " milis");
+		Span span = Metrics.getRecorder().startSpan("yao.partyOne.createCircuit");
+		try {
+			GarblingParameters input = new FreeXORGarblingParameters(bc, mes, false);
+			circuit = new GarbledBooleanCircuitImp(input);
+		} finally {
+			span.end();
+		}
 	}
 	
 	/**
@@ -65,39 +68,40 @@ public class PartyOne {
 	 * @throws InvalidDlogGroupException
 	 */
 	public void run(ArrayList<Byte> ungarbledInput) throws IOException, ClassNotFoundException, CheatAttemptException, InvalidDlogGroupException{
-		Date startProtocol = new Date();
-		Date start = new Date();
-		//Constructs the garbled circuit.
-		CircuitCreationValues values = circuit.garble();
-		Date end = new Date();
-		long time = (end.getTime() - start.getTime());
-		System.out.println("generate keys and set tables took " +time + " milis");
-		
-		start = new Date();
-		//Send garbled tables and the translation table to p2.
-		channel.send(circuit.getGarbledTables());
-		channel.send(circuit.getTranslationTable());
-		end = new Date();
-		time = (end.getTime() - start.getTime());
-		System.out.println("Send garbled tables and translation tables took " +time + " milis");
-		
-		start = new Date();
-		//Send p1 input keys to p2.
-		sendP1Inputs(ungarbledInput, values.getAllInputWireValues());
-		end = new Date();
-		time = (end.getTime() - start.getTime());
-		System.out.println("send inputs took " +time + " milis");
-		
-		start = new Date();
-		//Run OT protocol in order to send p2 the necessary keys without revealing any information.
-		runOTProtocol(values.getAllInputWireValues());
-		end = new Date();
-		time = (end.getTime() - start.getTime());
-		System.out.println("run OT took " +time + " milis");
-		Date yaoEnd = new Date();
-		long yaoTime = (yaoEnd.getTime() - startProtocol.getTime());
-		System.out.println("run one protocol took " +yaoTime + " milis");
-		
+		//Each phase is reported as a span nested in the span of the whole protocol.
+		MetricsRecorder recorder = Metrics.getRecorder();
+		Span protocolSpan = recorder.startSpan("yao.partyOne");
+		try {
+			//Constructs the garbled circuit. The garbling is reported by the circuit itself.
+			CircuitCreationValues values = circuit.garble();
+			
+			Span span = recorder.startSpan("sendCircuit");
+			try {
+				//Send garbled tables and the translation table to p2.
+				channel.send(circuit.getGarbledTables());
+				channel.send(circuit.getPackedTranslationTable());
+			} finally {
+				span.end();
+			}
+			
+			span = recorder.startSpan("sendInputs");
+			try {
+				//Send p1 input keys to p2.
+				sendP1Inputs(ungarbledInput, values.getAllInputWireValues());
+			} finally {
+				span.end();
+			}
+			
+			span = recorder.startSpan("ot");
+			try {
+				//Run OT protocol in order to send p2 the necessary keys without revealing any information.
+				runOTProtocol(values.getAllInputWireValues());
+			} finally {
+				span.end();
+			}
+		} finally {
+			protocolSpan.end();
+		}
 	}
 
 	/**
@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +20,7 @@ import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuit;
 import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuitImp;
 import edu.biu.scapi.circuits.garbledCircuit.GarbledTablesHolder;
 import edu.biu.scapi.circuits.garbledCircuit.GarbledWire;
+import edu.biu.scapi.circuits.garbledCircuit.PackedTranslationTable;
 import edu.biu.scapi.comm.Channel;
 import edu.biu.scapi.exceptions.CheatAttemptException;
 import edu.biu.scapi.exceptions.InvalidDlogGroupException;
@@ -31,6 +31,9 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRInput;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionGeneralRInput;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.MetricsRecorder;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This is an implementation of party two of Yao protocol.
@@ -57,12 +60,13 @@ public class PartyTwo {
 		this.otReceiver = otReceiver;
 		
 		//Create the garbled circuit.
-		Date before = new Date();
-		GarblingParameters input = new FreeXORGarblingParameters(bc, mes, false);
-		circuit = new GarbledBooleanCircuitImp(input);
-		Date after = new Date();
-		long time = (after.getTime() - before.getTime());
-		System.out.println("create circuit took " +time + " milis");
+		Span span = Metrics.getRecorder().startSpan("yao.partyTwo.createCircuit");
+		try {
+			GarblingParameters input = new FreeXORGarblingParameters(bc, mes, false);
+			circuit = new GarbledBooleanCircuitImp(input);
+		} finally {
+			span.end();
+		}
 	}
 	
 	/**
@@ -74,38 +78,46 @@ public class PartyTwo {
 	 * @throws InvalidDlogGroupException
 	 */
 	public void run(byte[] ungarbledInput) throws CheatAttemptException, ClassNotFoundException, IOException, InvalidDlogGroupException {
-		Date startProtocol = new Date();
-		Date start = new Date();
-		//Receive garbled tables and translation table from p1.
-		receiveCircuit();
-		Date end = new Date();
-		long time = (end.getTime() - start.getTime());
-		System.out.println("Receive garbled tables and translation tables from p1 took " +time + " milis");
-		
-		start = new Date();
-		//Receive P1 input keys and set them.
-		receiveP1Inputs();
-		end = new Date();
-		time = (end.getTime() - start.getTime());
-		System.out.println("Receive and set inputs from p1 took " +time + " milis");
-		
-		start = new Date();
-		//Run OT protocol in order to get the necessary keys without revealing any information.
-		OTBatchROutput output = runOTProtocol(ungarbledInput);
-		end = new Date();
-		time = (end.getTime() - start.getTime());
-		System.out.println("run OT took " +time + " milis");
-		
-		start = new Date();
-		//Compute the circuit.
-		Map<Integer, Wire> circuitOutput = computeCircuit(output);
-		end = new Date();
-		time = (end.getTime() - start.getTime());
-		System.out.println("compute the circuit took " +time + " milis");
-		
-		Date yaoEnd = new Date();
-		long yaoTime = (yaoEnd.getTime() - startProtocol.getTime());
-		System.out.println("run one protocol took " +yaoTime + " milis");
+		//Each phase is reported as a span nested in the span of the whole protocol.
+		MetricsRecorder recorder = Metrics.getRecorder();
+		Span protocolSpan = recorder.startSpan("yao.partyTwo");
+		Map<Integer, Wire> circuitOutput;
+		try {
+			Span span = recorder.startSpan("receiveCircuit");
+			try {
+				//Receive garbled tables and translation table from p1.
+				receiveCircuit();
+			} finally {
+				span.end();
+			}
+			
+			span = recorder.startSpan("receiveInputs");
+			try {
+				//Receive P1 input keys and set them.
+				receiveP1Inputs();
+			} finally {
+				span.end();
+			}
+			
+			OTBatchROutput output;
+			span = recorder.startSpan("ot");
+			try {
+				//Run OT protocol in order to get the necessary keys without revealing any information.
+				output = runOTProtocol(ungarbledInput);
+			} finally {
+				span.end();
+			}
+			
+			span = recorder.startSpan("compute");
+			try {
+				//Compute the circuit.
+				circuitOutput = computeCircuit(output);
+			} finally {
+				span.end();
+			}
+		} finally {
+			protocolSpan.end();
+		}
 		
 		int[] indices = circuit.getOutputWireIndices();
 		for (int index : indices){
@@ -131,14 +143,14 @@ public class PartyTwo {
 	
 		//Receive translation table.
 		msg = channel.receive();
-		if (!(msg instanceof HashMap<?, ?>)){
-			throw new CheatAttemptException("the received message should be an instance of HashMap<Integer, Byte>");
+		if (!(msg instanceof PackedTranslationTable)){
+			throw new CheatAttemptException("the received message should be an instance of PackedTranslationTable");
 		}
-		HashMap<Integer, Byte> translationTable = (HashMap<Integer, Byte>) msg;
+		PackedTranslationTable translationTable = (PackedTranslationTable) msg;
 			
 		//Set garbled tables and translation table to the circuit.
 		circuit.setGarbledTables(garbledTables);
-		circuit.setTranslationTable(translationTable);
+		circuit.setPackedTranslationTable(translationTable);
 	}
 	
 	/**
@@ -0,0 +1,378 @@
+package edu.biu.SCProtocols.YaoProtocol.src;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import edu.biu.scapi.circuits.circuit.BooleanCircuit;
+import edu.biu.scapi.circuits.circuit.Wire;
+import edu.biu.scapi.circuits.encryption.AESFixedKeyMultiKeyEncryption;
+import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
+import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionSchemeFactory;
+import edu.biu.scapi.circuits.garbledCircuit.CircuitCreationValues;
+import edu.biu.scapi.circuits.garbledCircuit.FreeXORGarblingParameters;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuit;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuitImp;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledTablesHolder;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledWire;
+import edu.biu.scapi.circuits.garbledCircuit.PackedTranslationTable;
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.exceptions.InvalidDlogGroupException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+import edu.biu.scapi.exceptions.NotAllInputsSetException;
+import edu.biu.scapi.interactiveMidProtocols.ot.OTOnByteArrayROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionGeneralRInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension.OTExtensionGeneralSInput;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * A reusable implementation of the semi-honest Yao protocol that evaluates the same circuit on batches of inputs. <p>
+ * {@link PartyOne} and {@link PartyTwo} run a single execution, and create their garbled circuit each time they are constructed. 
+ * This engine is created once per party and keeps everything that does not depend on the inputs: the channel, the OT 
+ * sender or receiver, a thread pool and the garbled circuit objects (whose gates are created once). <p>
+ * 
+ * Each call to {@link #runPartyOne(List)} or {@link #runPartyTwo(List)} evaluates the circuit on a batch of K input sets. 
+ * The K circuits are garbled (by party one) or computed (by party two) on the thread pool, their garbled tables, translation 
+ * tables and party one's keys are sent in three messages, and the keys of all the K x n input bits of party two are 
+ * transferred in a single call to the OT extension. <p>
+ * 
+ * Both parties should use the same circuit and call the matching functions with batches of the same size. 
+ * The engine is not thread safe; a batch should be finished before the next one starts.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class SemiHonestYaoEngine {
+	
+	private Channel channel;
+	private BooleanCircuit bc;
+	private MultiKeyEncryptionSchemeFactory schemeFactory;	//Creates the encryption scheme of each circuit.
+	private int keySize;									//The size in bytes of the keys of the encryption schemes.
+	private OTBatchSender otSender;				//The OT sender, in case this is party one.
+	private OTBatchReceiver otReceiver;			//The OT receiver, in case this is party two.
+	private ExecutorService pool;
+	private ArrayList<GarbledBooleanCircuit> circuits = new ArrayList<GarbledBooleanCircuit>();
+	
+	private List<Integer> partyOneIndices;
+	private List<Integer> partyTwoIndices;
+	
+	/**
+	 * Creates the engine of party one, which garbles the circuits and acts as the OT sender. 
+	 * The circuits use {@link AESFixedKeyMultiKeyEncryption}.
+	 * @param channel The channel between both parties.
+	 * @param bc The boolean circuit to evaluate.
+	 * @param otSender The OT extension sender.
+	 * @param numberOfThreads The number of threads that garble the circuits of a batch.
+	 */
+	public SemiHonestYaoEngine(Channel channel, BooleanCircuit bc, OTBatchSender otSender, int numberOfThreads){
+		this(channel, bc, otSender, numberOfThreads, new AESFixedKeySchemeFactory());
+	}
+	
+	/**
+	 * Creates the engine of party one, which garbles the circuits and acts as the OT sender.
+	 * @param channel The channel between both parties.
+	 * @param bc The boolean circuit to evaluate.
+	 * @param otSender The OT extension sender.
+	 * @param numberOfThreads The number of threads that garble the circuits of a batch.
+	 * @param schemeFactory Creates the encryption scheme of each circuit. Party two should use schemes of the same type.
+	 */
+	public SemiHonestYaoEngine(Channel channel, BooleanCircuit bc, OTBatchSender otSender, int numberOfThreads, MultiKeyEncryptionSchemeFactory schemeFactory){
+		this(channel, bc, numberOfThreads, schemeFactory);
+		this.otSender = otSender;
+	}
+	
+	/**
+	 * Creates the engine of party two, which computes the circuits and acts as the OT receiver. 
+	 * The circuits use {@link AESFixedKeyMultiKeyEncryption}.
+	 * @param channel The channel between both parties.
+	 * @param bc The boolean circuit to evaluate.
+	 * @param otReceiver The OT extension receiver.
+	 * @param numberOfThreads The number of threads that compute the circuits of a batch.
+	 */
+	public SemiHonestYaoEngine(Channel channel, BooleanCircuit bc, OTBatchReceiver otReceiver, int numberOfThreads){
+		this(channel, bc, otReceiver, numberOfThreads, new AESFixedKeySchemeFactory());
+	}
+	
+	/**
+	 * Creates the engine of party two, which computes the circuits and acts as the OT receiver.
+	 * @param channel The channel between both parties.
+	 * @param bc The boolean circuit to evaluate.
+	 * @param otReceiver The OT extension receiver.
+	 * @param numberOfThreads The number of threads that compute the circuits of a batch.
+	 * @param schemeFactory Creates the encryption scheme of each circuit. Party one should use schemes of the same type.
+	 */
+	public SemiHonestYaoEngine(Channel channel, BooleanCircuit bc, OTBatchReceiver otReceiver, int numberOfThreads, MultiKeyEncryptionSchemeFactory schemeFactory){
+		this(channel, bc, numberOfThreads, schemeFactory);
+		this.otReceiver = otReceiver;
+	}
+	
+	private SemiHonestYaoEngine(Channel channel, BooleanCircuit bc, int numberOfThreads, MultiKeyEncryptionSchemeFactory schemeFactory){
+		if (numberOfThreads <= 0){
+			throw new IllegalArgumentException("the number of threads should be positive");
+		}
+		this.channel = channel;
+		this.bc = bc;
+		this.schemeFactory = schemeFactory;
+		pool = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			partyOneIndices = bc.getInputWireIndices(1);
+			partyTwoIndices = bc.getInputWireIndices(2);
+		} catch (NoSuchPartyException e) {
+			throw new IllegalArgumentException("the circuit should have two parties");
+		}
+	}
+	
+	/**
+	 * The default factory, which creates an {@link AESFixedKeyMultiKeyEncryption} for each circuit.
+	 */
+	private static class AESFixedKeySchemeFactory implements MultiKeyEncryptionSchemeFactory {
+		public MultiKeyEncryptionScheme createScheme(){
+			return new AESFixedKeyMultiKeyEncryption();
+		}
+	}
+	
+	/**
+	 * Makes sure that there are at least the given number of circuits. Circuits that were created for previous batches are reused.
+	 */
+	private void prepareCircuits(int numberOfCircuits){
+		while (circuits.size() < numberOfCircuits){
+			//Each circuit has its own encryption scheme, so that the circuits can be garbled and computed concurrently.
+			MultiKeyEncryptionScheme mes = schemeFactory.createScheme();
+			keySize = mes.getCipherSize();
+			circuits.add(new GarbledBooleanCircuitImp(new FreeXORGarblingParameters(bc, mes, false)));
+		}
+	}
+	
+	/**
+	 * Checks that each of the given inputs has the given number of bits and that each bit is 0 or 1.
+	 */
+	private static void checkInputs(List<byte[]> inputs, int numberOfBits){
+		for (byte[] input : inputs){
+			if (input.length != numberOfBits){
+				throw new IllegalArgumentException("each input should have " + numberOfBits + " bits");
+			}
+			for (byte bit : input){
+				if (bit != 0 && bit != 1){
+					throw new IllegalArgumentException("each input bit should be 0 or 1");
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Runs party one on a batch of inputs.
+	 * @param ungarbledInputs The inputs of the executions. Each input holds 0 or 1 for each of party one's input wires.
+	 * @throws IllegalStateException if this is the engine of party two.
+	 * @throws IllegalArgumentException if one of the inputs has a wrong number of bits or a bit that is not 0 or 1. Nothing is sent in this case.
+	 * @throws IOException if there was a problem to send via the channel.
+	 */
+	public void runPartyOne(List<ArrayList<Byte>> ungarbledInputs) throws IOException, ClassNotFoundException, CheatAttemptException, InvalidDlogGroupException {
+		Span span = Metrics.getRecorder().startSpan("yao.batch.partyOne");
+		try {
+			if (otSender == null){
+				throw new IllegalStateException("this is the engine of party two");
+			}
+			//Check all the inputs before anything is sent, so that an invalid input does not leave the parties out of sync.
+			int numberOfInputs = partyOneIndices.size();
+			for (ArrayList<Byte> input : ungarbledInputs){
+				if (input.size() != numberOfInputs){
+					throw new IllegalArgumentException("each input should have " + numberOfInputs + " bits");
+				}
+				for (Byte bit : input){
+					if (bit == null || (bit != 0 && bit != 1)){
+						throw new IllegalArgumentException("each input bit should be 0 or 1");
+					}
+				}
+			}
+			int batchSize = ungarbledInputs.size();
+			prepareCircuits(batchSize);
+		
+			//Garble the circuits of the batch concurrently.
+			List<Callable<CircuitCreationValues>> tasks = new ArrayList<Callable<CircuitCreationValues>>();
+			for (int i = 0; i < batchSize; i++){
+				final GarbledBooleanCircuit circuit = circuits.get(i);
+				tasks.add(new Callable<CircuitCreationValues>() {
+					public CircuitCreationValues call() {
+						return circuit.garble();
+					}
+				});
+			}
+			List<CircuitCreationValues> values = invokeAll(tasks);
+		
+			//Send the garbled tables and translation tables of all the circuits.
+			GarbledTablesHolder[] tables = new GarbledTablesHolder[batchSize];
+			PackedTranslationTable[] translationTables = new PackedTranslationTable[batchSize];
+			for (int i = 0; i < batchSize; i++){
+				tables[i] = circuits.get(i).getGarbledTables();
+				translationTables[i] = circuits.get(i).getPackedTranslationTable();
+			}
+			channel.send(tables);
+			channel.send(translationTables);
+		
+			//Send the keys of party one's inputs in all the circuits.
+			byte[] inputKeys = new byte[batchSize * numberOfInputs * keySize];
+			for (int i = 0; i < batchSize; i++){
+				ArrayList<Byte> input = ungarbledInputs.get(i);
+				Map<Integer, SecretKey[]> keys = values.get(i).getAllInputWireValues();
+				for (int j = 0; j < numberOfInputs; j++){
+					byte[] key = keys.get(partyOneIndices.get(j))[input.get(j)].getEncoded();
+					System.arraycopy(key, 0, inputKeys, (i * numberOfInputs + j) * keySize, keySize);
+				}
+			}
+			channel.send(inputKeys);
+		
+			//Transfer the keys of party two's inputs in all the circuits using a single OT extension.
+			int numberOfOTs = batchSize * partyTwoIndices.size();
+			byte[] x0Arr = new byte[numberOfOTs * keySize];
+			byte[] x1Arr = new byte[numberOfOTs * keySize];
+			for (int i = 0; i < batchSize; i++){
+				Map<Integer, SecretKey[]> keys = values.get(i).getAllInputWireValues();
+				for (int j = 0; j < partyTwoIndices.size(); j++){
+					SecretKey[] wireKeys = keys.get(partyTwoIndices.get(j));
+					int offset = (i * partyTwoIndices.size() + j) * keySize;
+					System.arraycopy(wireKeys[0].getEncoded(), 0, x0Arr, offset, keySize);
+					System.arraycopy(wireKeys[1].getEncoded(), 0, x1Arr, offset, keySize);
+				}
+			}
+			otSender.transfer(channel, new OTExtensionGeneralSInput(x0Arr, x1Arr, numberOfOTs));
+		} finally {
+			span.end();
+		}
+	}
+	
+	/**
+	 * Runs party two on a batch of inputs.
+	 * @param ungarbledInputs The inputs of the executions. Each input holds 0 or 1 for each of party two's input wires.
+	 * @return the outputs of the executions, in the order of the inputs.
+	 * @throws IllegalStateException if this is the engine of party one.
+	 * @throws IllegalArgumentException if one of the inputs has a wrong number of bits or a bit that is not 0 or 1. Nothing is received in this case.
+	 * @throws CheatAttemptException if a message of party one is not of the expected type or size.
+	 */
+	public List<Map<Integer, Wire>> runPartyTwo(List<byte[]> ungarbledInputs) throws IOException, ClassNotFoundException, CheatAttemptException, InvalidDlogGroupException {
+		Span span = Metrics.getRecorder().startSpan("yao.batch.partyTwo");
+		try {
+			if (otReceiver == null){
+				throw new IllegalStateException("this is the engine of party one");
+			}
+			checkInputs(ungarbledInputs, partyTwoIndices.size());
+			final int batchSize = ungarbledInputs.size();
+			prepareCircuits(batchSize);
+		
+			//Receive the garbled tables and translation tables of all the circuits.
+			Serializable msg = channel.receive();
+			if (!(msg instanceof GarbledTablesHolder[]) || ((GarbledTablesHolder[]) msg).length != batchSize){
+				throw new CheatAttemptException("the received message should be an array of " + batchSize + " GarbledTablesHolder");
+			}
+			GarbledTablesHolder[] tables = (GarbledTablesHolder[]) msg;
+			msg = channel.receive();
+			if (!(msg instanceof PackedTranslationTable[]) || ((PackedTranslationTable[]) msg).length != batchSize){
+				throw new CheatAttemptException("the received message should be an array of " + batchSize + " PackedTranslationTable");
+			}
+			PackedTranslationTable[] translationTables = (PackedTranslationTable[]) msg;
+			for (int i = 0; i < batchSize; i++){
+				circuits.get(i).setGarbledTables(tables[i]);
+				circuits.get(i).setPackedTranslationTable(translationTables[i]);
+			}
+		
+			//Receive the keys of party one's inputs.
+			int numberOfInputs = partyOneIndices.size();
+			msg = channel.receive();
+			if (!(msg instanceof byte[]) || ((byte[]) msg).length != batchSize * numberOfInputs * keySize){
+				throw new CheatAttemptException("the received message should be the keys of party one's inputs");
+			}
+			byte[] inputKeys = (byte[]) msg;
+		
+			//Get the keys of party two's inputs in all the circuits using a single OT extension.
+			int numberOfOTs = batchSize * partyTwoIndices.size();
+			byte[] sigmaArr = new byte[numberOfOTs];
+			for (int i = 0; i < batchSize; i++){
+				byte[] input = ungarbledInputs.get(i);
+				System.arraycopy(input, 0, sigmaArr, i * input.length, input.length);
+			}
+			byte[] otKeys = ((OTOnByteArrayROutput) otReceiver.transfer(channel, new OTExtensionGeneralRInput(sigmaArr, keySize * 8))).getXSigma();
+		
+			//Set the inputs of the circuits.
+			for (int i = 0; i < batchSize; i++){
+				HashMap<Integer, GarbledWire> inputs = new HashMap<Integer, GarbledWire>();
+				for (int j = 0; j < numberOfInputs; j++){
+					inputs.put(partyOneIndices.get(j), new GarbledWire(new SecretKeySpec(inputKeys, (i * numberOfInputs + j) * keySize, keySize, "")));
+				}
+				for (int j = 0; j < partyTwoIndices.size(); j++){
+					int offset = (i * partyTwoIndices.size() + j) * keySize;
+					inputs.put(partyTwoIndices.get(j), new GarbledWire(new SecretKeySpec(otKeys, offset, keySize, "")));
+				}
+				circuits.get(i).setInputs(inputs);
+			}
+		
+			//Compute and translate the circuits concurrently.
+			List<Callable<Map<Integer, Wire>>> tasks = new ArrayList<Callable<Map<Integer, Wire>>>();
+			for (int i = 0; i < batchSize; i++){
+				final GarbledBooleanCircuit circuit = circuits.get(i);
+				tasks.add(new Callable<Map<Integer, Wire>>() {
+					public Map<Integer, Wire> call() throws NotAllInputsSetException {
+						return circuit.translate(circuit.compute());
+					}
+				});
+			}
+			return invokeAll(tasks);
+		} finally {
+			span.end();
+		}
+	}
+	
+	/**
+	 * Runs the given tasks on the thread pool and waits for all of them to finish.
+	 * @return the results of the tasks, in the order of the tasks.
+	 */
+	private <T> List<T> invokeAll(List<Callable<T>> tasks){
+		List<Future<T>> futures;
+		try {
+			futures = pool.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for the circuits", e);
+		}
+		List<T> results = new ArrayList<T>(futures.size());
+		for (Future<T> future : futures){
+			try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				// Should not occur since invokeAll returns after all the tasks are done.
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("interrupted while waiting for the circuits", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException){
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error){
+					throw (Error) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+		}
+		return results;
+	}
+	
+	/**
+	 * Stops the thread pool of the engine. The channel and the OT object are not closed.
+	 */
+	public void close(){
+		pool.shutdown();
+	}
+}
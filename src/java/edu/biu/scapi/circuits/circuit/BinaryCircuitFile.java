@@ -0,0 +1,360 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.logging.Level;
+import edu.biu.scapi.exceptions.CircuitFileFormatException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+import edu.biu.scapi.generals.Logging;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * Reads and writes circuits in SCAPI's compact binary circuit format.<p>
+ * 
+ * Parsing the text format of {@link BooleanCircuit} token by token and building a {@link Gate} object per gate is slow and takes 
+ * a lot of memory for large circuits. The binary format holds the same circuit in a struct-of-arrays layout that can be memory 
+ * mapped and copied in bulk into a {@link CompactBooleanCircuit}. <p>
+ * 
+ * All numbers are written in big endian order. The layout of the file is:<p>
+ * 1. A header: the magic number {@link #MAGIC}, the format version, the number of gates and the number of parties.<p>
+ * 2. For each party: the number of input wires, followed by the indices of these wires.<p>
+ * 3. The number of output wires, followed by their indices.<p>
+ * 4. The type of each gate (one byte per gate, see {@link CompactBooleanCircuit}), padded with zeros to a multiple of four bytes.<p>
+ * 5. The first input wire of each gate, the second input wire of each gate and the output wire of each gate (an int per gate in each section).<p>
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public final class BinaryCircuitFile {
+
+	/**
+	 * The first four bytes of every binary circuit file ("SCBC").
+	 */
+	public static final int MAGIC = 0x53434243;
+	
+	/**
+	 * The version of the format written by this class.
+	 */
+	public static final int VERSION = 1;
+	
+	//The size of the buffer used when writing the file.
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+	
+	private BinaryCircuitFile(){
+		// This class only has static functions.
+	}
+	
+	/**
+	 * Writes the given circuit to the given file in the binary format.
+	 * @param circuit The circuit to write.
+	 * @param file The file to write to. If the file exists, it is overwritten.
+	 * @throws IOException In case there was a problem writing the file.
+	 */
+	public static void write(CompactBooleanCircuit circuit, File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+			
+			int numberOfGates = circuit.getNumberOfGates();
+			int numberOfParties = circuit.getNumberOfParties();
+			
+			//Write the header and the input and output wires.
+			putInt(channel, buffer, MAGIC);
+			putInt(channel, buffer, VERSION);
+			putInt(channel, buffer, numberOfGates);
+			putInt(channel, buffer, numberOfParties);
+			for (int i = 0; i < numberOfParties; i++){
+				int[] partyInputs = circuit.getInputWireIndices(i+1);
+				putInt(channel, buffer, partyInputs.length);
+				putInts(channel, buffer, partyInputs);
+			}
+			putInt(channel, buffer, circuit.getOutputWireIndices().length);
+			putInts(channel, buffer, circuit.getOutputWireIndices());
+			
+			//Write the gates' types, aligned to four bytes.
+			byte[] types = circuit.getGateTypes();
+			for (int i = 0; i < numberOfGates; i++){
+				if (!buffer.hasRemaining()){
+					flush(channel, buffer);
+				}
+				buffer.put(types[i]);
+			}
+			for (int i = 0; i < padding(numberOfGates); i++){
+				if (!buffer.hasRemaining()){
+					flush(channel, buffer);
+				}
+				buffer.put((byte) 0);
+			}
+			
+			//Write the gates' wires.
+			putInts(channel, buffer, circuit.getFirstInputWires());
+			putInts(channel, buffer, circuit.getSecondInputWires());
+			putInts(channel, buffer, circuit.getOutputWires());
+			flush(channel, buffer);
+		} catch (NoSuchPartyException e) {
+			// Should not occur since the party number is between 1 to getNumberOfParties.
+		} finally {
+			raf.close();
+		}
+	}
+	
+	/**
+	 * Loads a circuit from the given binary circuit file.<p>
+	 * The file is memory mapped and each section is copied in bulk into the arrays of the returned circuit, so loading
+	 * takes about the time of reading the file from the disk.
+	 * @param file The binary circuit file.
+	 * @return the loaded circuit.
+	 * @throws IOException In case there was a problem reading the file.
+	 * @throws CircuitFileFormatException In case the file is not a valid binary circuit file.
+	 */
+	public static CompactBooleanCircuit read(File file) throws IOException, CircuitFileFormatException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long fileSize = channel.size();
+			long position = 0;
+			
+			//Read the header.
+			if (fileSize < 16){
+				throw new CircuitFileFormatException("the file is too short to be a binary circuit file");
+			}
+			MappedByteBuffer header = channel.map(MapMode.READ_ONLY, position, 16);
+			if (header.getInt() != MAGIC){
+				throw new CircuitFileFormatException("the file is not a binary circuit file");
+			}
+			int version = header.getInt();
+			if (version != VERSION){
+				throw new CircuitFileFormatException("unsupported binary circuit version " + version);
+			}
+			int numberOfGates = header.getInt();
+			int numberOfParties = header.getInt();
+			if (numberOfGates < 0 || numberOfParties < 0){
+				throw new CircuitFileFormatException();
+			}
+			position += 16;
+			
+			//Read the input wires of each party.
+			int[][] eachPartysInputWires = new int[numberOfParties][];
+			for (int i = 0; i < numberOfParties; i++){
+				int numberOfInputs = readInts(channel, position, 1, fileSize)[0];
+				position += 4;
+				eachPartysInputWires[i] = readInts(channel, position, numberOfInputs, fileSize);
+				position += 4L * numberOfInputs;
+			}
+			
+			//Read the output wires.
+			int numberOfOutputs = readInts(channel, position, 1, fileSize)[0];
+			position += 4;
+			int[] outputWireIndices = readInts(channel, position, numberOfOutputs, fileSize);
+			position += 4L * numberOfOutputs;
+			
+			//Read the gates' types.
+			checkSize(position, numberOfGates, fileSize);
+			byte[] types = new byte[numberOfGates];
+			if (numberOfGates > 0){
+				channel.map(MapMode.READ_ONLY, position, numberOfGates).get(types);
+			}
+			position += numberOfGates + padding(numberOfGates);
+			
+			//Read the gates' wires.
+			int[] firstInputs = readInts(channel, position, numberOfGates, fileSize);
+			position += 4L * numberOfGates;
+			int[] secondInputs = readInts(channel, position, numberOfGates, fileSize);
+			position += 4L * numberOfGates;
+			int[] outputs = readInts(channel, position, numberOfGates, fileSize);
+			
+			return new CompactBooleanCircuit(types, firstInputs, secondInputs, outputs, eachPartysInputWires, outputWireIndices);
+		} finally {
+			raf.close();
+		}
+	}
+	
+	/**
+	 * Parses a circuit written in the text format of {@link BooleanCircuit} directly into a {@link CompactBooleanCircuit}, 
+	 * without creating a {@link Gate} object per gate.
+	 * @param textCircuit The circuit file in the text format.
+	 * @return the parsed circuit.
+	 * @throws IOException In case there was a problem reading the file.
+	 * @throws CircuitFileFormatException In case the file is not a valid circuit file or has gates that can not be represented in the 
+	 * compact format.
+	 */
+	public static CompactBooleanCircuit parseTextCircuit(File textCircuit) throws IOException, CircuitFileFormatException {
+		InputStream in = new BufferedInputStream(new FileInputStream(textCircuit), WRITE_BUFFER_SIZE);
+		try {
+			CircuitFileTokenizer tokens = new CircuitFileTokenizer(in);
+			int numberOfGates = tokens.nextInt();
+			int numberOfParties = tokens.nextInt();
+			int[][] eachPartysInputWires = new int[numberOfParties][];
+			for (int i = 0; i < numberOfParties; i++) {
+				//Parties are indexed from 1.
+				if (tokens.nextInt() != i+1) {
+					throw new CircuitFileFormatException();
+				}
+				int numberOfInputs = tokens.nextInt();
+				if (numberOfInputs < 0){
+					throw new CircuitFileFormatException();
+				}
+				eachPartysInputWires[i] = new int[numberOfInputs];
+				for (int j = 0; j < numberOfInputs; j++) {
+					eachPartysInputWires[i][j] = tokens.nextInt();
+				}
+			}
+			
+			int numberOfOutputs = tokens.nextInt();
+			int[] outputWireIndices = new int[numberOfOutputs];
+			for (int i = 0; i < numberOfOutputs; i++) {
+				outputWireIndices[i] = tokens.nextInt();
+			}
+			
+			byte[] types = new byte[numberOfGates];
+			int[] firstInputs = new int[numberOfGates];
+			int[] secondInputs = new int[numberOfGates];
+			int[] outputs = new int[numberOfGates];
+			for (int i = 0; i < numberOfGates; i++) {
+				int numberOfGateInputs = tokens.nextInt();
+				int numberOfGateOutputs = tokens.nextInt();
+				if (numberOfGateInputs < 1 || numberOfGateInputs > 2 || numberOfGateOutputs != 1){
+					throw new CircuitFileFormatException("gate " + i + " has " + numberOfGateInputs + " inputs and " + 
+							numberOfGateOutputs + " outputs; only one or two inputs and a single output are supported");
+				}
+				firstInputs[i] = tokens.nextInt();
+				secondInputs[i] = (numberOfGateInputs == 2) ? tokens.nextInt() : CompactBooleanCircuit.NO_WIRE;
+				outputs[i] = tokens.nextInt();
+				
+				//Convert the 0-1 string of the truth table to the gate type.
+				String truthTable = tokens.next();
+				byte type = (numberOfGateInputs == 1) ? CompactBooleanCircuit.UNARY_GATE : 0;
+				for (int j = 0; j < truthTable.length() && j < (1 << numberOfGateInputs); j++) {
+					if (truthTable.charAt(j) == '1') {
+						type |= 1 << j;
+					}
+				}
+				types[i] = type;
+			}
+			return new CompactBooleanCircuit(types, firstInputs, secondInputs, outputs, eachPartysInputWires, outputWireIndices);
+		} finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Converts a circuit file in the text format of {@link BooleanCircuit} to a binary circuit file.
+	 * @param textCircuit The circuit file in the text format.
+	 * @param binaryCircuit The binary file to create.
+	 * @throws IOException In case there was a problem reading or writing the files.
+	 * @throws CircuitFileFormatException In case the text file is not a valid circuit file or has gates that can not be represented in 
+	 * the binary format.
+	 */
+	public static void convert(File textCircuit, File binaryCircuit) throws IOException, CircuitFileFormatException {
+		write(parseTextCircuit(textCircuit), binaryCircuit);
+	}
+	
+	/**
+	 * Converts a text circuit file to a binary circuit file.<p>
+	 * The conversion time is reported to the metrics recorder as "circuit.binary.convert".
+	 * @param args The text circuit file name and the binary circuit file name.
+	 */
+	public static void main(String[] args) throws IOException, CircuitFileFormatException {
+		if (args.length != 2){
+			Logging.getLogger().log(Level.SEVERE, "usage: BinaryCircuitFile <text circuit file> <binary circuit file>");
+			return;
+		}
+		Span span = Metrics.getRecorder().startSpan("circuit.binary.convert");
+		try {
+			convert(new File(args[0]), new File(args[1]));
+		} finally {
+			span.end();
+		}
+	}
+
+	/**
+	 * Returns the number of zero bytes that are added after the gates' types section.
+	 */
+	private static int padding(int numberOfGates) {
+		return (4 - (numberOfGates & 3)) & 3;
+	}
+	
+	/**
+	 * Checks that the file has enough bytes for a section of the given size.
+	 */
+	private static void checkSize(long position, long size, long fileSize) throws CircuitFileFormatException{
+		if (size < 0 || position + size > fileSize){
+			throw new CircuitFileFormatException("the binary circuit file is truncated");
+		}
+	}
+	
+	/**
+	 * Maps the given section of the file and copies the given number of ints from it.
+	 */
+	private static int[] readInts(FileChannel channel, long position, int count, long fileSize) throws IOException, CircuitFileFormatException {
+		checkSize(position, 4L * count, fileSize);
+		int[] result = new int[count];
+		if (count > 0){
+			channel.map(MapMode.READ_ONLY, position, 4L * count).asIntBuffer().get(result);
+		}
+		return result;
+	}
+	
+	private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException{
+		if (buffer.remaining() < 4){
+			flush(channel, buffer);
+		}
+		buffer.putInt(value);
+	}
+	
+	private static void putInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException{
+		int offset = 0;
+		while (offset < values.length){
+			if (buffer.remaining() < 4){
+				flush(channel, buffer);
+			}
+			int count = Math.min(buffer.remaining() / 4, values.length - offset);
+			buffer.asIntBuffer().put(values, offset, count);
+			buffer.position(buffer.position() + 4 * count);
+			offset += count;
+		}
+	}
+	
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException{
+		buffer.flip();
+		while (buffer.hasRemaining()){
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
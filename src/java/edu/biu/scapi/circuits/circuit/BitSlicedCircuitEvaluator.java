@@ -0,0 +1,237 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.util.Arrays;
+
+import edu.biu.scapi.exceptions.CircuitFileFormatException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+
+/**
+ * Evaluates a boolean circuit on 64 independent inputs at once. <p>
+ * Each wire holds a {@code long} whose bit j is the value of the wire in the j'th evaluation, and each gate is computed 
+ * by a few bitwise operations on the longs of its input wires. This is much faster than {@link BooleanCircuit#compute()} 
+ * for batch plaintext evaluation (for example, creating test vectors or verifying outputs), since there are no maps, 
+ * no {@link Wire} objects and no truth table lookups. <p>
+ * 
+ * The circuit is evaluated from its {@link CompactBooleanCircuit} representation, so all the gates should have one or two 
+ * inputs and a single output. <p>
+ * 
+ * The inputs are given in the order of the input wires of the parties, that is, the input wires of party 1 followed by the 
+ * input wires of party 2 and so on. The outputs are returned in the order of the output wire indices of the circuit. <p>
+ * 
+ * The evaluator does not change after it is created, so it can be used by many threads concurrently.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class BitSlicedCircuitEvaluator {
+	
+	private byte[] gateTypes;
+	private int[] firstInputWires;
+	private int[] secondInputWires;
+	private int[] outputWires;
+	private int[] inputWireIndices;		//The input wires of all the parties.
+	private int[] outputWireIndices;
+	private int numberOfWires;
+	
+	/**
+	 * Creates an evaluator for the given circuit.
+	 * @param circuit The circuit to evaluate.
+	 */
+	public BitSlicedCircuitEvaluator(CompactBooleanCircuit circuit){
+		gateTypes = circuit.getGateTypes();
+		firstInputWires = circuit.getFirstInputWires();
+		secondInputWires = circuit.getSecondInputWires();
+		outputWires = circuit.getOutputWires();
+		outputWireIndices = circuit.getOutputWireIndices();
+		numberOfWires = circuit.getNumberOfWires();
+		
+		int numberOfInputs = 0;
+		try {
+			for (int i = 1; i <= circuit.getNumberOfParties(); i++){
+				numberOfInputs += circuit.getInputWireIndices(i).length;
+			}
+			inputWireIndices = new int[numberOfInputs];
+			int index = 0;
+			for (int i = 1; i <= circuit.getNumberOfParties(); i++){
+				int[] partyWires = circuit.getInputWireIndices(i);
+				System.arraycopy(partyWires, 0, inputWireIndices, index, partyWires.length);
+				index += partyWires.length;
+			}
+		} catch (NoSuchPartyException e) {
+			// Should not occur since the party numbers are between 1 and the number of parties.
+		}
+	}
+	
+	/**
+	 * Creates an evaluator for the given circuit.
+	 * @param circuit The circuit to evaluate.
+	 * @throws CircuitFileFormatException if the circuit has a gate that does not have one or two inputs and a single output.
+	 */
+	public BitSlicedCircuitEvaluator(BooleanCircuit circuit) throws CircuitFileFormatException {
+		this(new CompactBooleanCircuit(circuit));
+	}
+	
+	/**
+	 * @return the number of input wires of all the parties together.
+	 */
+	public int getNumberOfInputs(){
+		return inputWireIndices.length;
+	}
+	
+	/**
+	 * @return the number of output wires of the circuit.
+	 */
+	public int getNumberOfOutputs(){
+		return outputWireIndices.length;
+	}
+	
+	/**
+	 * Computes the circuit on 64 inputs.
+	 * @param inputs An array with a long per input wire. Bit j of each long is the value of the wire in the j'th evaluation.
+	 * @return an array with a long per output wire. Bit j of each long is the value of the wire in the j'th evaluation.
+	 * @throws IllegalArgumentException if the number of inputs is not the number of input wires of the circuit.
+	 */
+	public long[] compute(long[] inputs){
+		if (inputs.length != inputWireIndices.length){
+			throw new IllegalArgumentException("expected " + inputWireIndices.length + " inputs but got " + inputs.length);
+		}
+		long[] values = new long[numberOfWires];
+		for (int i = 0; i < inputs.length; i++){
+			values[inputWireIndices[i]] = inputs[i];
+		}
+		
+		computeGates(values);
+		
+		long[] outputs = new long[outputWireIndices.length];
+		for (int i = 0; i < outputs.length; i++){
+			outputs[i] = values[outputWireIndices[i]];
+		}
+		return outputs;
+	}
+	
+	/**
+	 * Computes the gates of the circuit.
+	 * @param values A long per wire of the circuit, where the input wires are set. The other wires are set by this function.
+	 */
+	protected void computeGates(long[] values){
+		int numberOfGates = gateTypes.length;
+		for (int g = 0; g < numberOfGates; g++){
+			long a = values[firstInputWires[g]];
+			long result;
+			switch (gateTypes[g]){
+			case CompactBooleanCircuit.XOR:
+				result = a ^ values[secondInputWires[g]];
+				break;
+			case CompactBooleanCircuit.AND:
+				result = a & values[secondInputWires[g]];
+				break;
+			case CompactBooleanCircuit.OR:
+				result = a | values[secondInputWires[g]];
+				break;
+			case CompactBooleanCircuit.XNOR:
+				result = ~(a ^ values[secondInputWires[g]]);
+				break;
+			case CompactBooleanCircuit.NOT:
+				result = ~a;
+				break;
+			case CompactBooleanCircuit.IDENTITY:
+				result = a;
+				break;
+			default:
+				result = computeGeneralGate(gateTypes[g], a, values, secondInputWires[g]);
+			}
+			values[outputWires[g]] = result;
+		}
+	}
+	
+	/**
+	 * Computes the circuit on any number of inputs, 64 at a time.
+	 * @param inputs An array with an entry per evaluation. Each entry holds the input bits (0 or 1) of all the input wires.
+	 * @return an array with an entry per evaluation. Each entry holds the output bits of the evaluation.
+	 * @throws IllegalArgumentException if one of the entries does not have a bit per input wire.
+	 */
+	public byte[][] compute(byte[][] inputs){
+		int numberOfInputs = inputWireIndices.length;
+		byte[][] outputs = new byte[inputs.length][outputWireIndices.length];
+		long[] slicedInputs = new long[numberOfInputs];
+		
+		for (int start = 0; start < inputs.length; start += 64){
+			int end = Math.min(start + 64, inputs.length);
+			
+			//Transpose the inputs of the current evaluations into a long per wire.
+			Arrays.fill(slicedInputs, 0);
+			for (int j = start; j < end; j++){
+				if (inputs[j].length != numberOfInputs){
+					throw new IllegalArgumentException("expected " + numberOfInputs + " input bits but got " + inputs[j].length);
+				}
+				for (int i = 0; i < numberOfInputs; i++){
+					slicedInputs[i] |= (long) (inputs[j][i] & 1) << (j - start);
+				}
+			}
+			
+			long[] slicedOutputs = compute(slicedInputs);
+			
+			for (int j = start; j < end; j++){
+				for (int i = 0; i < slicedOutputs.length; i++){
+					outputs[j][i] = (byte) ((slicedOutputs[i] >>> (j - start)) & 1);
+				}
+			}
+		}
+		return outputs;
+	}
+	
+	/**
+	 * Computes a gate that is not one of the common types, using its truth table as a sum of minterms.
+	 */
+	private static long computeGeneralGate(byte type, long a, long[] values, int secondInputWire){
+		long result = 0;
+		if (CompactBooleanCircuit.isUnary(type)){
+			if ((type & 1) != 0){
+				result |= ~a;
+			}
+			if ((type & 2) != 0){
+				result |= a;
+			}
+			return result;
+		}
+		//Row r of the truth table is (first input << 1) | second input.
+		long b = values[secondInputWire];
+		if ((type & 1) != 0){
+			result |= ~a & ~b;
+		}
+		if ((type & 2) != 0){
+			result |= ~a & b;
+		}
+		if ((type & 4) != 0){
+			result |= a & ~b;
+		}
+		if ((type & 8) != 0){
+			result |= a & b;
+		}
+		return result;
+	}
+}
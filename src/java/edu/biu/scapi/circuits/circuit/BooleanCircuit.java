@@ -80,6 +80,11 @@ public class BooleanCircuit {
 	 * An arrayList containing the indices of the input {@code Wire}s of this {@code BooleanCircuit} indexed by the party number.
 	 */
 	private ArrayList<ArrayList<Integer>> eachPartysInputWires = new ArrayList<ArrayList<Integer>>();
+	
+	/**
+	 * The slots of the wires, computed the first time they are requested.
+	 */
+	private WireSlotAllocation wireSlotAllocation;
 
 	/**
 	 * Constructs a BooleanCircuit from a File. <p>
@@ -202,6 +207,11 @@ public class BooleanCircuit {
 		this.outputWireIndices = outputWireIndices;
 		this.eachPartysInputWires = eachPartysInputWires;
 		numberOfParties = eachPartysInputWires.size();
+		//A party that has no inputs is considered as a party whose input has been set.
+		isInputSet = new boolean[numberOfParties];
+		for (int i = 0; i < numberOfParties; i++) {
+			isInputSet[i] = eachPartysInputWires.get(i).size() == 0;
+		}
   	}
 
     /**
@@ -350,6 +360,94 @@ public class BooleanCircuit {
 	public int getNumberOfParties() {
 		return numberOfParties;
 	}
+	
+	/**
+	 * Returns the allocation of reusable slots to the wires of this circuit, so that an evaluator can hold only the wires that 
+	 * are live at the same time. The allocation is computed the first time this function is called.
+	 * @return the slots of the wires of this circuit.
+	 */
+	public synchronized WireSlotAllocation getWireSlotAllocation() {
+		if (wireSlotAllocation == null) {
+			wireSlotAllocation = new WireSlotAllocation(this);
+		}
+		return wireSlotAllocation;
+	}
+	
+	/**
+	 * Returns a {@link GateIterator} over the gates of this circuit, so that the circuit can be given to the engines that 
+	 * consume circuits gate by gate.
+	 */
+	public GateIterator getGateIterator() {
+		return new GateIterator() {
+			private int next = 0;
+			private int numberOfWires = -1;
+			
+			@Override
+			public int getNumberOfParties() {
+				return numberOfParties;
+			}
+			
+			@Override
+			public int[] getInputWireIndices(int partyNumber) throws NoSuchPartyException {
+				ArrayList<Integer> wires = BooleanCircuit.this.getInputWireIndices(partyNumber);
+				int[] indices = new int[wires.size()];
+				for (int i = 0; i < indices.length; i++) {
+					indices[i] = wires.get(i);
+				}
+				return indices;
+			}
+			
+			@Override
+			public int[] getOutputWireIndices() {
+				return outputWireIndices;
+			}
+			
+			@Override
+			public int getNumberOfWires() {
+				//The circuit does not hold the number of wires, so it is calculated once from every wire index that the circuit uses: 
+				//the input wires, the wires that the gates read and write, and the output wires.
+				if (numberOfWires == -1) {
+					int max = -1;
+					for (ArrayList<Integer> partyWires : eachPartysInputWires) {
+						for (int w : partyWires) {
+							max = Math.max(max, w);
+						}
+					}
+					for (Gate g : gates) {
+						for (int w : g.getInputWireIndices()) {
+							max = Math.max(max, w);
+						}
+						for (int w : g.getOutputWireIndices()) {
+							max = Math.max(max, w);
+						}
+					}
+					for (int w : outputWireIndices) {
+						max = Math.max(max, w);
+					}
+					numberOfWires = max + 1;
+				}
+				return numberOfWires;
+			}
+			
+			@Override
+			public boolean hasNext() {
+				return next < gates.length;
+			}
+			
+			@Override
+			public Gate next() {
+				if (next >= gates.length) {
+					throw new IllegalStateException("there are no more gates");
+				}
+				return gates[next++];
+			}
+			
+			@Override
+			public void close() {
+				//Nothing to release.
+			}
+		};
+	}
 }
 
 
@@ -0,0 +1,337 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import edu.biu.scapi.exceptions.CircuitFileFormatException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+
+/**
+ * Reads circuits written in the Bristol Fashion format. <p>
+ * A Bristol Fashion file starts with a header of the form: <p>
+ * <pre>
+ * numberOfGates numberOfWires
+ * numberOfInputValues inputValue1Size ... inputValueNSize
+ * numberOfOutputValues outputValue1Size ... outputValueMSize
+ * </pre>
+ * followed by one gate per line: <p>
+ * <pre>
+ * numberOfInputs numberOfOutputs inputWire1 ... outputWire1 ... operation
+ * </pre>
+ * The supported operations are XOR, AND, INV, EQW, EQ, MAND and OR. <p>
+ * The input wires are the first wires of the circuit, in the order of the input values, and the output wires are the last 
+ * wires of the circuit. Each input value is assigned to a different party, so the i'th input value (counting from 1) 
+ * belongs to party i. <p>
+ * 
+ * The circuit can either be read as a whole into a {@link BooleanCircuit}, or be iterated gate by gate with a 
+ * {@link GateIterator} that never holds more than a single line of the file in memory. Since SCAPI gates have no constant 
+ * inputs, an EQ gate (assignment of a constant) is converted into an XOR (for 0) or an XNOR (for 1) of the first input wire 
+ * with itself. A MAND gate is converted into its separate AND gates.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public final class BristolCircuitReader {
+	
+	private BristolCircuitReader(){
+		//Only static methods.
+	}
+	
+	/**
+	 * Reads the whole circuit in the given file.
+	 * @param f A file in the Bristol Fashion format.
+	 * @return the read circuit.
+	 * @throws IOException in case of a problem reading the file.
+	 * @throws CircuitFileFormatException if the file is not a legal Bristol Fashion file.
+	 */
+	public static BooleanCircuit readCircuit(File f) throws IOException, CircuitFileFormatException {
+		GateIterator iterator = openGateIterator(f);
+		try {
+			ArrayList<Gate> gates = new ArrayList<Gate>();
+			while (iterator.hasNext()){
+				gates.add(iterator.next());
+			}
+			
+			ArrayList<ArrayList<Integer>> eachPartysInputWires = new ArrayList<ArrayList<Integer>>();
+			for (int i = 1; i <= iterator.getNumberOfParties(); i++){
+				int[] indices = iterator.getInputWireIndices(i);
+				ArrayList<Integer> partyWires = new ArrayList<Integer>(indices.length);
+				for (int w : indices){
+					partyWires.add(w);
+				}
+				eachPartysInputWires.add(partyWires);
+			}
+			return new BooleanCircuit(gates.toArray(new Gate[gates.size()]), iterator.getOutputWireIndices(), eachPartysInputWires);
+		} catch (NoSuchPartyException e) {
+			// Should not occur since the party numbers are taken from the iterator itself.
+			throw new IllegalStateException(e);
+		} finally {
+			iterator.close();
+		}
+	}
+	
+	/**
+	 * Opens a {@link GateIterator} over the gates of the circuit in the given file. <p>
+	 * Only the header is read by this function. The gates are read when they are requested, and the file is closed by 
+	 * {@link GateIterator#close()}.
+	 * @param f A file in the Bristol Fashion format.
+	 * @throws IOException in case of a problem reading the file.
+	 * @throws CircuitFileFormatException if the header of the file is illegal.
+	 */
+	public static GateIterator openGateIterator(File f) throws IOException, CircuitFileFormatException {
+		return openGateIterator(new BufferedInputStream(new FileInputStream(f), 1 << 16));
+	}
+	
+	/**
+	 * Opens a {@link GateIterator} over the circuit in the given stream. 
+	 * @param in A stream of a circuit in the Bristol Fashion format. The stream is closed by {@link GateIterator#close()}.
+	 * @throws IOException in case of a problem reading the stream.
+	 * @throws CircuitFileFormatException if the header of the circuit is illegal.
+	 */
+	public static GateIterator openGateIterator(InputStream in) throws IOException, CircuitFileFormatException {
+		CircuitFileTokenizer tokens = new CircuitFileTokenizer(in);
+		try {
+			return new BristolGateIterator(tokens);
+		} catch (CircuitFileFormatException e) {
+			tokens.close();
+			throw e;
+		} catch (IOException e) {
+			tokens.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Reads the gates of a Bristol Fashion circuit one line at a time.
+	 */
+	private static class BristolGateIterator implements GateIterator {
+		private CircuitFileTokenizer tokens;
+		private int numberOfLines;
+		private int linesRead = 0;
+		private int numberOfWires;
+		private int[][] eachPartysInputWires;
+		private int[] outputWireIndices;
+		//The gates of the last read line that were not returned yet. A line holds more than one gate only in case of MAND.
+		private ArrayList<Gate> pending = new ArrayList<Gate>();
+		private int pendingIndex = 0;
+		private int gateNumber = 0;
+		
+		BristolGateIterator(CircuitFileTokenizer tokens) throws IOException, CircuitFileFormatException {
+			this.tokens = tokens;
+			numberOfLines = tokens.nextInt();
+			numberOfWires = tokens.nextInt();
+			if (numberOfLines < 0 || numberOfWires < 0){
+				throw new CircuitFileFormatException("illegal circuit header");
+			}
+			
+			int numberOfInputValues = tokens.nextInt();
+			eachPartysInputWires = new int[numberOfInputValues][];
+			int wire = 0;
+			for (int i = 0; i < numberOfInputValues; i++){
+				int size = tokens.nextInt();
+				eachPartysInputWires[i] = new int[size];
+				for (int j = 0; j < size; j++){
+					eachPartysInputWires[i][j] = wire++;
+				}
+			}
+			
+			int numberOfOutputValues = tokens.nextInt();
+			int numberOfOutputs = 0;
+			for (int i = 0; i < numberOfOutputValues; i++){
+				numberOfOutputs += tokens.nextInt();
+			}
+			if (wire > numberOfWires || numberOfOutputs > numberOfWires){
+				throw new CircuitFileFormatException("the circuit has more input or output wires than wires");
+			}
+			outputWireIndices = new int[numberOfOutputs];
+			for (int i = 0; i < numberOfOutputs; i++){
+				outputWireIndices[i] = numberOfWires - numberOfOutputs + i;
+			}
+		}
+
+		@Override
+		public int getNumberOfParties() {
+			return eachPartysInputWires.length;
+		}
+
+		@Override
+		public int[] getInputWireIndices(int partyNumber) throws NoSuchPartyException {
+			if (partyNumber < 1 || partyNumber > eachPartysInputWires.length){
+				throw new NoSuchPartyException();
+			}
+			return eachPartysInputWires[partyNumber - 1];
+		}
+
+		@Override
+		public int[] getOutputWireIndices() {
+			return outputWireIndices;
+		}
+
+		@Override
+		public int getNumberOfWires() {
+			return numberOfWires;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return pendingIndex < pending.size() || linesRead < numberOfLines;
+		}
+
+		@Override
+		public Gate next() throws IOException, CircuitFileFormatException {
+			if (pendingIndex == pending.size()){
+				if (linesRead == numberOfLines){
+					throw new IllegalStateException("there are no more gates");
+				}
+				pending.clear();
+				pendingIndex = 0;
+				readLine();
+				linesRead++;
+			}
+			return pending.get(pendingIndex++);
+		}
+		
+		/**
+		 * Reads the next gate line of the file into the pending gates list.
+		 */
+		private void readLine() throws IOException, CircuitFileFormatException {
+			int numberOfInputs = tokens.nextInt();
+			int numberOfOutputs = tokens.nextInt();
+			if (numberOfInputs < 0 || numberOfOutputs < 1){
+				throw new CircuitFileFormatException("illegal number of gate inputs or outputs");
+			}
+			int[] inputs = new int[numberOfInputs];
+			for (int i = 0; i < numberOfInputs; i++){
+				inputs[i] = tokens.nextInt();
+			}
+			int[] outputs = new int[numberOfOutputs];
+			for (int i = 0; i < numberOfOutputs; i++){
+				outputs[i] = readWire();
+			}
+			String operation = tokens.next();
+			
+			if (operation.equals("MAND")){
+				if (numberOfInputs != 2 * numberOfOutputs){
+					throw new CircuitFileFormatException("a MAND gate should have twice as many inputs as outputs");
+				}
+				for (int i = 0; i < numberOfOutputs; i++){
+					checkWire(inputs[i]);
+					checkWire(inputs[numberOfOutputs + i]);
+					addGate(truthTable(8), new int[]{inputs[i], inputs[numberOfOutputs + i]}, outputs[i]);
+				}
+				return;
+			}
+			
+			if (numberOfOutputs != 1){
+				throw new CircuitFileFormatException("a " + operation + " gate should have a single output");
+			}
+			if (operation.equals("EQ")){
+				//The input of EQ is a constant rather than a wire.
+				if (numberOfInputs != 1 || inputs[0] < 0 || inputs[0] > 1){
+					throw new CircuitFileFormatException("an EQ gate should have a single constant bit input");
+				}
+				int anyWire = findAnyInputWire();
+				//XOR of a wire with itself is always 0 and XNOR of a wire with itself is always 1.
+				addGate(truthTable(inputs[0] == 0 ? 6 : 9), new int[]{anyWire, anyWire}, outputs[0]);
+				return;
+			}
+			
+			for (int i = 0; i < numberOfInputs; i++){
+				checkWire(inputs[i]);
+			}
+			int type;
+			int expectedInputs = 2;
+			if (operation.equals("XOR")){
+				type = 6;
+			} else if (operation.equals("AND")){
+				type = 8;
+			} else if (operation.equals("OR")){
+				type = 14;
+			} else if (operation.equals("INV")){
+				type = 1;
+				expectedInputs = 1;
+			} else if (operation.equals("EQW")){
+				type = 2;
+				expectedInputs = 1;
+			} else {
+				throw new CircuitFileFormatException("unknown gate operation " + operation);
+			}
+			if (numberOfInputs != expectedInputs){
+				throw new CircuitFileFormatException("a " + operation + " gate should have " + expectedInputs + " inputs");
+			}
+			addGate(truthTable(type), inputs, outputs[0]);
+		}
+		
+		private void addGate(BitSet truthTable, int[] inputs, int output){
+			pending.add(new Gate(gateNumber++, truthTable, inputs, new int[]{output}));
+		}
+		
+		private int readWire() throws IOException, CircuitFileFormatException {
+			int wire = tokens.nextInt();
+			checkWire(wire);
+			return wire;
+		}
+		
+		private void checkWire(int wire) throws CircuitFileFormatException {
+			if (wire < 0 || wire >= numberOfWires){
+				throw new CircuitFileFormatException("wire index " + wire + " is out of range");
+			}
+		}
+		
+		private int findAnyInputWire() throws CircuitFileFormatException {
+			for (int[] partyWires : eachPartysInputWires){
+				if (partyWires.length > 0){
+					return partyWires[0];
+				}
+			}
+			throw new CircuitFileFormatException("a constant gate requires the circuit to have at least one input wire");
+		}
+		
+		/**
+		 * Creates a truth table from its bits, where bit i holds the output of row i.
+		 */
+		private static BitSet truthTable(int bits){
+			BitSet truthTable = new BitSet();
+			for (int i = 0; i < 4; i++){
+				if ((bits & (1 << i)) != 0){
+					truthTable.set(i);
+				}
+			}
+			return truthTable;
+		}
+
+		@Override
+		public void close() throws IOException {
+			tokens.close();
+		}
+	}
+}
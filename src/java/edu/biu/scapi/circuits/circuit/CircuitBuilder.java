@@ -0,0 +1,458 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+/**
+ * Builds a {@link BooleanCircuit} in code, instead of reading it from a file. <p>
+ * The builder creates the wires and gates of the circuit one by one. Each function that adds a gate returns the index of 
+ * its output wire, which can be used as an input of later gates. Numbers are represented as arrays of wires, where the wire 
+ * in place 0 is the least significant bit. {@link CircuitGadgets} contains arithmetic gadgets that are built on top of this class. <p>
+ * 
+ * Since XOR and XNOR gates are free when garbling with the Free XOR technique, the builder keeps the number of other gates low:
+ * <ul>
+ * <li> NOT is built as a XOR with the constant 1 wire, so it is free. </li>
+ * <li> The constant wires are computed as XOR and XNOR of an input wire with itself, so they are free as well. </li>
+ * <li> Gates that have a constant input, the same input twice or an input and its negation are simplified without adding a gate. </li>
+ * <li> {@link #build()} removes the gates that do not influence any output wire. </li>
+ * </ul>
+ * All the gates that the builder adds have two inputs, so the circuit can be garbled by all the garbled circuit implementations.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class CircuitBuilder {
+	
+	//Truth tables of two input gates, where bit r is the output of row r and the first input is the most significant bit of r.
+	private static final int AND_TABLE = 0x8;
+	private static final int OR_TABLE = 0xE;
+	private static final int XOR_TABLE = 0x6;
+	private static final int XNOR_TABLE = 0x9;
+	
+	private static final int NONE = -1;
+	
+	private ArrayList<BuiltGate> gates;
+	private ArrayList<ArrayList<Integer>> eachPartysInputWires;
+	private ArrayList<Integer> outputWires;
+	private int numberOfWires;
+	
+	//negations[w] is a wire that holds the negation of wire w, or NONE. Used in order to simplify gates.
+	private int[] negations;
+	private boolean[] isInputWire;
+	private boolean[] isOutputWire;
+	private int zero = NONE;
+	private int one = NONE;
+	private int firstInput = NONE;
+	
+	/**
+	 * Creates an empty builder.
+	 */
+	public CircuitBuilder(){
+		gates = new ArrayList<BuiltGate>();
+		eachPartysInputWires = new ArrayList<ArrayList<Integer>>();
+		outputWires = new ArrayList<Integer>();
+		negations = new int[64];
+		isInputWire = new boolean[64];
+		isOutputWire = new boolean[64];
+	}
+	
+	/**
+	 * Adds an input wire of the given party.
+	 * @param partyNumber The number of the party, starting from 1.
+	 * @return the index of the new wire.
+	 */
+	public int addInput(int partyNumber){
+		if (partyNumber < 1){
+			throw new IllegalArgumentException("the party number should be positive");
+		}
+		while (eachPartysInputWires.size() < partyNumber){
+			eachPartysInputWires.add(new ArrayList<Integer>());
+		}
+		int wire = newWire();
+		isInputWire[wire] = true;
+		eachPartysInputWires.get(partyNumber - 1).add(wire);
+		if (firstInput == NONE){
+			firstInput = wire;
+		}
+		return wire;
+	}
+	
+	/**
+	 * Adds the given number of input wires of the given party.
+	 * @param partyNumber The number of the party, starting from 1.
+	 * @param numberOfInputs The number of wires to add.
+	 * @return the indices of the new wires.
+	 */
+	public int[] addInputs(int partyNumber, int numberOfInputs){
+		int[] wires = new int[numberOfInputs];
+		for (int i = 0; i < numberOfInputs; i++){
+			wires[i] = addInput(partyNumber);
+		}
+		return wires;
+	}
+	
+	/**
+	 * Marks the given wire as an output wire of the circuit. <p>
+	 * In case the wire is an input wire or it was already marked as an output wire, a copy of it is made (using a free XOR gate), 
+	 * so each output wire is set by a different gate.
+	 * @param wire The wire to output.
+	 * @return the index of the output wire.
+	 */
+	public int addOutput(int wire){
+		checkWire(wire);
+		if (isInputWire[wire] || isOutputWire[wire]){
+			wire = addGate(XOR_TABLE, wire, zero());
+		}
+		isOutputWire[wire] = true;
+		outputWires.add(wire);
+		return wire;
+	}
+	
+	/**
+	 * Marks the given wires as output wires of the circuit, in the given order.
+	 * @return the indices of the output wires.
+	 * @see #addOutput(int)
+	 */
+	public int[] addOutputs(int[] wires){
+		int[] outputs = new int[wires.length];
+		for (int i = 0; i < wires.length; i++){
+			outputs[i] = addOutput(wires[i]);
+		}
+		return outputs;
+	}
+	
+	/**
+	 * Returns a wire that is always 0. The wire is the XOR of an input wire with itself, so at least one input wire should be added first.
+	 * @throws IllegalStateException if no input wire was added.
+	 */
+	public int zero(){
+		if (zero == NONE){
+			zero = addGate(XOR_TABLE, getFirstInput(), getFirstInput());
+		}
+		return zero;
+	}
+	
+	/**
+	 * Returns a wire that is always 1. The wire is the XNOR of an input wire with itself, so at least one input wire should be added first.
+	 * @throws IllegalStateException if no input wire was added.
+	 */
+	public int one(){
+		if (one == NONE){
+			one = addGate(XNOR_TABLE, getFirstInput(), getFirstInput());
+			setNegations(one, zero());
+		}
+		return one;
+	}
+	
+	/**
+	 * Returns the constant wire of the given value.
+	 */
+	public int constant(boolean value){
+		return value ? one() : zero();
+	}
+	
+	private int getFirstInput(){
+		if (firstInput == NONE){
+			throw new IllegalStateException("an input wire should be added before using constant wires");
+		}
+		return firstInput;
+	}
+	
+	/**
+	 * Returns the negation of the given wire. This does not add a non-XOR gate.
+	 */
+	public int not(int a){
+		checkWire(a);
+		if (a == zero){
+			return one();
+		}
+		if (a == one){
+			return zero();
+		}
+		if (negations[a] == NONE){
+			setNegations(a, addGate(XOR_TABLE, a, one()));
+		}
+		return negations[a];
+	}
+	
+	/**
+	 * Returns the XOR of the given wires. This does not add a non-XOR gate.
+	 */
+	public int xor(int a, int b){
+		checkWire(a);
+		checkWire(b);
+		if (a == b){
+			return zero();
+		}
+		if (negations[a] == b){
+			return one();
+		}
+		if (a == zero){
+			return b;
+		}
+		if (b == zero){
+			return a;
+		}
+		if (a == one){
+			return not(b);
+		}
+		if (b == one){
+			return not(a);
+		}
+		return addGate(XOR_TABLE, a, b);
+	}
+	
+	/**
+	 * Returns the XNOR (equality) of the given wires. This does not add a non-XOR gate.
+	 */
+	public int xnor(int a, int b){
+		checkWire(a);
+		checkWire(b);
+		if (a == b || negations[a] == b || a == zero || b == zero || a == one || b == one){
+			return not(xor(a, b));
+		}
+		return addGate(XNOR_TABLE, a, b);
+	}
+	
+	/**
+	 * Returns the AND of the given wires. This adds at most one non-XOR gate.
+	 */
+	public int and(int a, int b){
+		checkWire(a);
+		checkWire(b);
+		if (a == zero || b == zero || negations[a] == b){
+			return zero();
+		}
+		if (a == one || a == b){
+			return b;
+		}
+		if (b == one){
+			return a;
+		}
+		return addGate(AND_TABLE, a, b);
+	}
+	
+	/**
+	 * Returns the OR of the given wires. This adds at most one non-XOR gate.
+	 */
+	public int or(int a, int b){
+		checkWire(a);
+		checkWire(b);
+		if (a == one || b == one || negations[a] == b){
+			return one();
+		}
+		if (a == zero || a == b){
+			return b;
+		}
+		if (b == zero){
+			return a;
+		}
+		return addGate(OR_TABLE, a, b);
+	}
+	
+	/**
+	 * Adds a 2-input gate with the given truth table. The gate is not simplified.
+	 * @param truthTable The truth table of the gate, where the first input is the most significant bit of the row number (as in {@link Gate}).
+	 * @param a The first input wire of the gate.
+	 * @param b The second input wire of the gate.
+	 * @return the index of the output wire of the gate.
+	 * @throws IllegalArgumentException if the truth table has rows beyond the four rows of a 2-input gate.
+	 */
+	public int gate(BitSet truthTable, int a, int b){
+		if (truthTable.length() > 4){
+			throw new IllegalArgumentException("the truth table of a 2-input gate should have 4 rows");
+		}
+		checkWire(a);
+		checkWire(b);
+		int output = newWire();
+		gates.add(new BuiltGate((BitSet) truthTable.clone(), new int[] {a, b}, output));
+		return output;
+	}
+	
+	/**
+	 * Returns the XOR of each pair of wires in the given arrays.
+	 */
+	public int[] xor(int[] a, int[] b){
+		checkLengths(a, b);
+		int[] result = new int[a.length];
+		for (int i = 0; i < a.length; i++){
+			result[i] = xor(a[i], b[i]);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the AND of each pair of wires in the given arrays.
+	 */
+	public int[] and(int[] a, int[] b){
+		checkLengths(a, b);
+		int[] result = new int[a.length];
+		for (int i = 0; i < a.length; i++){
+			result[i] = and(a[i], b[i]);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the negation of each of the given wires.
+	 */
+	public int[] not(int[] a){
+		int[] result = new int[a.length];
+		for (int i = 0; i < a.length; i++){
+			result[i] = not(a[i]);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the given number of constant wires that hold the given value, where the wire in place 0 is the least significant bit.
+	 */
+	public int[] constant(long value, int numberOfBits){
+		int[] result = new int[numberOfBits];
+		for (int i = 0; i < numberOfBits; i++){
+			result[i] = constant(i < 64 && ((value >>> i) & 1) == 1);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the number of gates that were added so far, including gates that may be removed by {@link #build()}.
+	 */
+	public int getNumberOfGates(){
+		return gates.size();
+	}
+	
+	/**
+	 * Builds the circuit. <p>
+	 * The gates that do not influence any output wire are removed and the remaining gates are numbered consecutively. 
+	 * The builder can still be used after calling this function.
+	 * @return the built circuit.
+	 * @throws IllegalStateException if no output wire was added.
+	 */
+	public BooleanCircuit build(){
+		if (outputWires.isEmpty()){
+			throw new IllegalStateException("the circuit should have at least one output wire");
+		}
+		int[] outputs = new int[outputWires.size()];
+		boolean[] isLive = new boolean[numberOfWires];
+		for (int i = 0; i < outputs.length; i++){
+			outputs[i] = outputWires.get(i);
+			isLive[outputs[i]] = true;
+		}
+		
+		//Go over the gates from the last one and keep the gates whose output is used.
+		boolean[] keep = new boolean[gates.size()];
+		int numberOfGates = 0;
+		for (int i = gates.size() - 1; i >= 0; i--){
+			BuiltGate gate = gates.get(i);
+			if (isLive[gate.output]){
+				keep[i] = true;
+				numberOfGates++;
+				for (int w : gate.inputs){
+					isLive[w] = true;
+				}
+			}
+		}
+		
+		Gate[] result = new Gate[numberOfGates];
+		int gateNumber = 0;
+		for (int i = 0; i < keep.length; i++){
+			if (keep[i]){
+				BuiltGate gate = gates.get(i);
+				result[gateNumber] = new Gate(gateNumber, (BitSet) gate.truthTable.clone(), gate.inputs.clone(), new int[]{gate.output});
+				gateNumber++;
+			}
+		}
+		
+		ArrayList<ArrayList<Integer>> inputs = new ArrayList<ArrayList<Integer>>();
+		for (ArrayList<Integer> partyWires : eachPartysInputWires){
+			inputs.add(new ArrayList<Integer>(partyWires));
+		}
+		return new BooleanCircuit(result, outputs, inputs);
+	}
+	
+	private int addGate(int table, int a, int b){
+		BitSet truthTable = new BitSet();
+		for (int row = 0; row < 4; row++){
+			if (((table >> row) & 1) == 1){
+				truthTable.set(row);
+			}
+		}
+		int output = newWire();
+		gates.add(new BuiltGate(truthTable, new int[]{a, b}, output));
+		return output;
+	}
+	
+	private int newWire(){
+		if (numberOfWires == negations.length){
+			int capacity = 2 * numberOfWires;
+			int[] newNegations = new int[capacity];
+			System.arraycopy(negations, 0, newNegations, 0, numberOfWires);
+			negations = newNegations;
+			boolean[] newIsInputWire = new boolean[capacity];
+			System.arraycopy(isInputWire, 0, newIsInputWire, 0, numberOfWires);
+			isInputWire = newIsInputWire;
+			boolean[] newIsOutputWire = new boolean[capacity];
+			System.arraycopy(isOutputWire, 0, newIsOutputWire, 0, numberOfWires);
+			isOutputWire = newIsOutputWire;
+		}
+		negations[numberOfWires] = NONE;
+		return numberOfWires++;
+	}
+	
+	private void setNegations(int a, int b){
+		negations[a] = b;
+		negations[b] = a;
+	}
+	
+	private void checkWire(int wire){
+		if (wire < 0 || wire >= numberOfWires){
+			throw new IllegalArgumentException("wire " + wire + " does not exist");
+		}
+	}
+	
+	private static void checkLengths(int[] a, int[] b){
+		if (a.length != b.length){
+			throw new IllegalArgumentException("the arrays should have the same length");
+		}
+	}
+	
+	/**
+	 * A gate that was added to the builder.
+	 */
+	private static class BuiltGate {
+		private BitSet truthTable;
+		private int[] inputs;
+		private int output;
+		
+		BuiltGate(BitSet truthTable, int[] inputs, int output){
+			this.truthTable = truthTable;
+			this.inputs = inputs;
+			this.output = output;
+		}
+	}
+}
@@ -0,0 +1,415 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiles circuits into JVM classes that are generated and loaded at runtime. <p>
+ * Evaluating a circuit gate by gate goes through the gate arrays, a switch on the gate type and indirect array accesses in 
+ * every gate, so the JIT can not do much with it. The compiled code has no loops and no branches: every gate is a few 
+ * bytecodes that load the values of the input wires from a {@code long} array by constant indices, combine them and store 
+ * the result. <p>
+ * 
+ * The gates are divided into parts, and each part into chunks. Each chunk is a static method whose code is below the size 
+ * that HotSpot agrees to compile (8000 bytes), and far below the limit of 64KB of a method. When a class reaches the limits 
+ * of the constant pool, the following chunks are written to a new class. The classes of a single compilation are defined by 
+ * their own class loader, so they are unloaded once the returned {@link Program} is no longer referenced. <p>
+ * 
+ * Two kinds of programs are created:
+ * <ul>
+ * <li> Bit-sliced programs, used by {@link CompiledCircuitEvaluator}. Each wire is a single {@code long} whose bits are 
+ * the values of the wire in 64 evaluations, and all the gate types of {@link CompactBooleanCircuit} are supported. </li>
+ * <li> Label programs, for the XOR gates of a Free XOR garbled circuit. Each wire is a label of 128 bits, held in two 
+ * consecutive {@code long}s, and the gates are XOR or XNOR gates. </li>
+ * </ul>
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class CircuitCompiler {
+	
+	/**
+	 * A compiled part of a circuit. The generated classes implement this interface.
+	 */
+	public interface Program {
+		
+		/**
+		 * Computes the gates of the given part.
+		 * @param part The number of the part to compute.
+		 * @param values The values of the wires. The values of the output wires of the gates are set.
+		 * @param offsetHigh The high long of the global offset that is XORed to the output of XNOR gates, in label programs.
+		 * @param offsetLow The low long of the global offset that is XORed to the output of XNOR gates, in label programs.
+		 */
+		public void compute(int part, long[] values, long offsetHigh, long offsetLow);
+	}
+	
+	private static final String PACKAGE = "edu/biu/scapi/circuits/circuit/";
+	private static final String PROGRAM = PACKAGE + "CircuitCompiler$Program";
+	private static final String CHUNK_DESCRIPTOR = "([JJJ)V";
+	
+	private static final int MAX_CHUNK_SIZE = 7000;			//Below the 8000 bytes that HotSpot compiles.
+	private static final int MAX_CONSTANT_POOL_SIZE = 60000;	//Below the 65535 entries of a class, with room for a gate and the dispatcher.
+	private static final int MAX_CHUNKS_PER_CLASS = 1000;		//Keeps the dispatcher below the 64KB of a method.
+	private static final int MAX_STACK = 16;
+	private static final int CHUNK_LOCALS = 5;					//values, offsetHigh and offsetLow.
+	private static final int COMPUTE_LOCALS = 7;				//this, part, values, offsetHigh and offsetLow.
+	
+	private static final AtomicInteger classCounter = new AtomicInteger();
+	
+	/**
+	 * Defines the classes of a single compilation.
+	 */
+	private static class ProgramClassLoader extends ClassLoader {
+		ProgramClassLoader(ClassLoader parent){
+			super(parent);
+		}
+		
+		Class<?> define(String name, byte[] bytes){
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+	
+	/**
+	 * Calls the classes that have chunks of each part.
+	 */
+	private static class MultiClassProgram implements Program {
+		private Program[] classes;
+		private int[][] classesOfPart;
+		
+		MultiClassProgram(Program[] classes, int[][] classesOfPart){
+			this.classes = classes;
+			this.classesOfPart = classesOfPart;
+		}
+		
+		public void compute(int part, long[] values, long offsetHigh, long offsetLow){
+			for (int c : classesOfPart[part]){
+				classes[c].compute(part, values, offsetHigh, offsetLow);
+			}
+		}
+	}
+	
+	//The state of a single compilation.
+	private ProgramClassLoader loader = new ProgramClassLoader(CircuitCompiler.class.getClassLoader());
+	private int numberOfParts;
+	private ArrayList<Program> classes = new ArrayList<Program>();
+	private ArrayList<ArrayList<Integer>> classesOfPart = new ArrayList<ArrayList<Integer>>();
+	private ClassFileWriter writer;
+	private ArrayList<Integer> chunkParts;		//The part of each chunk of the current class.
+	private ClassFileWriter.Code chunk;
+	private int part;
+	
+	private CircuitCompiler(int numberOfParts){
+		this.numberOfParts = numberOfParts;
+		for (int i = 0; i < numberOfParts; i++){
+			classesOfPart.add(new ArrayList<Integer>());
+		}
+	}
+	
+	/**
+	 * Compiles the given circuit into a bit-sliced program with a single part. <p>
+	 * Wire w is at index w of the values. 
+	 * @param circuit The circuit to compile.
+	 * @return the compiled circuit.
+	 */
+	static Program compileBitSliced(CompactBooleanCircuit circuit){
+		byte[] gateTypes = circuit.getGateTypes();
+		int[] firstInputs = circuit.getFirstInputWires();
+		int[] secondInputs = circuit.getSecondInputWires();
+		int[] outputs = circuit.getOutputWires();
+		
+		CircuitCompiler compiler = new CircuitCompiler(1);
+		compiler.startPart(0);
+		for (int g = 0; g < gateTypes.length; g++){
+			compiler.startGate();
+			compiler.chunk.op(ClassFileWriter.ALOAD_0);
+			compiler.chunk.pushInt(outputs[g]);
+			compiler.computeBitSliced(gateTypes[g], firstInputs[g], secondInputs[g]);
+			compiler.chunk.op(ClassFileWriter.LASTORE);
+			compiler.endGate();
+		}
+		return compiler.finish();
+	}
+	
+	/**
+	 * Compiles XOR and XNOR gates of a Free XOR garbled circuit into a label program. <p>
+	 * The label of wire w is at indices 2w (the high long) and 2w + 1 (the low long) of the values. The output label of a XOR 
+	 * gate is the XOR of its input labels, and the output label of a XNOR gate is also XORed with the given offset. 
+	 * In garbling, the labels are the 0-keys and the offset is the global key offset; In computation, the labels are the 
+	 * computed keys and the offset is 0.
+	 * @param gatesOfPart The numbers of the gates of each part. The gates of a part are computed in the given order.
+	 * @param isXNOR For each gate, true if it is a XNOR gate and false if it is a XOR gate.
+	 * @param firstInputs The first input wire of each gate.
+	 * @param secondInputs The second input wire of each gate.
+	 * @param outputs The output wires of each gate.
+	 * @return the compiled gates. Part i of the program computes the gates of gatesOfPart[i].
+	 */
+	public static Program compileLabelGates(int[][] gatesOfPart, boolean[] isXNOR, int[] firstInputs, int[] secondInputs, int[][] outputs){
+		CircuitCompiler compiler = new CircuitCompiler(gatesOfPart.length);
+		for (int p = 0; p < gatesOfPart.length; p++){
+			compiler.startPart(p);
+			for (int g : gatesOfPart[p]){
+				compiler.startGate();
+				for (int w : outputs[g]){
+					compiler.computeLabel(2 * w, 2 * firstInputs[g], 2 * secondInputs[g], isXNOR[g], 1);
+					compiler.computeLabel(2 * w + 1, 2 * firstInputs[g] + 1, 2 * secondInputs[g] + 1, isXNOR[g], 3);
+				}
+				compiler.endGate();
+			}
+		}
+		return compiler.finish();
+	}
+	
+	private void load(int index){
+		chunk.op(ClassFileWriter.ALOAD_0);
+		chunk.pushInt(index);
+		chunk.op(ClassFileWriter.LALOAD);
+	}
+	
+	private void pushAllOnes(){
+		chunk.op(ClassFileWriter.LCONST_1);
+		chunk.op(ClassFileWriter.LNEG);
+	}
+	
+	/**
+	 * Pushes the output of a bit-sliced gate.
+	 */
+	private void computeBitSliced(byte type, int a, int b){
+		switch (type){
+		case CompactBooleanCircuit.XOR:
+			load(a);
+			load(b);
+			chunk.op(ClassFileWriter.LXOR);
+			return;
+		case CompactBooleanCircuit.AND:
+			load(a);
+			load(b);
+			chunk.op(ClassFileWriter.LAND);
+			return;
+		case CompactBooleanCircuit.OR:
+			load(a);
+			load(b);
+			chunk.op(ClassFileWriter.LOR);
+			return;
+		}
+		
+		if (CompactBooleanCircuit.isUnary(type)){
+			//Bit 0 is the output when the input is 0, and bit 1 is the output when the input is 1.
+			switch (type & 3){
+			case 0:
+				chunk.op(ClassFileWriter.LCONST_0);
+				break;
+			case 1:
+				load(a);
+				pushAllOnes();
+				chunk.op(ClassFileWriter.LXOR);
+				break;
+			case 2:
+				load(a);
+				break;
+			default:
+				pushAllOnes();
+			}
+			return;
+		}
+		
+		//Any other gate is the XOR of the terms of its algebraic normal form: f(a, b) = c ^ (ca & a) ^ (cb & b) ^ (cab & a & b).
+		//Row r of the truth table is (first input << 1) | second input.
+		int t0 = type & 1, t1 = (type >> 1) & 1, t2 = (type >> 2) & 1, t3 = (type >> 3) & 1;
+		int terms = 0;
+		if (t0 == 1){
+			pushAllOnes();
+			terms++;
+		}
+		if ((t0 ^ t2) == 1){
+			load(a);
+			terms = xorTerm(terms);
+		}
+		if ((t0 ^ t1) == 1){
+			load(b);
+			terms = xorTerm(terms);
+		}
+		if ((t0 ^ t1 ^ t2 ^ t3) == 1){
+			load(a);
+			load(b);
+			chunk.op(ClassFileWriter.LAND);
+			terms = xorTerm(terms);
+		}
+		if (terms == 0){
+			chunk.op(ClassFileWriter.LCONST_0);
+		}
+	}
+	
+	private int xorTerm(int terms){
+		if (terms > 0){
+			chunk.op(ClassFileWriter.LXOR);
+		}
+		return terms + 1;
+	}
+	
+	/**
+	 * Sets a single long of the output label of a XOR or XNOR gate.
+	 * @param offsetLocal The local variable of the long of the offset that matches this long of the label.
+	 */
+	private void computeLabel(int output, int a, int b, boolean isXNOR, int offsetLocal){
+		chunk.op(ClassFileWriter.ALOAD_0);
+		chunk.pushInt(output);
+		load(a);
+		load(b);
+		chunk.op(ClassFileWriter.LXOR);
+		if (isXNOR){
+			chunk.op(ClassFileWriter.LLOAD, offsetLocal);
+			chunk.op(ClassFileWriter.LXOR);
+		}
+		chunk.op(ClassFileWriter.LASTORE);
+	}
+	
+	private void startPart(int part){
+		if (chunk != null){
+			endChunk();
+		}
+		this.part = part;
+	}
+	
+	/**
+	 * Makes sure that there is an open chunk in a class that has room for another gate.
+	 */
+	private void startGate(){
+		if (writer != null && writer.getConstantPoolSize() > MAX_CONSTANT_POOL_SIZE){
+			if (chunk != null){
+				endChunk();
+			}
+			endClass();
+		}
+		if (writer == null){
+			writer = new ClassFileWriter(PACKAGE + "CompiledCircuit$" + classCounter.incrementAndGet(), PROGRAM);
+			chunkParts = new ArrayList<Integer>();
+		}
+		if (chunk == null){
+			chunk = writer.newCode();
+		}
+	}
+	
+	private void endGate(){
+		if (chunk.size() > MAX_CHUNK_SIZE){
+			endChunk();
+			if (chunkParts.size() >= MAX_CHUNKS_PER_CLASS){
+				endClass();
+			}
+		}
+	}
+	
+	private void endChunk(){
+		chunk.op(ClassFileWriter.RETURN);
+		writer.addMethod(ClassFileWriter.ACC_STATIC, "c" + chunkParts.size(), CHUNK_DESCRIPTOR, chunk, MAX_STACK, CHUNK_LOCALS);
+		chunkParts.add(part);
+		chunk = null;
+	}
+	
+	/**
+	 * Writes the compute method of the current class, which calls the chunks of the given part, and loads the class.
+	 */
+	private void endClass(){
+		String className = writer.getClassName();
+		int firstPart = chunkParts.get(0);
+		int lastPart = chunkParts.get(chunkParts.size() - 1);
+		
+		/*
+		 * The compute method is a tableswitch on the part. Each case calls the chunks of the part and returns, and the 
+		 * default case (a part that has no chunks in this class) returns. The offsets of a tableswitch are relative to the 
+		 * switch instruction, and the instruction is padded so that its operands start at a multiple of 4.
+		 */
+		int numberOfCases = lastPart - firstPart + 1;
+		int switchStart = 1;											//After iload_1.
+		int padding = (4 - (switchStart + 1) % 4) % 4;
+		int casesStart = switchStart + 1 + padding + 12 + 4 * numberOfCases;
+		ClassFileWriter.Code cases = writer.newCode();
+		int[] caseOffsets = new int[numberOfCases];
+		int defaultOffset = casesStart - switchStart;
+		cases.op(ClassFileWriter.RETURN);
+		int c = 0;
+		for (int p = firstPart; p <= lastPart; p++){
+			caseOffsets[p - firstPart] = defaultOffset;
+			if (c < chunkParts.size() && chunkParts.get(c) == p){
+				caseOffsets[p - firstPart] = casesStart + cases.size() - switchStart;
+				while (c < chunkParts.size() && chunkParts.get(c) == p){
+					cases.op(ClassFileWriter.ALOAD_2);
+					cases.op(ClassFileWriter.LLOAD_3);
+					cases.op(ClassFileWriter.LLOAD, 5);
+					cases.invokestatic(className, "c" + c, CHUNK_DESCRIPTOR);
+					c++;
+				}
+				cases.op(ClassFileWriter.RETURN);
+				classesOfPart.get(p).add(classes.size());
+			}
+		}
+		
+		ClassFileWriter.Code compute = writer.newCode();
+		compute.op(ClassFileWriter.ILOAD_1);
+		compute.op(ClassFileWriter.TABLESWITCH);
+		for (int i = 0; i < padding; i++){
+			compute.op(0);
+		}
+		compute.u4(defaultOffset);
+		compute.u4(firstPart);
+		compute.u4(lastPart);
+		for (int offset : caseOffsets){
+			compute.u4(offset);
+		}
+		compute.write(cases.toByteArray());
+		writer.addMethod(ClassFileWriter.ACC_PUBLIC, "compute", "(I[JJJ)V", compute, MAX_STACK, COMPUTE_LOCALS);
+		
+		try {
+			Class<?> programClass = loader.define(className.replace('/', '.'), writer.toByteArray());
+			classes.add((Program) programClass.getConstructor().newInstance());
+		} catch (Exception e) {
+			// Should not occur since the generated class is valid and has a public default constructor.
+			throw new IllegalStateException("failed to load the compiled circuit", e);
+		}
+		writer = null;
+	}
+	
+	private Program finish(){
+		if (chunk != null){
+			endChunk();
+		}
+		if (writer != null){
+			endClass();
+		}
+		int[][] parts = new int[numberOfParts][];
+		for (int p = 0; p < numberOfParts; p++){
+			ArrayList<Integer> partClasses = classesOfPart.get(p);
+			parts[p] = new int[partClasses.size()];
+			for (int i = 0; i < parts[p].length; i++){
+				parts[p][i] = partClasses.get(i);
+			}
+		}
+		if (classes.size() == 1 && numberOfParts == 1){
+			return classes.get(0);
+		}
+		return new MultiClassProgram(classes.toArray(new Program[classes.size()]), parts);
+	}
+}
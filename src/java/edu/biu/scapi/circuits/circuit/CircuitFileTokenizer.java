@@ -0,0 +1,97 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import edu.biu.scapi.exceptions.CircuitFileFormatException;
+
+/**
+ * A minimal tokenizer for the text circuit formats. <p>
+ * Tokens are separated by white spaces. A token that begins with '#' starts a comment that ends at the end of the line.
+ * The tokenizer reads the stream one character at a time, so it should be given a buffered stream.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+class CircuitFileTokenizer {
+	private InputStream in;
+	private StringBuilder token = new StringBuilder();
+	
+	CircuitFileTokenizer(InputStream in){
+		this.in = in;
+	}
+	
+	/**
+	 * Returns the next token, or null if the end of the stream has been reached.
+	 */
+	String nextOrNull() throws IOException {
+		token.setLength(0);
+		int c = in.read();
+		while (true){
+			//Skip white spaces.
+			while (c != -1 && Character.isWhitespace(c)){
+				c = in.read();
+			}
+			if (c == -1){
+				return null;
+			}
+			if (c != '#'){
+				break;
+			}
+			//Skip the comment.
+			while (c != -1 && c != '\n'){
+				c = in.read();
+			}
+		}
+		while (c != -1 && !Character.isWhitespace(c)){
+			token.append((char) c);
+			c = in.read();
+		}
+		return token.toString();
+	}
+	
+	String next() throws IOException, CircuitFileFormatException {
+		String t = nextOrNull();
+		if (t == null){
+			throw new CircuitFileFormatException("unexpected end of the circuit file");
+		}
+		return t;
+	}
+	
+	int nextInt() throws IOException, CircuitFileFormatException {
+		String t = next();
+		try {
+			return Integer.parseInt(t);
+		} catch (NumberFormatException e) {
+			throw new CircuitFileFormatException("expected a number but found " + t);
+		}
+	}
+	
+	void close() throws IOException {
+		in.close();
+	}
+}
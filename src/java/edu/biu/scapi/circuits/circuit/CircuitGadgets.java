@@ -0,0 +1,461 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.util.ArrayList;
+
+/**
+ * A library of arithmetic gadgets for {@link CircuitBuilder} that minimize the number of non-XOR gates. <p>
+ * 
+ * Since XOR gates are free when garbling with the Free XOR technique, the cost of a gadget is the number of AND gates it uses. 
+ * The gadgets use the following constructions:
+ * <ul>
+ * <li> A full adder uses a single AND gate: s = a ^ b ^ c, c' = c ^ ((a ^ c) & (b ^ c)). Thus, adding two n bit numbers takes n AND 
+ * gates (n - 1 if the carry out is not needed). Subtraction and comparison use the same construction with a negated operand. </li>
+ * <li> A multiplexer uses a single AND gate per bit: a ^ (s & (a ^ b)), and so does a conditional swap. </li>
+ * <li> Equality takes n - 1 AND gates, arranged as a tree. </li>
+ * <li> Multiplication uses Karatsuba's method above {@link #KARATSUBA_THRESHOLD} bits and the schoolbook method below it. </li>
+ * <li> Sorting uses a bitonic sorting network, where each comparator is a comparison followed by a conditional swap. </li>
+ * </ul>
+ * Numbers are arrays of wires, where the wire in place 0 is the least significant bit. All numbers are unsigned unless noted otherwise.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public final class CircuitGadgets {
+	
+	/**
+	 * The number of bits from which multiplication uses Karatsuba's method.
+	 */
+	public static final int KARATSUBA_THRESHOLD = 20;
+	
+	private CircuitGadgets(){
+		//Only static methods.
+	}
+	
+	/**
+	 * Returns a + b mod 2^n, where n is the length of the longer number. Uses n - 1 AND gates.
+	 */
+	public static int[] add(CircuitBuilder builder, int[] a, int[] b){
+		int width = Math.max(a.length, b.length);
+		return add(builder, a, b, builder.zero(), width, false);
+	}
+	
+	/**
+	 * Returns a + b, including the carry, so the result has one bit more than the longer number. Uses n AND gates.
+	 */
+	public static int[] addWithCarry(CircuitBuilder builder, int[] a, int[] b){
+		int width = Math.max(a.length, b.length);
+		return add(builder, a, b, builder.zero(), width, true);
+	}
+	
+	/**
+	 * Returns a - b mod 2^n, where n is the length of the longer number. Uses n - 1 AND gates.
+	 */
+	public static int[] subtract(CircuitBuilder builder, int[] a, int[] b){
+		int width = Math.max(a.length, b.length);
+		//a - b = a + ~b + 1.
+		return add(builder, a, builder.not(extend(builder, b, width)), builder.one(), width, false);
+	}
+	
+	/**
+	 * Returns -a mod 2^n. Uses n - 1 AND gates.
+	 */
+	public static int[] negate(CircuitBuilder builder, int[] a){
+		return subtract(builder, builder.constant(0, a.length), a);
+	}
+	
+	/**
+	 * Ripple carry adder.
+	 * @param carry The carry into the least significant bit.
+	 * @param width The number of bits of the result, without the carry out.
+	 * @param withCarryOut Whether to add the carry out as the most significant bit of the result.
+	 */
+	private static int[] add(CircuitBuilder builder, int[] a, int[] b, int carry, int width, boolean withCarryOut){
+		a = extend(builder, a, width);
+		b = extend(builder, b, width);
+		int[] sum = new int[withCarryOut ? width + 1 : width];
+		for (int i = 0; i < width; i++){
+			int aXorC = builder.xor(a[i], carry);
+			sum[i] = builder.xor(aXorC, b[i]);
+			//The carry of the last bit is needed only in case of carry out.
+			if (i < width - 1 || withCarryOut){
+				carry = builder.xor(carry, builder.and(aXorC, builder.xor(b[i], carry)));
+			}
+		}
+		if (withCarryOut){
+			sum[width] = carry;
+		}
+		return sum;
+	}
+	
+	/**
+	 * Returns the sum of all the given numbers, using a balanced tree of adders. 
+	 * Each adder has a carry out, so the result does not overflow.
+	 */
+	public static int[] addAll(CircuitBuilder builder, int[][] numbers){
+		if (numbers.length == 0){
+			throw new IllegalArgumentException("at least one number should be given");
+		}
+		ArrayList<int[]> level = new ArrayList<int[]>();
+		for (int[] number : numbers){
+			level.add(number);
+		}
+		while (level.size() > 1){
+			ArrayList<int[]> next = new ArrayList<int[]>();
+			for (int i = 0; i + 1 < level.size(); i += 2){
+				next.add(addWithCarry(builder, level.get(i), level.get(i + 1)));
+			}
+			if (level.size() % 2 == 1){
+				next.add(level.get(level.size() - 1));
+			}
+			level = next;
+		}
+		return level.get(0);
+	}
+	
+	/**
+	 * Returns the number of the given wires that are set to 1. <p>
+	 * The bits are kept in columns by their weight, and each column is reduced using full adders (three bits of weight w to 
+	 * one bit of weight w and one bit of weight 2w) and half adders, each using a single AND gate. Uses less than n AND gates.
+	 */
+	public static int[] hammingWeight(CircuitBuilder builder, int[] bits){
+		ArrayList<ArrayList<Integer>> columns = new ArrayList<ArrayList<Integer>>();
+		columns.add(new ArrayList<Integer>());
+		for (int bit : bits){
+			columns.get(0).add(bit);
+		}
+		ArrayList<Integer> result = new ArrayList<Integer>();
+		for (int weight = 0; weight < columns.size(); weight++){
+			ArrayList<Integer> column = columns.get(weight);
+			if (weight + 1 == columns.size()){
+				columns.add(new ArrayList<Integer>());
+			}
+			ArrayList<Integer> carries = columns.get(weight + 1);
+			//The column is processed as a queue, so the sums are added after the bits that are already waiting.
+			int next = 0;
+			while (column.size() - next >= 2){
+				int a = column.get(next++);
+				int b = column.get(next++);
+				if (column.size() - next >= 1){
+					int c = column.get(next++);
+					int aXorC = builder.xor(a, c);
+					column.add(builder.xor(aXorC, b));
+					carries.add(builder.xor(c, builder.and(aXorC, builder.xor(b, c))));
+				} else {
+					column.add(builder.xor(a, b));
+					carries.add(builder.and(a, b));
+				}
+			}
+			result.add(next < column.size() ? column.get(next) : builder.zero());
+			if (carries.isEmpty()){
+				break;
+			}
+		}
+		int[] weight = new int[result.size()];
+		for (int i = 0; i < weight.length; i++){
+			weight[i] = result.get(i);
+		}
+		return weight;
+	}
+	
+	/**
+	 * Returns a wire that is 1 if a < b. Uses n AND gates.
+	 */
+	public static int lessThan(CircuitBuilder builder, int[] a, int[] b){
+		int width = Math.max(a.length, b.length);
+		a = extend(builder, a, width);
+		b = extend(builder, b, width);
+		//a < b if and only if there is no carry out of a + ~b + 1.
+		int carry = builder.one();
+		for (int i = 0; i < width; i++){
+			int notB = builder.not(b[i]);
+			carry = builder.xor(carry, builder.and(builder.xor(a[i], carry), builder.xor(notB, carry)));
+		}
+		return builder.not(carry);
+	}
+	
+	/**
+	 * Returns a wire that is 1 if a > b. Uses n AND gates.
+	 */
+	public static int greaterThan(CircuitBuilder builder, int[] a, int[] b){
+		return lessThan(builder, b, a);
+	}
+	
+	/**
+	 * Returns a wire that is 1 if a <= b. Uses n AND gates.
+	 */
+	public static int lessOrEqual(CircuitBuilder builder, int[] a, int[] b){
+		return builder.not(lessThan(builder, b, a));
+	}
+	
+	/**
+	 * Returns a wire that is 1 if a >= b. Uses n AND gates.
+	 */
+	public static int greaterOrEqual(CircuitBuilder builder, int[] a, int[] b){
+		return builder.not(lessThan(builder, a, b));
+	}
+	
+	/**
+	 * Returns a wire that is 1 if a < b, where a and b are signed numbers in two's complement of the same length. Uses n AND gates.
+	 */
+	public static int signedLessThan(CircuitBuilder builder, int[] a, int[] b){
+		if (a.length != b.length || a.length == 0){
+			throw new IllegalArgumentException("the numbers should have the same length");
+		}
+		//Flipping the sign bits maps the signed order to the unsigned order.
+		a = a.clone();
+		b = b.clone();
+		a[a.length - 1] = builder.not(a[a.length - 1]);
+		b[b.length - 1] = builder.not(b[b.length - 1]);
+		return lessThan(builder, a, b);
+	}
+	
+	/**
+	 * Returns a wire that is 1 if a == b. Uses n - 1 AND gates.
+	 */
+	public static int equal(CircuitBuilder builder, int[] a, int[] b){
+		int width = Math.max(a.length, b.length);
+		a = extend(builder, a, width);
+		b = extend(builder, b, width);
+		int[] equalBits = new int[width];
+		for (int i = 0; i < width; i++){
+			equalBits[i] = builder.xnor(a[i], b[i]);
+		}
+		return andAll(builder, equalBits);
+	}
+	
+	/**
+	 * Returns a wire that is 1 if a != b. Uses n - 1 AND gates.
+	 */
+	public static int notEqual(CircuitBuilder builder, int[] a, int[] b){
+		return builder.not(equal(builder, a, b));
+	}
+	
+	/**
+	 * Returns a wire that is 1 if all the given wires are 1. Uses n - 1 AND gates, arranged as a tree.
+	 */
+	public static int andAll(CircuitBuilder builder, int[] bits){
+		if (bits.length == 0){
+			return builder.one();
+		}
+		int[] level = bits;
+		while (level.length > 1){
+			int[] next = new int[(level.length + 1) / 2];
+			for (int i = 0; i < level.length / 2; i++){
+				next[i] = builder.and(level[2 * i], level[2 * i + 1]);
+			}
+			if (level.length % 2 == 1){
+				next[next.length - 1] = level[level.length - 1];
+			}
+			level = next;
+		}
+		return level[0];
+	}
+	
+	/**
+	 * Returns a wire that is 1 if one of the given wires is 1. Uses n - 1 AND gates, arranged as a tree.
+	 */
+	public static int orAll(CircuitBuilder builder, int[] bits){
+		return builder.not(andAll(builder, builder.not(bits)));
+	}
+	
+	/**
+	 * Returns b if the selector is 1 and a otherwise. Uses a single AND gate.
+	 */
+	public static int mux(CircuitBuilder builder, int selector, int a, int b){
+		return builder.xor(a, builder.and(selector, builder.xor(a, b)));
+	}
+	
+	/**
+	 * Returns b if the selector is 1 and a otherwise. Uses n AND gates.
+	 */
+	public static int[] mux(CircuitBuilder builder, int selector, int[] a, int[] b){
+		int width = Math.max(a.length, b.length);
+		a = extend(builder, a, width);
+		b = extend(builder, b, width);
+		int[] result = new int[width];
+		for (int i = 0; i < width; i++){
+			result[i] = mux(builder, selector, a[i], b[i]);
+		}
+		return result;
+	}
+	
+	/**
+	 * Swaps a and b if the selector is 1. Uses n AND gates.
+	 * @return an array that contains the new a and the new b.
+	 */
+	public static int[][] conditionalSwap(CircuitBuilder builder, int selector, int[] a, int[] b){
+		int width = Math.max(a.length, b.length);
+		a = extend(builder, a, width);
+		b = extend(builder, b, width);
+		int[][] result = new int[2][width];
+		for (int i = 0; i < width; i++){
+			int difference = builder.and(selector, builder.xor(a[i], b[i]));
+			result[0][i] = builder.xor(a[i], difference);
+			result[1][i] = builder.xor(b[i], difference);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the minimum of a and b. Uses 2n AND gates.
+	 */
+	public static int[] min(CircuitBuilder builder, int[] a, int[] b){
+		return mux(builder, lessThan(builder, b, a), a, b);
+	}
+	
+	/**
+	 * Returns the maximum of a and b. Uses 2n AND gates.
+	 */
+	public static int[] max(CircuitBuilder builder, int[] a, int[] b){
+		return mux(builder, lessThan(builder, a, b), a, b);
+	}
+	
+	/**
+	 * Returns a * b. The result has a.length + b.length bits. <p>
+	 * Uses Karatsuba's method when both numbers have at least {@link #KARATSUBA_THRESHOLD} bits and the schoolbook method otherwise.
+	 */
+	public static int[] multiply(CircuitBuilder builder, int[] a, int[] b){
+		int resultWidth = a.length + b.length;
+		if (Math.min(a.length, b.length) < KARATSUBA_THRESHOLD){
+			return multiplyLow(builder, a, b, resultWidth);
+		}
+		
+		//Split both numbers in the middle: a = a1 * 2^h + a0 and b = b1 * 2^h + b0.
+		int width = Math.max(a.length, b.length);
+		int half = width / 2;
+		a = extend(builder, a, width);
+		b = extend(builder, b, width);
+		int[] a0 = slice(a, 0, half);
+		int[] a1 = slice(a, half, width);
+		int[] b0 = slice(b, 0, half);
+		int[] b1 = slice(b, half, width);
+		
+		//a * b = z2 * 2^2h + z1 * 2^h + z0, where z1 = (a0 + a1)(b0 + b1) - z0 - z2.
+		int[] z0 = multiply(builder, a0, b0);
+		int[] z2 = multiply(builder, a1, b1);
+		int[] z1 = multiply(builder, addWithCarry(builder, a0, a1), addWithCarry(builder, b0, b1));
+		z1 = subtract(builder, z1, z0);
+		z1 = subtract(builder, z1, z2);
+		
+		//z0 and z2 do not overlap, so the result is their concatenation plus z1 * 2^h.
+		int[] result = new int[2 * width];
+		System.arraycopy(z0, 0, result, 0, z0.length);
+		for (int i = z0.length; i < 2 * half; i++){
+			result[i] = builder.zero();
+		}
+		System.arraycopy(z2, 0, result, 2 * half, z2.length);
+		int[] high = add(builder, slice(result, half, 2 * width), z1, builder.zero(), 2 * width - half, false);
+		System.arraycopy(high, 0, result, half, high.length);
+		return slice(result, 0, resultWidth);
+	}
+	
+	/**
+	 * Returns the given number of least significant bits of a * b, using the schoolbook method. 
+	 * Only the partial products that influence the result are computed, so multiplication mod 2^n of two n bit numbers uses 
+	 * about n^2 AND gates.
+	 */
+	public static int[] multiplyLow(CircuitBuilder builder, int[] a, int[] b, int resultWidth){
+		int[] result = builder.constant(0, resultWidth);
+		for (int j = 0; j < b.length && j < resultWidth; j++){
+			//Add a * b[j] * 2^j to the result.
+			int rowWidth = Math.min(a.length, resultWidth - j);
+			int[] row = new int[rowWidth];
+			for (int i = 0; i < rowWidth; i++){
+				row[i] = builder.and(a[i], b[j]);
+			}
+			int sumWidth = resultWidth - j;
+			int[] sum = add(builder, slice(result, j, resultWidth), row, builder.zero(), Math.min(sumWidth, rowWidth + 1), false);
+			System.arraycopy(sum, 0, result, j, sum.length);
+		}
+		return result;
+	}
+	
+	/**
+	 * Sorts the given numbers using a bitonic sorting network. Each comparator uses 2n AND gates.
+	 * @param numbers The numbers to sort. All the numbers should have the same length.
+	 * @param ascending Whether to sort in ascending or descending order.
+	 * @return the sorted numbers.
+	 */
+	public static int[][] sort(CircuitBuilder builder, int[][] numbers, boolean ascending){
+		int[][] result = numbers.clone();
+		bitonicSort(builder, result, 0, result.length, ascending);
+		return result;
+	}
+	
+	/**
+	 * Sorts count numbers starting at the given place. This version of the bitonic sort supports any number of elements.
+	 */
+	private static void bitonicSort(CircuitBuilder builder, int[][] numbers, int start, int count, boolean ascending){
+		if (count <= 1){
+			return;
+		}
+		int half = count / 2;
+		bitonicSort(builder, numbers, start, half, !ascending);
+		bitonicSort(builder, numbers, start + half, count - half, ascending);
+		bitonicMerge(builder, numbers, start, count, ascending);
+	}
+	
+	private static void bitonicMerge(CircuitBuilder builder, int[][] numbers, int start, int count, boolean ascending){
+		if (count <= 1){
+			return;
+		}
+		int distance = Integer.highestOneBit(count - 1);
+		for (int i = start; i < start + count - distance; i++){
+			compareAndSwap(builder, numbers, i, i + distance, ascending);
+		}
+		bitonicMerge(builder, numbers, start, distance, ascending);
+		bitonicMerge(builder, numbers, start + distance, count - distance, ascending);
+	}
+	
+	private static void compareAndSwap(CircuitBuilder builder, int[][] numbers, int i, int j, boolean ascending){
+		int outOfOrder = ascending ? greaterThan(builder, numbers[i], numbers[j]) : lessThan(builder, numbers[i], numbers[j]);
+		int[][] swapped = conditionalSwap(builder, outOfOrder, numbers[i], numbers[j]);
+		numbers[i] = swapped[0];
+		numbers[j] = swapped[1];
+	}
+	
+	/**
+	 * Returns the given number extended with zero wires to the given width. The number is not copied if it is already of that width.
+	 */
+	private static int[] extend(CircuitBuilder builder, int[] a, int width){
+		if (a.length >= width){
+			return a;
+		}
+		int[] result = new int[width];
+		System.arraycopy(a, 0, result, 0, a.length);
+		for (int i = a.length; i < width; i++){
+			result[i] = builder.zero();
+		}
+		return result;
+	}
+	
+	private static int[] slice(int[] a, int from, int to){
+		int[] result = new int[to - from];
+		System.arraycopy(a, from, result, 0, result.length);
+		return result;
+	}
+}
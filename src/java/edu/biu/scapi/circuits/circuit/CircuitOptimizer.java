@@ -0,0 +1,503 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+
+/**
+ * Optimizes a {@link BooleanCircuit} before it is garbled. <p>
+ * The garbling cost of a circuit is dominated by its non-XOR gates, since XOR and XNOR gates are free when garbling with 
+ * the Free XOR technique. The optimizer performs the following passes in a single walk over the gates in topological order:
+ * <ul>
+ * <li> Constant propagation - inputs that are known to be constant are removed from the gates that use them, and gates 
+ * with a constant output are removed. </li>
+ * <li> NOT absorption - every wire is tracked as a (wire, negated) pair, so NOT gates are removed and the negations are 
+ * absorbed into the truth tables of the gates that use them. </li>
+ * <li> Free XOR rewriting - XNOR gates are rewritten as XOR gates with a negated output, and gates that turn out to be an 
+ * XOR of their inputs (for example, after absorbing NOT gates) become XOR gates. </li>
+ * <li> Duplicate gate folding - gates that compute the same function of the same wires are computed once. </li>
+ * <li> Dead gate elimination - gates that do not influence any output wire are removed. </li>
+ * </ul>
+ * The optimized circuit has the same input and output wire indices as the original circuit, so the keys and inputs of the 
+ * parties are not affected. The gates are renumbered consecutively. Gates with more than six inputs are not supported. <p>
+ * 
+ * After {@link #optimize(BooleanCircuit)} is called, the gate counts before and after the optimization can be queried.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class CircuitOptimizer {
+	
+	//The literal of a wire is (representative wire << 1 | negated), or one of the following constants.
+	private static final int FALSE = -2;
+	private static final int TRUE = -1;
+	private static final int UNSET = Integer.MIN_VALUE;
+	
+	private static final int MAX_INPUTS = 6;
+	private static final long XOR_TABLE = 0x6;
+	private static final long XNOR_TABLE = 0x9;
+	
+	private int gatesBefore;
+	private int gatesAfter;
+	private int nonXORGatesBefore;
+	private int nonXORGatesAfter;
+	
+	//The state of a single optimization.
+	private int[] literals;
+	private boolean[] isOutputWire;
+	private int[] producers;
+	private ArrayList<OptimizedGate> optimizedGates;
+	private HashMap<GateKey, Integer> existingGates;
+	
+	/**
+	 * Optimizes the given circuit. The given circuit is not changed.
+	 * @param circuit The circuit to optimize.
+	 * @return a new circuit that computes the same function as the given circuit.
+	 * @throws IllegalArgumentException if the circuit has a gate with more than six inputs or a wire that is used before it is set.
+	 */
+	public BooleanCircuit optimize(BooleanCircuit circuit){
+		Gate[] gates = circuit.getGates();
+		int[] outputWireIndices = circuit.getOutputWireIndices();
+		ArrayList<ArrayList<Integer>> eachPartysInputWires = new ArrayList<ArrayList<Integer>>();
+		try {
+			for (int i = 1; i <= circuit.getNumberOfParties(); i++){
+				eachPartysInputWires.add(new ArrayList<Integer>(circuit.getInputWireIndices(i)));
+			}
+		} catch (NoSuchPartyException e) {
+			// Should not occur since the party numbers are between 1 and the number of parties.
+		}
+		
+		int numberOfWires = circuit.getGateIterator().getNumberOfWires();
+		for (int w : outputWireIndices){
+			numberOfWires = Math.max(numberOfWires, w + 1);
+		}
+		literals = new int[numberOfWires];
+		Arrays.fill(literals, UNSET);
+		producers = new int[numberOfWires];
+		Arrays.fill(producers, -1);
+		isOutputWire = new boolean[numberOfWires];
+		for (int w : outputWireIndices){
+			isOutputWire[w] = true;
+		}
+		optimizedGates = new ArrayList<OptimizedGate>();
+		existingGates = new HashMap<GateKey, Integer>();
+		
+		int anyInputWire = -1;
+		for (ArrayList<Integer> partyWires : eachPartysInputWires){
+			for (int w : partyWires){
+				literals[w] = w << 1;
+				anyInputWire = w;
+			}
+		}
+		
+		gatesBefore = gates.length;
+		nonXORGatesBefore = 0;
+		
+		//Forward pass: propagate constants and negations, rewrite XNOR gates and fold duplicate gates.
+		for (Gate gate : gates){
+			int[] inputWires = gate.getInputWireIndices();
+			int numberOfInputs = inputWires.length;
+			if (numberOfInputs > MAX_INPUTS){
+				throw new IllegalArgumentException("gates with more than " + MAX_INPUTS + " inputs are not supported");
+			}
+			long table = toTable(gate.getTruthTable(), numberOfInputs);
+			if (!isFree(table, numberOfInputs)){
+				nonXORGatesBefore++;
+			}
+			
+			int[] inputLiterals = new int[numberOfInputs];
+			for (int i = 0; i < numberOfInputs; i++){
+				inputLiterals[i] = getLiteral(inputWires[i]);
+			}
+			int result = simplify(table, inputLiterals, gate.getOutputWireIndices()[0]);
+			for (int w : gate.getOutputWireIndices()){
+				literals[w] = result;
+			}
+		}
+		
+		//Make sure that each output wire is set by a gate with the right polarity.
+		for (int w : outputWireIndices){
+			int literal = getLiteral(w);
+			if (literal == w << 1){
+				continue;
+			}
+			if (literal < 0){
+				if (anyInputWire == -1){
+					throw new IllegalArgumentException("a constant output requires the circuit to have at least one input wire");
+				}
+				//XOR of a wire with itself is always 0 and XNOR of a wire with itself is always 1.
+				addGate(literal == TRUE ? XNOR_TABLE : XOR_TABLE, new int[]{anyInputWire, anyInputWire}, w);
+			} else {
+				int representative = literal >> 1;
+				long complement = ((literal & 1) == 1) ? 0xF : 0;
+				int producer = producers[representative];
+				OptimizedGate source = (producer == -1) ? null : optimizedGates.get(producer);
+				if (source != null && isFree(source.table, source.inputs.length)){
+					//Computing the XOR again is free, as opposed to copying the wire with a one input gate.
+					addGate(source.table ^ complement, source.inputs, w);
+				} else {
+					addGate((literal & 1) == 1 ? 0x1 : 0x2, new int[]{representative}, w);
+				}
+			}
+			literals[w] = w << 1;
+		}
+		
+		//Backward pass: remove the gates whose outputs are not used.
+		boolean[] isLive = new boolean[numberOfWires];
+		for (int w : outputWireIndices){
+			isLive[w] = true;
+		}
+		boolean[] keep = new boolean[optimizedGates.size()];
+		int numberOfGates = 0;
+		for (int i = optimizedGates.size() - 1; i >= 0; i--){
+			OptimizedGate gate = optimizedGates.get(i);
+			if (isLive[gate.output]){
+				keep[i] = true;
+				numberOfGates++;
+				for (int w : gate.inputs){
+					isLive[w] = true;
+				}
+			}
+		}
+		
+		Gate[] result = new Gate[numberOfGates];
+		nonXORGatesAfter = 0;
+		int gateNumber = 0;
+		for (int i = 0; i < keep.length; i++){
+			if (keep[i]){
+				OptimizedGate gate = optimizedGates.get(i);
+				if (!isFree(gate.table, gate.inputs.length)){
+					nonXORGatesAfter++;
+				}
+				result[gateNumber] = new Gate(gateNumber, toBitSet(gate.table, gate.inputs.length), gate.inputs, new int[]{gate.output});
+				gateNumber++;
+			}
+		}
+		gatesAfter = numberOfGates;
+		
+		literals = null;
+		isOutputWire = null;
+		producers = null;
+		optimizedGates = null;
+		existingGates = null;
+		
+		return new BooleanCircuit(result, outputWireIndices.clone(), eachPartysInputWires);
+	}
+	
+	/**
+	 * @return the number of gates of the last optimized circuit before the optimization.
+	 */
+	public int getNumberOfGatesBefore(){
+		return gatesBefore;
+	}
+	
+	/**
+	 * @return the number of gates of the last optimized circuit after the optimization.
+	 */
+	public int getNumberOfGatesAfter(){
+		return gatesAfter;
+	}
+	
+	/**
+	 * @return the number of non-XOR gates (the gates that have a garbled table) of the last optimized circuit before the optimization.
+	 */
+	public int getNumberOfNonXORGatesBefore(){
+		return nonXORGatesBefore;
+	}
+	
+	/**
+	 * @return the number of non-XOR gates (the gates that have a garbled table) of the last optimized circuit after the optimization.
+	 */
+	public int getNumberOfNonXORGatesAfter(){
+		return nonXORGatesAfter;
+	}
+	
+	/**
+	 * @return a printable summary of the last optimization.
+	 */
+	public String getReport(){
+		return "gates: " + gatesBefore + " -> " + gatesAfter + ", non-XOR gates: " + nonXORGatesBefore + " -> " + nonXORGatesAfter;
+	}
+	
+	/**
+	 * Counts the gates of the given circuit that are not free when garbling with the Free XOR technique, 
+	 * i.e. all the gates except two input XOR and XNOR gates.
+	 */
+	public static int countNonXORGates(BooleanCircuit circuit){
+		int count = 0;
+		for (Gate gate : circuit.getGates()){
+			int numberOfInputs = gate.getInputWireIndices().length;
+			if (numberOfInputs > MAX_INPUTS || !isFree(toTable(gate.getTruthTable(), numberOfInputs), numberOfInputs)){
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	private int getLiteral(int wire){
+		if (wire >= literals.length || literals[wire] == UNSET){
+			throw new IllegalArgumentException("wire " + wire + " is used before it is set");
+		}
+		return literals[wire];
+	}
+	
+	/**
+	 * Simplifies a gate whose inputs are the given literals, and adds it to the optimized gates if needed.
+	 * @param table The truth table of the gate, where bit i is the output of row i.
+	 * @param inputs The literals of the input wires of the gate.
+	 * @param outputWire The wire that the gate should set, if it is added.
+	 * @return the literal of the output of the gate.
+	 */
+	private int simplify(long table, int[] inputs, int outputWire){
+		int k = inputs.length;
+		
+		//Remove constant inputs and absorb negated inputs into the truth table.
+		for (int i = k - 1; i >= 0; i--){
+			if (inputs[i] < 0){
+				table = restrict(table, k, i, inputs[i] == TRUE ? 1 : 0);
+				inputs = remove(inputs, i);
+				k--;
+			} else if ((inputs[i] & 1) == 1){
+				table = negate(table, k, i);
+				inputs[i] &= ~1;
+			}
+		}
+		int[] wires = new int[k];
+		for (int i = 0; i < k; i++){
+			wires[i] = inputs[i] >> 1;
+		}
+		
+		//Merge inputs that are the same wire.
+		for (int i = 0; i < k; i++){
+			for (int j = k - 1; j > i; j--){
+				if (wires[i] == wires[j]){
+					table = merge(table, k, i, j);
+					wires = remove(wires, j);
+					k--;
+				}
+			}
+		}
+		
+		//Remove inputs that the output does not depend on.
+		for (int i = k - 1; i >= 0; i--){
+			long zero = restrict(table, k, i, 0);
+			if (zero == restrict(table, k, i, 1)){
+				table = zero;
+				wires = remove(wires, i);
+				k--;
+			}
+		}
+		
+		if (k == 0){
+			return (table & 1) == 1 ? TRUE : FALSE;
+		}
+		if (k == 1){
+			//The table is either identity (10) or NOT (01).
+			return (wires[0] << 1) | (table == 1 ? 1 : 0);
+		}
+		
+		//Sort the inputs so that equal gates have equal keys.
+		for (int i = 0; i < k; i++){
+			for (int j = i + 1; j < k; j++){
+				if (wires[j] < wires[i]){
+					table = swap(table, k, i, j);
+					int temp = wires[i];
+					wires[i] = wires[j];
+					wires[j] = temp;
+				}
+			}
+		}
+		
+		//Normalize the gate so that the output of the first row is 0. In particular, XNOR becomes XOR with a negated output.
+		long mask = (k == MAX_INPUTS) ? -1L : (1L << (1 << k)) - 1;
+		int negated = (int) (table & 1);
+		long canonicalTable = (negated == 1) ? ~table & mask : table;
+		
+		GateKey key = new GateKey(canonicalTable, wires);
+		Integer existing = existingGates.get(key);
+		if (existing != null){
+			return existing ^ negated;
+		}
+		
+		int canonicalLiteral;
+		if (isOutputWire[outputWire] && negated == 1){
+			//An output wire can not be negated later, so the gate is added with its real truth table.
+			addGate(table, wires, outputWire);
+			canonicalLiteral = (outputWire << 1) | 1;
+		} else {
+			addGate(canonicalTable, wires, outputWire);
+			canonicalLiteral = outputWire << 1;
+		}
+		existingGates.put(key, canonicalLiteral);
+		return canonicalLiteral ^ negated;
+	}
+	
+	private void addGate(long table, int[] inputs, int output){
+		producers[output] = optimizedGates.size();
+		optimizedGates.add(new OptimizedGate(table, inputs, output));
+	}
+	
+	private static boolean isFree(long table, int numberOfInputs){
+		return numberOfInputs == 2 && (table == XOR_TABLE || table == XNOR_TABLE);
+	}
+	
+	/*
+	 * The following functions work on truth tables of k inputs, held in a long where bit r is the output of row r. 
+	 * As in Gate, the first input is the most significant bit of the row number, so input i is bit (k - 1 - i) of the row.
+	 */
+	
+	private static long toTable(BitSet truthTable, int k){
+		long table = 0;
+		for (int row = 0; row < (1 << k); row++){
+			if (truthTable.get(row)){
+				table |= 1L << row;
+			}
+		}
+		return table;
+	}
+	
+	private static BitSet toBitSet(long table, int k){
+		BitSet truthTable = new BitSet();
+		for (int row = 0; row < (1 << k); row++){
+			if (((table >>> row) & 1) == 1){
+				truthTable.set(row);
+			}
+		}
+		return truthTable;
+	}
+	
+	/**
+	 * Inserts the given bit at the given position of the row number.
+	 */
+	private static int insertBit(int row, int position, int bit){
+		int low = row & ((1 << position) - 1);
+		int high = row >> position;
+		return (high << (position + 1)) | (bit << position) | low;
+	}
+	
+	/**
+	 * Returns the truth table of k - 1 inputs that is obtained by fixing input i to the given value.
+	 */
+	private static long restrict(long table, int k, int i, int value){
+		long result = 0;
+		for (int row = 0; row < (1 << (k - 1)); row++){
+			result |= ((table >>> insertBit(row, k - 1 - i, value)) & 1) << row;
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the truth table that is obtained by negating input i.
+	 */
+	private static long negate(long table, int k, int i){
+		long result = 0;
+		for (int row = 0; row < (1 << k); row++){
+			result |= ((table >>> (row ^ (1 << (k - 1 - i)))) & 1) << row;
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the truth table that is obtained by swapping inputs i and j.
+	 */
+	private static long swap(long table, int k, int i, int j){
+		int positionI = k - 1 - i;
+		int positionJ = k - 1 - j;
+		long result = 0;
+		for (int row = 0; row < (1 << k); row++){
+			int bitI = (row >> positionI) & 1;
+			int bitJ = (row >> positionJ) & 1;
+			int swapped = (row & ~(1 << positionI) & ~(1 << positionJ)) | (bitI << positionJ) | (bitJ << positionI);
+			result |= ((table >>> swapped) & 1) << row;
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the truth table of k - 1 inputs that is obtained when input j (j > i) is always equal to input i.
+	 */
+	private static long merge(long table, int k, int i, int j){
+		long result = 0;
+		for (int row = 0; row < (1 << (k - 1)); row++){
+			int bitI = (row >> (k - 2 - i)) & 1;
+			result |= ((table >>> insertBit(row, k - 1 - j, bitI)) & 1) << row;
+		}
+		return result;
+	}
+	
+	private static int[] remove(int[] array, int index){
+		int[] result = new int[array.length - 1];
+		System.arraycopy(array, 0, result, 0, index);
+		System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+		return result;
+	}
+	
+	/**
+	 * A gate of the optimized circuit.
+	 */
+	private static class OptimizedGate {
+		private long table;
+		private int[] inputs;
+		private int output;
+		
+		OptimizedGate(long table, int[] inputs, int output){
+			this.table = table;
+			this.inputs = inputs;
+			this.output = output;
+		}
+	}
+	
+	/**
+	 * Identifies a gate by its normalized truth table and its sorted input wires.
+	 */
+	private static class GateKey {
+		private long table;
+		private int[] inputs;
+		
+		GateKey(long table, int[] inputs){
+			this.table = table;
+			this.inputs = inputs;
+		}
+		
+		@Override
+		public boolean equals(Object obj){
+			if (!(obj instanceof GateKey)){
+				return false;
+			}
+			GateKey other = (GateKey) obj;
+			return table == other.table && Arrays.equals(inputs, other.inputs);
+		}
+		
+		@Override
+		public int hashCode(){
+			return (int) (table ^ (table >>> 32)) * 31 + Arrays.hashCode(inputs);
+		}
+	}
+}
@@ -0,0 +1,412 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+
+/**
+ * Analyzes the structure of a {@link BooleanCircuit} in order to predict the cost of garbling and evaluating it. <p>
+ * The profile is computed in a single walk over the gates in topological order and holds:
+ * <ul>
+ * <li> Gate counts - XOR gates (two input XOR and XNOR gates, which are free when garbling with the Free XOR technique), 
+ * NOT gates (one input gates), AND gates (all the other gates) and the number of gates of each number of inputs. </li>
+ * <li> Depth - the multiplicative depth (the largest number of AND gates on a path from an input to an output) and the 
+ * depth counting all the gates, together with the number of gates in each layer. </li>
+ * <li> Fan-out - the number of gate inputs that read each wire. </li>
+ * <li> Live ranges - the gate that sets each wire and the last gate that reads it, and the largest number of wires that 
+ * are live at the same time. This is the number of wire values that an evaluator must hold in memory. </li>
+ * </ul>
+ * Gate number i in this class is the i-th gate of {@link BooleanCircuit#getGates()}. Input wires are set before gate 0, 
+ * and output wires are live until the end of the circuit. <p>
+ * 
+ * The profile is used by {@code GarblingCostModel} to estimate the size of the garbled tables and the number of AES calls 
+ * of each garbling technique.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class CircuitProfile {
+	
+	//The marker of a wire that is not set by any gate or input.
+	private static final int NOT_SET = Integer.MIN_VALUE;
+	
+	private int numberOfGates;
+	private int numberOfWires;
+	private int numberOfInputWires;
+	private int numberOfOutputWires;
+	private int numberOfXORGates;
+	private int numberOfNOTGates;
+	private int numberOfANDGates;
+	
+	//The number of gates and AND gates with each number of inputs.
+	private int[] gatesByInputs;
+	private int[] andGatesByInputs;
+	
+	private int multiplicativeDepth;
+	private int depth;
+	private int[] andLayerWidths;
+	private int[] layerWidths;
+	
+	private int[] fanOut;
+	private int maxFanOut;
+	
+	//The live range of wire w is [liveRangeStarts[w], liveRangeEnds[w]]. Input wires start at -1.
+	private int[] liveRangeStarts;
+	private int[] liveRangeEnds;
+	private int peakLiveWires;
+	private int peakLiveGate;
+	
+	/**
+	 * Computes the profile of the given circuit.
+	 * @param circuit The circuit to analyze. It is not changed.
+	 * @throws IllegalArgumentException if a gate reads a wire that is not set by an earlier gate or an input.
+	 */
+	public CircuitProfile(BooleanCircuit circuit){
+		Gate[] gates = circuit.getGates();
+		numberOfGates = gates.length;
+		numberOfWires = circuit.getGateIterator().getNumberOfWires();
+		
+		liveRangeStarts = new int[numberOfWires];
+		liveRangeEnds = new int[numberOfWires];
+		Arrays.fill(liveRangeStarts, NOT_SET);
+		fanOut = new int[numberOfWires];
+		int[] andDepths = new int[numberOfWires];
+		int[] depths = new int[numberOfWires];
+		
+		for (int party = 1; party <= circuit.getNumberOfParties(); party++){
+			ArrayList<Integer> inputWires;
+			try {
+				inputWires = circuit.getInputWireIndices(party);
+			} catch (NoSuchPartyException e) {
+				// Should not occur since the party number is between 1 and the number of parties.
+				throw new IllegalStateException(e);
+			}
+			for (int w : inputWires){
+				liveRangeStarts[w] = -1;
+				liveRangeEnds[w] = -1;
+				numberOfInputWires++;
+			}
+		}
+		
+		int maxInputs = 0;
+		for (Gate gate : gates){
+			maxInputs = Math.max(maxInputs, gate.getInputWireIndices().length);
+		}
+		gatesByInputs = new int[maxInputs + 1];
+		andGatesByInputs = new int[maxInputs + 1];
+		
+		//Count the gates and compute the depth of each wire. The layer widths are collected after the depths are known.
+		int[] gateDepths = new int[numberOfGates];
+		int[] gateANDDepths = new int[numberOfGates];
+		for (int g = 0; g < numberOfGates; g++){
+			int[] inputs = gates[g].getInputWireIndices();
+			int k = inputs.length;
+			
+			int inputDepth = 0;
+			int inputANDDepth = 0;
+			for (int w : inputs){
+				if (w >= numberOfWires || liveRangeStarts[w] == NOT_SET){
+					throw new IllegalArgumentException("wire " + w + " is used before it is set");
+				}
+				liveRangeEnds[w] = g;
+				fanOut[w]++;
+				inputDepth = Math.max(inputDepth, depths[w]);
+				inputANDDepth = Math.max(inputANDDepth, andDepths[w]);
+			}
+			
+			gatesByInputs[k]++;
+			boolean isAND = false;
+			if (isXOR(gates[g])){
+				numberOfXORGates++;
+			} else if (k < 2){
+				numberOfNOTGates++;
+				andGatesByInputs[k]++;
+			} else {
+				numberOfANDGates++;
+				andGatesByInputs[k]++;
+				isAND = true;
+			}
+			
+			gateDepths[g] = inputDepth + 1;
+			gateANDDepths[g] = isAND ? inputANDDepth + 1 : 0;
+			int outputANDDepth = isAND ? inputANDDepth + 1 : inputANDDepth;
+			for (int w : gates[g].getOutputWireIndices()){
+				liveRangeStarts[w] = g;
+				liveRangeEnds[w] = g;
+				depths[w] = inputDepth + 1;
+				andDepths[w] = outputANDDepth;
+			}
+			depth = Math.max(depth, inputDepth + 1);
+			multiplicativeDepth = Math.max(multiplicativeDepth, outputANDDepth);
+		}
+		
+		layerWidths = new int[depth];
+		andLayerWidths = new int[multiplicativeDepth];
+		for (int g = 0; g < numberOfGates; g++){
+			layerWidths[gateDepths[g] - 1]++;
+			if (gateANDDepths[g] > 0){
+				andLayerWidths[gateANDDepths[g] - 1]++;
+			}
+		}
+		
+		int[] outputs = circuit.getOutputWireIndices();
+		numberOfOutputWires = outputs.length;
+		for (int w : outputs){
+			if (w >= numberOfWires || liveRangeStarts[w] == NOT_SET){
+				throw new IllegalArgumentException("output wire " + w + " is not set");
+			}
+			liveRangeEnds[w] = numberOfGates;
+		}
+		
+		for (int w = 0; w < numberOfWires; w++){
+			maxFanOut = Math.max(maxFanOut, fanOut[w]);
+		}
+		computePeakLiveWires();
+	}
+	
+	/**
+	 * Sweeps over the live ranges and finds the gate at which the largest number of wires is live.
+	 * A wire is live at every gate in its live range, including the gate that sets it and the last gate that reads it.
+	 */
+	private void computePeakLiveWires(){
+		//changes[g + 1] is the change in the number of live wires at gate g. changes[0] is for the inputs and 
+		//changes[numberOfGates + 1] is for the end of the circuit.
+		int[] changes = new int[numberOfGates + 3];
+		for (int w = 0; w < numberOfWires; w++){
+			if (liveRangeStarts[w] != NOT_SET){
+				changes[liveRangeStarts[w] + 1]++;
+				changes[liveRangeEnds[w] + 2]--;
+			}
+		}
+		int live = 0;
+		peakLiveWires = 0;
+		peakLiveGate = -1;
+		for (int i = 0; i <= numberOfGates + 1; i++){
+			live += changes[i];
+			if (live > peakLiveWires){
+				peakLiveWires = live;
+				peakLiveGate = i - 1;
+			}
+		}
+	}
+	
+	/**
+	 * Returns true if the given gate is a two input XOR or XNOR gate, which is free when garbling with the Free XOR technique.
+	 */
+	static boolean isXOR(Gate gate){
+		if (gate.getInputWireIndices().length != 2){
+			return false;
+		}
+		BitSet table = gate.getTruthTable();
+		boolean xor = !table.get(0) && table.get(1) && table.get(2) && !table.get(3);
+		boolean xnor = table.get(0) && !table.get(1) && !table.get(2) && table.get(3);
+		return xor || xnor;
+	}
+	
+	/**
+	 * @return the number of gates in the circuit.
+	 */
+	public int getNumberOfGates(){
+		return numberOfGates;
+	}
+	
+	/**
+	 * @return the number of wires in the circuit, i.e. the largest wire index plus one.
+	 */
+	public int getNumberOfWires(){
+		return numberOfWires;
+	}
+	
+	/**
+	 * @return the number of input wires of all the parties.
+	 */
+	public int getNumberOfInputWires(){
+		return numberOfInputWires;
+	}
+	
+	/**
+	 * @return the number of output wires.
+	 */
+	public int getNumberOfOutputWires(){
+		return numberOfOutputWires;
+	}
+	
+	/**
+	 * @return the number of two input XOR and XNOR gates.
+	 */
+	public int getNumberOfXORGates(){
+		return numberOfXORGates;
+	}
+	
+	/**
+	 * @return the number of gates with less than two inputs (NOT, identity and constant gates).
+	 */
+	public int getNumberOfNOTGates(){
+		return numberOfNOTGates;
+	}
+	
+	/**
+	 * @return the number of gates with two or more inputs that are not XOR or XNOR gates.
+	 */
+	public int getNumberOfANDGates(){
+		return numberOfANDGates;
+	}
+	
+	/**
+	 * @return the number of gates that are not free when garbling with the Free XOR technique, i.e. the AND and NOT gates.
+	 */
+	public int getNumberOfNonXORGates(){
+		return numberOfANDGates + numberOfNOTGates;
+	}
+	
+	/**
+	 * @return the largest number of inputs of a gate in the circuit.
+	 */
+	public int getMaxNumberOfInputs(){
+		return gatesByInputs.length - 1;
+	}
+	
+	/**
+	 * @param numberOfInputs The number of inputs of the gates to count.
+	 * @return the number of gates with the given number of inputs.
+	 */
+	public int getNumberOfGates(int numberOfInputs){
+		return (numberOfInputs < gatesByInputs.length) ? gatesByInputs[numberOfInputs] : 0;
+	}
+	
+	/**
+	 * @param numberOfInputs The number of inputs of the gates to count.
+	 * @return the number of gates with the given number of inputs that are not free when garbling with the Free XOR technique.
+	 */
+	public int getNumberOfNonXORGates(int numberOfInputs){
+		return (numberOfInputs < andGatesByInputs.length) ? andGatesByInputs[numberOfInputs] : 0;
+	}
+	
+	/**
+	 * @return the largest number of AND gates on a path from an input wire to an output wire.
+	 */
+	public int getMultiplicativeDepth(){
+		return multiplicativeDepth;
+	}
+	
+	/**
+	 * @return the largest number of gates on a path from an input wire to an output wire.
+	 */
+	public int getDepth(){
+		return depth;
+	}
+	
+	/**
+	 * Returns the number of gates in each layer of the circuit. Layer i contains the gates whose longest path from an 
+	 * input wire has i + 1 gates, so all the gates of a layer can be garbled and evaluated in parallel.
+	 * @return an array of length {@link #getDepth()} that holds the width of each layer.
+	 */
+	public int[] getLayerWidths(){
+		return layerWidths.clone();
+	}
+	
+	/**
+	 * Returns the number of AND gates in each multiplicative layer of the circuit. Layer i contains the AND gates 
+	 * whose longest path from an input wire has i + 1 AND gates.
+	 * @return an array of length {@link #getMultiplicativeDepth()} that holds the width of each layer.
+	 */
+	public int[] getANDLayerWidths(){
+		return andLayerWidths.clone();
+	}
+	
+	/**
+	 * @param wire The index of the wire.
+	 * @return the number of gate inputs that read the given wire.
+	 */
+	public int getFanOut(int wire){
+		return fanOut[wire];
+	}
+	
+	/**
+	 * @return the largest number of gate inputs that read a single wire.
+	 */
+	public int getMaxFanOut(){
+		return maxFanOut;
+	}
+	
+	/**
+	 * @param wire The index of the wire.
+	 * @return the number of the gate that sets the given wire, or -1 if it is an input wire.
+	 * @throws IllegalArgumentException if the wire is not used in the circuit.
+	 */
+	public int getLiveRangeStart(int wire){
+		checkWire(wire);
+		return liveRangeStarts[wire];
+	}
+	
+	/**
+	 * @param wire The index of the wire.
+	 * @return the number of the last gate that reads the given wire, or the number of gates if it is an output wire. 
+	 * If the wire is never read, this is the start of its live range.
+	 * @throws IllegalArgumentException if the wire is not used in the circuit.
+	 */
+	public int getLiveRangeEnd(int wire){
+		checkWire(wire);
+		return liveRangeEnds[wire];
+	}
+	
+	/**
+	 * @return the largest number of wires that are live at the same time.
+	 */
+	public int getPeakLiveWires(){
+		return peakLiveWires;
+	}
+	
+	/**
+	 * @return the number of the gate at which the number of live wires is the largest, -1 if it is before the first gate, 
+	 * or the number of gates if it is at the end of the circuit.
+	 */
+	public int getPeakLiveGate(){
+		return peakLiveGate;
+	}
+	
+	private void checkWire(int wire){
+		if (wire < 0 || wire >= numberOfWires || liveRangeStarts[wire] == NOT_SET){
+			throw new IllegalArgumentException("wire " + wire + " is not used in the circuit");
+		}
+	}
+	
+	/**
+	 * @return a printable summary of the profile.
+	 */
+	public String getReport(){
+		int maxWidth = 0;
+		for (int width : andLayerWidths){
+			maxWidth = Math.max(maxWidth, width);
+		}
+		return "gates: " + numberOfGates + " (AND: " + numberOfANDGates + ", XOR: " + numberOfXORGates + ", NOT: " + numberOfNOTGates + 
+				"), wires: " + numberOfWires + ", depth: " + depth + ", multiplicative depth: " + multiplicativeDepth + 
+				", max AND layer width: " + maxWidth + ", max fan-out: " + maxFanOut + ", peak live wires: " + peakLiveWires;
+	}
+}
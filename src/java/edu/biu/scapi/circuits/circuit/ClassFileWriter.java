@@ -0,0 +1,321 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A minimal writer of JVM class files, used by {@link CircuitCompiler} to generate the classes of compiled circuits. <p>
+ * It supports only what the compiler needs: a public final class that extends {@code Object} and implements a single 
+ * interface, with a default constructor and methods whose code is given as bytes. The class files have version 49 (Java 5), 
+ * so methods that contain branches do not need stack map frames.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+final class ClassFileWriter {
+	
+	//Constant pool tags.
+	private static final int UTF8 = 1;
+	private static final int INTEGER = 3;
+	private static final int CLASS = 7;
+	private static final int METHOD_REF = 10;
+	private static final int NAME_AND_TYPE = 12;
+	
+	static final int ACC_PUBLIC = 0x0001;
+	static final int ACC_STATIC = 0x0008;
+	static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+	
+	//The opcodes used by the compiler.
+	static final int ICONST_0 = 0x03;
+	static final int LCONST_0 = 0x09;
+	static final int LCONST_1 = 0x0a;
+	static final int BIPUSH = 0x10;
+	static final int SIPUSH = 0x11;
+	static final int LDC = 0x12;
+	static final int LDC_W = 0x13;
+	static final int LLOAD = 0x16;
+	static final int ILOAD_1 = 0x1b;
+	static final int LLOAD_3 = 0x21;
+	static final int ALOAD_0 = 0x2a;
+	static final int ALOAD_2 = 0x2c;
+	static final int LALOAD = 0x2f;
+	static final int LASTORE = 0x50;
+	static final int LNEG = 0x75;
+	static final int LAND = 0x7f;
+	static final int LOR = 0x81;
+	static final int LXOR = 0x83;
+	static final int TABLESWITCH = 0xaa;
+	static final int RETURN = 0xb1;
+	static final int INVOKESPECIAL = 0xb7;
+	static final int INVOKESTATIC = 0xb8;
+	
+	/**
+	 * The code of a single method.
+	 */
+	static final class Code {
+		private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private ClassFileWriter owner;
+		
+		private Code(ClassFileWriter owner){
+			this.owner = owner;
+		}
+		
+		void op(int opcode){
+			bytes.write(opcode);
+		}
+		
+		void op(int opcode, int index){
+			bytes.write(opcode);
+			bytes.write(index);
+		}
+		
+		void u2(int value){
+			bytes.write(value >>> 8);
+			bytes.write(value);
+		}
+		
+		void u4(int value){
+			u2(value >>> 16);
+			u2(value & 0xffff);
+		}
+		
+		/**
+		 * Pushes the given int, using the shortest instruction.
+		 */
+		void pushInt(int value){
+			if (value >= -1 && value <= 5){
+				op(ICONST_0 + value);
+			} else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE){
+				op(BIPUSH, value & 0xff);
+			} else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE){
+				op(SIPUSH);
+				u2(value & 0xffff);
+			} else {
+				int index = owner.intConstant(value);
+				if (index < 256){
+					op(LDC, index);
+				} else {
+					op(LDC_W);
+					u2(index);
+				}
+			}
+		}
+		
+		void invokestatic(String className, String name, String descriptor){
+			op(INVOKESTATIC);
+			u2(owner.methodRef(className, name, descriptor));
+		}
+		
+		void invokespecial(String className, String name, String descriptor){
+			op(INVOKESPECIAL);
+			u2(owner.methodRef(className, name, descriptor));
+		}
+		
+		/**
+		 * @return the number of bytes written so far, which is also the offset of the next instruction.
+		 */
+		int size(){
+			return bytes.size();
+		}
+		
+		void write(byte[] code){
+			bytes.write(code, 0, code.length);
+		}
+		
+		byte[] toByteArray(){
+			return bytes.toByteArray();
+		}
+	}
+	
+	private String className;
+	private ArrayList<byte[]> constants = new ArrayList<byte[]>();
+	private int constantPoolSize = 1;		//Index 0 of the constant pool is not used.
+	private HashMap<String, Integer> constantIndices = new HashMap<String, Integer>();
+	private ByteArrayOutputStream methods = new ByteArrayOutputStream();
+	private int numberOfMethods;
+	private int thisClass;
+	private int superClass;
+	private int interfaceClass;
+	private int codeName;
+	
+	/**
+	 * Creates a writer of a class with a default constructor.
+	 * @param className The internal name of the class, for example "a/b/C".
+	 * @param interfaceName The internal name of the interface that the class implements.
+	 */
+	ClassFileWriter(String className, String interfaceName){
+		this.className = className;
+		thisClass = classRef(className);
+		superClass = classRef("java/lang/Object");
+		interfaceClass = classRef(interfaceName);
+		codeName = utf8("Code");
+		
+		Code constructor = new Code(this);
+		constructor.op(ALOAD_0);
+		constructor.invokespecial("java/lang/Object", "<init>", "()V");
+		constructor.op(RETURN);
+		addMethod(ACC_PUBLIC, "<init>", "()V", constructor, 1, 1);
+	}
+	
+	/**
+	 * @return the internal name of the class.
+	 */
+	String getClassName(){
+		return className;
+	}
+	
+	/**
+	 * @return a new empty method code.
+	 */
+	Code newCode(){
+		return new Code(this);
+	}
+	
+	/**
+	 * @return the number of entries in the constant pool. A class can have at most 65535 entries.
+	 */
+	int getConstantPoolSize(){
+		return constantPoolSize;
+	}
+	
+	private int constant(String key, byte[] entry, int slots){
+		Integer index = constantIndices.get(key);
+		if (index == null){
+			index = constantPoolSize;
+			constants.add(entry);
+			constantPoolSize += slots;
+			constantIndices.put(key, index);
+		}
+		return index;
+	}
+	
+	int utf8(String value){
+		ByteArrayOutputStream entry = new ByteArrayOutputStream();
+		try {
+			DataOutputStream out = new DataOutputStream(entry);
+			out.writeByte(UTF8);
+			out.writeUTF(value);
+		} catch (IOException e) {
+			// Should not occur since the stream is in memory.
+			throw new IllegalStateException(e);
+		}
+		return constant("U" + value, entry.toByteArray(), 1);
+	}
+	
+	int intConstant(int value){
+		return constant("I" + value, new byte[] { INTEGER, (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value }, 1);
+	}
+	
+	int classRef(String name){
+		int nameIndex = utf8(name);
+		return constant("C" + name, new byte[] { CLASS, (byte) (nameIndex >>> 8), (byte) nameIndex }, 1);
+	}
+	
+	int methodRef(String className, String name, String descriptor){
+		int classIndex = classRef(className);
+		int nameIndex = utf8(name);
+		int descriptorIndex = utf8(descriptor);
+		int nameAndType = constant("N" + name + " " + descriptor, new byte[] { NAME_AND_TYPE, 
+				(byte) (nameIndex >>> 8), (byte) nameIndex, (byte) (descriptorIndex >>> 8), (byte) descriptorIndex }, 1);
+		return constant("M" + className + "." + name + descriptor, new byte[] { METHOD_REF, 
+				(byte) (classIndex >>> 8), (byte) classIndex, (byte) (nameAndType >>> 8), (byte) nameAndType }, 1);
+	}
+	
+	/**
+	 * Adds a method to the class.
+	 * @param access The access flags of the method.
+	 * @param name The name of the method.
+	 * @param descriptor The descriptor of the method, for example "([J)V".
+	 * @param code The code of the method.
+	 * @param maxStack The maximal depth of the operand stack.
+	 * @param maxLocals The number of local variable slots, including the parameters.
+	 * @throws IllegalArgumentException if the code is longer than the limit of the JVM.
+	 */
+	void addMethod(int access, String name, String descriptor, Code code, int maxStack, int maxLocals){
+		byte[] bytes = code.toByteArray();
+		if (bytes.length >= 65536){
+			throw new IllegalArgumentException("the code of method " + name + " is too long");
+		}
+		try {
+			DataOutputStream out = new DataOutputStream(methods);
+			out.writeShort(access);
+			out.writeShort(utf8(name));
+			out.writeShort(utf8(descriptor));
+			out.writeShort(1);					//The Code attribute.
+			out.writeShort(codeName);
+			out.writeInt(12 + bytes.length);
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+			out.writeShort(0);					//No exception table.
+			out.writeShort(0);					//No attributes.
+		} catch (IOException e) {
+			// Should not occur since the stream is in memory.
+			throw new IllegalStateException(e);
+		}
+		numberOfMethods++;
+	}
+	
+	/**
+	 * @return the class file.
+	 * @throws IllegalStateException if the constant pool has too many entries.
+	 */
+	byte[] toByteArray(){
+		if (constantPoolSize > 65535){
+			throw new IllegalStateException("the constant pool of " + className + " is too large");
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);					//Minor version.
+			out.writeShort(49);					//Major version.
+			out.writeShort(constantPoolSize);
+			for (byte[] entry : constants){
+				out.write(entry);
+			}
+			out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(1);
+			out.writeShort(interfaceClass);
+			out.writeShort(0);					//No fields.
+			out.writeShort(numberOfMethods);
+			methods.writeTo(out);
+			out.writeShort(0);					//No attributes.
+		} catch (IOException e) {
+			// Should not occur since the stream is in memory.
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,301 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import edu.biu.scapi.exceptions.CircuitFileFormatException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+
+/**
+ * A compact, struct-of-arrays representation of a boolean circuit.<p>
+ * Instead of a {@link Gate} object per gate (that holds a {@code BitSet} and two {@code int[]}), this class keeps one entry per gate 
+ * in each of four flat arrays: the gate type, the first input wire, the second input wire and the output wire. 
+ * This takes 13 bytes per gate and can be filled directly from a memory mapped file (see {@link BinaryCircuitFile}).<p>
+ * 
+ * The gate type byte encodes the truth table of the gate:<p>
+ * For a two-input gate, bit r of the type is the output of row r of the truth table, where the row index is 
+ * (value of first input)*2 + (value of second input). This is the same order used by {@link Gate}.<p>
+ * For a one-input gate, the {@link #UNARY_GATE} flag is set, bit 0 is the output on input 0 and bit 1 is the output on input 1. 
+ * In this case the second input wire is {@link #NO_WIRE}.<p>
+ * 
+ * Only gates with one or two input wires and a single output wire can be represented. 
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class CompactBooleanCircuit {
+
+	/**
+	 * A flag that is set in the type of gates that have a single input wire.
+	 */
+	public static final byte UNARY_GATE = 0x10;
+	
+	/**
+	 * The value placed in the second input wire of gates that have a single input wire.
+	 */
+	public static final int NO_WIRE = -1;
+	
+	// Common two input gate types.
+	public static final byte AND = 0x8;		//0001
+	public static final byte XOR = 0x6;		//0110
+	public static final byte XNOR = 0x9;	//1001
+	public static final byte OR = 0xE;		//0111
+	// Common one input gate types.
+	public static final byte NOT = UNARY_GATE | 0x1;		//10
+	public static final byte IDENTITY = UNARY_GATE | 0x2;	//01
+	
+	private byte[] gateTypes;			// The type of each gate.
+	private int[] firstInputWires;		// The first input wire of each gate.
+	private int[] secondInputWires;		// The second input wire of each gate, or NO_WIRE in case of a one input gate.
+	private int[] outputWires;			// The output wire of each gate.
+	
+	private int[][] eachPartysInputWires;	// The input wires' indices of each party.
+	private int[] outputWireIndices;		// The circuit's output wires' indices.
+	
+	/**
+	 * Sets the given arrays. The gates should be given in topological order.
+	 * @param gateTypes The type of each gate.
+	 * @param firstInputWires The first input wire of each gate.
+	 * @param secondInputWires The second input wire of each gate, or NO_WIRE in case of a one input gate.
+	 * @param outputWires The output wire of each gate.
+	 * @param eachPartysInputWires The input wires' indices of each party, indexed by the party number minus one.
+	 * @param outputWireIndices The indices of the circuit's output wires.
+	 */
+	public CompactBooleanCircuit(byte[] gateTypes, int[] firstInputWires, int[] secondInputWires, int[] outputWires, 
+			int[][] eachPartysInputWires, int[] outputWireIndices){
+		int numberOfGates = gateTypes.length;
+		if (firstInputWires.length != numberOfGates || secondInputWires.length != numberOfGates || outputWires.length != numberOfGates){
+			throw new IllegalArgumentException("all gates' arrays should have the same length");
+		}
+		this.gateTypes = gateTypes;
+		this.firstInputWires = firstInputWires;
+		this.secondInputWires = secondInputWires;
+		this.outputWires = outputWires;
+		this.eachPartysInputWires = eachPartysInputWires;
+		this.outputWireIndices = outputWireIndices;
+	}
+	
+	/**
+	 * Creates a compact representation of the given boolean circuit.
+	 * @param bc The circuit to convert.
+	 * @throws CircuitFileFormatException in case the circuit has a gate with more than two inputs or more than one output.
+	 */
+	public CompactBooleanCircuit(BooleanCircuit bc) throws CircuitFileFormatException {
+		Gate[] gates = bc.getGates();
+		int numberOfGates = gates.length;
+		gateTypes = new byte[numberOfGates];
+		firstInputWires = new int[numberOfGates];
+		secondInputWires = new int[numberOfGates];
+		outputWires = new int[numberOfGates];
+		
+		for (int i = 0; i < numberOfGates; i++){
+			int[] inputs = gates[i].getInputWireIndices();
+			int[] outputs = gates[i].getOutputWireIndices();
+			if (outputs.length != 1){
+				throw new CircuitFileFormatException("gate " + i + " has " + outputs.length + " output wires; only one is supported");
+			}
+			gateTypes[i] = getGateType(gates[i].getTruthTable(), inputs.length);
+			firstInputWires[i] = inputs[0];
+			secondInputWires[i] = (inputs.length == 2) ? inputs[1] : NO_WIRE;
+			outputWires[i] = outputs[0];
+		}
+		
+		outputWireIndices = bc.getOutputWireIndices();
+		int numberOfParties = bc.getNumberOfParties();
+		eachPartysInputWires = new int[numberOfParties][];
+		for (int i = 0; i < numberOfParties; i++){
+			ArrayList<Integer> partyInputs = null;
+			try {
+				partyInputs = bc.getInputWireIndices(i+1);
+			} catch (NoSuchPartyException e) {
+				// Should not occur since the party number is between 1 to getNumberOfParties.
+			}
+			eachPartysInputWires[i] = new int[partyInputs.size()];
+			for (int j = 0; j < eachPartysInputWires[i].length; j++){
+				eachPartysInputWires[i][j] = partyInputs.get(j);
+			}
+		}
+	}
+	
+	/**
+	 * Calculates the gate type that matches the given truth table.
+	 * @param truthTable The truth table of the gate, in the format used by {@link Gate}.
+	 * @param numberOfInputs The number of input wires of the gate. Should be 1 or 2.
+	 * @return the type of the gate.
+	 * @throws CircuitFileFormatException in case the number of inputs is not 1 or 2.
+	 */
+	public static byte getGateType(BitSet truthTable, int numberOfInputs) throws CircuitFileFormatException {
+		if (numberOfInputs < 1 || numberOfInputs > 2){
+			throw new CircuitFileFormatException("gates with " + numberOfInputs + " input wires are not supported");
+		}
+		int numberOfRows = 1 << numberOfInputs;
+		byte type = (numberOfInputs == 1) ? UNARY_GATE : 0;
+		for (int row = 0; row < numberOfRows; row++){
+			if (truthTable.get(row)){
+				type |= 1 << row;
+			}
+		}
+		return type;
+	}
+	
+	/**
+	 * Creates the truth table of the given gate type, in the format used by {@link Gate}.
+	 * @param gateType The type of the gate.
+	 * @return the truth table of the gate.
+	 */
+	public static BitSet getTruthTable(byte gateType){
+		BitSet truthTable = new BitSet();
+		int numberOfRows = isUnary(gateType) ? 2 : 4;
+		for (int row = 0; row < numberOfRows; row++){
+			if ((gateType & (1 << row)) != 0){
+				truthTable.set(row);
+			}
+		}
+		return truthTable;
+	}
+	
+	/**
+	 * Returns true if the given gate type is of a gate with a single input wire.
+	 */
+	public static boolean isUnary(byte gateType){
+		return (gateType & UNARY_GATE) != 0;
+	}
+	
+	/**
+	 * Returns the output of a gate of the given type on the given input values.
+	 * @param gateType The type of the gate.
+	 * @param firstInput The value (0 or 1) of the first input wire.
+	 * @param secondInput The value (0 or 1) of the second input wire. Ignored in case of a one input gate.
+	 * @return the output value of the gate.
+	 */
+	public static byte evaluate(byte gateType, int firstInput, int secondInput){
+		int row = isUnary(gateType) ? firstInput : (firstInput << 1) | secondInput;
+		return (byte) ((gateType >> row) & 1);
+	}
+	
+	/**
+	 * Creates a {@link BooleanCircuit} with the gates of this circuit. 
+	 * This should be used in order to garble the circuit using the existing garbled circuits.
+	 * @return the created circuit.
+	 */
+	public BooleanCircuit toBooleanCircuit(){
+		int numberOfGates = gateTypes.length;
+		Gate[] gates = new Gate[numberOfGates];
+		for (int i = 0; i < numberOfGates; i++){
+			int[] inputs = isUnary(gateTypes[i]) ? new int[]{firstInputWires[i]} : new int[]{firstInputWires[i], secondInputWires[i]};
+			gates[i] = new Gate(i, getTruthTable(gateTypes[i]), inputs, new int[]{outputWires[i]});
+		}
+		
+		ArrayList<ArrayList<Integer>> partiesInputs = new ArrayList<ArrayList<Integer>>();
+		for (int[] partyInputs : eachPartysInputWires){
+			ArrayList<Integer> inputs = new ArrayList<Integer>(partyInputs.length);
+			for (int w : partyInputs){
+				inputs.add(w);
+			}
+			partiesInputs.add(inputs);
+		}
+		return new BooleanCircuit(gates, outputWireIndices.clone(), partiesInputs);
+	}
+	
+	/**
+	 * Returns the number of gates in this circuit.
+	 */
+	public int getNumberOfGates(){
+		return gateTypes.length;
+	}
+	
+	/**
+	 * Returns the largest wire index used in this circuit plus one. 
+	 * This is the size of an array that can hold a value for each wire of the circuit.
+	 */
+	public int getNumberOfWires(){
+		int max = -1;
+		for (int[] partyInputs : eachPartysInputWires){
+			for (int w : partyInputs){
+				max = Math.max(max, w);
+			}
+		}
+		for (int i = 0; i < outputWires.length; i++){
+			max = Math.max(max, Math.max(outputWires[i], Math.max(firstInputWires[i], secondInputWires[i])));
+		}
+		return max + 1;
+	}
+	
+	/**
+	 * @return the type of each gate of this circuit.
+	 */
+	public byte[] getGateTypes() {
+		return gateTypes;
+	}
+
+	/**
+	 * @return the first input wire of each gate of this circuit.
+	 */
+	public int[] getFirstInputWires() {
+		return firstInputWires;
+	}
+
+	/**
+	 * @return the second input wire of each gate of this circuit. One input gates have NO_WIRE.
+	 */
+	public int[] getSecondInputWires() {
+		return secondInputWires;
+	}
+
+	/**
+	 * @return the output wire of each gate of this circuit.
+	 */
+	public int[] getOutputWires() {
+		return outputWires;
+	}
+	
+	/**
+	 * @return an array of the circuit's output wire indices.
+	 */
+	public int[] getOutputWireIndices() {
+		return outputWireIndices;
+	}
+	
+	/**
+	 * @param partyNumber The number of the party whose input wires will be returned.
+	 * @return an array containing the input wire indices of the specified party.
+	 * @throws NoSuchPartyException if the given party number is less than 1 and greater than the number of parties.
+	 */
+	public int[] getInputWireIndices(int partyNumber) throws NoSuchPartyException {
+		if(partyNumber < 1 || partyNumber > eachPartysInputWires.length){
+			throw new NoSuchPartyException();
+		}
+		return eachPartysInputWires[partyNumber-1];
+	}
+	
+	/**
+	 * Returns the number of parties of this circuit.
+	 */
+	public int getNumberOfParties() {
+		return eachPartysInputWires.length;
+	}
+}
@@ -0,0 +1,68 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import edu.biu.scapi.exceptions.CircuitFileFormatException;
+
+/**
+ * A {@link BitSlicedCircuitEvaluator} that evaluates the circuit by code that is generated for it. <p>
+ * The circuit is compiled by {@link CircuitCompiler} when the evaluator is created, into straight-line methods that compute 
+ * the gates on a {@code long} array without loops, branches or reads of the gate arrays. Compiling takes longer than creating 
+ * a {@link BitSlicedCircuitEvaluator}, and the JIT compiles the generated code only after it was run a few thousand times, 
+ * so this evaluator pays off for circuits that are evaluated many times. <p>
+ * 
+ * The inputs and outputs are the same as in {@link BitSlicedCircuitEvaluator}, and the evaluator can be used by many threads 
+ * concurrently.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class CompiledCircuitEvaluator extends BitSlicedCircuitEvaluator {
+	
+	private CircuitCompiler.Program program;
+	
+	/**
+	 * Compiles the given circuit and creates an evaluator for it.
+	 * @param circuit The circuit to evaluate.
+	 */
+	public CompiledCircuitEvaluator(CompactBooleanCircuit circuit){
+		super(circuit);
+		program = CircuitCompiler.compileBitSliced(circuit);
+	}
+	
+	/**
+	 * Compiles the given circuit and creates an evaluator for it.
+	 * @param circuit The circuit to evaluate.
+	 * @throws CircuitFileFormatException if the circuit has a gate that does not have one or two inputs and a single output.
+	 */
+	public CompiledCircuitEvaluator(BooleanCircuit circuit) throws CircuitFileFormatException {
+		this(new CompactBooleanCircuit(circuit));
+	}
+	
+	@Override
+	protected void computeGates(long[] values){
+		program.compute(0, values, 0, 0);
+	}
+}
@@ -0,0 +1,83 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.io.IOException;
+
+import edu.biu.scapi.exceptions.CircuitFileFormatException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+
+/**
+ * A forward-only, topologically ordered sequence of the {@code Gate}s of a boolean circuit. <p>
+ * Circuit engines that consume a {@code GateIterator} never need the whole circuit in memory: a gate is garbled, evaluated 
+ * or computed as soon as it is read and can then be discarded. The only state such an engine keeps is a value per wire, 
+ * which is why the iterator exposes the number of wires in advance. <p>
+ * The gate numbers of the returned gates are unique, since garbling engines use them as tweaks.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public interface GateIterator {
+
+	/**
+	 * @return the number of parties that give inputs to the circuit.
+	 */
+	public int getNumberOfParties();
+	
+	/**
+	 * @param partyNumber The number of the party whose input wires should be returned. The parties are numbered from 1.
+	 * @return the indices of the input wires of the given party.
+	 * @throws NoSuchPartyException if the given party number is not between 1 and the number of parties.
+	 */
+	public int[] getInputWireIndices(int partyNumber) throws NoSuchPartyException;
+	
+	/**
+	 * @return the indices of the output wires of the circuit.
+	 */
+	public int[] getOutputWireIndices();
+	
+	/**
+	 * @return an upper bound on the wire indices used by the circuit (the largest index plus one).
+	 */
+	public int getNumberOfWires();
+	
+	/**
+	 * @return {@code true} if there are more gates to return.
+	 */
+	public boolean hasNext();
+	
+	/**
+	 * Returns the next gate of the circuit.
+	 * @throws IOException if the gate could not be read from the underlying source.
+	 * @throws CircuitFileFormatException if the underlying source does not describe a legal circuit.
+	 * @throws IllegalStateException if there are no more gates.
+	 */
+	public Gate next() throws IOException, CircuitFileFormatException;
+	
+	/**
+	 * Releases the resources used by this iterator. 
+	 */
+	public void close() throws IOException;
+}
@@ -0,0 +1,97 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.biu.scapi.exceptions.CircuitFileFormatException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+import edu.biu.scapi.exceptions.NotAllInputsSetException;
+
+/**
+ * Computes a boolean circuit that is given as a {@link GateIterator}. <p>
+ * As opposed to {@link BooleanCircuit#compute()}, the circuit is never held in memory and the wire values are kept in a 
+ * single byte array indexed by the wire number, so circuits that are too big to be represented as {@link Gate} objects 
+ * can be computed directly from their file.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public final class StreamingCircuitEvaluator {
+
+	private StreamingCircuitEvaluator(){
+		//Only static methods.
+	}
+	
+	/**
+	 * Computes the circuit on the given inputs. The iterator is consumed but not closed.
+	 * @param gates The gates of the circuit.
+	 * @param inputs The input wires of all the parties, mapped by their indices.
+	 * @return a {@link Map} that maps the output wire index to the computed {@link Wire}.
+	 * @throws NotAllInputsSetException if one of the input wires of the circuit has no value in the inputs map.
+	 * @throws IOException in case of a problem reading the gates.
+	 * @throws CircuitFileFormatException if the gates are illegal.
+	 */
+	public static Map<Integer, Wire> compute(GateIterator gates, Map<Integer, Wire> inputs) throws NotAllInputsSetException, IOException, CircuitFileFormatException {
+		byte[] values = new byte[gates.getNumberOfWires()];
+		
+		try {
+			for (int party = 1; party <= gates.getNumberOfParties(); party++){
+				for (int w : gates.getInputWireIndices(party)){
+					Wire input = inputs.get(w);
+					if (input == null){
+						throw new NotAllInputsSetException();
+					}
+					values[w] = input.getValue();
+				}
+			}
+		} catch (NoSuchPartyException e) {
+			// Should not occur since the party numbers are between 1 and the number of parties.
+		}
+		
+		while (gates.hasNext()){
+			Gate gate = gates.next();
+			int[] inputWires = gate.getInputWireIndices();
+			
+			//The first input wire is the most significant bit of the truth table row, as in Gate.compute.
+			int row = 0;
+			for (int i = 0; i < inputWires.length; i++){
+				row = (row << 1) | values[inputWires[i]];
+			}
+			byte value = (byte) (gate.getTruthTable().get(row) ? 1 : 0);
+			for (int w : gate.getOutputWireIndices()){
+				values[w] = value;
+			}
+		}
+		
+		Map<Integer, Wire> outputs = new HashMap<Integer, Wire>();
+		for (int w : gates.getOutputWireIndices()){
+			outputs.put(w, new Wire(values[w]));
+		}
+		return outputs;
+	}
+}
@@ -0,0 +1,153 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.circuit;
+
+import java.util.Arrays;
+
+/**
+ * Assigns each wire of a {@link BooleanCircuit} a slot, so that wires that are never live at the same time share a slot. <p>
+ * This is similar to register allocation in a compiler: the live range of each wire is taken from a {@link CircuitProfile}, 
+ * and the wires are allocated in a single scan over the gates in topological order. When the last gate that reads a wire has 
+ * been computed, the slot of the wire is free and the next wire that is set takes it. Since the live ranges are intervals, 
+ * this uses the least possible number of slots for these ranges. <p>
+ * 
+ * A wire is live from the gate that sets it until (and including) the last gate that reads it, so the output wire of a gate never 
+ * shares a slot with the input wires of the same gate, and a gate can read its inputs after its outputs were written. 
+ * The output wires of the circuit are live until the end, so their values can be read once all the gates were computed. 
+ * The input wires of the circuit are live until the end as well, so the inputs that were set are not overwritten by a computation 
+ * and the circuit can be computed again with the same inputs, or with only some of them replaced. This costs one slot per input wire, 
+ * so the number of slots is at most {@link CircuitProfile#getPeakLiveWires()} plus the number of input wires. 
+ * Wires that are not set by any gate or input have no slot. <p>
+ * 
+ * The allocation of a circuit can be obtained by {@link BooleanCircuit#getWireSlotAllocation()}, which computes it once.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class WireSlotAllocation {
+	
+	private int[] slots;
+	private int numberOfSlots;
+	
+	/**
+	 * Computes the allocation of the given circuit.
+	 * @param circuit The circuit to allocate slots for.
+	 */
+	public WireSlotAllocation(BooleanCircuit circuit){
+		this(new CircuitProfile(circuit));
+	}
+	
+	/**
+	 * Computes the allocation of the circuit of the given profile.
+	 * @param profile The profile that holds the live ranges of the wires.
+	 */
+	public WireSlotAllocation(CircuitProfile profile){
+		int numberOfWires = profile.getNumberOfWires();
+		int numberOfGates = profile.getNumberOfGates();
+		slots = new int[numberOfWires];
+		Arrays.fill(slots, -1);
+		
+		//Step s of the scan is before gate s - 1, so the input wires start at step 0.
+		int[] starts = new int[numberOfWires];
+		int[] ends = new int[numberOfWires];
+		int[] endHeads = new int[numberOfGates + 2];
+		int[] nextEnd = new int[numberOfWires];
+		Arrays.fill(endHeads, -1);
+		for (int w = 0; w < numberOfWires; w++){
+			try {
+				starts[w] = profile.getLiveRangeStart(w) + 1;
+				//The input wires (that start before the first gate) are kept until the end, as the output wires.
+				ends[w] = (starts[w] == 0) ? numberOfGates + 1 : profile.getLiveRangeEnd(w) + 1;
+			} catch (IllegalArgumentException e){
+				//The wire is not used in the circuit.
+				starts[w] = -1;
+				continue;
+			}
+			//Link the wires by the end of their live range, in order to free their slots.
+			nextEnd[w] = endHeads[ends[w]];
+			endHeads[ends[w]] = w;
+		}
+		//Sort the wires by the start of their live range using counting sort.
+		int[] sorted = sortByStart(starts, numberOfGates);
+		
+		//Scan the wires by their start. Before the wires that start at step s are allocated, the slots of the wires 
+		//that ended before s are freed.
+		int[] freeSlots = new int[numberOfWires];
+		int numberOfFreeSlots = 0;
+		int freedUntil = 0;
+		for (int w : sorted){
+			while (freedUntil < starts[w]){
+				for (int dead = endHeads[freedUntil]; dead != -1; dead = nextEnd[dead]){
+					freeSlots[numberOfFreeSlots++] = slots[dead];
+				}
+				freedUntil++;
+			}
+			slots[w] = (numberOfFreeSlots > 0) ? freeSlots[--numberOfFreeSlots] : numberOfSlots++;
+		}
+	}
+	
+	private static int[] sortByStart(int[] starts, int numberOfGates){
+		int[] offsets = new int[numberOfGates + 3];
+		int count = 0;
+		for (int start : starts){
+			if (start >= 0){
+				offsets[start + 1]++;
+				count++;
+			}
+		}
+		for (int i = 1; i < offsets.length; i++){
+			offsets[i] += offsets[i - 1];
+		}
+		int[] sorted = new int[count];
+		for (int w = 0; w < starts.length; w++){
+			if (starts[w] >= 0){
+				sorted[offsets[starts[w]]++] = w;
+			}
+		}
+		return sorted;
+	}
+	
+	/**
+	 * @return the number of slots, i.e. the largest number of wires that are live at the same time.
+	 */
+	public int getNumberOfSlots(){
+		return numberOfSlots;
+	}
+	
+	/**
+	 * @return the number of wires in the circuit, i.e. the largest wire index plus one.
+	 */
+	public int getNumberOfWires(){
+		return slots.length;
+	}
+	
+	/**
+	 * @param wire The index of the wire.
+	 * @return the slot of the given wire, or -1 if the wire is not used in the circuit or the index is out of range.
+	 */
+	public int getSlot(int wire){
+		return (wire >= 0 && wire < slots.length) ? slots[wire] : -1;
+	}
+}
@@ -26,6 +26,9 @@
 package edu.biu.scapi.circuits.fastGarbledCircuit;
 
 import java.security.InvalidKeyException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.spec.SecretKeySpec;
@@ -35,6 +38,7 @@ import edu.biu.scapi.circuits.garbledCircuit.BasicGarbledTablesHolder;
 import edu.biu.scapi.circuits.garbledCircuit.ExtendedGarbledTablesHolder;
 import edu.biu.scapi.circuits.garbledCircuit.GarbledBooleanCircuit;
 import edu.biu.scapi.circuits.garbledCircuit.GarbledTablesHolder;
+import edu.biu.scapi.circuits.garbledCircuit.MerkleTree;
 import edu.biu.scapi.exceptions.CheatAttemptException;
 import edu.biu.scapi.exceptions.CiphertextTooLongException;
 import edu.biu.scapi.exceptions.NoSuchPartyException;
@@ -485,7 +489,7 @@ public class FastGarbledBooleanCircuitExtendedImp implements FastGarbledBooleanC
 		// This is done by computing a hash function on the garbled tables and translation table and comparing it to 
 		// the given hashedCircuit.
 		// In case this circuit has no garbled tables yet, garble it to create the tables.
-		if (garbledTablesHolder.getInternalGarbledTables().toDoubleByteArray() == null) {
+		if (garbledTablesHolder.getInternalGarbledTables().isEmpty()) {
 			// Set the input keys if there are.
 			if (allInputGarbledValues != null) {
 				setInputKeys(allInputGarbledValues);
@@ -604,17 +608,11 @@ public class FastGarbledBooleanCircuitExtendedImp implements FastGarbledBooleanC
 
 	@Override
 	public byte[] getHashedCircuit(CryptographicHash hash) {
-		// Get the garbled tables arrays
+		// Get the inner garbled tables
 		garbledTablesHolder.setInnerGarbledTables(gbc.getGarbledTables());
-		byte[][] tables = garbledTablesHolder.toDoubleByteArray();
-		int size = tables.length;
-		// Update the hash with each gate's garbled table.
-		for (int i = 0; i < size; i++) {
-			if (tables[i] != null) {
-				hash.update(tables[i], 0, tables[i].length);
-			}
-		}
-		size = getOutputWireIndices().length;
+		// Update the hash with each gate's garbled table. The tables are hashed in place.
+		garbledTablesHolder.updateHash(hash);
+		int size = getOutputWireIndices().length;
 		Byte signalbit;
 		byte[] signalBitArray;
 		// Update the hash with each signal bit.
@@ -656,6 +654,36 @@ public class FastGarbledBooleanCircuitExtendedImp implements FastGarbledBooleanC
 		return true;
 	}
 
+	@Override
+	public MerkleTree getMerkleTree(CryptographicHash hash, int chunkSize) {
+		return MerkleTree.compute(getHashedData(), chunkSize, hash);
+	}
+
+	@Override
+	public MerkleTree getMerkleTree(List<CryptographicHash> hashes, int chunkSize, ExecutorService executor) {
+		return MerkleTree.compute(getHashedData(), chunkSize, hashes, executor);
+	}
+
+	@Override
+	public boolean verifyMerkleRoot(CryptographicHash hash, int chunkSize, byte[] root) {
+		return Arrays.equals(getMerkleTree(hash, chunkSize).getRoot(), root);
+	}
+
+	/**
+	 * Returns the bytes that are hashed in order to commit on the circuit: each gate's garbled table followed by the signal bits.
+	 * The tables are taken from {@link GarbledTablesHolder#toDoubleByteArray()}, so whether they are copied depends on the holder: 
+	 * holders that keep an array per gate return their own arrays, while the contiguous and file-backed holders copy the tables out.
+	 */
+	private byte[][] getHashedData() {
+		// Get the inner garbled tables
+		garbledTablesHolder.setInnerGarbledTables(gbc.getGarbledTables());
+		byte[][] tables = garbledTablesHolder.toDoubleByteArray();
+		byte[][] data = new byte[tables.length + 1][];
+		System.arraycopy(tables, 0, data, 0, tables.length);
+		data[tables.length] = gbc.getTranslationTable();
+		return data;
+	}
+
 	@Override
 	public byte[] translate(byte[] garbledOutput) {
 		// The translation is done using the translation table that uses the signal bit approach.
@@ -708,13 +736,13 @@ public class FastGarbledBooleanCircuitExtendedImp implements FastGarbledBooleanC
 	private void generateInputOutputGates() {
 
 		// In case the user set the input keys, create the input identity gates.
-		if (garbledTablesHolder.getInputGarbledTables().toDoubleByteArray() != null) {
+		if (!garbledTablesHolder.getInputGarbledTables().isEmpty()) {
 
 			createInputIdentityGates();
 		}
 
 		// In case the user set the output keys, create the output identity gates.
-		if (garbledTablesHolder.getOutputGarbledTables().toDoubleByteArray() != null) {
+		if (!garbledTablesHolder.getOutputGarbledTables().isEmpty()) {
 
 			createOutputIdentityGates();
 		}
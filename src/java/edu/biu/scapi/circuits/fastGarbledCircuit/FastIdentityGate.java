@@ -28,7 +28,6 @@ package edu.biu.scapi.circuits.fastGarbledCircuit;
 import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.SecureRandom;
-import java.util.Arrays;
 
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.SecretKey;
@@ -105,8 +104,6 @@ public class FastIdentityGate {
 		
 		//Allocate memory to the garbled table. Two rows when each row contain two encryptions.
 		byte[] garbledTable = new byte[2 * mes.getCipherSize() * 2];
-		//Set the created table to the holder.
-		garbledTablesHolder.toDoubleByteArray()[gateNumber] = garbledTable;
 		
 		//The order of the rows should be random.
 		//In case of garbling using a seed, the random choose is done using the prg.
@@ -151,6 +148,9 @@ public class FastIdentityGate {
 		  	//flip row for next round.
 		  	position = 1-position;
 	  	}	  	
+		
+		//Put the filled garbled table in the tables holder.
+		garbledTablesHolder.setGarbledTable(gateNumber, garbledTable);
 	}
 	
 	/**
@@ -198,7 +198,7 @@ public class FastIdentityGate {
 			int rowI = -1;
 			for (int i=0; i<2 && rowI<0; i++){
 				//Decrypt the zeros part.
-				byte[] validateZeros = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+				byte[] validateZeros = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 					i*mes.getCipherSize()*2 + mes.getCipherSize(), i*mes.getCipherSize()*2 + 2*mes.getCipherSize()));
 				//Check if the result are zeros.
 				boolean validateRow = validateRow(validateZeros);
@@ -214,7 +214,7 @@ public class FastIdentityGate {
 			}
 			
 			//Decrypt the first part of the chosen row.
-			wireValue = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+			wireValue = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 							rowI*mes.getCipherSize()*2, rowI*mes.getCipherSize()*2+mes.getCipherSize()));
 				
 		} catch (KeyNotSetException e) {
@@ -301,7 +301,7 @@ public class FastIdentityGate {
 			//Check that k0 decrypts one and only one row.
 			for (int i=0; i<2 && rowI<0; i++){
 				//Decrypt part two of the row.
-				validateZeros = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+				validateZeros = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 					i*mes.getCipherSize()*2 + mes.getCipherSize(), i*mes.getCipherSize()*2 + 2*mes.getCipherSize()));
 				//Check the output.
 				validateRow = validateRow(validateZeros);
@@ -321,7 +321,7 @@ public class FastIdentityGate {
 			}
 			
 			//k0 can decrypt one and only one row, decrypt the first part of that row to get k0'.
-			byte[] outputValue = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+			byte[] outputValue = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 							rowI*mes.getCipherSize()*2, rowI*mes.getCipherSize()*2+mes.getCipherSize()));
 			outputZeroValue = new SecretKeySpec(outputValue, "");
 			
@@ -334,7 +334,7 @@ public class FastIdentityGate {
 			//Check that k1 decrypts one and only one row.
 			for (int i=0; i<2 && rowI<0; i++){
 				//Decrypt part two of the row.
-				validateZeros = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+				validateZeros = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 					i*mes.getCipherSize()*2 + mes.getCipherSize(), i*mes.getCipherSize()*2 + 2*mes.getCipherSize()));
 				//Check the output.
 				validateRow = validateRow(validateZeros);
@@ -349,7 +349,7 @@ public class FastIdentityGate {
 				return false;
 			}
 			//k1 can decrypt one and only one row, decrypt the first part of that row to get k1'.
-			outputValue = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+			outputValue = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 							rowI*mes.getCipherSize()*2, rowI*mes.getCipherSize()*2+mes.getCipherSize()));
 				
 			outputOneValue = new SecretKeySpec(outputValue, "");
@@ -0,0 +1,793 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.fastGarbledCircuit;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+import edu.biu.scapi.circuits.circuit.BooleanCircuit;
+import edu.biu.scapi.circuits.circuit.CircuitCompiler;
+import edu.biu.scapi.circuits.circuit.Gate;
+import edu.biu.scapi.circuits.garbledCircuit.GarbledTablesHolder;
+import edu.biu.scapi.circuits.garbledCircuit.JustGarbledGarbledTablesHolder;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.exceptions.CircuitFileFormatException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+import edu.biu.scapi.exceptions.NotAllInputsSetException;
+
+/**
+ * A concrete implementation of FastGarbledBooleanCircuit that is written in java only. <p>
+ * This class can be used instead of {@link ScNativeGarbledBooleanCircuit} where the native library can not be loaded, for example 
+ * as the inner circuit of {@link FastGarbledBooleanCircuitExtendedImp}. <p>
+ * 
+ * The circuit uses the Free XOR technique, and optionally the row reduction technique (in which the garbled table of each non-XOR 
+ * gate has 3 rows instead of 4). The gates are garbled using a fixed-key AES in the way of JustGarble: 
+ * H(A, B, T) = AES(K) XOR K, where K = 2A XOR 4B XOR T and T is the gate index. <p>
+ * 
+ * For efficiency, all the keys are held in a single long array (two longs for each wire) and the gates are garbled and computed 
+ * level by level: the non-XOR gates whose inputs are ready are encrypted together in one call to the AES, so the fixed-key AES of the 
+ * JCE (that uses the AES-NI instructions where available) processes large batches. <p>
+ * 
+ * The XOR gates of all the levels can be compiled into generated code by {@link #compileFreeGates()}, which is worthwhile when the 
+ * same circuit object is garbled or computed many times. <p>
+ * 
+ * The keys, translation table and garbled tables have the same format as in {@link ScNativeGarbledBooleanCircuit}, but the garbling 
+ * itself is different, so both parties should use this implementation.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class ScJavaGarbledBooleanCircuit implements FastGarbledBooleanCircuit {
+	
+	private static final int KEY_SIZE = 16;	//The number of bytes in each key.
+	
+	//A 128 bit key that is used as the fixed key of the AES. 
+	private static final byte[] FIXED_KEY = { -13, 29,-20, 98, -96, -51, -86, -82, 9, 49, -26, 92, -22, 50, -100, 36 };
+	
+	private static final byte FREE_XOR = 0;
+	private static final byte FREE_XNOR = 1;
+	private static final byte TABLE_GATE = 2;
+	
+	private boolean isRowReduction;
+	private int rowsPerTable;
+	
+	//The structure of the circuit.
+	private int numberOfWires;
+	private byte[] gateTypes;
+	private int[] truthTables;			//Bit r is the output of row r of the truth table, where the first input is the most significant bit.
+	private int[] firstInputs;
+	private int[] secondInputs;
+	private int[][] outputs;
+	private int[] tableIndices;			//The index of each gate's table in the garbled tables, or -1 for XOR gates.
+	private int numberOfTables;
+	
+	//The gates are processed level by level; In each level first the XOR gates and then all the other gates as one batch.
+	private int[][] freeGatesOfLevel;
+	private int[][] tableGatesOfLevel;
+	private int maxLevelSize;
+	
+	private int[] inputIndices;
+	private int[] outputIndices;
+	private int[] numOfInputsForEachParty;
+	
+	private byte[] garbledTables;
+	private byte[] translationTable;
+	
+	private Cipher fixedKeyAes;
+	private byte[] aesBuffer;			//Holds the blocks of a batch as bytes.
+	private CircuitCompiler.Program compiledFreeGates;	//The XOR gates of each level, if they were compiled.
+	
+	/**
+	 * A constructor that reads the circuit from the given file.
+	 * @param fileName The name of the circuit file.
+	 * @param isRowReduction A flag indicating the use of the optimization of Row Reduction.
+	 * @throws FileNotFoundException if the file does not exist.
+	 * @throws CircuitFileFormatException if the file is not in the expected format.
+	 */
+	public ScJavaGarbledBooleanCircuit(String fileName, boolean isRowReduction) throws FileNotFoundException, CircuitFileFormatException {
+		this(new BooleanCircuit(new File(fileName)), isRowReduction);
+	}
+	
+	/**
+	 * A constructor that garbles the given boolean circuit.
+	 * @param bc The circuit to garble. All its gates should have exactly two inputs.
+	 * @param isRowReduction A flag indicating the use of the optimization of Row Reduction.
+	 * @throws IllegalArgumentException if the circuit has a gate that does not have two inputs.
+	 */
+	public ScJavaGarbledBooleanCircuit(BooleanCircuit bc, boolean isRowReduction) {
+		this.isRowReduction = isRowReduction;
+		rowsPerTable = isRowReduction ? 3 : 4;
+		
+		//Get the input and output wires.
+		int numberOfParties = bc.getNumberOfParties();
+		numOfInputsForEachParty = new int[numberOfParties];
+		List<Integer> allInputs = new ArrayList<Integer>();
+		for (int i = 0; i < numberOfParties; i++){
+			try {
+				List<Integer> partyInputs = bc.getInputWireIndices(i + 1);
+				numOfInputsForEachParty[i] = partyInputs.size();
+				allInputs.addAll(partyInputs);
+			} catch (NoSuchPartyException e) {
+				// Should not occur since the called party numbers are correct.
+			}
+		}
+		inputIndices = new int[allInputs.size()];
+		int maxWire = -1;
+		for (int i = 0; i < inputIndices.length; i++){
+			inputIndices[i] = allInputs.get(i);
+			maxWire = Math.max(maxWire, inputIndices[i]);
+		}
+		outputIndices = bc.getOutputWireIndices().clone();
+		for (int w : outputIndices){
+			maxWire = Math.max(maxWire, w);
+		}
+		
+		//Compile the gates.
+		Gate[] gates = bc.getGates();
+		int numberOfGates = gates.length;
+		gateTypes = new byte[numberOfGates];
+		truthTables = new int[numberOfGates];
+		firstInputs = new int[numberOfGates];
+		secondInputs = new int[numberOfGates];
+		outputs = new int[numberOfGates][];
+		tableIndices = new int[numberOfGates];
+		BitSet xorTruthTable = new BitSet();
+		xorTruthTable.set(1);
+		xorTruthTable.set(2);
+		BitSet xnorTruthTable = new BitSet();
+		xnorTruthTable.set(0);
+		xnorTruthTable.set(3);
+		for (int g = 0; g < numberOfGates; g++){
+			int[] inputs = gates[g].getInputWireIndices();
+			if (inputs.length != 2){
+				throw new IllegalArgumentException("gate " + gates[g].getGateNumber() + " should have two inputs");
+			}
+			firstInputs[g] = inputs[0];
+			secondInputs[g] = inputs[1];
+			outputs[g] = gates[g].getOutputWireIndices().clone();
+			BitSet truthTable = gates[g].getTruthTable();
+			for (int row = 0; row < 4; row++){
+				if (truthTable.get(row)){
+					truthTables[g] |= 1 << row;
+				}
+			}
+			if (truthTable.equals(xorTruthTable)){
+				gateTypes[g] = FREE_XOR;
+				tableIndices[g] = -1;
+			} else if (truthTable.equals(xnorTruthTable)){
+				gateTypes[g] = FREE_XNOR;
+				tableIndices[g] = -1;
+			} else {
+				gateTypes[g] = TABLE_GATE;
+				tableIndices[g] = numberOfTables++;
+			}
+			maxWire = Math.max(maxWire, Math.max(inputs[0], inputs[1]));
+			for (int w : outputs[g]){
+				maxWire = Math.max(maxWire, w);
+			}
+		}
+		numberOfWires = maxWire + 1;
+		
+		createLevels();
+		
+		try {
+			fixedKeyAes = Cipher.getInstance("AES/ECB/NoPadding");
+			fixedKeyAes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(FIXED_KEY, "AES"));
+		} catch (GeneralSecurityException e) {
+			// Should not occur since AES is supported by every java implementation and the fixed key is a valid AES key.
+			throw new IllegalStateException(e);
+		}
+		aesBuffer = new byte[maxLevelSize * 4 * KEY_SIZE];
+		garbledTables = new byte[numberOfTables * rowsPerTable * KEY_SIZE];
+	}
+	
+	/**
+	 * Divides the gates into levels. <p>
+	 * The level of an input wire is 0. The output of a XOR gate is in the maximal level of its inputs, and the output of a 
+	 * non-XOR gate is in the next level. The non-XOR gates of level i are the gates whose inputs are in level i; They can be 
+	 * processed together after the XOR gates of level i were computed.
+	 */
+	private void createLevels(){
+		int numberOfGates = gateTypes.length;
+		int[] wireLevels = new int[numberOfWires];
+		int[] gateLevels = new int[numberOfGates];
+		int numberOfLevels = 1;
+		for (int g = 0; g < numberOfGates; g++){
+			int level = Math.max(wireLevels[firstInputs[g]], wireLevels[secondInputs[g]]);
+			gateLevels[g] = level;
+			int outputLevel = (gateTypes[g] == TABLE_GATE) ? level + 1 : level;
+			for (int w : outputs[g]){
+				wireLevels[w] = outputLevel;
+			}
+			numberOfLevels = Math.max(numberOfLevels, outputLevel + 1);
+		}
+		
+		//Count the gates of each level, then fill the levels. The gates of each level keep their order in the circuit.
+		int[] freeCounts = new int[numberOfLevels];
+		int[] tableCounts = new int[numberOfLevels];
+		for (int g = 0; g < numberOfGates; g++){
+			if (gateTypes[g] == TABLE_GATE){
+				tableCounts[gateLevels[g]]++;
+			} else {
+				freeCounts[gateLevels[g]]++;
+			}
+		}
+		freeGatesOfLevel = new int[numberOfLevels][];
+		tableGatesOfLevel = new int[numberOfLevels][];
+		for (int level = 0; level < numberOfLevels; level++){
+			freeGatesOfLevel[level] = new int[freeCounts[level]];
+			tableGatesOfLevel[level] = new int[tableCounts[level]];
+			maxLevelSize = Math.max(maxLevelSize, tableCounts[level]);
+			freeCounts[level] = 0;
+			tableCounts[level] = 0;
+		}
+		for (int g = 0; g < numberOfGates; g++){
+			int level = gateLevels[g];
+			if (gateTypes[g] == TABLE_GATE){
+				tableGatesOfLevel[level][tableCounts[level]++] = g;
+			} else {
+				freeGatesOfLevel[level][freeCounts[level]++] = g;
+			}
+		}
+	}
+	
+	/**
+	 * Garbles the circuit using a random seed.
+	 */
+	@Override
+	public FastCircuitCreationValues garble() {
+		byte[] seed = new byte[KEY_SIZE];
+		new SecureRandom().nextBytes(seed);
+		try {
+			return garble(seed);
+		} catch (InvalidKeyException e) {
+			// Should not occur since the seed has the size of an AES key.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * This method generates all the needed keys of the circuit using AES in counter mode keyed by the given seed.  
+	 * It then creates the garbled table according to those values.<p>
+	 * @param seed Used as the aes key that generates the wire keys.
+	 * @return FastCircuitCreationValues Contains both keys for each input and output wire and the translation table.
+	 * @throws InvalidKeyException In case the seed is not a valid AES key.
+	 */
+	@Override
+	public FastCircuitCreationValues garble(byte[] seed) throws InvalidKeyException {
+		//Generate the random keys: the global offset, a key for each input wire and in case of no row reduction, a key for each non-XOR gate.
+		int numberOfRandomKeys = 1 + inputIndices.length + (isRowReduction ? 0 : numberOfTables);
+		long[] randomKeys = generateRandomKeys(seed, numberOfRandomKeys);
+		int nextRandomKey = 0;
+		
+		//The keys of all the wires are held in one array; The 0-key of wire w is in places 2w (high bits) and 2w+1 (low bits).
+		//The 1-key of each wire is the 0-key XOR the global offset.
+		long[] zeroKeys = new long[2 * numberOfWires];
+		
+		//The last bit of the global offset is the signal bit, and it should be 1.
+		long deltaHigh = randomKeys[0];
+		long deltaLow = randomKeys[1] | 1;
+		nextRandomKey++;
+		
+		for (int w : inputIndices){
+			zeroKeys[2 * w] = randomKeys[2 * nextRandomKey];
+			zeroKeys[2 * w + 1] = randomKeys[2 * nextRandomKey + 1];
+			nextRandomKey++;
+		}
+		
+		long[] blocks = new long[maxLevelSize * 8];
+		for (int level = 0; level < freeGatesOfLevel.length; level++){
+			computeFreeGates(level, zeroKeys, deltaHigh, deltaLow);
+			
+			//Calculate the hashes of the four rows of each non-XOR gate in this level.
+			int[] levelGates = tableGatesOfLevel[level];
+			int numberOfBlocks = 0;
+			for (int g : levelGates){
+				int a = firstInputs[g];
+				int b = secondInputs[g];
+				int signalA = (int) zeroKeys[2 * a + 1] & 1;
+				int signalB = (int) zeroKeys[2 * b + 1] & 1;
+				for (int row = 0; row < 4; row++){
+					//In row r, the first key's signal bit is the high bit of r and the second key's signal bit is the low bit of r.
+					boolean flipA = ((row >> 1) ^ signalA) == 1;
+					boolean flipB = ((row & 1) ^ signalB) == 1;
+					setTweakedKey(blocks, numberOfBlocks++, 
+							zeroKeys[2 * a] ^ (flipA ? deltaHigh : 0), zeroKeys[2 * a + 1] ^ (flipA ? deltaLow : 0), 
+							zeroKeys[2 * b] ^ (flipB ? deltaHigh : 0), zeroKeys[2 * b + 1] ^ (flipB ? deltaLow : 0), g);
+				}
+			}
+			hash(blocks, numberOfBlocks);
+			
+			//Create the output keys and the garbled tables.
+			for (int i = 0; i < levelGates.length; i++){
+				int g = levelGates[i];
+				int signalA = (int) zeroKeys[2 * firstInputs[g] + 1] & 1;
+				int signalB = (int) zeroKeys[2 * secondInputs[g] + 1] & 1;
+				int block = 8 * i;
+				
+				long outputHigh, outputLow;
+				if (isRowReduction){
+					//The key that row 0 encrypts is the hash of row 0, so this row does not need to be sent.
+					int value = outputValue(g, 0, signalA, signalB);
+					outputHigh = blocks[block] ^ (value == 1 ? deltaHigh : 0);
+					outputLow = blocks[block + 1] ^ (value == 1 ? deltaLow : 0);
+				} else {
+					outputHigh = randomKeys[2 * nextRandomKey];
+					outputLow = randomKeys[2 * nextRandomKey + 1];
+					nextRandomKey++;
+				}
+				
+				int tableOffset = tableIndices[g] * rowsPerTable * KEY_SIZE;
+				for (int row = isRowReduction ? 1 : 0; row < 4; row++){
+					int value = outputValue(g, row, signalA, signalB);
+					long high = blocks[block + 2 * row] ^ outputHigh ^ (value == 1 ? deltaHigh : 0);
+					long low = blocks[block + 2 * row + 1] ^ outputLow ^ (value == 1 ? deltaLow : 0);
+					int rowOffset = tableOffset + (isRowReduction ? row - 1 : row) * KEY_SIZE;
+					putLong(garbledTables, rowOffset, high);
+					putLong(garbledTables, rowOffset + 8, low);
+				}
+				for (int w : outputs[g]){
+					zeroKeys[2 * w] = outputHigh;
+					zeroKeys[2 * w + 1] = outputLow;
+				}
+			}
+		}
+		
+		//Fill the keys of the input and output wires, and the translation table.
+		byte[] allInputWireValues = new byte[inputIndices.length * 2 * KEY_SIZE];
+		for (int i = 0; i < inputIndices.length; i++){
+			putBothKeys(allInputWireValues, i, zeroKeys, inputIndices[i], deltaHigh, deltaLow);
+		}
+		byte[] allOutputWireValues = new byte[outputIndices.length * 2 * KEY_SIZE];
+		translationTable = new byte[outputIndices.length];
+		for (int i = 0; i < outputIndices.length; i++){
+			putBothKeys(allOutputWireValues, i, zeroKeys, outputIndices[i], deltaHigh, deltaLow);
+			//The translation table holds the signal bit of the 0-key.
+			translationTable[i] = (byte) (zeroKeys[2 * outputIndices[i] + 1] & 1);
+		}
+		
+		return new FastCircuitCreationValues(allInputWireValues, allOutputWireValues, translationTable.clone());
+	}
+	
+	/**
+	 * Returns the value of the output wire of the given gate in the given row of the garbled table.
+	 * @param g The gate index.
+	 * @param row The row of the garbled table, that is determined by the signal bits of the input keys.
+	 * @param signalA The signal bit of the first input wire's 0-key.
+	 * @param signalB The signal bit of the second input wire's 0-key.
+	 */
+	private int outputValue(int g, int row, int signalA, int signalB){
+		int valueA = (row >> 1) ^ signalA;
+		int valueB = (row & 1) ^ signalB;
+		return (truthTables[g] >> (2 * valueA + valueB)) & 1;
+	}
+	
+	/**
+	 * Compiles the XOR gates of each level into generated code using {@link CircuitCompiler}. <p>
+	 * The following garbling and computations of this circuit compute the XOR gates by the compiled code instead of going 
+	 * over the gate arrays. The garbled values are not changed by the compilation.
+	 */
+	public synchronized void compileFreeGates(){
+		if (compiledFreeGates == null){
+			boolean[] isXNOR = new boolean[gateTypes.length];
+			for (int g = 0; g < gateTypes.length; g++){
+				isXNOR[g] = (gateTypes[g] == FREE_XNOR);
+			}
+			compiledFreeGates = CircuitCompiler.compileLabelGates(freeGatesOfLevel, isXNOR, firstInputs, secondInputs, outputs);
+		}
+	}
+	
+	/**
+	 * Computes the keys of the XOR gates of the given level. <p>
+	 * In garbling, the keys are the 0-keys; The 0-key of a XNOR gate is XORed with the global offset. 
+	 * In computation, the keys are the computed keys and the global offset is 0.
+	 */
+	private void computeFreeGates(int level, long[] keys, long deltaHigh, long deltaLow){
+		if (compiledFreeGates != null){
+			compiledFreeGates.compute(level, keys, deltaHigh, deltaLow);
+			return;
+		}
+		for (int g : freeGatesOfLevel[level]){
+			long high = keys[2 * firstInputs[g]] ^ keys[2 * secondInputs[g]];
+			long low = keys[2 * firstInputs[g] + 1] ^ keys[2 * secondInputs[g] + 1];
+			if (gateTypes[g] == FREE_XNOR){
+				high ^= deltaHigh;
+				low ^= deltaLow;
+			}
+			for (int w : outputs[g]){
+				keys[2 * w] = high;
+				keys[2 * w + 1] = low;
+			}
+		}
+	}
+	
+	/**
+	 * Puts K = 2A XOR 4B XOR T in the given block, where T is the gate index.
+	 */
+	private static void setTweakedKey(long[] blocks, int block, long aHigh, long aLow, long bHigh, long bLow, int gate){
+		blocks[2 * block] = ((aHigh << 1) | (aLow >>> 63)) ^ ((bHigh << 2) | (bLow >>> 62));
+		blocks[2 * block + 1] = (aLow << 1) ^ (bLow << 2) ^ gate;
+	}
+	
+	/**
+	 * Replaces each of the given blocks K with AES(K) XOR K, using one call to the fixed-key AES for all the blocks.
+	 */
+	private void hash(long[] blocks, int numberOfBlocks){
+		int length = numberOfBlocks * KEY_SIZE;
+		for (int i = 0; i < 2 * numberOfBlocks; i++){
+			putLong(aesBuffer, 8 * i, blocks[i]);
+		}
+		try {
+			fixedKeyAes.update(aesBuffer, 0, length, aesBuffer, 0);
+		} catch (GeneralSecurityException e) {
+			// Should not occur since the buffer is large enough and its length is a multiple of the block size.
+			throw new IllegalStateException(e);
+		}
+		for (int i = 0; i < 2 * numberOfBlocks; i++){
+			blocks[i] ^= getLong(aesBuffer, 8 * i);
+		}
+	}
+	
+	/**
+	 * Generates the given number of random keys using AES in counter mode keyed by the given seed.
+	 * @return the keys, two longs for each key.
+	 * @throws InvalidKeyException if the seed is not a valid AES key.
+	 */
+	private static long[] generateRandomKeys(byte[] seed, int numberOfKeys) throws InvalidKeyException {
+		byte[] counters = new byte[numberOfKeys * KEY_SIZE];
+		for (int i = 0; i < numberOfKeys; i++){
+			putLong(counters, i * KEY_SIZE + 8, i);
+		}
+		try {
+			Cipher prg = Cipher.getInstance("AES/ECB/NoPadding");
+			prg.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(seed, "AES"));
+			prg.doFinal(counters, 0, counters.length, counters, 0);
+		} catch (InvalidKeyException e) {
+			throw e;
+		} catch (GeneralSecurityException e) {
+			// Should not occur since AES is supported by every java implementation and the length is a multiple of the block size.
+			throw new IllegalStateException(e);
+		}
+		long[] keys = new long[2 * numberOfKeys];
+		for (int i = 0; i < keys.length; i++){
+			keys[i] = getLong(counters, 8 * i);
+		}
+		return keys;
+	}
+	
+	/**
+	 * Puts both keys of the given wire in the given place of the given array, in the format [k0 k1].
+	 */
+	private static void putBothKeys(byte[] array, int place, long[] zeroKeys, int wire, long deltaHigh, long deltaLow){
+		int offset = place * 2 * KEY_SIZE;
+		putLong(array, offset, zeroKeys[2 * wire]);
+		putLong(array, offset + 8, zeroKeys[2 * wire + 1]);
+		putLong(array, offset + KEY_SIZE, zeroKeys[2 * wire] ^ deltaHigh);
+		putLong(array, offset + KEY_SIZE + 8, zeroKeys[2 * wire + 1] ^ deltaLow);
+	}
+	
+	@Override
+	public byte[] getGarbledInputFromUngarbledInput(byte[] ungarbledInputBits, byte[] allInputWireValues, int partyNumber) {
+		int startingIndex = 0;
+		for (int i = 0; i < partyNumber - 1; i++){
+			startingIndex += numOfInputsForEachParty[i];
+		}
+		
+		int numberOfInputsForThisParty = numOfInputsForEachParty[partyNumber - 1];
+		byte[] result = new byte[KEY_SIZE * numberOfInputsForThisParty];
+		for (int i = 0; i < numberOfInputsForThisParty; i++){
+			//Copy the relevant key of the input into the result array.
+			System.arraycopy(allInputWireValues, ((i + startingIndex) * 2 + ungarbledInputBits[i]) * KEY_SIZE, result, i * KEY_SIZE, KEY_SIZE);
+		}
+		return result;
+	}
+	
+	@Override
+	public byte[] compute(byte[] garbledInputs) throws NotAllInputsSetException {
+		if (garbledInputs.length != inputIndices.length * KEY_SIZE){
+			throw new NotAllInputsSetException();
+		}
+		
+		long[] keys = new long[2 * numberOfWires];
+		for (int i = 0; i < inputIndices.length; i++){
+			keys[2 * inputIndices[i]] = getLong(garbledInputs, i * KEY_SIZE);
+			keys[2 * inputIndices[i] + 1] = getLong(garbledInputs, i * KEY_SIZE + 8);
+		}
+		
+		long[] blocks = new long[maxLevelSize * 2];
+		for (int level = 0; level < freeGatesOfLevel.length; level++){
+			computeFreeGates(level, keys, 0, 0);
+			
+			//Calculate the hash of the single row of each non-XOR gate that can be decrypted.
+			int[] levelGates = tableGatesOfLevel[level];
+			for (int i = 0; i < levelGates.length; i++){
+				int g = levelGates[i];
+				int a = firstInputs[g];
+				int b = secondInputs[g];
+				setTweakedKey(blocks, i, keys[2 * a], keys[2 * a + 1], keys[2 * b], keys[2 * b + 1], g);
+			}
+			hash(blocks, levelGates.length);
+			
+			//Decrypt the row that is determined by the signal bits.
+			for (int i = 0; i < levelGates.length; i++){
+				int g = levelGates[i];
+				int row = (int) ((keys[2 * firstInputs[g] + 1] & 1) << 1 | (keys[2 * secondInputs[g] + 1] & 1));
+				long high = blocks[2 * i];
+				long low = blocks[2 * i + 1];
+				if (!isRowReduction || row != 0){
+					int rowOffset = (tableIndices[g] * rowsPerTable + (isRowReduction ? row - 1 : row)) * KEY_SIZE;
+					high ^= getLong(garbledTables, rowOffset);
+					low ^= getLong(garbledTables, rowOffset + 8);
+				}
+				for (int w : outputs[g]){
+					keys[2 * w] = high;
+					keys[2 * w + 1] = low;
+				}
+			}
+		}
+		
+		byte[] garbledOutputs = new byte[outputIndices.length * KEY_SIZE];
+		for (int i = 0; i < outputIndices.length; i++){
+			putLong(garbledOutputs, i * KEY_SIZE, keys[2 * outputIndices[i]]);
+			putLong(garbledOutputs, i * KEY_SIZE + 8, keys[2 * outputIndices[i] + 1]);
+		}
+		return garbledOutputs;
+	}
+	
+	@Override
+	public boolean verify(byte[] allInputWireValues) {
+		byte[] allOutputWireValues = new byte[outputIndices.length * 2 * KEY_SIZE];
+		return internalVerify(allInputWireValues, allOutputWireValues) && verifyTranslationTable(allOutputWireValues);
+	}
+	
+	@Override
+	public boolean internalVerify(byte[] allInputWireValues, byte[] allOutputWireValues) {
+		if (allInputWireValues.length != inputIndices.length * 2 * KEY_SIZE){
+			return false;
+		}
+		
+		//The global offset is the XOR of the keys of any wire. It should be the same for all the input wires.
+		long deltaHigh = getLong(allInputWireValues, 0) ^ getLong(allInputWireValues, KEY_SIZE);
+		long deltaLow = getLong(allInputWireValues, 8) ^ getLong(allInputWireValues, KEY_SIZE + 8);
+		if ((deltaLow & 1) == 0){
+			return false;
+		}
+		long[] zeroKeys = new long[2 * numberOfWires];
+		for (int i = 0; i < inputIndices.length; i++){
+			int offset = i * 2 * KEY_SIZE;
+			long high = getLong(allInputWireValues, offset);
+			long low = getLong(allInputWireValues, offset + 8);
+			if ((high ^ getLong(allInputWireValues, offset + KEY_SIZE)) != deltaHigh || 
+					(low ^ getLong(allInputWireValues, offset + KEY_SIZE + 8)) != deltaLow){
+				return false;
+			}
+			zeroKeys[2 * inputIndices[i]] = high;
+			zeroKeys[2 * inputIndices[i] + 1] = low;
+		}
+		
+		long[] blocks = new long[maxLevelSize * 8];
+		for (int level = 0; level < freeGatesOfLevel.length; level++){
+			computeFreeGates(level, zeroKeys, deltaHigh, deltaLow);
+			
+			//Decrypt all the rows of each non-XOR gate in this level.
+			int[] levelGates = tableGatesOfLevel[level];
+			int numberOfBlocks = 0;
+			for (int g : levelGates){
+				int a = firstInputs[g];
+				int b = secondInputs[g];
+				int signalA = (int) zeroKeys[2 * a + 1] & 1;
+				int signalB = (int) zeroKeys[2 * b + 1] & 1;
+				for (int row = 0; row < 4; row++){
+					boolean flipA = ((row >> 1) ^ signalA) == 1;
+					boolean flipB = ((row & 1) ^ signalB) == 1;
+					setTweakedKey(blocks, numberOfBlocks++, 
+							zeroKeys[2 * a] ^ (flipA ? deltaHigh : 0), zeroKeys[2 * a + 1] ^ (flipA ? deltaLow : 0), 
+							zeroKeys[2 * b] ^ (flipB ? deltaHigh : 0), zeroKeys[2 * b + 1] ^ (flipB ? deltaLow : 0), g);
+				}
+			}
+			hash(blocks, numberOfBlocks);
+			
+			/*
+			 * Each row should decrypt to the key of the value that the truth table gives for this row. 
+			 * Thus, after removing the global offset from the rows whose value is 1, all the rows should give the same 0-key.
+			 */
+			for (int i = 0; i < levelGates.length; i++){
+				int g = levelGates[i];
+				int signalA = (int) zeroKeys[2 * firstInputs[g] + 1] & 1;
+				int signalB = (int) zeroKeys[2 * secondInputs[g] + 1] & 1;
+				long outputHigh = 0, outputLow = 0;
+				for (int row = 0; row < 4; row++){
+					int block = 8 * i + 2 * row;
+					long high = blocks[block];
+					long low = blocks[block + 1];
+					if (!isRowReduction || row != 0){
+						int rowOffset = (tableIndices[g] * rowsPerTable + (isRowReduction ? row - 1 : row)) * KEY_SIZE;
+						high ^= getLong(garbledTables, rowOffset);
+						low ^= getLong(garbledTables, rowOffset + 8);
+					}
+					if (outputValue(g, row, signalA, signalB) == 1){
+						high ^= deltaHigh;
+						low ^= deltaLow;
+					}
+					if (row == 0){
+						outputHigh = high;
+						outputLow = low;
+					} else if (high != outputHigh || low != outputLow){
+						return false;
+					}
+				}
+				for (int w : outputs[g]){
+					zeroKeys[2 * w] = outputHigh;
+					zeroKeys[2 * w + 1] = outputLow;
+				}
+			}
+		}
+		
+		//Put the output keys in the given output array.
+		for (int i = 0; i < outputIndices.length; i++){
+			putBothKeys(allOutputWireValues, i, zeroKeys, outputIndices[i], deltaHigh, deltaLow);
+		}
+		return true;
+	}
+	
+	@Override
+	public boolean verifyTranslationTable(byte[] allOutputWireValues) {
+		//Check that the 0-key of each output wire translates to 0 and the 1-key translates to 1.
+		for (int i = 0; i < outputIndices.length; i++){
+			int zeroSignal = allOutputWireValues[(2 * i + 1) * KEY_SIZE - 1] & 1;
+			int oneSignal = allOutputWireValues[(2 * i + 2) * KEY_SIZE - 1] & 1;
+			if ((zeroSignal ^ translationTable[i]) != 0 || (oneSignal ^ translationTable[i]) != 1){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public byte[] translate(byte[] garbledOutput) {
+		byte[] output = new byte[outputIndices.length];
+		for (int i = 0; i < output.length; i++){
+			//The signal bit is the last bit of the key.
+			output[i] = (byte) ((garbledOutput[(i + 1) * KEY_SIZE - 1] & 1) ^ translationTable[i]);
+		}
+		return output;
+	}
+	
+	@Override
+	public byte[] verifiedTranslate(byte[] garbledOutput, byte[] allOutputWireValues) throws CheatAttemptException {
+		//For each wire check that the given output is one of two given possibilities.
+		for (int i = 0; i < outputIndices.length; i++){
+			if (!equalKeys(garbledOutput, i * KEY_SIZE, allOutputWireValues, 2 * i * KEY_SIZE) && 
+					!equalKeys(garbledOutput, i * KEY_SIZE, allOutputWireValues, (2 * i + 1) * KEY_SIZE)){
+				throw new CheatAttemptException("The given output value is not one of the two given possible values");
+			}
+		}
+		//After verified, the output can be translated.
+		return translate(garbledOutput);
+	}
+	
+	private static boolean equalKeys(byte[] first, int firstOffset, byte[] second, int secondOffset){
+		for (int i = 0; i < KEY_SIZE; i++){
+			if (first[firstOffset + i] != second[secondOffset + i]){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns the garbled tables of all the non-XOR gates in one array, in the order of the gates. 
+	 * Each table has 4 rows, or 3 rows in case of row reduction.
+	 */
+	@Override
+	public GarbledTablesHolder getGarbledTables() {
+		return new JustGarbledGarbledTablesHolder(garbledTables);
+	}
+	
+	@Override
+	public void setGarbledTables(GarbledTablesHolder garbledTables) {
+		byte[] tables = garbledTables.toDoubleByteArray()[0];
+		if (tables.length != this.garbledTables.length){
+			throw new IllegalArgumentException("the garbled tables should contain " + this.garbledTables.length + " bytes");
+		}
+		this.garbledTables = tables;
+	}
+	
+	@Override
+	public byte[] getTranslationTable() {
+		return translationTable;
+	}
+	
+	@Override
+	public void setTranslationTable(byte[] translationTable) {
+		this.translationTable = translationTable;
+	}
+	
+	@Override
+	public int[] getInputWireIndices(int partyNumber) throws NoSuchPartyException {
+		if (partyNumber < 1 || partyNumber > numOfInputsForEachParty.length){
+			throw new NoSuchPartyException();
+		}
+		int startingIndex = 0;
+		for (int i = 0; i < partyNumber - 1; i++){
+			startingIndex += numOfInputsForEachParty[i];
+		}
+		int[] result = new int[numOfInputsForEachParty[partyNumber - 1]];
+		System.arraycopy(inputIndices, startingIndex, result, 0, result.length);
+		return result;
+	}
+	
+	@Override
+	public int[] getOutputWireIndices() {
+		return outputIndices;
+	}
+	
+	@Override
+	public int[] getInputWireIndices() {
+		return inputIndices;
+	}
+	
+	@Override
+	public int getNumberOfInputs(int partyNumber) throws NoSuchPartyException {
+		if (partyNumber < 1 || partyNumber > numOfInputsForEachParty.length){
+			throw new NoSuchPartyException();
+		}
+		return numOfInputsForEachParty[partyNumber - 1];
+	}
+	
+	@Override
+	public int getNumberOfParties() {
+		return numOfInputsForEachParty.length;
+	}
+	
+	@Override
+	public int getKeySize() {
+		return KEY_SIZE;
+	}
+	
+	private static void putLong(byte[] array, int offset, long value){
+		for (int i = 7; i >= 0; i--){
+			array[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+	
+	private static long getLong(byte[] array, int offset){
+		long value = 0;
+		for (int i = 0; i < 8; i++){
+			value = (value << 8) | (array[offset + i] & 0xFF);
+		}
+		return value;
+	}
+}
@@ -24,6 +24,7 @@
 */
 package edu.biu.scapi.circuits.fastGarbledCircuit;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.util.Date;
 
@@ -77,6 +78,15 @@ public class ScNativeGarbledBooleanCircuit implements FastGarbledBooleanCircuit{
 	private native byte[] getTranslationTable(long ptr);//Gets the translation table from the native code. 
 	private native void setTranslationTable(long ptr, byte[]translationTable);//Sets the translation table stored in the native code. 
 	
+	//The direct buffer versions of the above functions. The native code reads and writes the buffers' memory directly, so the tables 
+	//are not copied to or from the java heap.
+	private native int getGarbledTablesSize(long ptr);//Returns the size in bytes of the garbled tables.
+	private native void getGarbleTablesDirect(long ptr, ByteBuffer buffer, int position);//Copies the garbled tables into the given direct buffer.
+	private native void setGarbleTablesDirect(long ptr, ByteBuffer buffer, int position);//Copies the garbled tables from the given direct buffer.
+	private native void garbleDirect(ByteBuffer inputKeys, int inputKeysPosition, ByteBuffer outputKeys, int outputKeysPosition, 
+			ByteBuffer translationTable, int translationTablePosition, byte[] seed, long ptr);
+	private native void computeDirect(long ptr, ByteBuffer inputKeys, int inputKeysPosition, ByteBuffer outputKeys, int outputKeysPosition);
+	
 	private native long garble( byte[] inputKeys, byte[] outputKeys, byte[] translationTable, byte[] seed, long ptr);//Does the garbling of the circuit, returns the input keys and the output keys that were generated
 																			  //by the circuit. The input and the output keys are converted to the structures that are defined 
 																			  //in the SCAPI circuit
@@ -325,6 +335,134 @@ public class ScNativeGarbledBooleanCircuit implements FastGarbledBooleanCircuit{
 		
 	}
 	
+	/**
+	 * @return the size in bytes of the garbled tables of this circuit.
+	 */
+	public int getGarbledTablesSize() {
+		return getGarbledTablesSize(garbledCircuitPtr);
+	}
+	
+	/**
+	 * Returns a new direct buffer that contains a copy of the garbled tables. <p>
+	 * The copy is done by the native code directly into the buffer's memory, without passing through the java heap, so the 
+	 * buffer can be written to a {@link java.nio.channels.SocketChannel} without another copy. <p>
+	 * The buffer does not point to the native memory of the circuit, so it stays valid after the circuit is garbled again, 
+	 * new garbled tables are set or the circuit is released. To avoid allocating a buffer for every circuit, 
+	 * use {@link #getGarbledTables(ByteBuffer)} with a reused buffer.
+	 * @return a direct buffer that contains the garbled tables, positioned at zero.
+	 */
+	public ByteBuffer getGarbledTablesBuffer() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(getGarbledTablesSize());
+		getGarbledTables(buffer);
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * Copies the garbled tables of this circuit into the given direct buffer, starting at its current position. 
+	 * The copy is done by the native code from the native memory directly to the buffer's memory, without passing through the java heap. <p>
+	 * The position of the buffer is advanced by {@link #getGarbledTablesSize()}.
+	 * @param buffer A direct buffer that has at least {@link #getGarbledTablesSize()} bytes remaining.
+	 * @throws IllegalArgumentException if the buffer is not direct or there is not enough room in it.
+	 */
+	public void getGarbledTables(ByteBuffer buffer) {
+		int size = getGarbledTablesSize();
+		checkWritableDirectBuffer(buffer, size);
+		getGarbleTablesDirect(garbledCircuitPtr, buffer, buffer.position());
+		buffer.position(buffer.position() + size);
+	}
+	
+	/**
+	 * Sets the garbled tables of this circuit from the given direct buffer, starting at its current position. 
+	 * The copy is done by the native code from the buffer's memory directly to the native memory, without passing through the java heap.
+	 * Thus, the tables can be received from a {@link java.nio.channels.SocketChannel} into a direct buffer and set from it. <p>
+	 * The position of the buffer is advanced by {@link #getGarbledTablesSize()}.
+	 * @param buffer A direct buffer that has at least {@link #getGarbledTablesSize()} bytes remaining.
+	 * @throws IllegalArgumentException if the buffer is not direct or it does not contain all the tables.
+	 */
+	public void setGarbledTables(ByteBuffer buffer) {
+		int size = getGarbledTablesSize();
+		checkDirectBuffer(buffer, size);
+		setGarbleTablesDirect(garbledCircuitPtr, buffer, buffer.position());
+		buffer.position(buffer.position() + size);
+	}
+	
+	/**
+	 * Garbles the circuit as {@link #garble(byte[])} does, but writes the generated values into the given direct buffers instead of 
+	 * creating java arrays. <p>
+	 * The values are written starting at the current position of each buffer, in the same format as in {@link FastCircuitCreationValues}, 
+	 * and the positions are advanced by the written sizes.
+	 * @param seed Used as the aes key that generates the wire keys.
+	 * @param allInputWireValues A direct buffer that will be filled with both keys of each input wire. 
+	 * 		  Should have at least 2*keySize*(number of inputs) bytes remaining.
+	 * @param allOutputWireValues A direct buffer that will be filled with both keys of each output wire. 
+	 * 		  Should have at least 2*keySize*(number of outputs) bytes remaining.
+	 * @param translationTable A direct buffer that will be filled with the translation table. 
+	 * 		  Should have at least (number of outputs) bytes remaining.
+	 * @throws IllegalArgumentException if one of the buffers is not direct or there is not enough room in it.
+	 */
+	public void garble(byte[] seed, ByteBuffer allInputWireValues, ByteBuffer allOutputWireValues, ByteBuffer translationTable) {
+		int inputsSize = inputsIndices.length*SCAPI_NATIVE_KEY_SIZE*2;
+		int outputsSize = outputWireIndices.length*SCAPI_NATIVE_KEY_SIZE*2;
+		checkWritableDirectBuffer(allInputWireValues, inputsSize);
+		checkWritableDirectBuffer(allOutputWireValues, outputsSize);
+		checkWritableDirectBuffer(translationTable, outputWireIndices.length);
+		
+		garbleDirect(allInputWireValues, allInputWireValues.position(), allOutputWireValues, allOutputWireValues.position(), 
+				translationTable, translationTable.position(), seed, garbledCircuitPtr);
+		
+		allInputWireValues.position(allInputWireValues.position() + inputsSize);
+		allOutputWireValues.position(allOutputWireValues.position() + outputsSize);
+		translationTable.position(translationTable.position() + outputWireIndices.length);
+	}
+	
+	/**
+	 * Computes the circuit as {@link #compute(byte[])} does, but reads the inputs from a direct buffer and writes the outputs into 
+	 * a direct buffer instead of java arrays. <p>
+	 * The positions of the buffers are advanced by the read and written sizes.
+	 * @param garbledInputs A direct buffer that contains a single key for each input wire, starting at its current position.
+	 * @param garbledOutputs A direct buffer that will be filled with the garbled value of each output wire.
+	 * @throws NotAllInputsSetException if the given buffer does not contain a key for each input wire.
+	 * @throws IllegalArgumentException if one of the buffers is not direct or there is not enough room in the outputs buffer.
+	 */
+	public void compute(ByteBuffer garbledInputs, ByteBuffer garbledOutputs) throws NotAllInputsSetException {
+		int inputsSize = inputsIndices.length*SCAPI_NATIVE_KEY_SIZE;
+		int outputsSize = outputWireIndices.length*SCAPI_NATIVE_KEY_SIZE;
+		if (garbledInputs.remaining() < inputsSize) {
+			throw new NotAllInputsSetException();
+		}
+		checkDirectBuffer(garbledInputs, inputsSize);
+		checkWritableDirectBuffer(garbledOutputs, outputsSize);
+		
+		computeDirect(garbledCircuitPtr, garbledInputs, garbledInputs.position(), garbledOutputs, garbledOutputs.position());
+		
+		garbledInputs.position(garbledInputs.position() + inputsSize);
+		garbledOutputs.position(garbledOutputs.position() + outputsSize);
+	}
+	
+	/**
+	 * Checks that the given buffer is a writable direct buffer with at least the given number of bytes remaining.
+	 * The native code writes to the buffer's memory directly, so it can not rely on the buffer to reject the writes.
+	 */
+	private void checkWritableDirectBuffer(ByteBuffer buffer, int size) {
+		if (buffer.isReadOnly()) {
+			throw new IllegalArgumentException("the given buffer should be writable");
+		}
+		checkDirectBuffer(buffer, size);
+	}
+	
+	/**
+	 * Checks that the given buffer is a direct buffer with at least the given number of bytes remaining.
+	 */
+	private void checkDirectBuffer(ByteBuffer buffer, int size) {
+		if (!buffer.isDirect()) {
+			throw new IllegalArgumentException("the given buffer should be a direct buffer");
+		}
+		if (buffer.remaining() < size) {
+			throw new IllegalArgumentException("the given buffer should have at least " + size + " bytes remaining");
+		}
+	}
+	
 	/**
      * Returns the translation table of the circuit calculated and stored in the native code. <P>
      * This is necessary since the constructor of the circuit may want to pass the translation table to a different party. <p>
@@ -24,6 +24,10 @@
 */
 package edu.biu.scapi.circuits.garbledCircuit;
 
+import java.util.Arrays;
+
+import edu.biu.scapi.primitives.hash.CryptographicHash;
+
 /**
  * This class holds the garbled tables of the garbled circuit.<p>
  * The garbled circuit will hold an instance of this class and also will the gates. <p>
@@ -51,6 +55,11 @@ public class BasicGarbledTablesHolder implements GarbledTablesHolder{
 		return garbledTables;
 	}
 	
+	@Override
+	public boolean isEmpty(){
+		return garbledTables == null;
+	}
+	
 	/**
 	 * Sets the given garbled tables. <P>
 	 * This allows changing the circuit inner content with no time.
@@ -59,4 +68,49 @@ public class BasicGarbledTablesHolder implements GarbledTablesHolder{
 	public void setGarbledTables(byte[][] garbledTables){
 		this.garbledTables = garbledTables;
 	}
+	
+	/**
+	 * Sets the garbled tables of the given holder. <P>
+	 * Derived classes that keep the tables in a different storage may take the storage of the given holder without copying it.
+	 * @param garbledTables Holds the garbled tables of the circuit.
+	 */
+	public void setGarbledTables(BasicGarbledTablesHolder garbledTables){
+		this.garbledTables = garbledTables.toDoubleByteArray();
+	}
+	
+	/**
+	 * Sets the garbled table of the given gate. <P>
+	 * The gates call this function after they fill their garbled table.
+	 * @param gateNumber The number of the gate.
+	 * @param garbledTable The garbled table of the gate.
+	 */
+	public void setGarbledTable(int gateNumber, byte[] garbledTable){
+		garbledTables[gateNumber] = garbledTable;
+	}
+	
+	/**
+	 * Returns a copy of a range of the garbled table of the given gate. <P>
+	 * The gates call this function in order to get the rows they should decrypt.
+	 * @param gateNumber The number of the gate.
+	 * @param from The index of the first byte to copy.
+	 * @param to The index after the last byte to copy.
+	 */
+	public byte[] copyOfRange(int gateNumber, int from, int to){
+		return Arrays.copyOfRange(garbledTables[gateNumber], from, to);
+	}
+	
+	/**
+	 * Updates the given hash with the garbled tables, in the order of the gates.
+	 * @param hash The hash function to update.
+	 */
+	public void updateHash(CryptographicHash hash){
+		if (garbledTables == null){
+			return;
+		}
+		for (int i = 0; i < garbledTables.length; i++){
+			if (garbledTables[i] != null){
+				hash.update(garbledTables[i], 0, garbledTables[i].length);
+			}
+		}
+	}
 }
@@ -0,0 +1,576 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import edu.biu.scapi.circuits.encryption.AESFixedKeyMultiKeyEncryption;
+import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
+import edu.biu.scapi.exceptions.CiphertextTooLongException;
+import edu.biu.scapi.exceptions.KeyNotSetException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+import edu.biu.scapi.exceptions.NotAllInputsSetException;
+import edu.biu.scapi.exceptions.PlaintextTooLongException;
+import edu.biu.scapi.exceptions.TweakNotSetException;
+import edu.biu.scapi.primitives.prg.PseudorandomGenerator;
+
+/**
+ * A Free XOR garbled circuit that works on a precompiled {@link GarbledCircuitTopology}. <p>
+ * {@link GarbledBooleanCircuitImp} creates a garbled gate object for every gate of the circuit each time it is constructed. 
+ * This class does not create any gate objects. It holds only the values that belong to a single execution (the garbled tables, 
+ * the translation table and the wires' keys), while the structure of the circuit is taken from the given topology. 
+ * The topology can be shared between many circuits, also between circuits that are used concurrently by different threads. 
+ * Thus, creating and garbling a new circuit costs only the keys generation and the encryptions of the garbled tables. <p>
+ * 
+ * The garbling is identical to the garbling of a {@link GarbledBooleanCircuitImp} that was created with 
+ * {@link FreeXORGarblingParameters} without row reduction: the keys are generated in the same order, and the garbled tables 
+ * and translation table have the same format. In particular, garbling both circuits with the same seed results in the same 
+ * garbled tables, so this circuit can be used by one party while the other party uses a {@link GarbledBooleanCircuitImp}, and 
+ * it can be used as the inner circuit of {@link GarbledBooleanCircuitExtendedImp}.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class CompiledGarbledBooleanCircuit extends GarbledBooleanCircuitAbs implements GarbledBooleanCircuit {
+	
+	private GarbledCircuitTopology topology;	//The structure of the circuit. Shared with other circuits.
+	private MultiKeyEncryptionScheme mes;		//Used to create and compute the garbled tables.
+	private PseudorandomGenerator prg;			//Used in case of generating the keys using a seed.
+	private BasicGarbledTablesHolder tables;	//The same object as garbledTablesHolder.
+	private int keySize;
+	private int keysArraySize;					//The size of an array that holds a single key for each wire.
+	
+	private static final int TWEAK_SIZE = 16;
+	private static final int MAX_UNPACKED_INPUTS = 3;	//The number of signal bits that fit in the tweak as separate ints.
+	
+	/**
+	 * Creates a circuit of the given topology that uses AESFixedKeyMultiKeyEncryption.
+	 * @param topology The compiled circuit.
+	 */
+	public CompiledGarbledBooleanCircuit(GarbledCircuitTopology topology){
+		this(topology, new AESFixedKeyMultiKeyEncryption());
+	}
+	
+	/**
+	 * Creates a circuit of the given topology that uses the given encryption scheme. <p>
+	 * This constructor should be used in case the garbling is done using the encryption scheme. 
+	 * In case the user want to garble using a seed, use the constructor that gets a prg.
+	 * @param topology The compiled circuit.
+	 * @param mes The encryption scheme to use. It should not be shared with other circuits that are used concurrently.
+	 */
+	public CompiledGarbledBooleanCircuit(GarbledCircuitTopology topology, MultiKeyEncryptionScheme mes){
+		this(topology, mes, null);
+	}
+	
+	/**
+	 * Creates a circuit of the given topology that uses the given encryption scheme and prg. <p>
+	 * This constructor should be used in case the garbling is done using a seed.
+	 * @param topology The compiled circuit.
+	 * @param mes The encryption scheme to use. It should not be shared with other circuits that are used concurrently.
+	 * @param prg Used to garble the circuit using a seed. It should not be shared with other circuits that are used concurrently.
+	 */
+	public CompiledGarbledBooleanCircuit(GarbledCircuitTopology topology, MultiKeyEncryptionScheme mes, PseudorandomGenerator prg){
+		this(topology, mes, prg, new BasicGarbledTablesHolder(new byte[topology.getNumberOfGates()][]));
+	}
+	
+	/**
+	 * Creates a circuit of the given topology that keeps its garbled tables in the given holder.
+	 * @param topology The compiled circuit.
+	 * @param mes The encryption scheme to use. It should not be shared with other circuits that are used concurrently.
+	 * @param prg Used to garble the circuit using a seed. May be null in case the circuit is not garbled using a seed.
+	 * @param garbledTablesHolder The holder of the garbled tables. It should have room for all the gates of the circuit.
+	 * @throws IllegalArgumentException if the circuit has too many wires to hold their keys in a single array.
+	 */
+	public CompiledGarbledBooleanCircuit(GarbledCircuitTopology topology, MultiKeyEncryptionScheme mes, PseudorandomGenerator prg, 
+			BasicGarbledTablesHolder garbledTablesHolder){
+		this.topology = topology;
+		this.mes = mes;
+		this.prg = prg;
+		this.garbledTablesHolder = garbledTablesHolder;
+		tables = garbledTablesHolder;
+		keySize = mes.getCipherSize();
+		
+		//The keys of all the wires are kept in a single array, so its size is checked here instead of overflowing later.
+		long size = (long) topology.getNumberOfWires() * keySize;
+		if (size > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("the keys of " + topology.getNumberOfWires() + " wires take " + size + 
+					" bytes, which is more than the maximal array size");
+		}
+		keysArraySize = (int) size;
+		
+		//The same encryption that the Free XOR circuit uses.
+		if (mes instanceof AESFixedKeyMultiKeyEncryption){
+			((AESFixedKeyMultiKeyEncryption) mes).setFreeXor(true);
+		}
+		
+		//The wires' indices are taken from the topology without copying them.
+		outputWireIndices = topology.outputWires();
+		numberOfParties = topology.getNumberOfParties();
+		for (int i = 1; i <= numberOfParties; i++){
+			try {
+				eachPartysInputWires.add(topology.getInputWireIndices(i));
+			} catch (NoSuchPartyException e) {
+				// Should not occur since the called party numbers are correct.
+			}
+		}
+	}
+	
+	/**
+	 * @return the topology of this circuit.
+	 */
+	public GarbledCircuitTopology getTopology(){
+		return topology;
+	}
+	
+	@Override
+	public CircuitCreationValues garble() {
+		return garbleCircuit(null);
+	}
+	
+	@Override
+	public CircuitCreationValues garble(byte[] seed) throws InvalidKeyException {
+		if (prg == null){
+			throw new IllegalStateException("This circuit can not use seed to generate keys since it has no prg. Use the other garble() function");
+		}
+		//Sets the given seed as the prg key.
+		prg.setKey(new SecretKeySpec(seed, ""));
+		return garbleCircuit(prg);
+	}
+	
+	/**
+	 * Generates the keys of all the wires and creates the garbled tables.
+	 * @param keyGenerator The prg that generates the keys, or null if the keys should be generated by the encryption scheme.
+	 */
+	private CircuitCreationValues garbleCircuit(PseudorandomGenerator keyGenerator){
+		/*
+		 * The keys are kept in one array; The 0-key of wire w is in positions [w*keySize, (w+1)*keySize). 
+		 * The 1-key of each wire is the 0-key XOR the globalKeyOffset.
+		 * The keys are generated in the same order as in FreeXORGarbledBooleanCircuitUtil, so both circuits produce the same keys from the same seed.
+		 */
+		byte[] zeroKeys = new byte[keysArraySize];
+		
+		//The globalKeyOffset is the Free XOR delta. Its last bit (the signal bit) is 1.
+		byte[] globalKeyOffset = generateKey(keyGenerator);
+		globalKeyOffset[keySize - 1] |= 1;
+		
+		//Sample input keys.
+		Map<Integer, SecretKey[]> allInputWireValues = new HashMap<Integer, SecretKey[]>();
+		for (List<Integer> partyInputs : eachPartysInputWires){
+			for (int w : partyInputs){
+				byte[] zeroValue = generateKey(keyGenerator);
+				System.arraycopy(zeroValue, 0, zeroKeys, w * keySize, keySize);
+				allInputWireValues.put(w, toKeys(zeroValue, globalKeyOffset));
+			}
+		}
+		
+		//Create the keys of the non-input wires.
+		byte[] gateTypes = topology.gateTypes();
+		int[][] inputWires = topology.gateInputWires();
+		int[][] outputWires = topology.gateOutputWires();
+		byte[] outputKey = new byte[keySize];
+		for (int gate = 0; gate < gateTypes.length; gate++){
+			if (gateTypes[gate] == GarbledCircuitTopology.STANDARD){
+				System.arraycopy(generateKey(keyGenerator), 0, outputKey, 0, keySize);
+			} else {
+				//The output 0-key of a XOR gate is the XOR of the input 0-keys. This XOR is the 1-key of a XNOR gate.
+				Arrays.fill(outputKey, (byte) 0);
+				for (int w : inputWires[gate]){
+					xor(outputKey, 0, zeroKeys, w * keySize);
+				}
+				if (gateTypes[gate] == GarbledCircuitTopology.FREE_XNOR){
+					xor(outputKey, 0, globalKeyOffset, 0);
+				}
+			}
+			for (int w : outputWires[gate]){
+				System.arraycopy(outputKey, 0, zeroKeys, w * keySize, keySize);
+			}
+		}
+		
+		//Fill the output wire values and the translation table. The signal bit is the last bit of k0.
+		Map<Integer, SecretKey[]> allOutputWireValues = new HashMap<Integer, SecretKey[]>();
+		HashMap<Integer, Byte> translationTable = new HashMap<Integer, Byte>();
+		for (int w : outputWireIndices){
+			allOutputWireValues.put(w, toKeys(Arrays.copyOfRange(zeroKeys, w * keySize, (w + 1) * keySize), globalKeyOffset));
+			translationTable.put(w, (byte) (zeroKeys[(w + 1) * keySize - 1] & 1));
+		}
+		
+		//Now that we have all keys, we can create the garbled tables.
+		try {
+			createGarbledTables(zeroKeys, globalKeyOffset);
+		} catch (IllegalBlockSizeException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		}
+		
+		this.translationTable = translationTable;
+		return new CircuitCreationValues(allInputWireValues, allOutputWireValues, translationTable);
+	}
+	
+	/**
+	 * Creates the garbled tables of the standard gates, in the format of {@link StandardGarbledGate}.
+	 * @param zeroKeys The 0-keys of all the wires.
+	 * @param globalKeyOffset The Free XOR delta.
+	 */
+	private void createGarbledTables(byte[] zeroKeys, byte[] globalKeyOffset) throws IllegalBlockSizeException {
+		byte[] gateTypes = topology.gateTypes();
+		long[] truthTables = topology.truthTables();
+		int[] gateNumbers = topology.gateNumbers();
+		int[][] inputWires = topology.gateInputWires();
+		int[][] outputWires = topology.gateOutputWires();
+		
+		for (int gate = 0; gate < gateTypes.length; gate++){
+			if (gateTypes[gate] != GarbledCircuitTopology.STANDARD){
+				continue;
+			}
+			int[] inputs = inputWires[gate];
+			int numberOfInputs = inputs.length;
+			int numberOfRows = 1 << numberOfInputs;
+			byte[] garbledTable = new byte[numberOfRows * keySize];
+			
+			//The keys of the output wire.
+			int outputOffset = outputWires[gate][0] * keySize;
+			byte[] outputZero = Arrays.copyOfRange(zeroKeys, outputOffset, outputOffset + keySize);
+			byte[] outputOne = outputZero.clone();
+			xor(outputOne, 0, globalKeyOffset, 0);
+			
+			//Calculate the garbled table row by row. The first input is the most significant bit of the row.
+			for (int row = 0; row < numberOfRows; row++){
+				int permutedPosition = 0;
+				SecretKey[] keysToEncryptOn = new SecretKey[numberOfInputs];
+				for (int i = 0; i < numberOfInputs; i++){
+					int input = (row >> (numberOfInputs - 1 - i)) & 1;
+					int offset = inputs[i] * keySize;
+					byte[] key = Arrays.copyOfRange(zeroKeys, offset, offset + keySize);
+					if (input == 1){
+						xor(key, 0, globalKeyOffset, 0);
+					}
+					//The signal bit of the chosen key determines the position of the row and is put in the tweak.
+					int signalBit = key[keySize - 1] & 1;
+					permutedPosition |= signalBit << (numberOfInputs - 1 - i);
+					keysToEncryptOn[i] = new SecretKeySpec(key, "");
+				}
+				
+				mes.setKey(mes.generateMultiKey(keysToEncryptOn));
+				mes.setTweak(createTweak(gateNumbers[gate], permutedPosition, numberOfInputs));
+				byte[] value = ((truthTables[gate] >>> row) & 1) == 0 ? outputZero : outputOne;
+				try {
+					System.arraycopy(mes.encrypt(value), 0, garbledTable, permutedPosition * keySize, keySize);
+				} catch (KeyNotSetException e) {
+					// Should not occur since the encryption has a key.
+				} catch (TweakNotSetException e) {
+					// Should not occur since the encryption has a tweak.
+				} catch (PlaintextTooLongException e) {
+					// Should not occur since the plaintext is a key of the encryption scheme.
+				} catch (InvalidKeyException e) {
+					// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+				}
+			}
+			
+			//Put the filled garbled table in the tables holder.
+			tables.setGarbledTable(gateNumbers[gate], garbledTable);
+		}
+	}
+	
+	@Override
+	public HashMap<Integer, GarbledWire> compute() throws NotAllInputsSetException {
+		byte[] keys = new byte[keysArraySize];
+		
+		//Check that all the inputs have been set and copy them to the keys array.
+		for (List<Integer> partyInputs : eachPartysInputWires){
+			for (int w : partyInputs){
+				GarbledWire wire = computedWires.get(w);
+				if (wire == null){
+					throw new NotAllInputsSetException();
+				}
+				System.arraycopy(wire.getValueAndSignalBit().getEncoded(), 0, keys, w * keySize, keySize);
+			}
+		}
+		
+		byte[] gateTypes = topology.gateTypes();
+		int[] gateNumbers = topology.gateNumbers();
+		int[][] inputWires = topology.gateInputWires();
+		int[][] outputWires = topology.gateOutputWires();
+		byte[] outputKey = new byte[keySize];
+		for (int gate = 0; gate < gateTypes.length; gate++){
+			int[] inputs = inputWires[gate];
+			if (gateTypes[gate] == GarbledCircuitTopology.STANDARD){
+				int numberOfInputs = inputs.length;
+				SecretKey[] keysToDecryptOn = new SecretKey[numberOfInputs];
+				int row = 0;
+				for (int i = 0; i < numberOfInputs; i++){
+					int offset = inputs[i] * keySize;
+					int signalBit = keys[offset + keySize - 1] & 1;
+					row = (row << 1) | signalBit;
+					keysToDecryptOn[i] = new SecretKeySpec(keys, offset, keySize, "");
+				}
+				mes.setKey(mes.generateMultiKey(keysToDecryptOn));
+				mes.setTweak(createTweak(gateNumbers[gate], row, numberOfInputs));
+				try {
+					byte[] decrypted = mes.decrypt(tables.copyOfRange(gateNumbers[gate], row * keySize, (row + 1) * keySize));
+					System.arraycopy(decrypted, 0, outputKey, 0, keySize);
+				} catch (KeyNotSetException e) {
+					// Should not occur since the key was set.
+				} catch (TweakNotSetException e) {
+					// Should not occur since the tweak was set.
+				} catch (IllegalBlockSizeException e) {
+					// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+				} catch (CiphertextTooLongException e) {
+					// Should not occur since the ciphertext is a row of the garbled table.
+				} catch (InvalidKeyException e) {
+					// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+				}
+			} else {
+				//XOR and XNOR gates are computed by XORing the input keys.
+				Arrays.fill(outputKey, (byte) 0);
+				for (int w : inputs){
+					xor(outputKey, 0, keys, w * keySize);
+				}
+			}
+			for (int w : outputWires[gate]){
+				System.arraycopy(outputKey, 0, keys, w * keySize, keySize);
+			}
+		}
+		
+		//Return only the values of the output wires.
+		HashMap<Integer, GarbledWire> garbledOutput = new HashMap<Integer, GarbledWire>();
+		for (int w : outputWireIndices){
+			garbledOutput.put(w, new GarbledWire(new SecretKeySpec(keys, w * keySize, keySize, "")));
+		}
+		return garbledOutput;
+	}
+	
+	@Override
+	byte getKeySignalBit(SecretKey key) {
+		byte[] encoded = key.getEncoded();
+		return (byte) (encoded[encoded.length - 1] & 1);
+	}
+	
+	@Override
+	public boolean internalVerify(Map<Integer, SecretKey[]> allInputWireValues, Map<Integer, SecretKey[]> allOutputWireValues) {
+		/*
+		 * Both keys of each wire. A key may be null in case a gate always outputs the same value; 
+		 * The rows that use such a key are not verified, as in StandardGarbledGate.
+		 */
+		byte[][] zeroKeys = new byte[topology.getNumberOfWires()][];
+		byte[][] oneKeys = new byte[topology.getNumberOfWires()][];
+		for (Map.Entry<Integer, SecretKey[]> entry : allInputWireValues.entrySet()){
+			int w = entry.getKey();
+			zeroKeys[w] = entry.getValue()[0].getEncoded();
+			oneKeys[w] = entry.getValue()[1].getEncoded();
+		}
+		
+		byte[] gateTypes = topology.gateTypes();
+		int[][] inputWires = topology.gateInputWires();
+		int[][] outputWires = topology.gateOutputWires();
+		for (int gate = 0; gate < gateTypes.length; gate++){
+			int[] inputs = inputWires[gate];
+			byte[] outputZero;
+			byte[] outputOne;
+			if (gateTypes[gate] == GarbledCircuitTopology.STANDARD){
+				byte[][] outputKeys = new byte[2][];
+				if (!verifyGarbledTable(gate, zeroKeys, oneKeys, outputKeys)){
+					return false;
+				}
+				outputZero = outputKeys[0];
+				outputOne = outputKeys[1];
+			} else {
+				//As in FreeXORGate, the XOR of the 0-keys encodes an even parity of the inputs and the XOR of the 0-keys of all 
+				//inputs but the last with the 1-key of the last input encodes an odd parity.
+				int last = inputs.length - 1;
+				byte[] zeroZero = zeroKeys[inputs[last]];
+				byte[] zeroOne = oneKeys[inputs[last]];
+				for (int i = 0; i < last; i++){
+					zeroZero = xor(zeroKeys[inputs[i]], zeroZero);
+					zeroOne = xor(zeroKeys[inputs[i]], zeroOne);
+				}
+				if (gateTypes[gate] == GarbledCircuitTopology.FREE_XOR){
+					outputZero = zeroZero;
+					outputOne = zeroOne;
+				} else {
+					outputZero = zeroOne;
+					outputOne = zeroZero;
+				}
+			}
+			for (int w : outputWires[gate]){
+				zeroKeys[w] = outputZero;
+				oneKeys[w] = outputOne;
+			}
+		}
+		
+		//Put the output keys in the given output map.
+		for (int w : outputWireIndices){
+			allOutputWireValues.put(w, new SecretKey[] { toKey(zeroKeys[w]), toKey(oneKeys[w]) });
+		}
+		return true;
+	}
+	
+	/**
+	 * Verifies that the garbled table of the given gate is consistent with its truth table.
+	 * @param gate The index of the gate in the topology.
+	 * @param zeroKeys The 0-keys of the wires.
+	 * @param oneKeys The 1-keys of the wires.
+	 * @param outputKeys An array of size 2 that will be filled with the output wire keys.
+	 * @return true if the garbled table is valid; false, otherwise.
+	 */
+	private boolean verifyGarbledTable(int gate, byte[][] zeroKeys, byte[][] oneKeys, byte[][] outputKeys){
+		int[] inputs = topology.gateInputWires()[gate];
+		long truthTable = topology.truthTables()[gate];
+		int gateNumber = topology.gateNumbers()[gate];
+		int numberOfInputs = inputs.length;
+		int numberOfRows = 1 << numberOfInputs;
+		
+		for (int row = 0; row < numberOfRows; row++){
+			int permutedPosition = 0;
+			SecretKey[] keysToDecryptOn = new SecretKey[numberOfInputs];
+			boolean keyNotNull = true;
+			for (int i = 0; i < numberOfInputs; i++){
+				int input = (row >> (numberOfInputs - 1 - i)) & 1;
+				byte[] key = (input == 0) ? zeroKeys[inputs[i]] : oneKeys[inputs[i]];
+				//If the key is null, this row is not relevant.
+				if (key == null){
+					keyNotNull = false;
+					break;
+				}
+				int signalBit = key[key.length - 1] & 1;
+				permutedPosition |= signalBit << (numberOfInputs - 1 - i);
+				keysToDecryptOn[i] = new SecretKeySpec(key, "");
+			}
+			if (!keyNotNull){
+				continue;
+			}
+			
+			mes.setKey(mes.generateMultiKey(keysToDecryptOn));
+			mes.setTweak(createTweak(gateNumber, permutedPosition, numberOfInputs));
+			byte[] decrypted = null;
+			try {
+				decrypted = mes.decrypt(tables.copyOfRange(gateNumber, permutedPosition * keySize, (permutedPosition + 1) * keySize));
+			} catch (KeyNotSetException e) {
+				// Should not occur since the key has been set.
+			} catch (TweakNotSetException e) {
+				// Should not occur since the tweak has been set.
+			} catch (IllegalBlockSizeException e) {
+				// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+			} catch (CiphertextTooLongException e) {
+				// Should not occur since the ciphertext is a row of the garbled table.
+			} catch (InvalidKeyException e) {
+				// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+			}
+			
+			//Rows of the truth table with the same ungarbled value should have the same garbled value as well.
+			int value = (int) ((truthTable >>> row) & 1);
+			if (outputKeys[value] == null){
+				outputKeys[value] = decrypted;
+			} else if (!Arrays.equals(outputKeys[value], decrypted)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public void setGarbledTables(GarbledTablesHolder garbledTables) {
+		if (!(garbledTables instanceof BasicGarbledTablesHolder)){
+			throw new IllegalArgumentException("garbledTables should be an instance of BasicGarbledTablesHolder");
+		}
+		tables.setGarbledTables((BasicGarbledTablesHolder) garbledTables);
+	}
+	
+	/**
+	 * Returns a new key generated by the given prg, or by the encryption scheme if the prg is null.
+	 */
+	private byte[] generateKey(PseudorandomGenerator keyGenerator){
+		if (keyGenerator == null){
+			return mes.generateKey().getEncoded();
+		}
+		byte[] key = new byte[keySize];
+		keyGenerator.getPRGBytes(key, 0, keySize);
+		return key;
+	}
+	
+	/**
+	 * Returns both keys of a wire, given its 0-key and the Free XOR delta.
+	 */
+	private SecretKey[] toKeys(byte[] zeroValue, byte[] globalKeyOffset){
+		return new SecretKey[] { new SecretKeySpec(zeroValue, ""), new SecretKeySpec(xor(zeroValue, globalKeyOffset), "") };
+	}
+	
+	/**
+	 * Returns the tweak of a row of a garbled table. <p>
+	 * The tweak is the gate number followed by the signal bits of the row's keys. Up to three inputs, each signal bit takes 
+	 * an int, as in {@link StandardGarbledGate}. The encryption schemes use only the first 16 bytes of the tweak, so for gates 
+	 * with more inputs all the signal bits are packed into a single int (the first input is the most significant bit). 
+	 * This way every row of a gate has a different tweak.
+	 * @param gateNumber The number of the gate.
+	 * @param signalBits The signal bits of the row's keys.
+	 * @param numberOfInputs The number of inputs of the gate.
+	 */
+	private static byte[] createTweak(int gateNumber, int signalBits, int numberOfInputs){
+		ByteBuffer tweak = ByteBuffer.allocate(TWEAK_SIZE);
+		tweak.putInt(gateNumber);
+		if (numberOfInputs <= MAX_UNPACKED_INPUTS){
+			for (int i = 0; i < numberOfInputs; i++){
+				tweak.putInt((signalBits >> (numberOfInputs - 1 - i)) & 1);
+			}
+		} else {
+			tweak.putInt(signalBits);
+		}
+		return tweak.array();
+	}
+	
+	private static SecretKey toKey(byte[] key){
+		return (key == null) ? null : new SecretKeySpec(key, "");
+	}
+	
+	/**
+	 * XORs keySize bytes of source into target, starting at the given offsets.
+	 */
+	private void xor(byte[] target, int targetOffset, byte[] source, int sourceOffset){
+		for (int i = 0; i < keySize; i++){
+			target[targetOffset + i] ^= source[sourceOffset + i];
+		}
+	}
+	
+	/**
+	 * Returns the XOR of the given keys, or null if one of them is null.
+	 */
+	private static byte[] xor(byte[] first, byte[] second){
+		if (first == null || second == null){
+			return null;
+		}
+		byte[] result = new byte[first.length];
+		for (int i = 0; i < result.length; i++){
+			result[i] = (byte) (first[i] ^ second[i]);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,458 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import edu.biu.scapi.primitives.hash.CryptographicHash;
+
+/**
+ * Holds the garbled tables of all the gates in a single contiguous buffer, along with an index of the offset and length of 
+ * each gate's table. <p>
+ * 
+ * As opposed to {@link BasicGarbledTablesHolder} that keeps a separate array per gate, there is no per gate object 
+ * overhead and all the tables lie one after the other, in the order they were garbled. The buffer can be a regular heap 
+ * buffer, a direct (off-heap) buffer or a buffer that is mapped to a file. <p>
+ * 
+ * The garbled gates access their tables in place through {@link #setGarbledTable(int, byte[])} and 
+ * {@link #copyOfRange(int, int, int)}, the tables are hashed in place by {@link #updateHash(CryptographicHash)}, and the 
+ * whole buffer is sent with a single bulk write, either by serialization or by {@link #writeTo(WritableByteChannel)}. 
+ * A received holder is always kept in a heap buffer. <p>
+ * 
+ * {@link #toDoubleByteArray()} is supported for compatibility, but it copies all the tables. <p>
+ * 
+ * A holder that is mapped to a file keeps the file open until {@link #close()} is called.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class ContiguousGarbledTablesHolder extends BasicGarbledTablesHolder implements Closeable {
+	
+	private static final long serialVersionUID = 3179264058712466101L;
+	
+	private static final int NO_TABLE = -1;
+	private static final int COPY_CHUNK_SIZE = 1 << 16;
+	
+	//The index and the buffer are not serialized by default, they are written by writeObject in a compact form.
+	private transient int[] offsets;	//The offset of each gate's table in the buffer.
+	private transient int[] lengths;	//The length of each gate's table, or NO_TABLE.
+	private transient int size;			//The number of used bytes in the buffer.
+	private transient ByteBuffer buffer;
+	private transient boolean isDirect;
+	private transient RandomAccessFile randomAccessFile;	//Not null in case the buffer is mapped to a file.
+	private transient FileChannel fileChannel;	//Not null in case the buffer is mapped to a file.
+	
+	/**
+	 * Creates an empty holder that keeps the tables in a heap buffer.
+	 * @param numberOfGates The number of gates of the circuit.
+	 * @param initialCapacity The initial size of the buffer in bytes. The buffer grows when needed.
+	 */
+	public ContiguousGarbledTablesHolder(int numberOfGates, int initialCapacity){
+		this(numberOfGates, initialCapacity, false);
+	}
+	
+	/**
+	 * Creates an empty holder that keeps the tables in a heap buffer or in a direct buffer.
+	 * @param numberOfGates The number of gates of the circuit.
+	 * @param initialCapacity The initial size of the buffer in bytes. The buffer grows when needed.
+	 * @param direct {@code true} in order to keep the tables in a direct (off-heap) buffer.
+	 */
+	public ContiguousGarbledTablesHolder(int numberOfGates, int initialCapacity, boolean direct){
+		super(null);
+		createIndex(numberOfGates);
+		isDirect = direct;
+		buffer = direct ? ByteBuffer.allocateDirect(initialCapacity) : ByteBuffer.allocate(initialCapacity);
+	}
+	
+	/**
+	 * Creates an empty holder that keeps the tables in a buffer mapped to the given file. 
+	 * The file is overwritten and it grows when needed. It stays open until {@link #close()} is called, since growing the 
+	 * buffer maps it again.
+	 * @param numberOfGates The number of gates of the circuit.
+	 * @param initialCapacity The initial size of the mapped region in bytes.
+	 * @param file The file to map.
+	 * @throws IOException if the file could not be opened or mapped.
+	 */
+	public ContiguousGarbledTablesHolder(int numberOfGates, int initialCapacity, File file) throws IOException {
+		super(null);
+		createIndex(numberOfGates);
+		randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			randomAccessFile.setLength(0);
+			fileChannel = randomAccessFile.getChannel();
+			buffer = fileChannel.map(MapMode.READ_WRITE, 0, initialCapacity);
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+	
+	private void createIndex(int numberOfGates){
+		offsets = new int[numberOfGates];
+		lengths = new int[numberOfGates];
+		Arrays.fill(lengths, NO_TABLE);
+		size = 0;
+	}
+	
+	/**
+	 * @return the number of gates this holder has room for.
+	 */
+	public int getNumberOfGates(){
+		return lengths.length;
+	}
+	
+	/**
+	 * Returns true if this holder has no room for tables. A holder of a circuit that was not garbled yet is not empty.
+	 */
+	@Override
+	public boolean isEmpty(){
+		return lengths.length == 0;
+	}
+	
+	/**
+	 * @return the number of bytes of all the garbled tables.
+	 */
+	public int getSize(){
+		return size;
+	}
+	
+	/**
+	 * @param gateNumber The number of the gate.
+	 * @return the offset of the gate's table in the buffer.
+	 */
+	public int getOffset(int gateNumber){
+		return offsets[gateNumber];
+	}
+	
+	/**
+	 * @param gateNumber The number of the gate.
+	 * @return the length of the gate's table, or -1 if the gate has no table.
+	 */
+	public int getLength(int gateNumber){
+		return lengths[gateNumber];
+	}
+	
+	/**
+	 * Returns a read only view of the used part of the buffer. The view starts at position zero and its limit is the size 
+	 * of the tables, so the table of gate i starts at {@link #getOffset(int)}.
+	 */
+	public ByteBuffer asReadOnlyBuffer(){
+		ByteBuffer view = buffer.asReadOnlyBuffer();
+		view.position(0);
+		view.limit(size);
+		return view.slice();
+	}
+	
+	/**
+	 * Sets the table of the given gate. <p>
+	 * If the gate already has a table with the same length (for example, when the circuit is garbled again), the table is 
+	 * overwritten in place. Otherwise, the table is appended to the end of the buffer.
+	 */
+	@Override
+	public void setGarbledTable(int gateNumber, byte[] garbledTable){
+		if (garbledTable == null){
+			lengths[gateNumber] = NO_TABLE;
+			return;
+		}
+		if (lengths[gateNumber] != garbledTable.length){
+			ensureCapacity(size + garbledTable.length);
+			offsets[gateNumber] = size;
+			lengths[gateNumber] = garbledTable.length;
+			size += garbledTable.length;
+		}
+		ByteBuffer target = buffer.duplicate();
+		target.position(offsets[gateNumber]);
+		target.put(garbledTable);
+	}
+	
+	@Override
+	public byte[] copyOfRange(int gateNumber, int from, int to){
+		int length = lengths[gateNumber];
+		if (length == NO_TABLE){
+			throw new IllegalStateException("gate " + gateNumber + " has no garbled table");
+		}
+		if (from < 0 || to > length || from > to){
+			throw new IndexOutOfBoundsException("illegal range " + from + "-" + to + " of a table of size " + length);
+		}
+		byte[] result = new byte[to - from];
+		ByteBuffer source = buffer.duplicate();
+		source.position(offsets[gateNumber] + from);
+		source.get(result);
+		return result;
+	}
+	
+	/**
+	 * Updates the given hash with the garbled tables, in the order of the gates. <p>
+	 * Tables of consecutive gates that lie one after the other in the buffer are hashed with a single update.
+	 */
+	@Override
+	public void updateHash(CryptographicHash hash){
+		int runStart = 0;
+		int runEnd = 0;
+		for (int i = 0; i < lengths.length; i++){
+			if (lengths[i] == NO_TABLE){
+				continue;
+			}
+			if (offsets[i] != runEnd){
+				updateHash(hash, runStart, runEnd - runStart);
+				runStart = offsets[i];
+			}
+			runEnd = offsets[i] + lengths[i];
+		}
+		updateHash(hash, runStart, runEnd - runStart);
+	}
+	
+	private void updateHash(CryptographicHash hash, int offset, int length){
+		if (length == 0){
+			return;
+		}
+		if (buffer.hasArray()){
+			hash.update(buffer.array(), buffer.arrayOffset() + offset, length);
+			return;
+		}
+		//Direct and mapped buffers are copied in chunks.
+		byte[] chunk = new byte[Math.min(length, COPY_CHUNK_SIZE)];
+		ByteBuffer source = buffer.duplicate();
+		source.position(offset);
+		while (length > 0){
+			int toCopy = Math.min(length, chunk.length);
+			source.get(chunk, 0, toCopy);
+			hash.update(chunk, 0, toCopy);
+			length -= toCopy;
+		}
+	}
+	
+	/**
+	 * Takes the tables of the given holder. <p>
+	 * If the given holder is a {@code ContiguousGarbledTablesHolder}, its buffer and index are shared without copying. 
+	 * Otherwise, the tables are copied into this holder's buffer.
+	 */
+	@Override
+	public void setGarbledTables(BasicGarbledTablesHolder garbledTables){
+		if (garbledTables instanceof ContiguousGarbledTablesHolder){
+			ContiguousGarbledTablesHolder other = (ContiguousGarbledTablesHolder) garbledTables;
+			offsets = other.offsets;
+			lengths = other.lengths;
+			size = other.size;
+			buffer = other.buffer;
+			isDirect = other.isDirect;
+			randomAccessFile = other.randomAccessFile;
+			fileChannel = other.fileChannel;
+		} else {
+			setGarbledTables(garbledTables.toDoubleByteArray());
+		}
+	}
+	
+	/**
+	 * Copies the given tables into this holder's buffer.
+	 */
+	@Override
+	public void setGarbledTables(byte[][] garbledTables){
+		createIndex(garbledTables == null ? lengths.length : garbledTables.length);
+		if (garbledTables != null){
+			for (int i = 0; i < garbledTables.length; i++){
+				setGarbledTable(i, garbledTables[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Returns a copy of the tables as an array per gate. Gates without a table have a null entry.
+	 */
+	@Override
+	public byte[][] toDoubleByteArray(){
+		byte[][] tables = new byte[lengths.length][];
+		for (int i = 0; i < lengths.length; i++){
+			if (lengths[i] != NO_TABLE){
+				tables[i] = copyOfRange(i, 0, lengths[i]);
+			}
+		}
+		return tables;
+	}
+	
+	/**
+	 * Writes all the tables to the given channel, with no header. The index is not written.
+	 * @throws IOException if the write failed.
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		ByteBuffer source = asReadOnlyBuffer();
+		while (source.hasRemaining()){
+			channel.write(source);
+		}
+	}
+	
+	/**
+	 * Closes the file that the buffer is mapped to, if there is one. A holder that is mapped to a file can not be used after 
+	 * calling this function, and neither can holders that took its tables by {@link #setGarbledTables(BasicGarbledTablesHolder)}. 
+	 * For heap and direct buffers this function does nothing. <p>
+	 * Note that the mapped buffer is released only when it is garbage collected.
+	 * @throws IOException if the file could not be closed.
+	 */
+	public void close() throws IOException {
+		if (randomAccessFile == null){
+			return;
+		}
+		try {
+			//Closing the file closes its channel too.
+			randomAccessFile.close();
+		} finally {
+			randomAccessFile = null;
+			fileChannel = null;
+		}
+	}
+	
+	private void ensureCapacity(int capacity){
+		if (capacity <= buffer.capacity()){
+			return;
+		}
+		int newCapacity = Math.max(capacity, buffer.capacity() * 2);
+		ByteBuffer newBuffer;
+		if (fileChannel != null){
+			if (!fileChannel.isOpen()){
+				throw new IllegalStateException("the holder was closed");
+			}
+			try {
+				newBuffer = fileChannel.map(MapMode.READ_WRITE, 0, newCapacity);
+			} catch (IOException e) {
+				throw new IllegalStateException("could not extend the mapped file", e);
+			}
+			//The new mapping already contains the written tables.
+			buffer = newBuffer;
+			return;
+		}
+		newBuffer = isDirect ? ByteBuffer.allocateDirect(newCapacity) : ByteBuffer.allocate(newCapacity);
+		ByteBuffer source = buffer.duplicate();
+		source.position(0);
+		source.limit(size);
+		newBuffer.put(source);
+		newBuffer.clear();
+		buffer = newBuffer;
+	}
+	
+	/**
+	 * Writes the index as (gate number difference, table length) pairs of the gates that have a table, followed by the 
+	 * tables in the order of the gates. The offsets are not written since the reader places the tables one after the other.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(lengths.length);
+		int numberOfTables = 0;
+		for (int i = 0; i < lengths.length; i++){
+			if (lengths[i] != NO_TABLE){
+				numberOfTables++;
+			}
+		}
+		out.writeInt(numberOfTables);
+		int previous = 0;
+		for (int i = 0; i < lengths.length; i++){
+			if (lengths[i] != NO_TABLE){
+				writeVarInt(out, i - previous);
+				writeVarInt(out, lengths[i]);
+				previous = i;
+			}
+		}
+		
+		//Write the tables, merging the tables that lie one after the other into a single write.
+		int runStart = 0;
+		int runEnd = 0;
+		for (int i = 0; i < lengths.length; i++){
+			if (lengths[i] == NO_TABLE){
+				continue;
+			}
+			if (offsets[i] != runEnd){
+				write(out, runStart, runEnd - runStart);
+				runStart = offsets[i];
+			}
+			runEnd = offsets[i] + lengths[i];
+		}
+		write(out, runStart, runEnd - runStart);
+	}
+	
+	private void write(ObjectOutputStream out, int offset, int length) throws IOException {
+		if (length == 0){
+			return;
+		}
+		if (buffer.hasArray()){
+			out.write(buffer.array(), buffer.arrayOffset() + offset, length);
+			return;
+		}
+		//Direct and mapped buffers are copied in chunks.
+		byte[] chunk = new byte[Math.min(length, COPY_CHUNK_SIZE)];
+		ByteBuffer source = buffer.duplicate();
+		source.position(offset);
+		while (length > 0){
+			int toCopy = Math.min(length, chunk.length);
+			source.get(chunk, 0, toCopy);
+			out.write(chunk, 0, toCopy);
+			length -= toCopy;
+		}
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		createIndex(in.readInt());
+		int numberOfTables = in.readInt();
+		int gate = 0;
+		for (int i = 0; i < numberOfTables; i++){
+			gate += readVarInt(in);
+			offsets[gate] = size;
+			lengths[gate] = readVarInt(in);
+			size += lengths[gate];
+		}
+		byte[] tables = new byte[size];
+		in.readFully(tables);
+		buffer = ByteBuffer.wrap(tables);
+	}
+	
+	private static void writeVarInt(ObjectOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0){
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+	
+	private static int readVarInt(ObjectInputStream in) throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+}
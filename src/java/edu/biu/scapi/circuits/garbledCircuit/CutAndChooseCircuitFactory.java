@@ -0,0 +1,51 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import edu.biu.scapi.primitives.hash.CryptographicHash;
+
+/**
+ * Creates the objects that the cut-and-choose engine ({@link CutAndChooseGarbler} and {@link CutAndChooseVerifier}) uses. <p>
+ * The engine garbles and verifies many circuits concurrently. Since the circuits, encryption schemes, PRGs and hash 
+ * functions are not thread safe, each call should return a new object that does not share any of them with the objects 
+ * returned by previous calls.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public interface CutAndChooseCircuitFactory {
+
+	/**
+	 * Creates a new, not garbled, circuit that can be garbled using a seed 
+	 * (that is, it was created with a {@link edu.biu.scapi.primitives.prg.PseudorandomGenerator}).
+	 * All the circuits should be garblings of the same boolean circuit.
+	 */
+	public GarbledBooleanCircuitExtended createCircuit();
+	
+	/**
+	 * Creates a new hash function to use with {@link GarbledBooleanCircuitExtended#getHashedCircuit(CryptographicHash)}.
+	 */
+	public CryptographicHash createHash();
+}
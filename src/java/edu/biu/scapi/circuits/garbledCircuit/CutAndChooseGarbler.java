@@ -0,0 +1,184 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.biu.scapi.primitives.hash.CryptographicHash;
+
+/**
+ * The garbler side of the cut-and-choose technique. <p>
+ * The garbler creates N garbled circuits, each one from an independent random seed, and commits to all of them by sending 
+ * the hash of each circuit ({@link GarbledBooleanCircuitExtended#getHashedCircuit(CryptographicHash)}). The evaluator then 
+ * chooses the check circuits. For a check circuit the garbler sends only its seed, which the evaluator uses in order to 
+ * garble the circuit again and compare the hashes (see {@link CutAndChooseVerifier}). Only the garbled tables of the 
+ * evaluation circuits are sent. <p>
+ * 
+ * The circuits are garbled and hashed concurrently on a thread pool, where each circuit uses its own circuit objects and 
+ * hash function that are created by the given {@link CutAndChooseCircuitFactory}. <p>
+ * 
+ * Call {@link #shutdown()} when the garbler is no longer needed in order to release the threads of the pool.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class CutAndChooseGarbler {
+	
+	private static final int DEFAULT_SEED_SIZE = 16;
+	
+	private CutAndChooseCircuitFactory factory;
+	private int numberOfCircuits;
+	private int seedSize;
+	private ExecutorService pool;
+	private SecureRandom random;
+	
+	private byte[][] seeds;
+	private GarbledBooleanCircuitExtended[] circuits;
+	private CircuitCreationValues[] creationValues;
+	private byte[][] hashes;
+	
+	/**
+	 * Creates a garbler that uses seeds of 16 bytes.
+	 * @param factory Creates the circuits and hash functions.
+	 * @param numberOfCircuits The number of circuits to garble.
+	 * @param numberOfThreads The number of threads that garble the circuits.
+	 */
+	public CutAndChooseGarbler(CutAndChooseCircuitFactory factory, int numberOfCircuits, int numberOfThreads){
+		this(factory, numberOfCircuits, numberOfThreads, DEFAULT_SEED_SIZE, new SecureRandom());
+	}
+	
+	/**
+	 * @param factory Creates the circuits and hash functions.
+	 * @param numberOfCircuits The number of circuits to garble.
+	 * @param numberOfThreads The number of threads that garble the circuits.
+	 * @param seedSize The size of each seed in bytes. Should match the key size of the circuits' PRG.
+	 * @param random Used to sample the seeds.
+	 */
+	public CutAndChooseGarbler(CutAndChooseCircuitFactory factory, int numberOfCircuits, int numberOfThreads, int seedSize, SecureRandom random){
+		if (numberOfCircuits < 1 || numberOfThreads < 1){
+			throw new IllegalArgumentException("the number of circuits and the number of threads should be positive");
+		}
+		this.factory = factory;
+		this.numberOfCircuits = numberOfCircuits;
+		this.seedSize = seedSize;
+		this.random = random;
+		pool = Executors.newFixedThreadPool(numberOfThreads);
+	}
+	
+	/**
+	 * Samples a new seed for each circuit, then garbles and hashes all the circuits concurrently.
+	 * @throws InvalidKeyException if one of the seeds does not match the circuits' PRG.
+	 */
+	public void garble() throws InvalidKeyException {
+		seeds = new byte[numberOfCircuits][seedSize];
+		for (int i = 0; i < numberOfCircuits; i++){
+			random.nextBytes(seeds[i]);
+		}
+		circuits = new GarbledBooleanCircuitExtended[numberOfCircuits];
+		creationValues = new CircuitCreationValues[numberOfCircuits];
+		hashes = new byte[numberOfCircuits][];
+		
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(numberOfCircuits);
+		for (int i = 0; i < numberOfCircuits; i++){
+			final int index = i;
+			tasks.add(new Callable<Object>() {
+				public Object call() throws InvalidKeyException {
+					GarbledBooleanCircuitExtended circuit = factory.createCircuit();
+					creationValues[index] = circuit.garble(seeds[index]);
+					hashes[index] = circuit.getHashedCircuit(factory.createHash());
+					circuits[index] = circuit;
+					return null;
+				}
+			});
+		}
+		//invokeAll waits for all the tasks, so the arrays that were filled by the tasks are visible after it returns.
+		CutAndChooseTasks.invokeAll(pool, tasks);
+	}
+	
+	/**
+	 * @return the number of circuits.
+	 */
+	public int getNumberOfCircuits(){
+		return numberOfCircuits;
+	}
+	
+	/**
+	 * @return the hashes of all the circuits, which should be sent to the evaluator before it chooses the check circuits.
+	 */
+	public byte[][] getHashes(){
+		checkGarbled();
+		return hashes;
+	}
+	
+	/**
+	 * Returns the seeds of the given check circuits, which should be sent to the evaluator in order to verify them.
+	 * @param checkCircuits The indices of the check circuits.
+	 */
+	public byte[][] getSeeds(int[] checkCircuits){
+		checkGarbled();
+		byte[][] result = new byte[checkCircuits.length][];
+		for (int i = 0; i < checkCircuits.length; i++){
+			result[i] = seeds[checkCircuits[i]];
+		}
+		return result;
+	}
+	
+	/**
+	 * @param index The index of the circuit.
+	 * @return the garbled circuit, whose garbled tables and translation table should be sent in case it is an evaluation circuit.
+	 */
+	public GarbledBooleanCircuitExtended getCircuit(int index){
+		checkGarbled();
+		return circuits[index];
+	}
+	
+	/**
+	 * @param index The index of the circuit.
+	 * @return the keys and translation table that were created when garbling the circuit.
+	 */
+	public CircuitCreationValues getCreationValues(int index){
+		checkGarbled();
+		return creationValues[index];
+	}
+	
+	/**
+	 * Stops the threads of the pool.
+	 */
+	public void shutdown(){
+		pool.shutdown();
+	}
+	
+	private void checkGarbled(){
+		if (circuits == null){
+			throw new IllegalStateException("garble() should be called first");
+		}
+	}
+}
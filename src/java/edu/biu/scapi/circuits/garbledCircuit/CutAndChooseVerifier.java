@@ -0,0 +1,143 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.security.InvalidKeyException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.biu.scapi.exceptions.CheatAttemptException;
+
+/**
+ * The evaluator side of the cut-and-choose technique (see {@link CutAndChooseGarbler}). <p>
+ * The evaluator receives the hashes of all the circuits. For each check circuit it receives the seed, garbles the circuit 
+ * again from the seed and checks that the hash of the result is the committed hash. For each evaluation circuit it receives 
+ * the garbled tables and checks that their hash is the committed hash. All the checks are done concurrently on a thread pool. <p>
+ * 
+ * Call {@link #shutdown()} when the verifier is no longer needed in order to release the threads of the pool.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class CutAndChooseVerifier {
+	
+	private CutAndChooseCircuitFactory factory;
+	private ExecutorService pool;
+	
+	/**
+	 * @param factory Creates the circuits and hash functions. Should create the same circuits as the garbler's factory.
+	 * @param numberOfThreads The number of threads that verify the circuits.
+	 */
+	public CutAndChooseVerifier(CutAndChooseCircuitFactory factory, int numberOfThreads){
+		if (numberOfThreads < 1){
+			throw new IllegalArgumentException("the number of threads should be positive");
+		}
+		this.factory = factory;
+		pool = Executors.newFixedThreadPool(numberOfThreads);
+	}
+	
+	/**
+	 * Verifies the check circuits concurrently. Each circuit is garbled from its seed and its hash is compared to the committed hash.
+	 * @param seeds The seeds of the check circuits.
+	 * @param hashes The committed hashes of the check circuits, in the same order as the seeds.
+	 * @return an array that holds for each check circuit {@code true} if it is valid, {@code false} otherwise.
+	 * @throws InvalidKeyException if one of the seeds does not match the circuits' PRG.
+	 */
+	public boolean[] verifyCheckCircuits(final byte[][] seeds, final byte[][] hashes) throws InvalidKeyException {
+		if (seeds.length != hashes.length){
+			throw new IllegalArgumentException("there should be a hash for each seed");
+		}
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>(seeds.length);
+		for (int i = 0; i < seeds.length; i++){
+			final int index = i;
+			tasks.add(new Callable<Boolean>() {
+				public Boolean call() throws InvalidKeyException {
+					GarbledBooleanCircuitExtended circuit = factory.createCircuit();
+					circuit.garble(seeds[index]);
+					return circuit.verifyHashedCircuit(factory.createHash(), hashes[index]);
+				}
+			});
+		}
+		return toArray(CutAndChooseTasks.invokeAll(pool, tasks));
+	}
+	
+	/**
+	 * Verifies concurrently that the garbled tables of the received evaluation circuits match the committed hashes.
+	 * @param circuits The evaluation circuits, after their garbled tables and translation tables were set.
+	 * @param hashes The committed hashes of the evaluation circuits, in the same order as the circuits.
+	 * @return an array that holds for each evaluation circuit {@code true} if it is valid, {@code false} otherwise.
+	 */
+	public boolean[] verifyEvaluationCircuits(final GarbledBooleanCircuitExtended[] circuits, final byte[][] hashes){
+		if (circuits.length != hashes.length){
+			throw new IllegalArgumentException("there should be a hash for each circuit");
+		}
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>(circuits.length);
+		for (int i = 0; i < circuits.length; i++){
+			final int index = i;
+			tasks.add(new Callable<Boolean>() {
+				public Boolean call() {
+					return circuits[index].verifyHashedCircuit(factory.createHash(), hashes[index]);
+				}
+			});
+		}
+		try {
+			return toArray(CutAndChooseTasks.invokeAll(pool, tasks));
+		} catch (InvalidKeyException e) {
+			// Should not occur since verifying the hash does not use keys.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Checks that all the given verification results are {@code true}.
+	 * @param results The results of one of the verify functions.
+	 * @throws CheatAttemptException if one of the circuits is not valid.
+	 */
+	public static void checkResults(boolean[] results) throws CheatAttemptException {
+		for (int i = 0; i < results.length; i++){
+			if (!results[i]){
+				throw new CheatAttemptException("circuit number " + i + " is not a valid garbling of the committed circuit");
+			}
+		}
+	}
+	
+	/**
+	 * Stops the threads of the pool.
+	 */
+	public void shutdown(){
+		pool.shutdown();
+	}
+	
+	private static boolean[] toArray(List<Boolean> list){
+		boolean[] array = new boolean[list.size()];
+		for (int i = 0; i < array.length; i++){
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+}
@@ -24,6 +24,8 @@
 */
 package edu.biu.scapi.circuits.garbledCircuit;
 
+import edu.biu.scapi.primitives.hash.CryptographicHash;
+
 /**
  * This class holds the garbled tables of the extended garbled circuit, it contains the garbled tables of the inner garbled circuit along with 
  * garbled tables of the input identity gates and output identity gates.<p>
@@ -112,13 +114,41 @@ public class ExtendedGarbledTablesHolder implements GarbledTablesHolder{
 		return allTables;
 	}
 	
+	@Override
+	public boolean isEmpty(){
+		return inputGarbledTables.isEmpty() && outputGarbledTables.isEmpty() 
+				&& (internalGarbledTables == null || internalGarbledTables.isEmpty());
+	}
+	
 	public void setGarbledTables(GarbledTablesHolder internalGarbledTables, GarbledTablesHolder inputGarbledTables, GarbledTablesHolder outputGarbledTables){
 		if (!(inputGarbledTables instanceof BasicGarbledTablesHolder) || !(outputGarbledTables instanceof BasicGarbledTablesHolder)){
 			throw new IllegalArgumentException("The given input and output Garbled Tables should be instances of BasicGarbledTablesHolder");
 		}
 		this.internalGarbledTables = internalGarbledTables;
-		this.inputGarbledTables.setGarbledTables(inputGarbledTables.toDoubleByteArray());
-		this.outputGarbledTables.setGarbledTables(outputGarbledTables.toDoubleByteArray());
+		this.inputGarbledTables.setGarbledTables((BasicGarbledTablesHolder) inputGarbledTables);
+		this.outputGarbledTables.setGarbledTables((BasicGarbledTablesHolder) outputGarbledTables);
+	}
+	
+	/**
+	 * Updates the given hash with all the garbled tables, in the order of toDoubleByteArray(). <P>
+	 * The tables that are held by a {@link BasicGarbledTablesHolder} are hashed in place.
+	 * @param hash The hash function to update.
+	 */
+	public void updateHash(CryptographicHash hash){
+		inputGarbledTables.updateHash(hash);
+		if (internalGarbledTables instanceof BasicGarbledTablesHolder){
+			((BasicGarbledTablesHolder) internalGarbledTables).updateHash(hash);
+		} else {
+			byte[][] tables = internalGarbledTables.toDoubleByteArray();
+			if (tables != null){
+				for (int i = 0; i < tables.length; i++){
+					if (tables[i] != null){
+						hash.update(tables[i], 0, tables[i].length);
+					}
+				}
+			}
+		}
+		outputGarbledTables.updateHash(hash);
 	}
 	
 	public void setInnerGarbledTables(GarbledTablesHolder internalGarbledTables){
@@ -0,0 +1,491 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.biu.scapi.primitives.hash.CryptographicHash;
+
+/**
+ * Holds the garbled tables in a file instead of in the heap, so circuits whose tables are bigger than the memory can be 
+ * garbled, computed and sent. <p>
+ * 
+ * The tables are written one after the other, in the order of the gates, into a file that is mapped to memory in fixed-size 
+ * segments. A segment is mapped only when it is first accessed, and the operating system decides which pages are kept in memory. 
+ * The gates read their tables in place through {@link #copyOfRange(int, int, int)}, the tables are hashed by a sequential pass 
+ * over the file in {@link #updateHash(CryptographicHash)}, and {@link #writeTo(WritableByteChannel)} sends the file using 
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. When the holder is serialized, the tables are streamed from the file, 
+ * and the receiver writes them into a temporary file instead of the heap. <p>
+ * 
+ * The holder only keeps the length of each table (two bytes per gate) and the offset of every 64th gate. 
+ * Since the offsets are computed from the lengths, the tables should be set in the order of the gates, as done by the garbling. 
+ * A table that was already set can only be overwritten by a table of the same size (for example, when the circuit is garbled again). <p>
+ * 
+ * This class is not thread safe.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class FileBackedGarbledTablesHolder extends BasicGarbledTablesHolder implements Closeable {
+	
+	private static final long serialVersionUID = -2730912576513468271L;
+	
+	/**
+	 * The default size of each mapped segment of the file, in bytes.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 1 << 28;
+	
+	private static final short NO_TABLE = -1;
+	private static final int CHECKPOINT_SHIFT = 6;	//The offset of every 2^CHECKPOINT_SHIFT gate is kept.
+	private static final int COPY_CHUNK_SIZE = 1 << 16;
+	
+	//The index and the file are not serialized by default, the tables are written by writeObject.
+	private transient short[] lengths;		//The length of each gate's table, or NO_TABLE.
+	private transient long[] checkpoints;	//checkpoints[i] is the offset of the table of gate i*64 (or of the first table after it).
+	private transient long size;			//The number of bytes of all the tables.
+	private transient int lastGate;			//The last gate that has a table.
+	
+	//The last computed offset. Since the gates are computed in order, the next offset is computed from this one.
+	private transient int cachedGate;
+	private transient long cachedOffset;
+	
+	private transient File file;
+	private transient RandomAccessFile randomAccessFile;
+	private transient FileChannel fileChannel;
+	private transient int segmentSize;
+	private transient List<MappedByteBuffer> segments;
+	
+	/**
+	 * Creates an empty holder that keeps the tables in the given file, using the default segment size. 
+	 * The file is overwritten.
+	 * @param numberOfGates The number of gates of the circuit.
+	 * @param file The file to keep the tables in.
+	 * @throws IOException if the file could not be opened.
+	 */
+	public FileBackedGarbledTablesHolder(int numberOfGates, File file) throws IOException {
+		this(numberOfGates, file, DEFAULT_SEGMENT_SIZE);
+	}
+	
+	/**
+	 * Creates an empty holder that keeps the tables in the given file. The file is overwritten.
+	 * @param numberOfGates The number of gates of the circuit.
+	 * @param file The file to keep the tables in.
+	 * @param segmentSize The size of each mapped segment of the file, in bytes.
+	 * @throws IOException if the file could not be opened.
+	 */
+	public FileBackedGarbledTablesHolder(int numberOfGates, File file, int segmentSize) throws IOException {
+		super(null);
+		if (segmentSize <= 0){
+			throw new IllegalArgumentException("the segment size should be positive");
+		}
+		this.segmentSize = segmentSize;
+		createIndex(numberOfGates);
+		openFile(file);
+	}
+	
+	private void openFile(File file) throws IOException {
+		this.file = file;
+		randomAccessFile = new RandomAccessFile(file, "rw");
+		randomAccessFile.setLength(0);
+		fileChannel = randomAccessFile.getChannel();
+		segments = new ArrayList<MappedByteBuffer>();
+	}
+	
+	private void createIndex(int numberOfGates){
+		lengths = new short[numberOfGates];
+		Arrays.fill(lengths, NO_TABLE);
+		checkpoints = new long[(numberOfGates >> CHECKPOINT_SHIFT) + 1];
+		size = 0;
+		lastGate = -1;
+		cachedGate = -1;
+	}
+	
+	/**
+	 * @return the number of gates this holder has room for.
+	 */
+	public int getNumberOfGates(){
+		return lengths.length;
+	}
+	
+	/**
+	 * @return the number of bytes of all the garbled tables.
+	 */
+	public long getSize(){
+		return size;
+	}
+	
+	/**
+	 * @return the file that keeps the tables.
+	 */
+	public File getFile(){
+		return file;
+	}
+	
+	/**
+	 * @param gateNumber The number of the gate.
+	 * @return the length of the gate's table, or -1 if the gate has no table.
+	 */
+	public int getLength(int gateNumber){
+		return lengths[gateNumber];
+	}
+	
+	/**
+	 * Sets the table of the given gate. <p>
+	 * If the gate already has a table with the same length, the table is overwritten in place. 
+	 * Otherwise, the gate should be after all the gates that already have a table, and the table is appended to the file.
+	 * @throws IllegalStateException if the gate already has a table of a different size, or if a later gate already has a table.
+	 */
+	@Override
+	public void setGarbledTable(int gateNumber, byte[] garbledTable){
+		if (garbledTable == null){
+			if (lengths[gateNumber] != NO_TABLE){
+				throw new IllegalStateException("the table of gate " + gateNumber + " can not be removed");
+			}
+			return;
+		}
+		if (lengths[gateNumber] == garbledTable.length){
+			access(offsetOf(gateNumber), garbledTable, 0, garbledTable.length, true);
+			return;
+		}
+		if (lengths[gateNumber] != NO_TABLE || gateNumber < lastGate){
+			throw new IllegalStateException("the tables should be set in the order of the gates; the table of gate " + gateNumber + " can not be set");
+		}
+		if (garbledTable.length > Short.MAX_VALUE){
+			throw new IllegalArgumentException("the garbled table of gate " + gateNumber + " is too long");
+		}
+		
+		//Update the offsets of the gates between the last gate that has a table and this gate.
+		for (int i = (lastGate >> CHECKPOINT_SHIFT) + 1; i <= gateNumber >> CHECKPOINT_SHIFT; i++){
+			checkpoints[i] = size;
+		}
+		access(size, garbledTable, 0, garbledTable.length, true);
+		lengths[gateNumber] = (short) garbledTable.length;
+		lastGate = gateNumber;
+		cachedGate = gateNumber;
+		cachedOffset = size;
+		size += garbledTable.length;
+	}
+	
+	@Override
+	public byte[] copyOfRange(int gateNumber, int from, int to){
+		int length = lengths[gateNumber];
+		if (length == NO_TABLE){
+			throw new IllegalStateException("gate " + gateNumber + " has no garbled table");
+		}
+		if (from < 0 || to > length || from > to){
+			throw new IndexOutOfBoundsException("illegal range " + from + "-" + to + " of a table of size " + length);
+		}
+		byte[] result = new byte[to - from];
+		access(offsetOf(gateNumber) + from, result, 0, result.length, false);
+		return result;
+	}
+	
+	/**
+	 * Returns the offset of the given gate's table in the file. <p>
+	 * The offset is computed from the nearest kept offset, or from the last computed offset in case it is closer.
+	 */
+	private long offsetOf(int gateNumber){
+		int blockStart = (gateNumber >> CHECKPOINT_SHIFT) << CHECKPOINT_SHIFT;
+		int from;
+		long offset;
+		if (cachedGate >= blockStart && cachedGate <= gateNumber){
+			from = cachedGate;
+			offset = cachedOffset;
+		} else {
+			from = blockStart;
+			offset = checkpoints[gateNumber >> CHECKPOINT_SHIFT];
+		}
+		for (int i = from; i < gateNumber; i++){
+			if (lengths[i] != NO_TABLE){
+				offset += lengths[i];
+			}
+		}
+		cachedGate = gateNumber;
+		cachedOffset = offset;
+		return offset;
+	}
+	
+	/**
+	 * Reads or writes the given bytes at the given position of the file. The bytes may span more than one segment.
+	 */
+	private void access(long position, byte[] array, int offset, int length, boolean write){
+		while (length > 0){
+			int segmentNumber = (int) (position / segmentSize);
+			int segmentOffset = (int) (position % segmentSize);
+			int toCopy = Math.min(length, segmentSize - segmentOffset);
+			ByteBuffer segment = getSegment(segmentNumber).duplicate();
+			segment.position(segmentOffset);
+			if (write){
+				segment.put(array, offset, toCopy);
+			} else {
+				segment.get(array, offset, toCopy);
+			}
+			position += toCopy;
+			offset += toCopy;
+			length -= toCopy;
+		}
+	}
+	
+	/**
+	 * Returns the given segment of the file, and maps it in case it was not mapped yet. Mapping a segment extends the file if needed.
+	 */
+	private MappedByteBuffer getSegment(int segmentNumber){
+		while (segments.size() <= segmentNumber){
+			segments.add(null);
+		}
+		MappedByteBuffer segment = segments.get(segmentNumber);
+		if (segment == null){
+			try {
+				segment = fileChannel.map(MapMode.READ_WRITE, (long) segmentNumber * segmentSize, segmentSize);
+			} catch (IOException e) {
+				throw new IllegalStateException("could not map segment " + segmentNumber + " of " + file, e);
+			}
+			segments.set(segmentNumber, segment);
+		}
+		return segment;
+	}
+	
+	/**
+	 * Updates the given hash with the garbled tables, in the order of the gates. <p>
+	 * The tables lie one after the other in the order of the gates, so the file is hashed in one sequential pass.
+	 */
+	@Override
+	public void updateHash(CryptographicHash hash){
+		byte[] chunk = new byte[(int) Math.min(size, COPY_CHUNK_SIZE)];
+		long position = 0;
+		while (position < size){
+			int toCopy = (int) Math.min(size - position, chunk.length);
+			access(position, chunk, 0, toCopy, false);
+			hash.update(chunk, 0, toCopy);
+			position += toCopy;
+		}
+	}
+	
+	/**
+	 * Takes the tables of the given holder. <p>
+	 * If the given holder is a {@code FileBackedGarbledTablesHolder}, its file and index are shared without copying. 
+	 * Otherwise, the tables are copied into this holder's file.
+	 */
+	@Override
+	public void setGarbledTables(BasicGarbledTablesHolder garbledTables){
+		if (garbledTables instanceof FileBackedGarbledTablesHolder){
+			FileBackedGarbledTablesHolder other = (FileBackedGarbledTablesHolder) garbledTables;
+			lengths = other.lengths;
+			checkpoints = other.checkpoints;
+			size = other.size;
+			lastGate = other.lastGate;
+			cachedGate = -1;
+			file = other.file;
+			randomAccessFile = other.randomAccessFile;
+			fileChannel = other.fileChannel;
+			segmentSize = other.segmentSize;
+			segments = other.segments;
+		} else {
+			setGarbledTables(garbledTables.toDoubleByteArray());
+		}
+	}
+	
+	/**
+	 * Returns true if this holder has no room for tables. A holder of a circuit that was not garbled yet is not empty.
+	 */
+	@Override
+	public boolean isEmpty(){
+		return lengths.length == 0;
+	}
+	
+	/**
+	 * Copies the given tables into this holder's file, overwriting the existing tables.
+	 */
+	@Override
+	public void setGarbledTables(byte[][] garbledTables){
+		createIndex(garbledTables == null ? lengths.length : garbledTables.length);
+		if (garbledTables != null){
+			for (int i = 0; i < garbledTables.length; i++){
+				setGarbledTable(i, garbledTables[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Returns a copy of the tables as an array per gate. Gates without a table have a null entry. <p>
+	 * This function is supported for compatibility, but it reads all the tables into the heap.
+	 */
+	@Override
+	public byte[][] toDoubleByteArray(){
+		byte[][] tables = new byte[lengths.length][];
+		for (int i = 0; i < lengths.length; i++){
+			if (lengths[i] != NO_TABLE){
+				tables[i] = copyOfRange(i, 0, lengths[i]);
+			}
+		}
+		return tables;
+	}
+	
+	/**
+	 * Writes all the tables to the given channel, with no header. The index is not written. <p>
+	 * The bytes are transferred directly from the file, so in case the channel is a socket, the operating system may send 
+	 * them without copying them to the java process.
+	 * @throws IOException if the write failed.
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		force();
+		long position = 0;
+		while (position < size){
+			position += fileChannel.transferTo(position, size - position, channel);
+		}
+	}
+	
+	/**
+	 * Writes the changes in the mapped segments to the file.
+	 */
+	public void force(){
+		for (MappedByteBuffer segment : segments){
+			if (segment != null){
+				segment.force();
+			}
+		}
+	}
+	
+	/**
+	 * Closes the file. The holder can not be used after calling this function. <p>
+	 * Note that the mapped segments are released only when they are garbage collected.
+	 * @throws IOException if the file could not be closed.
+	 */
+	public void close() throws IOException {
+		segments.clear();
+		fileChannel.close();
+		randomAccessFile.close();
+	}
+	
+	/**
+	 * Writes the index as (gate number difference, table length) pairs of the gates that have a table, followed by the 
+	 * tables, that are read from the file in chunks.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(lengths.length);
+		out.writeInt(segmentSize);
+		int numberOfTables = 0;
+		for (int i = 0; i < lengths.length; i++){
+			if (lengths[i] != NO_TABLE){
+				numberOfTables++;
+			}
+		}
+		out.writeInt(numberOfTables);
+		int previous = 0;
+		for (int i = 0; i < lengths.length; i++){
+			if (lengths[i] != NO_TABLE){
+				writeVarInt(out, i - previous);
+				writeVarInt(out, lengths[i]);
+				previous = i;
+			}
+		}
+		
+		byte[] chunk = new byte[(int) Math.min(size, COPY_CHUNK_SIZE)];
+		long position = 0;
+		while (position < size){
+			int toCopy = (int) Math.min(size - position, chunk.length);
+			access(position, chunk, 0, toCopy, false);
+			out.write(chunk, 0, toCopy);
+			position += toCopy;
+		}
+	}
+	
+	/**
+	 * Reads the index and writes the tables into a temporary file, that is deleted when the virtual machine exits.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int numberOfGates = in.readInt();
+		segmentSize = in.readInt();
+		int numberOfTables = in.readInt();
+		if (numberOfGates < 0 || segmentSize <= 0 || numberOfTables < 0 || numberOfTables > numberOfGates){
+			throw new InvalidObjectException("illegal garbled tables header");
+		}
+		createIndex(numberOfGates);
+		File tablesFile = File.createTempFile("garbledTables", ".tables");
+		tablesFile.deleteOnExit();
+		openFile(tablesFile);
+		
+		//Read the index. The offsets are set as if the tables were appended.
+		int gate = 0;
+		for (int i = 0; i < numberOfTables; i++){
+			gate += readVarInt(in);
+			int length = readVarInt(in);
+			if (gate < 0 || gate >= numberOfGates || gate <= lastGate || length < 0 || length > Short.MAX_VALUE){
+				throw new InvalidObjectException("illegal garbled tables index");
+			}
+			for (int j = (lastGate >> CHECKPOINT_SHIFT) + 1; j <= gate >> CHECKPOINT_SHIFT; j++){
+				checkpoints[j] = size;
+			}
+			lengths[gate] = (short) length;
+			lastGate = gate;
+			size += length;
+		}
+		
+		byte[] chunk = new byte[(int) Math.min(size, COPY_CHUNK_SIZE)];
+		long position = 0;
+		while (position < size){
+			int toCopy = (int) Math.min(size - position, chunk.length);
+			in.readFully(chunk, 0, toCopy);
+			access(position, chunk, 0, toCopy, true);
+			position += toCopy;
+		}
+	}
+	
+	private static void writeVarInt(ObjectOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0){
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+	
+	private static int readVarInt(ObjectInputStream in) throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+}
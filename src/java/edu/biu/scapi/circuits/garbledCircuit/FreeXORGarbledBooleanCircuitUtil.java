@@ -130,7 +130,8 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 		if (!(garbledTablesHolder instanceof BasicGarbledTablesHolder)){
 			throw new IllegalArgumentException("the given garbledTablesHolder should be an instance of BasicGarbledTablesHolder");
 		}
-		Map<Integer, SecretKey[]> allWireValues = new HashMap<Integer, SecretKey[]>();
+		//Hold only the keys of the wires that are live at the same time.
+		Map<Integer, SecretKey[]> allWireValues = new SlotWireMap<SecretKey[]>(ungarbledCircuit.getWireSlotAllocation());
 		Map<Integer, SecretKey[]> allInputWireValues = null;
 		Map<Integer, SecretKey[]> allOutputWireValues = null;
 		HashMap<Integer, Byte> translationTable = new HashMap<Integer, Byte>();
@@ -174,8 +175,16 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 		allOutputWireValues = new HashMap<Integer, SecretKey[]>();
 		translationTable = new HashMap<Integer, Byte>();
 			
-		//Create the keys of the non-input wires.
-		createNonInputWireValues(ungarbledGates, allWireValues, globalKeyOffset);
+		//Create the keys of the non-input wires and the garbled tables.
+		try {
+			garbleGates(gates, ungarbledGates, allWireValues, globalKeyOffset, null);
+		} catch (InvalidKeyException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		} catch (IllegalBlockSizeException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		} catch (PlaintextTooLongException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		} 
 			
 		//Fill the the output wire values to be used in the following sub circuit
 		for (int n : ungarbledCircuit.getOutputWireIndices()) {
@@ -188,16 +197,6 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 			translationTable.put(n, (byte) (k0[k0.length-1] & 1));			
 		}
 		
-		//now that we have all keys, we can create the garbled tables.
-		try {
-			createGarbledTables(gates, (BasicGarbledTablesHolder) garbledTablesHolder, ungarbledGates, allWireValues);
-		} catch (InvalidKeyException e) {
-			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
-		} catch (IllegalBlockSizeException e) {
-			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
-		} catch (PlaintextTooLongException e) {
-			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
-		} 
 		return new CircuitCreationValues(allInputWireValues, allOutputWireValues, translationTable);		
 	}	
 	
@@ -251,40 +250,24 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 	}
 	
 	/**
-	 * Creates garbled tables for the gates of this circuit. 
+	 * Creates the keys of the non-input wires and the garbled tables of the standard gates. <p>
+	 * The gates are garbled one by one in topological order, so the keys of a wire are needed only until the last gate that 
+	 * reads it was garbled. This lets the given map hold only the keys of the wires that are live at the same time.
 	 * @param gates The gates of this circuit.
-	 * @param garbledTablesHolder Contains the pointer to the garbled tables.
-	 * @param ungarbledGates The gates that should be garbled.
-	 * @param allWireValues A map that contains both keys for each wire.
-	 */
-	protected void createGarbledTables(GarbledGate[] gates, BasicGarbledTablesHolder garbledTablesHolder, Gate[] ungarbledGates, Map<Integer, SecretKey[]> allWireValues) throws InvalidKeyException, IllegalBlockSizeException, PlaintextTooLongException {
-			
-		// Get the XOR and XORNOT truth table to be used to test against for equality.
-		BitSet XORTruthTable = getXORTruthTable();
-		BitSet XORNOTTruthTable = getXORNOTTruthTable();
-				
-		//For each Standard gate, create the suitable StandardGarbledGate object. 
-		//Free XOR gate and Free XOR NOT gates do not have a garbled tables, thus they should not be created.
-		for (int gate = 0; gate < ungarbledGates.length; gate++) {
-			
-			if (!ungarbledGates[gate].getTruthTable().equals(XORTruthTable) && !(ungarbledGates[gate].getTruthTable().equals(XORNOTTruthTable))) {
-				((StandardGarbledGate) gates[gate]).createGarbledTable(ungarbledGates[gate], allWireValues);
-			}
-		}
-	}
-	
-	/**
-	 * Creates the keys of the non-input wires.
 	 * @param ungarbledGates The gates that should be garbled.
 	 * @param allWireValues A map that contains both keys for each wire.
 	 * @param globalKeyOffset The FREE XOR delta.
+	 * @param prg Used to generate the keys of the standard gates. If null, the keys are generated by the encryption scheme.
 	 */
-	protected void createNonInputWireValues(Gate[] ungarbledGates, Map<Integer, SecretKey[]> allWireValues, byte[] globalKeyOffset){
+	protected void garbleGates(GarbledGate[] gates, Gate[] ungarbledGates, Map<Integer, SecretKey[]> allWireValues, byte[] globalKeyOffset, 
+			PseudorandomGenerator prg) throws InvalidKeyException, IllegalBlockSizeException, PlaintextTooLongException {
 		// Get the XOR and XORNOT truth table to be used to test against for equality.
 		BitSet XORTruthTable = getXORTruthTable();
 		BitSet XORNOTTruthTable = getXORNOTTruthTable();
+		int keySize = mes.getCipherSize();
 		
 		//Generate both keys for each output wire of each gate.
+		//Free XOR gate and Free XOR NOT gates do not have a garbled tables, thus they should not be created.
 		for (int gate = 0; gate < ungarbledGates.length; gate++) {
 			//XOR gate.
 			if (ungarbledGates[gate].getTruthTable().equals(XORTruthTable)) {
@@ -297,8 +280,16 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 			}
 			//Standard gate.
 			else {
-				byte[] zeroValueBytes = mes.generateKey().getEncoded();//Generate the first value.
+				//Generate the first value.
+				byte[] zeroValueBytes;
+				if (prg == null){
+					zeroValueBytes = mes.generateKey().getEncoded();
+				} else {
+					zeroValueBytes = new byte[keySize];
+					prg.getPRGBytes(zeroValueBytes, 0, keySize);
+				}
 				generateStandardValues(ungarbledGates[gate], allWireValues, globalKeyOffset, zeroValueBytes);
+				((StandardGarbledGate) gates[gate]).createGarbledTable(ungarbledGates[gate], allWireValues);
 			}
 		}
 	}
@@ -366,7 +357,7 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 		for (int i = 1; i < ungarbledGate.getInputWireIndices().length; i++) {
 			byte[] nextInput = allWireValues.get(ungarbledGate.getInputWireIndices()[i])[0].getEncoded();
 			for (int currentByte = 0; currentByte < oneOutputBytes.length; currentByte++) {
-				oneOutputBytes[currentByte] ^= (byte) nextInput[currentByte];
+				oneOutputBytes[currentByte] ^= nextInput[currentByte];
 			}
 		}
 		
@@ -425,27 +416,17 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 			throw new IllegalArgumentException("the given garbledTablesHolder should be an instance of BasicGarbledTablesHolder");
 		}
 		
-		Map<Integer, SecretKey[]> allWireValues = new HashMap<Integer, SecretKey[]>();
-		Gate[] ungarbledGates = ungarbledCircuit.getGates();
-		
-		//Call the function thast actually performs the keys generation.
-		CircuitCreationValues values = sampleSeedKeys(ungarbledCircuit, prg, seed, allWireValues);
+		//Hold only the keys of the wires that are live at the same time.
+		Map<Integer, SecretKey[]> allWireValues = new SlotWireMap<SecretKey[]>(ungarbledCircuit.getWireSlotAllocation());
 		
-		//Now that all wires have garbled values, we create the garbled tables.
-		try {
-			createGarbledTables(gates, (BasicGarbledTablesHolder) garbledTablesHolder, ungarbledGates, allWireValues);
-		} catch (PlaintextTooLongException e) {
-			// Should not occur since the plaintext length is valid 
-		} catch (IllegalBlockSizeException e) {
-			// Should not occur since the block size is valid
-		} 
-				
-		return values;
+		//Call the function that actually performs the keys generation and creates the garbled tables.
+		return sampleSeedKeys(ungarbledCircuit, gates, prg, seed, allWireValues);
 	}
 	
 	/**
-	 * Samples the keys for the garbled wires.
+	 * Samples the keys for the garbled wires and creates the garbled tables.
 	 * @param ungarbledCircuit The circuit that should be garbled.
+	 * @param gates The gates of this circuit.
 	 * @param prg To use in order to generate the keys.
 	 * @param seed To initialize the prg.
 	 * @param allWireValues An empty map that will be filled with keys during the function execution.
@@ -453,7 +434,7 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 	 * @return the created keys of each input and output wire and the translation table.
 	 * @throws InvalidKeyException
 	 */
-	private CircuitCreationValues sampleSeedKeys(BooleanCircuit ungarbledCircuit, PseudorandomGenerator prg, byte[] seed, Map<Integer, SecretKey[]> allWireValues) throws InvalidKeyException {
+	private CircuitCreationValues sampleSeedKeys(BooleanCircuit ungarbledCircuit, GarbledGate[] gates, PseudorandomGenerator prg, byte[] seed, Map<Integer, SecretKey[]> allWireValues) throws InvalidKeyException {
 		Map<Integer, SecretKey[]> allInputWireValues = new HashMap<Integer, SecretKey[]>();
 		Map<Integer, SecretKey[]> outputGarbledValues = new HashMap<Integer, SecretKey[]>();
 		HashMap<Integer, Byte> translationTable = new HashMap<Integer, Byte>();
@@ -493,8 +474,14 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 		//Set the keys of the input wires
 		allWireValues.putAll(allInputWireValues);	
 		
-		//Create the keys of the non-input wires.
-		createNonInputWireValuesFromSeed(ungarbledCircuit.getGates(), allWireValues, globalKeyOffset, keySize, prg);
+		//Create the keys of the non-input wires and the garbled tables.
+		try {
+			garbleGates(gates, ungarbledCircuit.getGates(), allWireValues, globalKeyOffset, prg);
+		} catch (PlaintextTooLongException e) {
+			// Should not occur since the plaintext length is valid 
+		} catch (IllegalBlockSizeException e) {
+			// Should not occur since the block size is valid
+		} 
 
 		//Fill the the output wire values to be used in the following sub circuit
 		for (int n : ungarbledCircuit.getOutputWireIndices()) {
@@ -509,36 +496,4 @@ class FreeXORGarbledBooleanCircuitUtil implements CircuitTypeUtil {
 		
 		return new CircuitCreationValues(allInputWireValues, outputGarbledValues, translationTable);
 	}
-	
-	/**
-	 * Creates the keys of the non-input wires using the given prg and seed.
-	 * @param ungarbledGates The gates that should be garbled.
-	 * @param allWireValues A map that contains both keys for each wire.
-	 * @param globalKeyOffset The FREE XOR delta.
-	 * @param keySize
-	 * @param prg 
-	 */
-	private void createNonInputWireValuesFromSeed(Gate[] ungarbledGates, Map<Integer, SecretKey[]> allWireValues,
-		byte[] globalKeyOffset, int keySize, PseudorandomGenerator prg) {
-		// Get the XOR and XORNOT truth table to be used to test against for equality
-		BitSet XORTruthTable = getXORTruthTable();
-		BitSet XORNOTTruthTable = getXORNOTTruthTable();
-				
-		//Create the keys according to the specific gate.
-		for (int gate = 0; gate < ungarbledGates.length; gate++) {
-			//XOR gate
-			if (ungarbledGates[gate].getTruthTable().equals(XORTruthTable)) {
-				generateXORValues(ungarbledGates[gate], allWireValues, globalKeyOffset);
-			//XORNOT gate
-			} else if (ungarbledGates[gate].getTruthTable().equals(XORNOTTruthTable)) {
-				generateXORNOTValues(ungarbledGates[gate], allWireValues, globalKeyOffset);
-			//Standard gate
-			}else {
-				byte[] zeroValueBytes = new byte[keySize];
-				prg.getPRGBytes(zeroValueBytes, 0, keySize);
-				generateStandardValues(ungarbledGates[gate], allWireValues, globalKeyOffset, zeroValueBytes);
-			}
-
-		}
-	}
 }
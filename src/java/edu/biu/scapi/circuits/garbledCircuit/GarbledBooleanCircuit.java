@@ -134,6 +134,16 @@ public interface GarbledBooleanCircuit {
 	 * @throws CheatAttemptException if there is a garbledOutput values that is not one of the two possibilities.
 	 */
 	public Map<Integer, Wire> verifiedTranslate(Map<Integer, GarbledWire> garbledOutput, Map<Integer, SecretKey[]> allOutputWireValues) throws CheatAttemptException;
+	
+	/**
+	 * Translates the garbled output into a meaningful(i.e. 0-1) output, without creating a {@code Wire} object for each output wire.<p>
+	 * @param garbledOutput The keys of the output wires, one after the other in the order of {@link #getOutputWireIndices()}.
+	 * The signal bit of each key is the last bit of its last byte.
+	 * Circuits whose output keys can be set by the user, and thus do not have signal bits, may require the keys to be the output of the 
+	 * last computation; see {@link GarbledBooleanCircuitExtendedImp#translate(byte[])}.
+	 * @return an array that holds the output bit of each output wire, in the order of {@link #getOutputWireIndices()}.
+	 */
+	public byte[] translate(byte[] garbledOutput);
 
 	
 	/**
@@ -176,6 +186,20 @@ public interface GarbledBooleanCircuit {
 	 */
 	public void setTranslationTable(HashMap<Integer, Byte> translationTable);
 	
+	/**
+	 * Returns the translation table of the circuit, packed as a bit for each output wire. <P>
+	 * This table holds the same information as {@link #getTranslationTable()} but it is much smaller, so it is better to use it when 
+	 * sending the translation table to the other party.
+	 * @return the packed translation table of the circuit.  
+	 */
+	public PackedTranslationTable getPackedTranslationTable();
+	
+	/**
+	 * Sets the translation table of the circuit from a packed translation table. <p>
+	 * @param translationTable This value should match the garbled tables and the output wires of the circuit.
+	 */
+	public void setPackedTranslationTable(PackedTranslationTable translationTable);
+	
 	/**
 	 * Returns the input wires' indices of the given party.
 	 * @param partyNumber The number of the party which we need his input wire indices.
@@ -73,6 +73,15 @@ abstract class GarbledBooleanCircuitAbs implements GarbledBooleanCircuit{
 	 * possible value for the wire is not stored on the translation table.
 	 */
 	protected HashMap<Integer, Byte> translationTable;
+	
+	/*
+	 * The same translation table, packed as a bit for each output wire in the order of the output wires. 
+	 * The packed table is created from the translationTable map when the map is replaced, and the map is created from the packed 
+	 * table only if it is requested after setPackedTranslationTable was called. packedTranslationTableSource is the map that the 
+	 * packed table matches.
+	 */
+	private PackedTranslationTable packedTranslationTable;
+	private HashMap<Integer, Byte> packedTranslationTableSource;
   	
 	
 	//A map that is used during computation to map a {@code GarbledWire}'s index to the computed and set {@code GarbledWire}.
@@ -117,14 +126,21 @@ abstract class GarbledBooleanCircuitAbs implements GarbledBooleanCircuit{
   		//Call the internalVerify function that verifies the circuit without the last part of the translation table.
 		boolean verified = internalVerify(allInputWireValues, outputValues);
 		
+		//In case the internal verification failed the output values are not complete, so there is no need to check them.
+		if (!verified){
+			return false;
+		}
+		
 		//Check that the output wires translate correctly. 
 	    //outputValues contains both possible values for every output wire in the circuit. 
 		//We check the output wire values and make sure that the 0-wire translates to a 0 and that the 1 wire translates to a 1.
-  		for (int w : outputWireIndices) {
+  		PackedTranslationTable packedTable = getPackedTranslationTable();
+  		for (int i = 0; i < outputWireIndices.length; i++) {
+  			int w = outputWireIndices[i];
   			SecretKey zeroValue = outputValues.get(w)[0];
   			SecretKey oneValue = outputValues.get(w)[1];
 
-  			byte signalBit = translationTable.get(w);
+  			byte signalBit = packedTable.getSignalBit(i);
   			byte permutationBitOnZeroWire = getKeySignalBit(zeroValue);
   			byte permutationBitOnOneWire = getKeySignalBit(oneValue);
   			byte translatedZeroValue = (byte) (signalBit ^ permutationBitOnZeroWire);
@@ -141,10 +157,12 @@ abstract class GarbledBooleanCircuitAbs implements GarbledBooleanCircuit{
   		
 		Map<Integer, Wire> translatedOutput = new HashMap<Integer, Wire>();
 		byte signalBit, permutationBitOnWire, value;
+		PackedTranslationTable packedTable = getPackedTranslationTable();
 		
 	    //Go through the output wires and translate it using the translation table.
-	    for (int w : outputWireIndices) {
-	    	signalBit = translationTable.get(w);
+	    for (int i = 0; i < outputWireIndices.length; i++) {
+	    	int w = outputWireIndices[i];
+	    	signalBit = packedTable.getSignalBit(i);
 	    	permutationBitOnWire = garbledOutput.get(w).getSignalBit();
 	      
 	    	//Calculate the resulting value.
@@ -159,6 +177,12 @@ abstract class GarbledBooleanCircuitAbs implements GarbledBooleanCircuit{
 
 	}
   	
+  	@Override
+  	public byte[] translate(byte[] garbledOutput){
+  		
+  		return getPackedTranslationTable().translate(garbledOutput);
+  	}
+  	
   	@Override
 	public Map<Integer, Wire> verifiedTranslate(Map<Integer, GarbledWire> garbledOutput, Map<Integer, SecretKey[]> allOutputWireValues)
 			throws CheatAttemptException {
@@ -228,7 +252,12 @@ abstract class GarbledBooleanCircuitAbs implements GarbledBooleanCircuit{
   	
 	@Override
 	public HashMap<Integer, Byte> getTranslationTable(){
-	  
+		
+		//In case the table was set as a packed table, create the map.
+		if (translationTable == null && packedTranslationTable != null){
+			translationTable = packedTranslationTable.toMap(outputWireIndices);
+			packedTranslationTableSource = translationTable;
+		}
 		return translationTable;
 	}
   
@@ -237,6 +266,27 @@ abstract class GarbledBooleanCircuitAbs implements GarbledBooleanCircuit{
 		
 		this.translationTable = translationTable;
 	}
+	
+	@Override
+	public PackedTranslationTable getPackedTranslationTable(){
+		
+		//In case the map was replaced since the packed table was created, pack it again.
+		if (translationTable != packedTranslationTableSource){
+			packedTranslationTable = PackedTranslationTable.fromMap(translationTable, outputWireIndices);
+			packedTranslationTableSource = translationTable;
+		}
+		return packedTranslationTable;
+	}
+	
+	@Override
+	public void setPackedTranslationTable(PackedTranslationTable translationTable){
+		if (translationTable.size() != outputWireIndices.length){
+			throw new IllegalArgumentException("the translation table should contain " + outputWireIndices.length + " output wires");
+		}
+		this.packedTranslationTable = translationTable;
+		this.translationTable = null;
+		this.packedTranslationTableSource = null;
+	}
 
 	@Override
 	public int[] getOutputWireIndices() {
@@ -25,7 +25,9 @@
 package edu.biu.scapi.circuits.garbledCircuit;
 
 import java.security.InvalidKeyException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import javax.crypto.SecretKey;
 
@@ -74,6 +76,36 @@ public interface GarbledBooleanCircuitExtended extends GarbledBooleanCircuit{
 	 */
 	public boolean verifyHashedCircuit(CryptographicHash hash, byte[] hashedCircuit);
 	
+	/**
+	 * Computes a Merkle tree over the garbled tables and translation table of the circuit. <p>
+	 * The root of the tree can be used as a commitment to the circuit, instead of {@link #getHashedCircuit(CryptographicHash)}. 
+	 * The leaves allow the receiver to check the tables chunk by chunk as they arrive. 
+	 * The hashed bytes are the same bytes that {@link #getHashedCircuit(CryptographicHash)} hashes.
+	 * @param hash CryptographicHash function object to use.
+	 * @param chunkSize The number of bytes in each leaf of the tree.
+	 * @return The Merkle tree of the circuit.
+	 */
+	public MerkleTree getMerkleTree(CryptographicHash hash, int chunkSize);
+	
+	/**
+	 * Computes a Merkle tree over the garbled tables and translation table of the circuit, while the leaves are hashed in parallel. <p>
+	 * The result is the same as the result of {@link #getMerkleTree(CryptographicHash, int)}.
+	 * @param hashes CryptographicHash function objects of the same type, one for each task.
+	 * @param chunkSize The number of bytes in each leaf of the tree.
+	 * @param executor The executor that runs the tasks.
+	 * @return The Merkle tree of the circuit.
+	 */
+	public MerkleTree getMerkleTree(List<CryptographicHash> hashes, int chunkSize, ExecutorService executor);
+	
+	/**
+	 * Verifies that the given root is indeed the root of the Merkle tree of the circuit's garbled tables and translation table.
+	 * @param hash CryptographicHash function object to use.
+	 * @param chunkSize The number of bytes in each leaf of the tree.
+	 * @param root A byte array that suppose to be the root of the circuit's Merkle tree.
+	 * @return true if the given root is the root of the circuit's Merkle tree; False, otherwise.
+	 */
+	public boolean verifyMerkleRoot(CryptographicHash hash, int chunkSize, byte[] root);
+	
 	/**
      * The verify method is used in the case of malicious adversaries.<p>
      * Alice constructs n circuits and Bob can verify n-1 of them (of his choice) to confirm that they are indeed garbling of the 
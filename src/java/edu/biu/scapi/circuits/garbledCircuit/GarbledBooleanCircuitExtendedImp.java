@@ -26,11 +26,13 @@ package edu.biu.scapi.circuits.garbledCircuit;
 
 import java.security.InvalidKeyException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.SecretKey;
@@ -487,15 +489,16 @@ public class GarbledBooleanCircuitExtendedImp implements GarbledBooleanCircuitEx
 		//Check that the output wires translate correctly. 
 	    //key contains both possible values for every output wire of the inner circuit. 
 		//We check the output wire values and make sure that the 0-wire translates to a 0 and that the 1 wire translates to a 1.
-  		Map<Integer, Byte> translationTable = gbc.getTranslationTable();
+  		PackedTranslationTable translationTable = gbc.getPackedTranslationTable();
+  		int[] outputIndices = gbc.getOutputWireIndices();
   		SecretKey zeroValue, oneValue;
   		byte signalBit, permutationBitOnZeroWire, permutationBitOnOneWire, translatedZeroValue, translatedOneValue;
   		
-  		for (int w : gbc.getOutputWireIndices()) {
-  			zeroValue = keys.get(w)[0];
-  			oneValue = keys.get(w)[1];
+  		for (int i = 0; i < outputIndices.length; i++) {
+  			zeroValue = keys.get(outputIndices[i])[0];
+  			oneValue = keys.get(outputIndices[i])[1];
 
-  			signalBit = translationTable.get(w);
+  			signalBit = translationTable.getSignalBit(i);
   			permutationBitOnZeroWire = gbc.getKeySignalBit(zeroValue);
   			permutationBitOnOneWire = gbc.getKeySignalBit(oneValue);;
   			translatedZeroValue = (byte) (signalBit ^ permutationBitOnZeroWire);
@@ -567,7 +570,7 @@ public class GarbledBooleanCircuitExtendedImp implements GarbledBooleanCircuitEx
 		//This is done by computing a hash function on the garlbed tables and translation table and comparing it to the given hashedCircuit.
 		
 		//In case this circuit has no garbled tables yet, garble it to create the tables.
-		if (garbledTablesHolder.getInternalGarbledTables().toDoubleByteArray() == null){
+		if (garbledTablesHolder.getInternalGarbledTables().isEmpty()){
 			//Set the input keys if there are.
 			if (allInputGarbledValues != null){
 				setInputKeys(allInputGarbledValues);
@@ -689,23 +692,14 @@ public class GarbledBooleanCircuitExtendedImp implements GarbledBooleanCircuitEx
 	
 	@Override
 	public byte[] getHashedCircuit(CryptographicHash hash){
-		//Get the garbled tables arrays
-		byte[][] tables = garbledTablesHolder.toDoubleByteArray();
+		//Update the hash with each gate's garbled table. The tables are hashed in place.
+		garbledTablesHolder.updateHash(hash);
 		
-		//Update the hash with each gate's garbled table.
-		for (int i=0; i<tables.length; i++){
-			if (tables[i] != null){
-				hash.update(tables[i], 0, tables[i].length);
-			}
-		}
-		
-		Byte signalbit;
-		byte[] signalBitArray;
+		PackedTranslationTable translationTable = gbc.getPackedTranslationTable();
+		byte[] signalBitArray = new byte[1];
 		//Update the hash with each signal bit.
-		for (Object index : gbc.getOutputWireIndices()){
-			signalbit = gbc.getTranslationTable().get(index);
-			signalBitArray = new byte[1];
-			signalBitArray[0] = signalbit;
+		for (int i = 0; i < translationTable.size(); i++){
+			signalBitArray[0] = translationTable.getSignalBit(i);
 			hash.update(signalBitArray, 0, 1);
 			
 		}
@@ -738,6 +732,39 @@ public class GarbledBooleanCircuitExtendedImp implements GarbledBooleanCircuitEx
 		return true;
 	}
 
+	@Override
+	public MerkleTree getMerkleTree(CryptographicHash hash, int chunkSize){
+		return MerkleTree.compute(getHashedData(), chunkSize, hash);
+	}
+	
+	@Override
+	public MerkleTree getMerkleTree(List<CryptographicHash> hashes, int chunkSize, ExecutorService executor){
+		return MerkleTree.compute(getHashedData(), chunkSize, hashes, executor);
+	}
+	
+	@Override
+	public boolean verifyMerkleRoot(CryptographicHash hash, int chunkSize, byte[] root){
+		return Arrays.equals(getMerkleTree(hash, chunkSize).getRoot(), root);
+	}
+	
+	/**
+	 * Returns the bytes that are hashed in order to commit on the circuit: each gate's garbled table followed by the signal bits.
+	 * The tables are taken from {@link GarbledTablesHolder#toDoubleByteArray()}, so whether they are copied depends on the holder: 
+	 * holders that keep an array per gate return their own arrays, while the contiguous and file-backed holders copy the tables out.
+	 */
+	private byte[][] getHashedData(){
+		PackedTranslationTable translationTable = gbc.getPackedTranslationTable();
+		byte[] signalBits = new byte[translationTable.size()];
+		for (int i = 0; i < signalBits.length; i++){
+			signalBits[i] = translationTable.getSignalBit(i);
+		}
+		byte[][] tables = garbledTablesHolder.toDoubleByteArray();
+		byte[][] data = new byte[tables.length + 1][];
+		System.arraycopy(tables, 0, data, 0, tables.length);
+		data[tables.length] = signalBits;
+		return data;
+	}
+
 	@Override
   	public Map<Integer, Wire> translate(Map<Integer, GarbledWire> garbledOutput){
 		//The translation is done using the translation table that uses the signal bit approach.
@@ -749,6 +776,46 @@ public class GarbledBooleanCircuitExtendedImp implements GarbledBooleanCircuitEx
 
 	}
 	
+	/**
+	 * Translates the given output keys into a meaningful(i.e. 0-1) output. <p>
+	 * If the output garbled values were not given by the user, the output keys comply to the signal bit approach and they are 
+	 * translated by their signal bits, as in the other circuits. <p>
+	 * If the output garbled values were given by the user, the last bit of their keys is not a signal bit, so they can not be 
+	 * translated by themselves. In this case the given keys should be the output of the last call to {@link #compute()}, and they 
+	 * are translated using the output of the inner circuit in that computation.
+	 * @param garbledOutput The keys of the output wires, one after the other in the order of {@link #getOutputWireIndices()}.
+	 * @return an array that holds the output bit of each output wire, in the order of {@link #getOutputWireIndices()}.
+	 * @throws IllegalStateException if the output garbled values were given by the user and the circuit was not computed yet.
+	 * @throws IllegalArgumentException if the output garbled values were given by the user and the given keys are not the output 
+	 * of the last computation.
+	 */
+	@Override
+	public byte[] translate(byte[] garbledOutput){
+		if (outputIdentityGates == null){
+			return gbc.translate(garbledOutput);
+		}
+		if (outputFromInnerCircuit == null){
+			throw new IllegalStateException("the circuit should be computed before output keys that were given by the user can be translated");
+		}
+		PackedTranslationTable translationTable = gbc.getPackedTranslationTable();
+		int[] outputWires = gbc.getOutputWireIndices();
+		byte[] output = new byte[outputWires.length];
+		int offset = 0;
+		for (int i = 0; i < outputWires.length; i++){
+			//The output of the computation is the output of the identity gate, and the signal bit is taken from its input.
+			byte[] key = outputFromInnerCircuit.get(-1*(outputWires[i]+1)).getValueAndSignalBit().getEncoded();
+			if (garbledOutput.length < offset + key.length || !Arrays.equals(key, Arrays.copyOfRange(garbledOutput, offset, offset + key.length))){
+				throw new IllegalArgumentException("the given keys are not the output of the last computation of the circuit");
+			}
+			offset += key.length;
+			output[i] = (byte) (outputFromInnerCircuit.get(outputWires[i]).getSignalBit() ^ translationTable.getSignalBit(i));
+		}
+		if (offset != garbledOutput.length){
+			throw new IllegalArgumentException("the given keys are not the output of the last computation of the circuit");
+		}
+		return output;
+	}
+	
 	@Override
 	public List<Integer> getInputWireIndices(int partyNumber) throws NoSuchPartyException {
 		
@@ -791,14 +858,14 @@ public class GarbledBooleanCircuitExtendedImp implements GarbledBooleanCircuitEx
 	private void generateInputOutputGates() {
 		
 		//In case the user set the input keys, create the input identity gates.
-		if (garbledTablesHolder.getInputGarbledTables().toDoubleByteArray() != null){
+		if (!garbledTablesHolder.getInputGarbledTables().isEmpty()){
 			
 			int size = inputIndices.size();
 			createInputIdentityGates(size);
 		}
 		
 		//In case the user set the output keys, create the output identity gates.
-		if (garbledTablesHolder.getOutputGarbledTables().toDoubleByteArray() != null){
+		if (!garbledTablesHolder.getOutputGarbledTables().isEmpty()){
 			
 			int size = outputIndices.length;
 			createOutputIdentityGates(size);
@@ -902,5 +969,16 @@ public class GarbledBooleanCircuitExtendedImp implements GarbledBooleanCircuitEx
 		gbc.setTranslationTable(translationTable);
 		
 	}
+	
+	@Override
+	public PackedTranslationTable getPackedTranslationTable() {
+		
+		return gbc.getPackedTranslationTable();
+	}
+
+	@Override
+	public void setPackedTranslationTable(PackedTranslationTable translationTable) {
+		gbc.setPackedTranslationTable(translationTable);
+	}
 
 }
@@ -38,6 +38,8 @@ import edu.biu.scapi.exceptions.CiphertextTooLongException;
 import edu.biu.scapi.exceptions.NoSuchPartyException;
 import edu.biu.scapi.exceptions.NotAllInputsSetException;
 import edu.biu.scapi.primitives.prg.PseudorandomGenerator;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * A concrete implementation of GarbledBooleanCircuit that is common for all types of circuits.<p>
@@ -96,6 +98,35 @@ public class GarbledBooleanCircuitImp extends GarbledBooleanCircuitAbs implement
 		doConstruct(input);
 	}
 	
+	/**
+	 * A constructor that gets an input object and the holder that should keep the garbled tables.<p>
+	 * This constructor should be used in order to keep the garbled tables in a different storage than the default one, 
+	 * for example in a {@link ContiguousGarbledTablesHolder}. The given holder should have room for all the gates of the circuit. <p>
+	 * The created circuit will be "empty", without garbled tables.
+	 * @param input Specifies which concrete type of circuit to implement.
+	 * @param garbledTablesHolder The holder of the garbled tables.
+	 */
+	public GarbledBooleanCircuitImp(GarblingParameters input, BasicGarbledTablesHolder garbledTablesHolder){
+		this.garbledTablesHolder = garbledTablesHolder;
+		//Call the function that creates the gates.
+		doConstruct(input);
+	}
+	
+	/**
+	 * A constructor that gets a prg, an input object and the holder that should keep the garbled tables.<p>
+	 * This constructor should be used in case the garbling is done using a seed and the garbled tables should be kept in a 
+	 * different storage than the default one.
+	 * @param input Specifies which concrete type of circuit to implement.
+	 * @param prg Used to garble the circuit using a seed.
+	 * @param garbledTablesHolder The holder of the garbled tables.
+	 */
+	public GarbledBooleanCircuitImp(GarblingParameters input, PseudorandomGenerator prg, BasicGarbledTablesHolder garbledTablesHolder){
+		this.garbledTablesHolder = garbledTablesHolder;
+		this.prg = prg;
+		//Call the function that creates the gates.
+		doConstruct(input);
+	}
+	
 	/**
 	 * Constructs a circuit from the given input.
 	 * @param input Specifies which concrete type of circuit to implement.
@@ -123,14 +154,22 @@ public class GarbledBooleanCircuitImp extends GarbledBooleanCircuitAbs implement
 		
 		//Create the circuit's gates.
 		gates = util.createGates(bc.getGates(), garbledTablesHolder);
+		
+		//Hold only the wires that are live at the same time during the computation.
+		computedWires = new SlotWireMap<GarbledWire>(bc.getWireSlotAllocation());
 	}
 	
 	@Override
   	public CircuitCreationValues garble() {
-		//Call the utility class to generate the keys and create the garbled tables.
-		CircuitCreationValues values = util.garble(bc, garbledTablesHolder, gates);
-		translationTable = values.getTranslationTable();
-		return values;
+		Span span = Metrics.getRecorder().startSpan("garbledCircuit.garble");
+		try {
+			//Call the utility class to generate the keys and create the garbled tables.
+			CircuitCreationValues values = util.garble(bc, garbledTablesHolder, gates);
+			translationTable = values.getTranslationTable();
+			return values;
+		} finally {
+			span.end();
+		}
 	}
 	
 	@Override
@@ -138,12 +177,23 @@ public class GarbledBooleanCircuitImp extends GarbledBooleanCircuitAbs implement
 		if (prg == null){
 			throw new IllegalStateException("This circuit can not use seed to generate keys since it has no prg. Use the other garble() function");
 		}
-		//Call the utility class to generate the keys and create the garbled tables.
-		CircuitCreationValues values = util.garble(bc, garbledTablesHolder, gates, prg, seed);
-		translationTable = values.getTranslationTable();
-		return values;
+		Span span = Metrics.getRecorder().startSpan("garbledCircuit.garble");
+		try {
+			//Call the utility class to generate the keys and create the garbled tables.
+			CircuitCreationValues values = util.garble(bc, garbledTablesHolder, gates, prg, seed);
+			translationTable = values.getTranslationTable();
+			return values;
+		} finally {
+			span.end();
+		}
 	}
  
+  	/**
+  	 * Computes the circuit on the inputs that were set. <p>
+  	 * The wires are held in slots that are shared by wires that are not live at the same time, so only the values of the input 
+  	 * wires and the output wires are kept after the computation; the values of the inner wires are overwritten. 
+  	 * The inputs stay set, so the circuit can be computed again, with the same inputs or after replacing the inputs of some of the parties.
+  	 */
   	@Override
   	public HashMap<Integer, GarbledWire> compute() throws NotAllInputsSetException{
   		//Check that all the inputs have been set.
@@ -167,16 +217,21 @@ public class GarbledBooleanCircuitImp extends GarbledBooleanCircuitAbs implement
   		 * specific garbled gate being used will be called. This allows us to have circuits with different types of gates 
   		 * {i.e a FreeXORGarbledBooleanCircuit contains both StandardGarbledGates and FreeXORGates) and this will work for all the gates.
   		 */
-  		for (GarbledGate g : gates) {
-  			try {
-				g.compute(computedWires);
-			} catch (InvalidKeyException e) {
-				// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
-			} catch (IllegalBlockSizeException e) {
-				// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
-			} catch (CiphertextTooLongException e) {
-				// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
-			}
+  		Span span = Metrics.getRecorder().startSpan("garbledCircuit.compute");
+  		try {
+	  		for (GarbledGate g : gates) {
+	  			try {
+					g.compute(computedWires);
+				} catch (InvalidKeyException e) {
+					// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+				} catch (IllegalBlockSizeException e) {
+					// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+				} catch (CiphertextTooLongException e) {
+					// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+				}
+	  		}
+  		} finally {
+  			span.end();
   		}
   		
   		/*
@@ -250,6 +305,6 @@ public class GarbledBooleanCircuitImp extends GarbledBooleanCircuitAbs implement
 		if (!(garbledTables instanceof BasicGarbledTablesHolder)){
 			throw new IllegalArgumentException("garbledTables should be an instance of BasicGarbledTablesHolder");
 		}
-		((BasicGarbledTablesHolder)garbledTablesHolder).setGarbledTables(garbledTables.toDoubleByteArray());
+		((BasicGarbledTablesHolder)garbledTablesHolder).setGarbledTables((BasicGarbledTablesHolder) garbledTables);
 	}
 }
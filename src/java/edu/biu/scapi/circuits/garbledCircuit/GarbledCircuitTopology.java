@@ -0,0 +1,257 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import edu.biu.scapi.circuits.circuit.BooleanCircuit;
+import edu.biu.scapi.circuits.circuit.Gate;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+
+/**
+ * The compiled structure of a Free XOR garbled circuit. <p>
+ * This class holds everything about a garbled circuit that does not change between garblings: the type of each gate 
+ * (free XOR, free XNOR or a gate that needs a garbled table), the input and output wires of each gate, the truth tables, 
+ * the input wires of each party and the output wires. It is computed once from a {@link BooleanCircuit}. <p>
+ * 
+ * An object of this class is immutable and thus can be cached and shared by many {@link CompiledGarbledBooleanCircuit}s, 
+ * also by circuits that are used by different threads at the same time. Each {@link CompiledGarbledBooleanCircuit} holds 
+ * only the per-execution values (the keys and the garbled tables), so creating and garbling a new circuit costs only the 
+ * key generation and the table encryptions. <p>
+ * 
+ * Gates with up to 6 inputs are supported. Only 2-input gates are computed with Free XOR; other gates always get a garbled table.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public final class GarbledCircuitTopology {
+	
+	/**
+	 * A 2-input XOR gate, which is computed without a garbled table.
+	 */
+	static final byte FREE_XOR = 0;
+	
+	/**
+	 * A 2-input XNOR gate, which is computed without a garbled table.
+	 */
+	static final byte FREE_XNOR = 1;
+	
+	/**
+	 * A gate that has a garbled table.
+	 */
+	static final byte STANDARD = 2;
+	
+	private static final int MAX_INPUTS = 6;
+	
+	private final BooleanCircuit ungarbledCircuit;
+	private final byte[] gateTypes;
+	private final long[] truthTables;			//Bit i is the output of row i of the truth table.
+	private final int[] gateNumbers;
+	private final int[][] gateInputWires;
+	private final int[][] gateOutputWires;
+	private final int[] outputWireIndices;
+	private final List<ArrayList<Integer>> eachPartysInputWires;
+	private final int numberOfWires;
+	private final int numberOfStandardGates;
+	
+	/**
+	 * Compiles the given boolean circuit.
+	 * @param ungarbledCircuit The circuit that should be garbled.
+	 * @throws IllegalArgumentException if the circuit has a gate with more than 6 inputs.
+	 */
+	public GarbledCircuitTopology(BooleanCircuit ungarbledCircuit){
+		this.ungarbledCircuit = ungarbledCircuit;
+		Gate[] gates = ungarbledCircuit.getGates();
+		int numberOfGates = gates.length;
+		
+		gateTypes = new byte[numberOfGates];
+		truthTables = new long[numberOfGates];
+		gateNumbers = new int[numberOfGates];
+		gateInputWires = new int[numberOfGates][];
+		gateOutputWires = new int[numberOfGates][];
+		
+		int maxWire = -1;
+		int standardGates = 0;
+		for (int i = 0; i < numberOfGates; i++){
+			Gate gate = gates[i];
+			int[] inputs = gate.getInputWireIndices();
+			if (inputs.length > MAX_INPUTS){
+				throw new IllegalArgumentException("gate " + gate.getGateNumber() + " has more than " + MAX_INPUTS + " inputs");
+			}
+			gateInputWires[i] = inputs.clone();
+			gateOutputWires[i] = gate.getOutputWireIndices().clone();
+			gateNumbers[i] = gate.getGateNumber();
+			
+			BitSet truthTable = gate.getTruthTable();
+			int numberOfRows = 1 << inputs.length;
+			long table = 0;
+			for (int row = 0; row < numberOfRows; row++){
+				if (truthTable.get(row)){
+					table |= 1L << row;
+				}
+			}
+			truthTables[i] = table;
+			
+			//The same check that the Free XOR circuit does: a 2-input gate is XOR (XNOR) if its truth table is 0110 (1001).
+			if (inputs.length == 2 && truthTable.equals(xorTruthTable())){
+				gateTypes[i] = FREE_XOR;
+			} else if (inputs.length == 2 && truthTable.equals(xnorTruthTable())){
+				gateTypes[i] = FREE_XNOR;
+			} else{
+				gateTypes[i] = STANDARD;
+				standardGates++;
+			}
+			
+			for (int w : gateInputWires[i]){
+				maxWire = Math.max(maxWire, w);
+			}
+			for (int w : gateOutputWires[i]){
+				maxWire = Math.max(maxWire, w);
+			}
+		}
+		numberOfStandardGates = standardGates;
+		
+		outputWireIndices = ungarbledCircuit.getOutputWireIndices().clone();
+		int numberOfParties = ungarbledCircuit.getNumberOfParties();
+		List<ArrayList<Integer>> partyInputs = new ArrayList<ArrayList<Integer>>(numberOfParties);
+		for (int i = 1; i <= numberOfParties; i++){
+			ArrayList<Integer> indices = null;
+			try {
+				indices = new ArrayList<Integer>(ungarbledCircuit.getInputWireIndices(i));
+			} catch (NoSuchPartyException e) {
+				// Should not occur since the called party numbers are correct.
+			}
+			for (int w : indices){
+				maxWire = Math.max(maxWire, w);
+			}
+			partyInputs.add(indices);
+		}
+		eachPartysInputWires = Collections.unmodifiableList(partyInputs);
+		for (int w : outputWireIndices){
+			maxWire = Math.max(maxWire, w);
+		}
+		numberOfWires = maxWire + 1;
+	}
+	
+	private static BitSet xorTruthTable(){
+		BitSet table = new BitSet();
+		table.set(1);
+		table.set(2);
+		return table;
+	}
+	
+	private static BitSet xnorTruthTable(){
+		BitSet table = new BitSet();
+		table.set(0);
+		table.set(3);
+		return table;
+	}
+	
+	/**
+	 * @return the circuit that this topology was compiled from.
+	 */
+	public BooleanCircuit getUngarbledCircuit(){
+		return ungarbledCircuit;
+	}
+	
+	/**
+	 * @return the number of gates in the circuit.
+	 */
+	public int getNumberOfGates(){
+		return gateTypes.length;
+	}
+	
+	/**
+	 * @return the number of gates that have a garbled table, that is, the gates that are not free XOR or XNOR gates.
+	 */
+	public int getNumberOfStandardGates(){
+		return numberOfStandardGates;
+	}
+	
+	/**
+	 * @return the largest wire index in the circuit plus one.
+	 */
+	public int getNumberOfWires(){
+		return numberOfWires;
+	}
+	
+	/**
+	 * @return the number of parties in the circuit.
+	 */
+	public int getNumberOfParties(){
+		return eachPartysInputWires.size();
+	}
+	
+	/**
+	 * Returns the input wires' indices of the given party. The returned list should not be changed.
+	 * @param partyNumber The number of the party.
+	 * @throws NoSuchPartyException if the given party number is not between 1 and the number of parties.
+	 */
+	public ArrayList<Integer> getInputWireIndices(int partyNumber) throws NoSuchPartyException{
+		if (partyNumber < 1 || partyNumber > eachPartysInputWires.size()){
+			throw new NoSuchPartyException();
+		}
+		return eachPartysInputWires.get(partyNumber - 1);
+	}
+	
+	/**
+	 * @return a copy of the output wires' indices.
+	 */
+	public int[] getOutputWireIndices(){
+		return outputWireIndices.clone();
+	}
+	
+	/*
+	 * The following accessors return the internal arrays without copying them, for the use of the compiled circuit. 
+	 * The callers must not change the returned arrays.
+	 */
+	
+	byte[] gateTypes(){
+		return gateTypes;
+	}
+	
+	long[] truthTables(){
+		return truthTables;
+	}
+	
+	int[] gateNumbers(){
+		return gateNumbers;
+	}
+	
+	int[][] gateInputWires(){
+		return gateInputWires;
+	}
+	
+	int[][] gateOutputWires(){
+		return gateOutputWires;
+	}
+	
+	int[] outputWires(){
+		return outputWireIndices;
+	}
+}
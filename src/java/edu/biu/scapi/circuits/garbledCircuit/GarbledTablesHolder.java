@@ -37,8 +37,17 @@ public interface GarbledTablesHolder extends Serializable{
 
 	/**
 	 * There are cases when we do not know which concrete holder we use and we need a general function that returns the garbled tables.
-	 * Thus we add this function that returns the tables in the most basic format - that all classes should have the ability to translate to - byte[][].
+	 * Thus we add this function that returns the tables in the most basic format - that all classes should have the ability to translate to - byte[][]. <p>
+	 * Holders that keep an array per gate return their own arrays, while holders that keep the tables in a single buffer or in a file 
+	 * (such as {@link ContiguousGarbledTablesHolder} and {@link FileBackedGarbledTablesHolder}) return a copy.
 	 * @return the garbled tables in a byte[][] format.
 	 */
 	public byte[][] toDoubleByteArray();
+	
+	/**
+	 * Checks if this holder holds any garbled tables, without calling {@link #toDoubleByteArray()} which copies the tables 
+	 * in some of the holders.
+	 * @return true if this holder holds no garbled tables, i.e. it was not given tables or it was given tables of no gates.
+	 */
+	public boolean isEmpty();
 }
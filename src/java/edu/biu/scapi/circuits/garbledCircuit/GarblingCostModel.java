@@ -0,0 +1,271 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+
+import edu.biu.scapi.circuits.circuit.BooleanCircuit;
+import edu.biu.scapi.circuits.circuit.CircuitProfile;
+import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
+
+/**
+ * Estimates the cost of garbling a circuit with each of the garbling techniques, so that the cheapest technique can be 
+ * chosen for each circuit automatically. <p>
+ * The estimation is based on the gate counts of a {@link CircuitProfile}. A gate with k inputs is garbled as follows:
+ * <ul>
+ * <li> {@link Mode#STANDARD} - every gate has a table of 2^k rows, and each row costs one encryption. </li>
+ * <li> {@link Mode#ROW_REDUCTION} - the first row of every gate is derived from the input keys using a KDF and is not 
+ * sent, so the table has 2^k - 1 rows. </li>
+ * <li> {@link Mode#FREE_XOR} - as standard, but XOR and XNOR gates have no table and cost no encryption. </li>
+ * <li> {@link Mode#FREE_XOR_ROW_REDUCTION} - Free XOR together with row reduction. </li>
+ * <li> {@link Mode#HALF_GATES} - two input AND gates have a table of 2 rows and cost 4 encryptions to garble and 2 to 
+ * evaluate. XOR gates are free, and the other gates are garbled as in Free XOR with row reduction. There is no circuit 
+ * type that implements half gates yet, so this mode is given for comparison only. </li>
+ * </ul>
+ * An encryption is a single call to AES when the {@link MultiKeyEncryptionScheme} is AES with a fixed key. 
+ * Evaluating a garbled gate decrypts a single row, which costs either an encryption or a KDF call. <p>
+ * 
+ * The cheapest mode is the mode with the smallest garbled tables, since sending the tables is usually more expensive than 
+ * computing them. Modes with the same table size are ordered by the number of encryptions and KDF calls in garbling.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class GarblingCostModel {
+	
+	/**
+	 * The garbling techniques that the cost model can estimate.
+	 */
+	public static enum Mode {
+		STANDARD, ROW_REDUCTION, FREE_XOR, FREE_XOR_ROW_REDUCTION, HALF_GATES;
+		
+		private boolean isFreeXOR(){
+			return this != STANDARD && this != ROW_REDUCTION;
+		}
+		
+		private boolean isRowReduction(){
+			return this != STANDARD && this != FREE_XOR;
+		}
+	}
+	
+	/**
+	 * The modes that have a circuit type in this package, i.e. all the modes except {@link Mode#HALF_GATES}.
+	 */
+	public static final EnumSet<Mode> IMPLEMENTED_MODES = EnumSet.of(Mode.STANDARD, Mode.ROW_REDUCTION, Mode.FREE_XOR, Mode.FREE_XOR_ROW_REDUCTION);
+	
+	/**
+	 * The estimated cost of garbling a circuit with a specific mode.
+	 */
+	public static class Estimate {
+		private Mode mode;
+		private long tableBytes;
+		private long garblingEncryptions;
+		private long garblingKDFCalls;
+		private long evaluationCalls;
+		
+		private Estimate(Mode mode, long tableBytes, long garblingEncryptions, long garblingKDFCalls, long evaluationCalls){
+			this.mode = mode;
+			this.tableBytes = tableBytes;
+			this.garblingEncryptions = garblingEncryptions;
+			this.garblingKDFCalls = garblingKDFCalls;
+			this.evaluationCalls = evaluationCalls;
+		}
+		
+		/**
+		 * @return the mode that this estimate refers to.
+		 */
+		public Mode getMode(){
+			return mode;
+		}
+		
+		/**
+		 * @return the size in bytes of the garbled tables.
+		 */
+		public long getTableBytes(){
+			return tableBytes;
+		}
+		
+		/**
+		 * @return the number of encryptions (AES calls) needed to garble the circuit.
+		 */
+		public long getGarblingEncryptions(){
+			return garblingEncryptions;
+		}
+		
+		/**
+		 * @return the number of KDF calls needed to garble the circuit. This is non zero only in row reduction modes.
+		 */
+		public long getGarblingKDFCalls(){
+			return garblingKDFCalls;
+		}
+		
+		/**
+		 * @return the number of encryptions and KDF calls needed to evaluate the garbled circuit.
+		 */
+		public long getEvaluationCalls(){
+			return evaluationCalls;
+		}
+		
+		@Override
+		public String toString(){
+			return mode + ": table bytes: " + tableBytes + ", garbling AES calls: " + garblingEncryptions + 
+					", garbling KDF calls: " + garblingKDFCalls + ", evaluation calls: " + evaluationCalls;
+		}
+	}
+	
+	private CircuitProfile profile;
+	private int cipherSize;
+	private Estimate[] estimates;
+	
+	/**
+	 * Creates a cost model for the given circuit, for encryption schemes with a cipher of 16 bytes.
+	 * @param circuit The circuit to estimate.
+	 */
+	public GarblingCostModel(BooleanCircuit circuit){
+		this(new CircuitProfile(circuit), 16);
+	}
+	
+	/**
+	 * Creates a cost model for the circuit of the given profile.
+	 * @param profile The profile of the circuit to estimate.
+	 * @param cipherSize The size in bytes of a single row of a garbled table, i.e. {@link MultiKeyEncryptionScheme#getCipherSize()}.
+	 */
+	public GarblingCostModel(CircuitProfile profile, int cipherSize){
+		if (cipherSize <= 0){
+			throw new IllegalArgumentException("the cipher size must be positive");
+		}
+		this.profile = profile;
+		this.cipherSize = cipherSize;
+		
+		Mode[] modes = Mode.values();
+		estimates = new Estimate[modes.length];
+		for (int i = 0; i < modes.length; i++){
+			estimates[i] = computeEstimate(modes[i]);
+		}
+	}
+	
+	private Estimate computeEstimate(Mode mode){
+		long rows = 0;
+		long encryptions = 0;
+		long kdfCalls = 0;
+		long evaluationCalls = 0;
+		
+		for (int k = 0; k <= profile.getMaxNumberOfInputs(); k++){
+			//In Free XOR modes only the non XOR gates are garbled.
+			long gates = mode.isFreeXOR() ? profile.getNumberOfNonXORGates(k) : profile.getNumberOfGates(k);
+			if (mode == Mode.HALF_GATES && k == 2){
+				rows += 2 * gates;
+				encryptions += 4 * gates;
+				evaluationCalls += 2 * gates;
+				continue;
+			}
+			long rowsPerGate = 1L << k;
+			if (mode.isRowReduction()){
+				rows += (rowsPerGate - 1) * gates;
+				encryptions += (rowsPerGate - 1) * gates;
+				kdfCalls += gates;
+			} else {
+				rows += rowsPerGate * gates;
+				encryptions += rowsPerGate * gates;
+			}
+			evaluationCalls += gates;
+		}
+		return new Estimate(mode, rows * cipherSize, encryptions, kdfCalls, evaluationCalls);
+	}
+	
+	/**
+	 * @return the profile that the estimates are based on.
+	 */
+	public CircuitProfile getProfile(){
+		return profile;
+	}
+	
+	/**
+	 * @param mode The garbling mode.
+	 * @return the estimated cost of garbling the circuit with the given mode.
+	 */
+	public Estimate getEstimate(Mode mode){
+		return estimates[mode.ordinal()];
+	}
+	
+	/**
+	 * @return the cheapest mode that has a circuit type in this package.
+	 */
+	public Mode getCheapestMode(){
+		return getCheapestMode(IMPLEMENTED_MODES);
+	}
+	
+	/**
+	 * @param modes The modes to choose from.
+	 * @return the cheapest of the given modes.
+	 * @throws IllegalArgumentException if no mode is given.
+	 */
+	public Mode getCheapestMode(EnumSet<Mode> modes){
+		Estimate cheapest = null;
+		for (Mode mode : modes){
+			Estimate estimate = getEstimate(mode);
+			if (cheapest == null || estimate.tableBytes < cheapest.tableBytes || 
+					(estimate.tableBytes == cheapest.tableBytes && 
+					estimate.garblingEncryptions + estimate.garblingKDFCalls < cheapest.garblingEncryptions + cheapest.garblingKDFCalls)){
+				cheapest = estimate;
+			}
+		}
+		if (cheapest == null){
+			throw new IllegalArgumentException("at least one mode should be given");
+		}
+		return cheapest.mode;
+	}
+	
+	/**
+	 * Creates the garbling parameters of the given mode, that can be given to {@link GarbledBooleanCircuitImp}.
+	 * @param circuit The circuit to garble.
+	 * @param mode The garbling mode.
+	 * @param mes The encryption scheme to garble with.
+	 * @param random Used to generate the keys in the modes that do not use Free XOR.
+	 * @return the created parameters.
+	 * @throws IllegalArgumentException if the mode has no circuit type in this package.
+	 */
+	public static GarblingParameters createGarblingParameters(BooleanCircuit circuit, Mode mode, MultiKeyEncryptionScheme mes, SecureRandom random){
+		if (!IMPLEMENTED_MODES.contains(mode)){
+			throw new IllegalArgumentException("there is no circuit type that implements " + mode);
+		}
+		if (mode.isFreeXOR()){
+			return new FreeXORGarblingParameters(circuit, mes, mode.isRowReduction());
+		}
+		return new StandardGarblingParameters(circuit, mes, random, mode.isRowReduction());
+	}
+	
+	/**
+	 * @return a printable summary of the estimates of all the modes.
+	 */
+	public String getReport(){
+		StringBuilder report = new StringBuilder(profile.getReport());
+		for (Estimate estimate : estimates){
+			report.append(System.getProperty("line.separator")).append(estimate);
+		}
+		return report.toString();
+	}
+}
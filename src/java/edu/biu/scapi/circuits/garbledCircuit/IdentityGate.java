@@ -27,7 +27,6 @@ package edu.biu.scapi.circuits.garbledCircuit;
 import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.SecureRandom;
-import java.util.Arrays;
 import java.util.Map;
 
 import javax.crypto.IllegalBlockSizeException;
@@ -125,8 +124,6 @@ public class IdentityGate implements GarbledGate{
 		
 		//Allocate memory to the garbled table. Two rows when each row contain two encryptions.
 		byte[] garbledTable = new byte[2 * mes.getCipherSize() * 2];
-		//Set the created table to the holder.
-		garbledTablesHolder.toDoubleByteArray()[gateNumber] = garbledTable;
 		
 		//The order of the rows should be random.
 		//In case of garbling using a seed, the random choose is done using the prg.
@@ -170,6 +167,9 @@ public class IdentityGate implements GarbledGate{
 		  	//flip row for next round.
 		  	position = 1-position;
 	  	}	  	
+		
+		//Put the filled garbled table in the tables holder.
+		garbledTablesHolder.setGarbledTable(gateNumber, garbledTable);
 	}
 	
 	@Override
@@ -211,7 +211,7 @@ public class IdentityGate implements GarbledGate{
 			int rowI = -1;
 			for (int i=0; i<2 && rowI<0; i++){
 				//Decrypt the zeros part.
-				byte[] validateZeros = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+				byte[] validateZeros = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 					i*mes.getCipherSize()*2 + mes.getCipherSize(), i*mes.getCipherSize()*2 + 2*mes.getCipherSize()));
 				//Check if the result are zeros.
 				boolean validateRow = validateRow(validateZeros);
@@ -227,7 +227,7 @@ public class IdentityGate implements GarbledGate{
 			}
 			
 			//Decrypt the first part of the chosen row.
-			wireValue = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+			wireValue = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 							rowI*mes.getCipherSize()*2, rowI*mes.getCipherSize()*2+mes.getCipherSize()));
 				
 		} catch (KeyNotSetException e) {
@@ -328,7 +328,7 @@ public class IdentityGate implements GarbledGate{
 			//Check that k0 decrypts one and only one row.
 			for (int i=0; i<2 && rowI<0; i++){
 				//Decrypt part two of the row.
-				validateZeros = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+				validateZeros = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 					i*mes.getCipherSize()*2 + mes.getCipherSize(), i*mes.getCipherSize()*2 + 2*mes.getCipherSize()));
 				//Check the output.
 				validateRow = validateRow(validateZeros);
@@ -348,7 +348,7 @@ public class IdentityGate implements GarbledGate{
 			}
 			
 			//k0 can decrypt one and only one row, decrypt the first part of that row to get k0'.
-			byte[] outputValue = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+			byte[] outputValue = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 							rowI*mes.getCipherSize()*2, rowI*mes.getCipherSize()*2+mes.getCipherSize()));
 			outputZeroValue = new SecretKeySpec(outputValue, "");
 			
@@ -361,7 +361,7 @@ public class IdentityGate implements GarbledGate{
 			//Check that k1 decrypts one and only one row.
 			for (int i=0; i<2 && rowI<0; i++){
 				//Decrypt part two of the row.
-				validateZeros = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+				validateZeros = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 					i*mes.getCipherSize()*2 + mes.getCipherSize(), i*mes.getCipherSize()*2 + 2*mes.getCipherSize()));
 				//Check the output.
 				validateRow = validateRow(validateZeros);
@@ -376,7 +376,7 @@ public class IdentityGate implements GarbledGate{
 				return false;
 			}
 			//k1 can decrypt one and only one row, decrypt the first part of that row to get k1'.
-			outputValue = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+			outputValue = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 							rowI*mes.getCipherSize()*2, rowI*mes.getCipherSize()*2+mes.getCipherSize()));
 				
 			outputOneValue = new SecretKeySpec(outputValue, "");
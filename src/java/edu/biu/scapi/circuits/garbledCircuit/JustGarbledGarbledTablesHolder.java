@@ -63,6 +63,11 @@ public class JustGarbledGarbledTablesHolder implements GarbledTablesHolder{
 		return garbledTablesInZeroLocation;
 	}
 	
+	@Override
+	public boolean isEmpty(){
+		return garbledTables == null;
+	}
+	
 	/**
 	 * Sets the given garbled tables. <P>
 	 * This allows changing the circuit inner content with no time.
@@ -0,0 +1,332 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.security.InvalidKeyException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import edu.biu.scapi.primitives.hash.CryptographicHash;
+
+/**
+ * A Merkle tree over a sequence of bytes (usually the garbled tables and the translation table of a circuit) that is divided into 
+ * fixed-size chunks. <p>
+ * 
+ * The root of the tree can be used as a commitment to the circuit instead of the result of 
+ * {@link GarbledBooleanCircuitExtended#getHashedCircuit(CryptographicHash)}. As opposed to a single hash over all the tables:
+ * <ul>
+ * <li>The chunks are hashed independently, so they can be hashed in parallel ({@link #compute(byte[][], int, List, ExecutorService)}).</li>
+ * <li>The tree can be computed on the fly while the tables are created or sent ({@link MerkleTreeBuilder}).</li>
+ * <li>After checking that the leaf hashes match the committed root ({@link #verifyRoot(byte[], CryptographicHash)}), 
+ * the receiver can check each chunk as soon as it arrives ({@link #verifyChunk(int, byte[], int, int, CryptographicHash)}), 
+ * without waiting for the whole circuit.</li>
+ * </ul>
+ * 
+ * The hash of chunk i is H(0 || i || chunk), where i is written as 4 bytes, and the hash of an inner node is H(1 || left || right). 
+ * In case a level has an odd number of nodes, the last node is moved to the next level as is. 
+ * Empty data has a single empty chunk. <p>
+ * 
+ * This class is immutable. A tree that was received from another party should be checked using {@link #verifyRoot(byte[], CryptographicHash)}.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public final class MerkleTree implements Serializable {
+	
+	private static final long serialVersionUID = 5036247316930172947L;
+	
+	/**
+	 * The default size of each chunk in bytes.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+	
+	static final byte LEAF_PREFIX = 0;
+	static final byte NODE_PREFIX = 1;
+	
+	private final int chunkSize;
+	private final long dataLength;			//The total number of bytes in all the chunks.
+	private final byte[][] leafHashes;
+	private final byte[] root;
+	
+	MerkleTree(int chunkSize, long dataLength, byte[][] leafHashes, byte[] root){
+		this.chunkSize = chunkSize;
+		this.dataLength = dataLength;
+		this.leafHashes = leafHashes;
+		this.root = root;
+	}
+	
+	/**
+	 * Computes the Merkle tree of the given data.
+	 * @param data The data to hash. The arrays are considered as one sequence of bytes; null arrays are skipped.
+	 * @param chunkSize The number of bytes in each chunk.
+	 * @param hash The hash function to use.
+	 * @return the Merkle tree of the data.
+	 */
+	public static MerkleTree compute(byte[][] data, int chunkSize, CryptographicHash hash){
+		MerkleTreeBuilder builder = new MerkleTreeBuilder(hash, chunkSize);
+		for (byte[] array : data){
+			if (array != null){
+				builder.update(array, 0, array.length);
+			}
+		}
+		return builder.build();
+	}
+	
+	/**
+	 * Computes the Merkle tree of the given data, while the chunks are hashed in parallel. <p>
+	 * The chunks are divided into contiguous ranges, one range for each given hash object, and each range is hashed by a 
+	 * separate task on the given executor. The result is the same as the result of {@link #compute(byte[][], int, CryptographicHash)}.
+	 * @param data The data to hash. The arrays are considered as one sequence of bytes; null arrays are skipped.
+	 * @param chunkSize The number of bytes in each chunk.
+	 * @param hashes Hash functions of the same type. Since the hash objects are not thread safe, each task uses a different one.
+	 * The first hash is also used to compute the inner nodes.
+	 * @param executor The executor that runs the tasks.
+	 * @return the Merkle tree of the data.
+	 */
+	public static MerkleTree compute(byte[][] data, int chunkSize, List<CryptographicHash> hashes, ExecutorService executor){
+		checkChunkSize(chunkSize);
+		if (hashes.isEmpty()){
+			throw new IllegalArgumentException("at least one hash function should be given");
+		}
+		
+		//Hold the non empty arrays and the offset of each one in the whole data.
+		List<byte[]> arrays = new ArrayList<byte[]>();
+		for (byte[] array : data){
+			if (array != null && array.length > 0){
+				arrays.add(array);
+			}
+		}
+		final byte[][] segments = arrays.toArray(new byte[arrays.size()][]);
+		final long[] offsets = new long[segments.length + 1];
+		for (int i = 0; i < segments.length; i++){
+			offsets[i + 1] = offsets[i] + segments[i].length;
+		}
+		final long dataLength = offsets[segments.length];
+		final int size = chunkSize;
+		int numberOfChunks = getNumberOfChunks(dataLength, chunkSize);
+		final byte[][] leaves = new byte[numberOfChunks][];
+		
+		//Create a task for each range of chunks.
+		int numberOfTasks = Math.min(hashes.size(), numberOfChunks);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numberOfTasks);
+		for (int t = 0; t < numberOfTasks; t++){
+			final int first = (int) ((long) numberOfChunks * t / numberOfTasks);
+			final int last = (int) ((long) numberOfChunks * (t + 1) / numberOfTasks);
+			final CryptographicHash hash = hashes.get(t);
+			tasks.add(new Callable<Void>(){
+				@Override
+				public Void call() {
+					for (int chunk = first; chunk < last; chunk++){
+						long start = (long) chunk * size;
+						long end = Math.min(start + size, dataLength);
+						leaves[chunk] = hashLeaf(hash, chunk, segments, offsets, start, end);
+					}
+					return null;
+				}
+			});
+		}
+		try {
+			CutAndChooseTasks.invokeAll(executor, tasks);
+		} catch (InvalidKeyException e) {
+			// Should not occur since the tasks do not use any key.
+			throw new IllegalStateException(e);
+		}
+		
+		return new MerkleTree(chunkSize, dataLength, leaves, computeRoot(hashes.get(0), leaves));
+	}
+	
+	/**
+	 * Hashes the bytes in the range [start, end) of the given segments as the leaf of the given chunk.
+	 */
+	private static byte[] hashLeaf(CryptographicHash hash, int chunk, byte[][] segments, long[] offsets, long start, long end){
+		updateLeafPrefix(hash, chunk);
+		
+		//Find the segment that contains the first byte, and hash segment by segment until the end of the chunk.
+		int segment = Arrays.binarySearch(offsets, start);
+		if (segment < 0){
+			segment = -segment - 2;
+		}
+		long position = start;
+		while (position < end){
+			//Skip the segments that end at the current position.
+			while (offsets[segment + 1] <= position){
+				segment++;
+			}
+			int offset = (int) (position - offsets[segment]);
+			int length = (int) Math.min(end - position, segments[segment].length - offset);
+			hash.update(segments[segment], offset, length);
+			position += length;
+		}
+		return finalHash(hash);
+	}
+	
+	static void updateLeafPrefix(CryptographicHash hash, int chunk){
+		byte[] prefix = { LEAF_PREFIX, (byte) (chunk >>> 24), (byte) (chunk >>> 16), (byte) (chunk >>> 8), (byte) chunk };
+		hash.update(prefix, 0, prefix.length);
+	}
+	
+	static byte[] finalHash(CryptographicHash hash){
+		byte[] output = new byte[hash.getHashedMsgSize()];
+		hash.hashFinal(output, 0);
+		return output;
+	}
+	
+	/**
+	 * Computes the root of the tree with the given leaves.
+	 */
+	static byte[] computeRoot(CryptographicHash hash, byte[][] leaves){
+		byte[] prefix = { NODE_PREFIX };
+		byte[][] level = leaves;
+		while (level.length > 1){
+			byte[][] next = new byte[(level.length + 1) / 2][];
+			for (int i = 0; i < level.length / 2; i++){
+				hash.update(prefix, 0, 1);
+				hash.update(level[2 * i], 0, level[2 * i].length);
+				hash.update(level[2 * i + 1], 0, level[2 * i + 1].length);
+				next[i] = finalHash(hash);
+			}
+			//The last node of an odd level is moved as is.
+			if (level.length % 2 == 1){
+				next[next.length - 1] = level[level.length - 1];
+			}
+			level = next;
+		}
+		return level[0];
+	}
+	
+	static int getNumberOfChunks(long dataLength, int chunkSize){
+		long numberOfChunks = Math.max(1, (dataLength + chunkSize - 1) / chunkSize);
+		if (numberOfChunks > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("the data contains too many chunks");
+		}
+		return (int) numberOfChunks;
+	}
+	
+	static void checkChunkSize(int chunkSize){
+		if (chunkSize <= 0){
+			throw new IllegalArgumentException("the chunk size should be positive");
+		}
+	}
+	
+	/**
+	 * Returns the root of the tree, that is the commitment to the whole data.
+	 */
+	public byte[] getRoot(){
+		return root.clone();
+	}
+	
+	/**
+	 * Returns the hashes of the chunks, in the order of the chunks.
+	 */
+	public List<byte[]> getLeafHashes(){
+		List<byte[]> leaves = new ArrayList<byte[]>(leafHashes.length);
+		for (byte[] leaf : leafHashes){
+			leaves.add(leaf.clone());
+		}
+		return Collections.unmodifiableList(leaves);
+	}
+	
+	/**
+	 * Returns the size of each chunk. The last chunk may be shorter.
+	 */
+	public int getChunkSize(){
+		return chunkSize;
+	}
+	
+	/**
+	 * Returns the number of chunks.
+	 */
+	public int getNumberOfChunks(){
+		return leafHashes.length;
+	}
+	
+	/**
+	 * Returns the total number of bytes in all the chunks.
+	 */
+	public long getDataLength(){
+		return dataLength;
+	}
+	
+	/**
+	 * Returns the number of bytes in the given chunk.
+	 */
+	public int getChunkLength(int chunk){
+		if (chunk < 0 || chunk >= leafHashes.length){
+			throw new IndexOutOfBoundsException("chunk " + chunk + " is out of range");
+		}
+		return (int) Math.min(chunkSize, dataLength - (long) chunk * chunkSize);
+	}
+	
+	/**
+	 * Checks that the leaf hashes of this tree match the given root. <p>
+	 * The receiver should call this function once, before checking the chunks, in case the tree was received from the other party.
+	 * @param committedRoot The root that the other party committed to.
+	 * @param hash The hash function to use.
+	 * @return true if the root of this tree is the given root and it matches the leaves; false, otherwise.
+	 */
+	public boolean verifyRoot(byte[] committedRoot, CryptographicHash hash){
+		return Arrays.equals(root, committedRoot) && Arrays.equals(computeRoot(hash, leafHashes), committedRoot);
+	}
+	
+	/**
+	 * Checks that the given bytes are the given chunk of the data.
+	 * @param chunk The index of the chunk.
+	 * @param data An array that contains the chunk.
+	 * @param offset The offset of the chunk in the array.
+	 * @param length The length of the chunk.
+	 * @param hash The hash function to use.
+	 * @return true if the hash of the given bytes matches the leaf of the chunk; false, otherwise.
+	 */
+	public boolean verifyChunk(int chunk, byte[] data, int offset, int length, CryptographicHash hash){
+		if (length != getChunkLength(chunk)){
+			return false;
+		}
+		updateLeafPrefix(hash, chunk);
+		hash.update(data, offset, length);
+		return Arrays.equals(finalHash(hash), leafHashes[chunk]);
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		//The tree may be received from the other party, so check that it is consistent.
+		if (chunkSize <= 0 || dataLength < 0 || leafHashes == null || root == null || 
+				leafHashes.length != getNumberOfChunks(dataLength, chunkSize)){
+			throw new InvalidObjectException("the number of leaves does not match the data length");
+		}
+		for (byte[] leaf : leafHashes){
+			if (leaf == null || leaf.length != root.length){
+				throw new InvalidObjectException("all the leaves should have the size of the root");
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.biu.scapi.primitives.hash.CryptographicHash;
+
+/**
+ * Computes a {@link MerkleTree} on the fly, while the data is given piece by piece (for example, while the garbled tables are 
+ * created or sent). <p>
+ * The data is not kept: each chunk is hashed as its bytes are given, and only the hashes of the chunks are kept.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class MerkleTreeBuilder {
+	
+	private CryptographicHash hash;
+	private int chunkSize;
+	private List<byte[]> leafHashes;
+	private int chunkPosition;		//The number of bytes of the current chunk that were hashed.
+	private long dataLength;
+	private boolean isBuilt;
+	
+	/**
+	 * Creates a builder that uses the default chunk size.
+	 * @param hash The hash function to use.
+	 */
+	public MerkleTreeBuilder(CryptographicHash hash){
+		this(hash, MerkleTree.DEFAULT_CHUNK_SIZE);
+	}
+	
+	/**
+	 * @param hash The hash function to use.
+	 * @param chunkSize The number of bytes in each chunk.
+	 */
+	public MerkleTreeBuilder(CryptographicHash hash, int chunkSize){
+		MerkleTree.checkChunkSize(chunkSize);
+		this.hash = hash;
+		this.chunkSize = chunkSize;
+		leafHashes = new ArrayList<byte[]>();
+		MerkleTree.updateLeafPrefix(hash, 0);
+	}
+	
+	/**
+	 * Adds the given bytes to the data.
+	 * @param data An array that contains the bytes.
+	 * @param offset The offset of the bytes in the array.
+	 * @param length The number of bytes to add.
+	 * @throws IllegalStateException if the tree was already built.
+	 */
+	public void update(byte[] data, int offset, int length){
+		if (isBuilt){
+			throw new IllegalStateException("the tree was already built");
+		}
+		while (length > 0){
+			int size = Math.min(length, chunkSize - chunkPosition);
+			hash.update(data, offset, size);
+			chunkPosition += size;
+			dataLength += size;
+			offset += size;
+			length -= size;
+			
+			//In case the chunk is full, keep its hash and start the next chunk.
+			if (chunkPosition == chunkSize){
+				leafHashes.add(MerkleTree.finalHash(hash));
+				chunkPosition = 0;
+				MerkleTree.updateLeafPrefix(hash, leafHashes.size());
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of chunks that were completely given.
+	 */
+	public int getNumberOfCompleteChunks(){
+		return leafHashes.size();
+	}
+	
+	/**
+	 * Hashes the last chunk and computes the tree. After calling this function, the builder can not be updated.
+	 * @return the Merkle tree of all the given data.
+	 * @throws IllegalStateException if the tree was already built.
+	 */
+	public MerkleTree build(){
+		if (isBuilt){
+			throw new IllegalStateException("the tree was already built");
+		}
+		isBuilt = true;
+		//The last chunk is hashed if it is not empty, or if there is no chunk at all.
+		if (chunkPosition > 0 || leafHashes.isEmpty()){
+			leafHashes.add(MerkleTree.finalHash(hash));
+		} else {
+			//Reset the hash, that was already updated with the prefix of the next chunk.
+			MerkleTree.finalHash(hash);
+		}
+		byte[][] leaves = leafHashes.toArray(new byte[leafHashes.size()][]);
+		return new MerkleTree(chunkSize, dataLength, leaves, MerkleTree.computeRoot(hash, leaves));
+	}
+}
@@ -70,7 +70,6 @@ class MinimizeAESSetKeyGarbledGate extends StandardGarbledGate {
 		
 		//Allocate memory to the garbled table.
 		byte[] garbledTable = new byte[numberOfRows * mes.getCipherSize()];
-		garbledTablesHolder.toDoubleByteArray()[gateNumber] = garbledTable;
     
 	    /*
 	     * Rather than encrypt right away as we do in StandardGarbledGate, here we create arrays to hold the data. 
@@ -172,7 +171,10 @@ class MinimizeAESSetKeyGarbledGate extends StandardGarbledGate {
 	    
 	    // Finally we assign the encrypted results to the corresponding row of the garbled truth table. 
     	for (int rowNumber = 0; rowNumber < numberOfRows; rowNumber++) {
-    		System.arraycopy(outputValues[rowNumber], 0, garbledTablesHolder.toDoubleByteArray()[gateNumber], rowNumber * mes.getCipherSize() , mes.getCipherSize());
+    		System.arraycopy(outputValues[rowNumber], 0, garbledTable, rowNumber * mes.getCipherSize() , mes.getCipherSize());
     	}
+		
+		//Put the filled garbled table in the tables holder.
+		garbledTablesHolder.setGarbledTable(gateNumber, garbledTable);
 	}
 }
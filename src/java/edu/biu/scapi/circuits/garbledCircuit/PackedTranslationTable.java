@@ -0,0 +1,262 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.biu.scapi.exceptions.CheatAttemptException;
+
+/**
+ * A translation table that holds the signal bits of the output wires packed in a bit array. <p>
+ * 
+ * The translation table stores, for each output wire, the signal bit of the wire's 0-key. The bits are ordered as the output 
+ * wires are ordered in the circuit ({@link GarbledBooleanCircuit#getOutputWireIndices()}), so there is no need to hold the wire 
+ * indices themselves. As opposed to the {@code HashMap<Integer, Byte>} translation table, there is no boxed entry per output wire,
+ * and the serialized table takes one bit per output wire. <p>
+ * 
+ * This class also translates garbled outputs that are given as a flat array of keys, one after the other in the order of the output wires. 
+ * The signal bit of each key is the last bit of its last byte. <p>
+ * 
+ * This class is immutable.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public final class PackedTranslationTable implements Serializable {
+	
+	private static final long serialVersionUID = -4419640364873218736L;
+	
+	private final int numberOfOutputs;
+	private final byte[] signalBits;	//Bit i (the i%8 bit of byte i/8) is the signal bit of the i-th output wire.
+	
+	private PackedTranslationTable(int numberOfOutputs, byte[] signalBits){
+		this.numberOfOutputs = numberOfOutputs;
+		this.signalBits = signalBits;
+	}
+	
+	/**
+	 * Creates a packed translation table from the given translation table.
+	 * @param translationTable Maps each output wire index to the signal bit of the wire's 0-key.
+	 * @param outputWireIndices The indices of the output wires, in the order of the circuit.
+	 * @throws IllegalArgumentException if the translation table does not contain one of the output wires.
+	 */
+	public static PackedTranslationTable fromMap(Map<Integer, Byte> translationTable, int[] outputWireIndices){
+		byte[] bits = new byte[byteLength(outputWireIndices.length)];
+		for (int i = 0; i < outputWireIndices.length; i++){
+			Byte signalBit = translationTable.get(outputWireIndices[i]);
+			if (signalBit == null){
+				throw new IllegalArgumentException("the translation table does not contain output wire " + outputWireIndices[i]);
+			}
+			if ((signalBit & 1) == 1){
+				bits[i >> 3] |= 1 << (i & 7);
+			}
+		}
+		return new PackedTranslationTable(outputWireIndices.length, bits);
+	}
+	
+	/**
+	 * Creates a packed translation table from the given signal bits.
+	 * @param signalBits Holds a byte for each output wire, that is the signal bit of the wire's 0-key. 
+	 * This is the format of the translation table of {@link edu.biu.scapi.circuits.fastGarbledCircuit.FastGarbledBooleanCircuit}.
+	 */
+	public static PackedTranslationTable fromSignalBits(byte[] signalBits){
+		byte[] bits = new byte[byteLength(signalBits.length)];
+		for (int i = 0; i < signalBits.length; i++){
+			if ((signalBits[i] & 1) == 1){
+				bits[i >> 3] |= 1 << (i & 7);
+			}
+		}
+		return new PackedTranslationTable(signalBits.length, bits);
+	}
+	
+	/**
+	 * Creates a packed translation table from the result of {@link #toByteArray()}.
+	 * @param packedBits The packed signal bits.
+	 * @param numberOfOutputs The number of output wires.
+	 * @throws IllegalArgumentException if the length of the given array does not match the number of outputs.
+	 */
+	public static PackedTranslationTable fromByteArray(byte[] packedBits, int numberOfOutputs){
+		if (packedBits.length != byteLength(numberOfOutputs)){
+			throw new IllegalArgumentException("the packed translation table of " + numberOfOutputs + " outputs should contain " 
+					+ byteLength(numberOfOutputs) + " bytes");
+		}
+		return new PackedTranslationTable(numberOfOutputs, packedBits.clone());
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		//The table may be received from the other party, so check that it is consistent.
+		if (numberOfOutputs < 0 || signalBits == null || signalBits.length != byteLength(numberOfOutputs)){
+			throw new InvalidObjectException("the packed bits do not match the number of outputs");
+		}
+	}
+	
+	private static int byteLength(int numberOfOutputs){
+		return (numberOfOutputs + 7) >> 3;
+	}
+	
+	/**
+	 * Returns the number of output wires in this table.
+	 */
+	public int size(){
+		return numberOfOutputs;
+	}
+	
+	/**
+	 * Returns the signal bit of the 0-key of the given output wire.
+	 * @param outputNumber The place of the wire in the output wires array.
+	 */
+	public byte getSignalBit(int outputNumber){
+		if (outputNumber < 0 || outputNumber >= numberOfOutputs){
+			throw new IndexOutOfBoundsException("output " + outputNumber + " is out of range");
+		}
+		return (byte) ((signalBits[outputNumber >> 3] >> (outputNumber & 7)) & 1);
+	}
+	
+	/**
+	 * Returns the packed signal bits. Bit i%8 of byte i/8 is the signal bit of the i-th output wire.
+	 */
+	public byte[] toByteArray(){
+		return signalBits.clone();
+	}
+	
+	/**
+	 * Returns the translation table as a map from the output wires indices to the signal bits.
+	 * @param outputWireIndices The indices of the output wires, in the order of the circuit.
+	 */
+	public HashMap<Integer, Byte> toMap(int[] outputWireIndices){
+		checkSize(outputWireIndices.length);
+		HashMap<Integer, Byte> translationTable = new HashMap<Integer, Byte>();
+		for (int i = 0; i < numberOfOutputs; i++){
+			translationTable.put(outputWireIndices[i], getSignalBit(i));
+		}
+		return translationTable;
+	}
+	
+	/**
+	 * Translates the given garbled output into a meaningful(i.e. 0-1) output.
+	 * @param garbledOutput The keys of the output wires, one after the other in the order of the output wires.
+	 * @return an array that holds the output bit of each output wire.
+	 * @throws IllegalArgumentException if the array does not contain a key for each output wire.
+	 */
+	public byte[] translate(byte[] garbledOutput){
+		int keySize = getKeySize(garbledOutput, 1);
+		byte[] output = new byte[numberOfOutputs];
+		for (int i = 0; i < numberOfOutputs; i++){
+			output[i] = (byte) ((garbledOutput[(i + 1) * keySize - 1] & 1) ^ getSignalBit(i));
+		}
+		return output;
+	}
+	
+	/**
+	 * Translates the given garbled output into a meaningful(i.e. 0-1) output.
+	 * @param garbledOutput The keys of the output wires, one after the other in the order of the output wires.
+	 * @return a {@code BitSet} where bit i is the output of the i-th output wire.
+	 * @throws IllegalArgumentException if the array does not contain a key for each output wire.
+	 */
+	public BitSet translateToBitSet(byte[] garbledOutput){
+		int keySize = getKeySize(garbledOutput, 1);
+		BitSet output = new BitSet(numberOfOutputs);
+		for (int i = 0; i < numberOfOutputs; i++){
+			if (((garbledOutput[(i + 1) * keySize - 1] & 1) ^ getSignalBit(i)) == 1){
+				output.set(i);
+			}
+		}
+		return output;
+	}
+	
+	/**
+	 * Verifies that the given garbled output is valid according to the given output keys, and then translates it. <p>
+	 * Meaning, for each output wire, checks that the garbled key is one of the two possibilities.
+	 * @param garbledOutput The keys of the output wires, one after the other in the order of the output wires.
+	 * @param allOutputWireValues Both keys of each output wire, in the format [k0,0 k0,1 k1,0 k1,1 ...].
+	 * @return an array that holds the output bit of each output wire.
+	 * @throws CheatAttemptException if there is a garbled output value that is not one of the two possibilities.
+	 */
+	public byte[] verifiedTranslate(byte[] garbledOutput, byte[] allOutputWireValues) throws CheatAttemptException {
+		int keySize = getKeySize(garbledOutput, 1);
+		if (allOutputWireValues.length != 2 * garbledOutput.length){
+			throw new IllegalArgumentException("there should be two keys for each output wire");
+		}
+		for (int i = 0; i < numberOfOutputs; i++){
+			if (!equalKeys(garbledOutput, i * keySize, allOutputWireValues, 2 * i * keySize, keySize) && 
+					!equalKeys(garbledOutput, i * keySize, allOutputWireValues, (2 * i + 1) * keySize, keySize)){
+				throw new CheatAttemptException("The given output value is not one of the two given possible values");
+			}
+		}
+		//After verified, the output can be translated.
+		return translate(garbledOutput);
+	}
+	
+	/**
+	 * Checks that the 0-key of each output wire translates to 0 and the 1-key translates to 1.
+	 * @param allOutputWireValues Both keys of each output wire, in the format [k0,0 k0,1 k1,0 k1,1 ...].
+	 * @return true if all the output keys translate correctly; false, otherwise.
+	 */
+	public boolean verify(byte[] allOutputWireValues){
+		int keySize = getKeySize(allOutputWireValues, 2);
+		for (int i = 0; i < numberOfOutputs; i++){
+			int signalBit = getSignalBit(i);
+			int zeroSignal = allOutputWireValues[(2 * i + 1) * keySize - 1] & 1;
+			int oneSignal = allOutputWireValues[(2 * i + 2) * keySize - 1] & 1;
+			if ((zeroSignal ^ signalBit) != 0 || (oneSignal ^ signalBit) != 1){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private int getKeySize(byte[] keys, int keysPerOutput){
+		if (numberOfOutputs == 0){
+			return 0;
+		}
+		int keySize = keys.length / (keysPerOutput * numberOfOutputs);
+		if (keySize == 0 || keys.length != keySize * keysPerOutput * numberOfOutputs){
+			throw new IllegalArgumentException("the array should contain " + keysPerOutput + " keys for each of the " + numberOfOutputs + " output wires");
+		}
+		return keySize;
+	}
+	
+	private void checkSize(int numberOfWires){
+		if (numberOfWires != numberOfOutputs){
+			throw new IllegalArgumentException("the translation table contains " + numberOfOutputs + " output wires");
+		}
+	}
+	
+	private static boolean equalKeys(byte[] first, int firstOffset, byte[] second, int secondOffset, int keySize){
+		for (int i = 0; i < keySize; i++){
+			if (first[firstOffset + i] != second[secondOffset + i]){
+				return false;
+			}
+		}
+		return true;
+	}
+}
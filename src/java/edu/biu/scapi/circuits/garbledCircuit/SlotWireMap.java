@@ -0,0 +1,159 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import edu.biu.scapi.circuits.circuit.WireSlotAllocation;
+
+/**
+ * A map from wire indices to wire values that holds only the wires that are live at the same time. <p>
+ * The values are kept in an array with one entry per slot of the given {@link WireSlotAllocation}. Putting the value of a wire 
+ * overwrites the value of the wire that had the same slot before, which is no longer read by any gate. Thus, garbling or 
+ * computing a circuit with this map holds the values of {@link WireSlotAllocation#getNumberOfSlots()} wires instead of the 
+ * values of all the wires, as long as the wires are put in topological order. <p>
+ * 
+ * The map contains a wire only while it holds the wire's value, so a wire that was overwritten is no longer contained in it.
+ * Wires that are not part of the circuit (for example, the wires of the identity gates of an extended circuit) are kept in a 
+ * regular map.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+class SlotWireMap<V> extends AbstractMap<Integer, V> {
+	
+	private WireSlotAllocation allocation;
+	private Object[] values;
+	private int[] owners;		//The wire whose value is held by each slot, or -1 if the slot is empty.
+	private int size;
+	private HashMap<Integer, V> otherWires = new HashMap<Integer, V>();
+	
+	/**
+	 * @param allocation The slots of the wires.
+	 */
+	SlotWireMap(WireSlotAllocation allocation){
+		this.allocation = allocation;
+		values = new Object[allocation.getNumberOfSlots()];
+		owners = new int[allocation.getNumberOfSlots()];
+		Arrays.fill(owners, -1);
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key){
+		if (!(key instanceof Integer)){
+			return null;
+		}
+		int wire = (Integer) key;
+		int slot = allocation.getSlot(wire);
+		if (slot == -1){
+			return otherWires.get(key);
+		}
+		return (owners[slot] == wire) ? (V) values[slot] : null;
+	}
+	
+	@Override
+	public boolean containsKey(Object key){
+		if (!(key instanceof Integer)){
+			return false;
+		}
+		int wire = (Integer) key;
+		int slot = allocation.getSlot(wire);
+		if (slot == -1){
+			return otherWires.containsKey(key);
+		}
+		return owners[slot] == wire;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(Integer key, V value){
+		int wire = key;
+		int slot = allocation.getSlot(wire);
+		if (slot == -1){
+			return otherWires.put(key, value);
+		}
+		V previous = null;
+		if (owners[slot] == wire){
+			previous = (V) values[slot];
+		} else if (owners[slot] == -1){
+			size++;
+		}
+		owners[slot] = wire;
+		values[slot] = value;
+		return previous;
+	}
+	
+	@Override
+	public V remove(Object key){
+		if (!(key instanceof Integer)){
+			return null;
+		}
+		int wire = (Integer) key;
+		int slot = allocation.getSlot(wire);
+		if (slot == -1){
+			return otherWires.remove(key);
+		}
+		V previous = get(key);
+		if (owners[slot] == wire){
+			owners[slot] = -1;
+			values[slot] = null;
+			size--;
+		}
+		return previous;
+	}
+	
+	@Override
+	public void clear(){
+		Arrays.fill(owners, -1);
+		Arrays.fill(values, null);
+		size = 0;
+		otherWires.clear();
+	}
+	
+	@Override
+	public int size(){
+		return size + otherWires.size();
+	}
+	
+	/**
+	 * Returns a copy of the entries of this map. Changing the returned set does not change this map.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Set<Map.Entry<Integer, V>> entrySet(){
+		HashMap<Integer, V> copy = new HashMap<Integer, V>(otherWires);
+		for (int slot = 0; slot < owners.length; slot++){
+			if (owners[slot] != -1){
+				copy.put(owners[slot], (V) values[slot]);
+			}
+		}
+		return copy.entrySet();
+	}
+}
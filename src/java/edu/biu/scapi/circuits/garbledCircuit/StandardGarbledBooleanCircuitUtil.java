@@ -103,8 +103,9 @@ class StandardGarbledBooleanCircuitUtil implements CircuitTypeUtil{
 		if (!(garbledTablesHolder instanceof BasicGarbledTablesHolder)){
 			throw new IllegalArgumentException("the given garbledTablesHolder should be an instance of BasicGarbledTablesHolder");
 		}
-		//Prepare the maps that will be used during keys generation.
-		Map<Integer, SecretKey[]> allWireValues = new HashMap<Integer, SecretKey[]>();
+		//Prepare the maps that will be used during keys generation. allWireValues holds only the keys of the wires that are live 
+		//at the same time.
+		Map<Integer, SecretKey[]> allWireValues = new SlotWireMap<SecretKey[]>(ungarbledCircuit.getWireSlotAllocation());
 		Map<Integer, SecretKey[]> allInputWireValues = null;
 		Map<Integer, SecretKey[]> allOutputWireValues = null;
 		HashMap<Integer, Byte> translationTable = new HashMap<Integer, Byte>();
@@ -126,18 +127,12 @@ class StandardGarbledBooleanCircuitUtil implements CircuitTypeUtil{
 		allWireValues.putAll(allInputWireValues);
 	
 		
-		//for each gate fill the keys and signal bits for output wires if they are not filled yet.
-		for (int gate = 0; gate < ungarbledGates.length; gate++) {
-			generateOutputKeys(allOutputWireValues, ungarbledGates[gate], allWireValues);
-		}
-		
-		//Fill the output values and signal bits in the output maps.
-		allOutputWireValues = new HashMap<Integer, SecretKey[]>();
-		fillOutputWiresValues(ungarbledCircuit.getOutputWireIndices(), allOutputWireValues, allWireValues, translationTable);
-		
-		//After we have all keys, create the garbledTables according to them.
+		//For each gate fill the keys and signal bits for output wires and create the garbled table according to them.
 		try {
-			createGarbledTables(gates, (BasicGarbledTablesHolder) garbledTablesHolder, ungarbledGates, allWireValues);
+			for (int gate = 0; gate < ungarbledGates.length; gate++) {
+				generateOutputKeys(allOutputWireValues, ungarbledGates[gate], allWireValues);
+				((StandardGarbledGate) gates[gate]).createGarbledTable(ungarbledGates[gate], allWireValues);
+			}
 		} catch (InvalidKeyException e) {
 			//  Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
 		} catch (IllegalBlockSizeException e) {
@@ -146,6 +141,10 @@ class StandardGarbledBooleanCircuitUtil implements CircuitTypeUtil{
 			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
 		}
 		
+		//Fill the output values and signal bits in the output maps.
+		allOutputWireValues = new HashMap<Integer, SecretKey[]>();
+		fillOutputWiresValues(ungarbledCircuit.getOutputWireIndices(), allOutputWireValues, allWireValues, translationTable);
+		
 		return new CircuitCreationValues(allInputWireValues, allOutputWireValues, translationTable);
 	}
 	
@@ -166,24 +165,6 @@ class StandardGarbledBooleanCircuitUtil implements CircuitTypeUtil{
 		
 	}
 	
-	/**
-	 * Creates the garbled tables. This is done by the constructor of the gates.
-	 * @param gates An array of gates to fill.
-	 * @param garbledTablesHolder holds the garbled tables.
-	 * @param ungarbledGates The gates that need to be garbled.
-	 * @param allWireValues A map that contains both keys for each wire.
-	 * @throws InvalidKeyException
-	 * @throws IllegalBlockSizeException
-	 * @throws PlaintextTooLongException
-	 */
-	private void createGarbledTables(GarbledGate[] gates, BasicGarbledTablesHolder garbledTablesHolder, Gate[] ungarbledGates, Map<Integer, SecretKey[]> allWireValues) throws InvalidKeyException, IllegalBlockSizeException, PlaintextTooLongException {
-		int length = ungarbledGates.length;
-		//After we have all keys, create the garbledTables according to them.
-		for (int gate = 0; gate < length; gate++) {
-			((StandardGarbledGate) gates[gate]).createGarbledTable(ungarbledGates[gate], allWireValues);
-		}
-	}
-
 	/**
 	 * Fills the maps containing the keys for the output wires and the translation table.
 	 * @param outputWireIndices Indices of the output wires.
@@ -247,35 +228,25 @@ class StandardGarbledBooleanCircuitUtil implements CircuitTypeUtil{
 		if (!(garbledTablesHolder instanceof BasicGarbledTablesHolder)){
 			throw new IllegalArgumentException("the given garbledTablesHolder should be an instance of BasicGarbledTablesHolder");
 		}
-		Map<Integer, SecretKey[]> allWireValues = new HashMap<Integer, SecretKey[]>();
-		Gate[] ungarbledGates = ungarbledCircuit.getGates();
+		//Hold only the keys of the wires that are live at the same time.
+		Map<Integer, SecretKey[]> allWireValues = new SlotWireMap<SecretKey[]>(ungarbledCircuit.getWireSlotAllocation());
 		
-		//Call the function that sample the keys.
-		CircuitCreationValues values = sampleSeedKeys(prg, seed, ungarbledCircuit, allWireValues);
-				
-		try {
-			createGarbledTables(gates, (BasicGarbledTablesHolder) garbledTablesHolder, ungarbledGates, allWireValues);
-		
-		} catch (PlaintextTooLongException e) {
-			// Should not occur since the plaintext length is valid.
-		} catch (IllegalBlockSizeException e) {
-			// Should not occur since the block size is valid.
-		} 
-				
-		return values;
+		//Call the function that sample the keys and creates the garbled tables.
+		return sampleSeedKeys(prg, seed, ungarbledCircuit, gates, allWireValues);
 	}
 	
 	/**
-	 * Samples the keys.
+	 * Samples the keys and creates the garbled tables.
 	 * @param prg Used to sample values.
 	 * @param seed Used to initialize the prg.
 	 * @param ungarbledCircuit The circuit that this garbled circuit should be the garbling of.
+	 * @param gates The gates of this circuit.
 	 * @param allWireValues a map that contains both keys for each wire.
 	 * @return the values sampled by the function
 	 * @throws InvalidKeyException
 	 */
 	private CircuitCreationValues sampleSeedKeys(PseudorandomGenerator prg, byte[] seed, BooleanCircuit ungarbledCircuit, 
-			Map<Integer, SecretKey[]> allWireValues) throws InvalidKeyException{
+			GarbledGate[] gates, Map<Integer, SecretKey[]> allWireValues) throws InvalidKeyException{
 		Map<Integer, SecretKey[]> allInputWireValues = new HashMap<Integer, SecretKey[]>();
 		Map<Integer, SecretKey[]> outputGarbledValues = new HashMap<Integer, SecretKey[]>();
 		
@@ -302,10 +273,17 @@ class StandardGarbledBooleanCircuitUtil implements CircuitTypeUtil{
 		
 		Gate[] ungarbledGates = ungarbledCircuit.getGates();
 		
-		//for each gate fill the keys and signal bits for output wires.
-		for (int gate = 0; gate < ungarbledGates.length; gate++) {
-			generateOutputKeysFromSeed(prg, allWireValues, ungarbledGates[gate]);
-		}
+		//For each gate fill the keys and signal bits for output wires and create the garbled table according to them.
+		try {
+			for (int gate = 0; gate < ungarbledGates.length; gate++) {
+				generateOutputKeysFromSeed(prg, allWireValues, ungarbledGates[gate]);
+				((StandardGarbledGate) gates[gate]).createGarbledTable(ungarbledGates[gate], allWireValues);
+			}
+		} catch (PlaintextTooLongException e) {
+			// Should not occur since the plaintext length is valid.
+		} catch (IllegalBlockSizeException e) {
+			// Should not occur since the block size is valid.
+		} 
 		
 		fillOutputWiresValues(ungarbledCircuit.getOutputWireIndices(), outputGarbledValues, allWireValues, translationTable);
 		
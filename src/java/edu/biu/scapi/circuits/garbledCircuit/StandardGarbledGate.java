@@ -26,7 +26,6 @@ package edu.biu.scapi.circuits.garbledCircuit;
 
 import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
-import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Map;
 
@@ -107,7 +106,6 @@ class StandardGarbledGate implements GarbledGate {
 		
 		//Allocate memory to the garbled table.
 		byte[] garbledTable = new byte[numberOfRows * mes.getCipherSize()];
-		garbledTablesHolder.toDoubleByteArray()[gateNumber] = garbledTable;
 		
 		//Calculate the garbled table row by row.
 		for (int rowOfTruthTable = 0; rowOfTruthTable < numberOfRows; rowOfTruthTable++) {
@@ -172,6 +170,9 @@ class StandardGarbledGate implements GarbledGate {
 				// Should not occur since the encryption has a tweak.			
 			}
 		}
+		
+		//Put the filled garbled table in the tables holder.
+		garbledTablesHolder.setGarbledTable(gateNumber, garbledTable);
 	}
   
 	@Override
@@ -225,7 +226,7 @@ class StandardGarbledGate implements GarbledGate {
 		// Decrypt the output value.
 		SecretKey wireValue = null;
 		try {
-			wireValue = new SecretKeySpec(mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], 
+			wireValue = new SecretKeySpec(mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, 
 					garbledTableIndex * mes.getCipherSize(), (garbledTableIndex +1)*mes.getCipherSize())),"");
 		} catch (KeyNotSetException e) {
 			// Should not occur since the key was set.
@@ -363,7 +364,7 @@ class StandardGarbledGate implements GarbledGate {
 				byte[] pt = null;
 				try {
 					
-					pt = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], permutedPosition * mes.getCipherSize(), (permutedPosition + 1) *mes.getCipherSize()));
+					pt = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, permutedPosition * mes.getCipherSize(), (permutedPosition + 1) *mes.getCipherSize()));
 				} catch (KeyNotSetException e) {
 					// Should not occur since the key has been set.
 				} catch (TweakNotSetException e) {
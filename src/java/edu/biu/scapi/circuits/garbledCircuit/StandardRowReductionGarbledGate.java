@@ -26,7 +26,6 @@ package edu.biu.scapi.circuits.garbledCircuit;
 
 import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
-import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Map;
 
@@ -79,7 +78,6 @@ class StandardRowReductionGarbledGate extends StandardGarbledGate{
 		
 		//Allocate memory to the garbled table.
 		byte[] garbledTable = new byte[numberOfRows * mes.getCipherSize()];
-		garbledTablesHolder.toDoubleByteArray()[gateNumber] = garbledTable;
 		
 		//Calculate the garbled table row by row.
 		for (int rowOfTruthTable = 0; rowOfTruthTable <= numberOfRows; rowOfTruthTable++) {
@@ -143,6 +141,9 @@ class StandardRowReductionGarbledGate extends StandardGarbledGate{
 				}
 		  	}
 		}
+		
+		//Put the filled garbled table in the tables holder.
+		garbledTablesHolder.setGarbledTable(gateNumber, garbledTable);
 	}
   
 	@Override
@@ -224,7 +225,7 @@ class StandardRowReductionGarbledGate extends StandardGarbledGate{
 				 mes.setTweak(tweak.array());
 			  
 				 try {
-					 pt = mes.decrypt(Arrays.copyOfRange(garbledTablesHolder.toDoubleByteArray()[gateNumber], permutedPosition * mes.getCipherSize(), (permutedPosition + 1) *mes.getCipherSize()));
+					 pt = mes.decrypt(garbledTablesHolder.copyOfRange(gateNumber, permutedPosition * mes.getCipherSize(), (permutedPosition + 1) *mes.getCipherSize()));
 				 } catch (KeyNotSetException e) {
 					 // Should not occur since the key has been set.
 				 } catch (TweakNotSetException e) {
@@ -0,0 +1,424 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.circuits.garbledCircuit;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import edu.biu.scapi.circuits.circuit.Gate;
+import edu.biu.scapi.circuits.circuit.GateIterator;
+import edu.biu.scapi.circuits.circuit.Wire;
+import edu.biu.scapi.circuits.encryption.AESFixedKeyMultiKeyEncryption;
+import edu.biu.scapi.circuits.encryption.MultiKeyEncryptionScheme;
+import edu.biu.scapi.exceptions.CiphertextTooLongException;
+import edu.biu.scapi.exceptions.CircuitFileFormatException;
+import edu.biu.scapi.exceptions.KeyNotSetException;
+import edu.biu.scapi.exceptions.NoSuchPartyException;
+import edu.biu.scapi.exceptions.NotAllInputsSetException;
+import edu.biu.scapi.exceptions.PlaintextTooLongException;
+import edu.biu.scapi.exceptions.TweakNotSetException;
+
+/**
+ * Garbles and computes boolean circuits that are given as a {@link GateIterator}, using the Free XOR technique. <p>
+ * 
+ * The circuit is never held in memory: each gate is garbled as soon as it is read and its garbled table is written 
+ * immediately to the given output stream. In the same way, the evaluator reads each garbled table from the input stream 
+ * right before computing the gate. The only state that is kept is a single key per wire, held in one flat byte array, 
+ * so circuits with millions of gates can be garbled and computed straight from their files (for example, using 
+ * {@link edu.biu.scapi.circuits.circuit.BristolCircuitReader}). Since the iterator is read only once, the keys array has 
+ * a slot for every wire of the circuit and is limited to the maximal size of a Java array: circuits whose number of wires 
+ * times the key size exceeds Integer.MAX_VALUE bytes are rejected with an IllegalArgumentException. <p>
+ * 
+ * The garbled tables have the same format as the tables of {@link FreeXORGarbledBooleanCircuitUtil}: XOR and XNOR 
+ * gates have no table, and any other gate has a table of 2^(number of inputs) rows permuted by the signal bits, where each 
+ * row is encrypted using the gate number and the signal bits as tweak. In addition, single input NOT and identity gates 
+ * have no table, since their output keys are derived from the input keys by the global key offset. <p>
+ * 
+ * The garbler and the evaluator should iterate the same circuit, and the evaluator should read the tables in the order 
+ * they were written.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class StreamingFreeXORGarbledCircuit {
+	
+	private MultiKeyEncryptionScheme mes;
+	private int keySize;
+	
+	/**
+	 * Constructs the garbling engine using the given MultiKeyEncryptionScheme.
+	 * @param mes The encryption scheme used to garble and compute the gates.
+	 */
+	public StreamingFreeXORGarbledCircuit(MultiKeyEncryptionScheme mes){
+		this.mes = mes;
+		if (mes instanceof AESFixedKeyMultiKeyEncryption){
+			((AESFixedKeyMultiKeyEncryption) mes).setFreeXor(true);
+		}
+		keySize = mes.getCipherSize();
+	}
+	
+	/**
+	 * Default constructor. Uses AESFixedKeyMultiKeyEncryption object.
+	 */
+	public StreamingFreeXORGarbledCircuit(){
+		this(new AESFixedKeyMultiKeyEncryption());
+	}
+	
+	/**
+	 * Garbles the circuit and writes the garbled tables to the given stream. <p>
+	 * The iterator is consumed but not closed, and the stream is not closed.
+	 * @param gates The gates of the circuit to garble.
+	 * @param garbledTables The stream to write the garbled tables to.
+	 * @return both keys of the input and output wires, and the translation table of the circuit.
+	 * @throws IOException in case of a problem reading the gates or writing the tables.
+	 * @throws CircuitFileFormatException if the gates are illegal.
+	 * @throws IllegalArgumentException if the circuit has too many wires to hold their keys in a single array.
+	 */
+	public CircuitCreationValues garble(GateIterator gates, OutputStream garbledTables) throws IOException, CircuitFileFormatException {
+		
+		/*
+		 * The globalKeyOffset is the FreeXOR delta. Its last bit is set to 1 so that the two keys of each wire have 
+		 * different signal bits. See Free XOR Gates and Applications by Validimir Kolesnikov and Thomas Schneider.
+		 */
+		byte[] globalKeyOffset = mes.generateKey().getEncoded();
+		globalKeyOffset[keySize - 1] |= 1;
+		
+		//Only the 0-key of each wire is held. The 1-key is the 0-key XOR globalKeyOffset.
+		byte[] zeroKeys = newKeyArray(gates.getNumberOfWires());
+		
+		//Sample the input keys.
+		Map<Integer, SecretKey[]> allInputWireValues = new HashMap<Integer, SecretKey[]>();
+		for (int party = 1; party <= gates.getNumberOfParties(); party++){
+			for (int w : getInputWireIndices(gates, party)){
+				System.arraycopy(mes.generateKey().getEncoded(), 0, zeroKeys, w * keySize, keySize);
+				allInputWireValues.put(w, getBothKeys(zeroKeys, w, globalKeyOffset));
+			}
+		}
+		
+		byte[] table = new byte[8 * keySize];
+		try {
+			while (gates.hasNext()){
+				Gate gate = gates.next();
+				int[] inputWires = gate.getInputWireIndices();
+				int[] outputWires = gate.getOutputWireIndices();
+				int output = outputWires[0];
+				
+				switch (getGateKind(gate)){
+				case XOR:
+					xorKeys(zeroKeys, inputWires, output, null);
+					break;
+				case XNOR:
+					//The 1-key of the output is the XOR of the input 0-keys.
+					xorKeys(zeroKeys, inputWires, output, globalKeyOffset);
+					break;
+				case IDENTITY:
+					System.arraycopy(zeroKeys, inputWires[0] * keySize, zeroKeys, output * keySize, keySize);
+					break;
+				case NOT:
+					//The 0-key of the output is the 1-key of the input.
+					xorKeys(zeroKeys, inputWires, output, globalKeyOffset);
+					break;
+				default:
+					System.arraycopy(mes.generateKey().getEncoded(), 0, zeroKeys, output * keySize, keySize);
+					int tableSize = garbleStandardGate(gate, zeroKeys, globalKeyOffset, table);
+					garbledTables.write(table, 0, tableSize);
+				}
+				
+				//The rest of the output wires carry the same keys.
+				for (int i = 1; i < outputWires.length; i++){
+					System.arraycopy(zeroKeys, output * keySize, zeroKeys, outputWires[i] * keySize, keySize);
+				}
+			}
+		} catch (InvalidKeyException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		} catch (IllegalBlockSizeException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		} catch (PlaintextTooLongException e) {
+			// Should not occur since the keys were generated through the encryption scheme that generates keys that match it.
+		}
+		
+		Map<Integer, SecretKey[]> allOutputWireValues = new HashMap<Integer, SecretKey[]>();
+		HashMap<Integer, Byte> translationTable = new HashMap<Integer, Byte>();
+		for (int w : gates.getOutputWireIndices()){
+			allOutputWireValues.put(w, getBothKeys(zeroKeys, w, globalKeyOffset));
+			//Signal bit is the last bit of k0.
+			translationTable.put(w, (byte) (zeroKeys[(w + 1) * keySize - 1] & 1));
+		}
+		
+		return new CircuitCreationValues(allInputWireValues, allOutputWireValues, translationTable);
+	}
+	
+	/**
+	 * Computes the garbled circuit, reading its garbled tables from the given stream. <p>
+	 * The iterator is consumed but not closed, and the stream is not closed.
+	 * @param gates The gates of the circuit. Should be the same gates that were given to the garble function.
+	 * @param garbledTables The stream of garbled tables, as written by the garble function.
+	 * @param inputs The garbled input wires of all parties.
+	 * @return the garbled output wires, mapped by their indices.
+	 * @throws NotAllInputsSetException if one of the input wires of the circuit has no value in the inputs map.
+	 * @throws IOException in case of a problem reading the gates or the tables.
+	 * @throws CircuitFileFormatException if the gates are illegal.
+	 * @throws IllegalArgumentException if the circuit has too many wires to hold their keys in a single array.
+	 */
+	public Map<Integer, GarbledWire> compute(GateIterator gates, InputStream garbledTables, Map<Integer, GarbledWire> inputs) 
+			throws NotAllInputsSetException, IOException, CircuitFileFormatException {
+		DataInputStream tables = new DataInputStream(garbledTables);
+		byte[] keys = newKeyArray(gates.getNumberOfWires());
+		
+		for (int party = 1; party <= gates.getNumberOfParties(); party++){
+			for (int w : getInputWireIndices(gates, party)){
+				GarbledWire input = inputs.get(w);
+				if (input == null){
+					throw new NotAllInputsSetException();
+				}
+				System.arraycopy(input.getValueAndSignalBit().getEncoded(), 0, keys, w * keySize, keySize);
+			}
+		}
+		
+		byte[] table = new byte[8 * keySize];
+		try {
+			while (gates.hasNext()){
+				Gate gate = gates.next();
+				int[] inputWires = gate.getInputWireIndices();
+				int[] outputWires = gate.getOutputWireIndices();
+				int output = outputWires[0];
+				
+				switch (getGateKind(gate)){
+				case XOR:
+				case XNOR:
+					xorKeys(keys, inputWires, output, null);
+					break;
+				case IDENTITY:
+				case NOT:
+					System.arraycopy(keys, inputWires[0] * keySize, keys, output * keySize, keySize);
+					break;
+				default:
+					tables.readFully(table, 0, (1 << inputWires.length) * keySize);
+					computeStandardGate(gate, keys, table);
+				}
+				
+				for (int i = 1; i < outputWires.length; i++){
+					System.arraycopy(keys, output * keySize, keys, outputWires[i] * keySize, keySize);
+				}
+			}
+		} catch (InvalidKeyException e) {
+			// Should not occur since the keys were given in the size of the encryption scheme.
+		} catch (IllegalBlockSizeException e) {
+			// Should not occur since the keys were given in the size of the encryption scheme.
+		} catch (CiphertextTooLongException e) {
+			// Should not occur since the ciphertexts are in the size of the encryption scheme.
+		}
+		
+		Map<Integer, GarbledWire> outputs = new HashMap<Integer, GarbledWire>();
+		for (int w : gates.getOutputWireIndices()){
+			outputs.put(w, new GarbledWire(new SecretKeySpec(keys, w * keySize, keySize, "")));
+		}
+		return outputs;
+	}
+	
+	/**
+	 * Translates the garbled output using the given translation table.
+	 * @param garbledOutput The garbled output wires, as returned from the compute function.
+	 * @param translationTable The signal bits of the output wires, as returned from the garble function.
+	 * @return the translated output wires.
+	 */
+	public static Map<Integer, Wire> translate(Map<Integer, GarbledWire> garbledOutput, Map<Integer, Byte> translationTable){
+		Map<Integer, Wire> translatedOutput = new HashMap<Integer, Wire>();
+		for (Map.Entry<Integer, Byte> entry : translationTable.entrySet()){
+			byte value = (byte) (entry.getValue() ^ garbledOutput.get(entry.getKey()).getSignalBit());
+			translatedOutput.put(entry.getKey(), new Wire(value));
+		}
+		return translatedOutput;
+	}
+	
+	/**
+	 * Creates the garbled table of a standard gate, in the format of {@link StandardGarbledGate}.
+	 * @return the size of the table in bytes.
+	 */
+	private int garbleStandardGate(Gate gate, byte[] zeroKeys, byte[] globalKeyOffset, byte[] table) 
+			throws InvalidKeyException, IllegalBlockSizeException, PlaintextTooLongException {
+		int[] inputWires = gate.getInputWireIndices();
+		int numberOfInputs = inputWires.length;
+		int numberOfRows = 1 << numberOfInputs;
+		int output = gate.getOutputWireIndices()[0];
+		BitSet truthTable = gate.getTruthTable();
+		
+		for (int row = 0; row < numberOfRows; row++){
+			ByteBuffer tweak = ByteBuffer.allocate(16);
+			tweak.putInt(gate.getGateNumber());
+			int permutedPosition = 0;
+			SecretKey[] keysToEncryptOn = new SecretKey[numberOfInputs];
+			//The first input wire is the most significant bit of the row.
+			for (int i = 0; i < numberOfInputs; i++){
+				int input = (row >> (numberOfInputs - 1 - i)) & 1;
+				int signalBit = zeroKeys[(inputWires[i] + 1) * keySize - 1] & 1;
+				permutedPosition |= (input ^ signalBit) << (numberOfInputs - 1 - i);
+				keysToEncryptOn[i] = getKey(zeroKeys, inputWires[i], input == 1 ? globalKeyOffset : null);
+				tweak.putInt(input ^ signalBit);
+			}
+			mes.setKey(mes.generateMultiKey(keysToEncryptOn));
+			mes.setTweak(tweak.array());
+			
+			SecretKey outputKey = getKey(zeroKeys, output, truthTable.get(row) ? globalKeyOffset : null);
+			try {
+				System.arraycopy(mes.encrypt(outputKey.getEncoded()), 0, table, permutedPosition * keySize, keySize);
+			} catch (KeyNotSetException e) {
+				// Should not occur since the encryption has a key.
+			} catch (TweakNotSetException e) {
+				// Should not occur since the encryption has a tweak.
+			}
+		}
+		return numberOfRows * keySize;
+	}
+	
+	/**
+	 * Decrypts the row of the given garbled table that is pointed by the signal bits of the input keys.
+	 */
+	private void computeStandardGate(Gate gate, byte[] keys, byte[] table) 
+			throws InvalidKeyException, IllegalBlockSizeException, CiphertextTooLongException {
+		int[] inputWires = gate.getInputWireIndices();
+		int numberOfInputs = inputWires.length;
+		
+		ByteBuffer tweak = ByteBuffer.allocate(16);
+		tweak.putInt(gate.getGateNumber());
+		int row = 0;
+		SecretKey[] keysToDecryptOn = new SecretKey[numberOfInputs];
+		for (int i = 0; i < numberOfInputs; i++){
+			int signalBit = keys[(inputWires[i] + 1) * keySize - 1] & 1;
+			row = (row << 1) | signalBit;
+			keysToDecryptOn[i] = getKey(keys, inputWires[i], null);
+			tweak.putInt(signalBit);
+		}
+		mes.setKey(mes.generateMultiKey(keysToDecryptOn));
+		mes.setTweak(tweak.array());
+		
+		byte[] ciphertext = new byte[keySize];
+		System.arraycopy(table, row * keySize, ciphertext, 0, keySize);
+		try {
+			System.arraycopy(mes.decrypt(ciphertext), 0, keys, gate.getOutputWireIndices()[0] * keySize, keySize);
+		} catch (KeyNotSetException e) {
+			// Should not occur since the key was set.
+		} catch (TweakNotSetException e) {
+			// Should not occur since the tweak was set.
+		}
+	}
+	
+	/**
+	 * Sets the key of the output wire to the XOR of the keys of the input wires, and of the offset if it is not null.
+	 */
+	private void xorKeys(byte[] keys, int[] inputWires, int output, byte[] offset){
+		byte[] result = new byte[keySize];
+		if (offset != null){
+			System.arraycopy(offset, 0, result, 0, keySize);
+		}
+		for (int w : inputWires){
+			int start = w * keySize;
+			for (int i = 0; i < keySize; i++){
+				result[i] ^= keys[start + i];
+			}
+		}
+		System.arraycopy(result, 0, keys, output * keySize, keySize);
+	}
+	
+	/**
+	 * Returns an array that holds a single key for each of the given number of wires.
+	 * @throws IllegalArgumentException if the keys do not fit in a single array.
+	 */
+	private byte[] newKeyArray(int numberOfWires){
+		long size = (long) numberOfWires * keySize;
+		if (size > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("the keys of " + numberOfWires + " wires take " + size + 
+					" bytes, which is more than the maximal array size");
+		}
+		return new byte[(int) size];
+	}
+	
+	/**
+	 * Returns the key of the given wire, XORed with the offset if it is not null.
+	 */
+	private SecretKey getKey(byte[] keys, int wire, byte[] offset){
+		byte[] key = new byte[keySize];
+		System.arraycopy(keys, wire * keySize, key, 0, keySize);
+		if (offset != null){
+			for (int i = 0; i < keySize; i++){
+				key[i] ^= offset[i];
+			}
+		}
+		return new SecretKeySpec(key, "");
+	}
+	
+	private SecretKey[] getBothKeys(byte[] zeroKeys, int wire, byte[] globalKeyOffset){
+		return new SecretKey[] { getKey(zeroKeys, wire, null), getKey(zeroKeys, wire, globalKeyOffset) };
+	}
+	
+	private static int[] getInputWireIndices(GateIterator gates, int party){
+		try {
+			return gates.getInputWireIndices(party);
+		} catch (NoSuchPartyException e) {
+			// Should not occur since the party numbers are between 1 and the number of parties.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * The kinds of gates that are treated differently by the Free XOR garbling.
+	 */
+	private enum GateKind { XOR, XNOR, NOT, IDENTITY, STANDARD }
+	
+	private static GateKind getGateKind(Gate gate) throws CircuitFileFormatException {
+		int numberOfInputs = gate.getInputWireIndices().length;
+		BitSet truthTable = gate.getTruthTable();
+		if (numberOfInputs == 2){
+			if (truthTable.cardinality() == 2 && truthTable.get(1) && truthTable.get(2)){
+				return GateKind.XOR;
+			}
+			if (truthTable.cardinality() == 2 && truthTable.get(0) && truthTable.get(3)){
+				return GateKind.XNOR;
+			}
+		} else if (numberOfInputs == 1){
+			if (truthTable.cardinality() == 1 && truthTable.get(0)){
+				return GateKind.NOT;
+			}
+			if (truthTable.cardinality() == 1 && truthTable.get(1)){
+				return GateKind.IDENTITY;
+			}
+		} else if (numberOfInputs == 0 || numberOfInputs > 3){
+			//The tweak holds the gate number and a signal bit per input, so at most three inputs are supported.
+			throw new CircuitFileFormatException("gates with " + numberOfInputs + " inputs are not supported");
+		}
+		return GateKind.STANDARD;
+	}
+}
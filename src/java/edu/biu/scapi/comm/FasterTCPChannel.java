@@ -14,6 +14,8 @@ import java.net.Socket;
 import java.util.logging.Level;
 
 import edu.biu.scapi.generals.Logging;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 public class FasterTCPChannel extends PlainChannel {
 	
@@ -71,42 +73,54 @@ public class FasterTCPChannel extends PlainChannel {
 
 	@Override
 	public void send(Serializable data) throws IOException {
-		byte[] msgBytes = null;
+		Span span = Metrics.getRecorder().startSpan("channel.send");
+		try {
+			byte[] msgBytes = null;
 		
-		if (!(data instanceof FasterMessage)) {
-			ByteArrayOutputStream bOut = new ByteArrayOutputStream();
-		    ObjectOutputStream oOut  = new ObjectOutputStream(bOut);
-			oOut.writeObject(data);
-			oOut.close();
-			msgBytes = bOut.toByteArray();
-			outStream.writeBoolean(false); // is not faster
-		} else {
-			FasterMessage msg = (FasterMessage) data;
-			msgBytes = msg.getData();
-			outStream.writeBoolean(true); // is faster
+			if (!(data instanceof FasterMessage)) {
+				ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+			    ObjectOutputStream oOut  = new ObjectOutputStream(bOut);
+				oOut.writeObject(data);
+				oOut.close();
+				msgBytes = bOut.toByteArray();
+				outStream.writeBoolean(false); // is not faster
+			} else {
+				FasterMessage msg = (FasterMessage) data;
+				msgBytes = msg.getData();
+				outStream.writeBoolean(true); // is faster
+			}
+			Metrics.getRecorder().recordValue("channel.send.bytes", msgBytes.length);
+			outStream.writeInt(msgBytes.length);
+			outStream.write(msgBytes);
+		} finally {
+			span.end();
 		}
-		outStream.writeInt(msgBytes.length);
-		outStream.write(msgBytes);
 	}
 
 	@Override
 	public Serializable receive() throws ClassNotFoundException, IOException {
-		boolean isFaster = inStream.readBoolean();
-		int msgSize = inStream.readInt();
-		byte[] msg = new byte[msgSize];
-		int bytesRead = inStream.read(msg, 0, msgSize);
+		Span span = Metrics.getRecorder().startSpan("channel.receive");
+		try {
+			boolean isFaster = inStream.readBoolean();
+			int msgSize = inStream.readInt();
+			byte[] msg = new byte[msgSize];
+			int bytesRead = inStream.read(msg, 0, msgSize);
 		
-		if (bytesRead < msgSize) {
-			throw new IOException("did not read all bytes...");
-		}
+			if (bytesRead < msgSize) {
+				throw new IOException("did not read all bytes...");
+			}
+			Metrics.getRecorder().recordValue("channel.receive.bytes", msgSize);
 		
-		if (isFaster) {
-			return new FasterMessage(msg);
-		}
+			if (isFaster) {
+				return new FasterMessage(msg);
+			}
 		
-		ByteArrayInputStream iInput = new ByteArrayInputStream(msg);
-		ObjectInputStream ois = new ObjectInputStream(iInput);
-		return (Serializable) ois.readObject();
+			ByteArrayInputStream iInput = new ByteArrayInputStream(msg);
+			ObjectInputStream ois = new ObjectInputStream(iInput);
+			return (Serializable) ois.readObject();
+		} finally {
+			span.end();
+		}
 	}
 	
 	/**
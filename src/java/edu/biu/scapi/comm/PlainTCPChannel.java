@@ -40,6 +40,8 @@ import java.util.Arrays;
 import java.util.logging.Level;
 
 import edu.biu.scapi.generals.Logging;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /** 
  * This class represents a concrete channel in the Decorator Pattern used to create Channels. This channel ensures TCP type of communication.
@@ -112,25 +114,31 @@ public class PlainTCPChannel extends PlainChannel{
 	 * @throws IOException Any of the usual Input/Output related exceptions.  
 	 */
 	public void send(Serializable msg) throws IOException {
-		//For some reason it turns out that writing complex objects first to a byte array message is faster than using the stream
-		//of the socket to write the object. Thus we create here a Message object and translate it back to the actual object in the receive method
-		//The use of a local stream that does the writeObject is faster than the writeObject of outStream member variable of this class
+		Span span = Metrics.getRecorder().startSpan("channel.send");
+		try {
+			//For some reason it turns out that writing complex objects first to a byte array message is faster than using the stream
+			//of the socket to write the object. Thus we create here a Message object and translate it back to the actual object in the receive method
+			//The use of a local stream that does the writeObject is faster than the writeObject of outStream member variable of this class
 				
-		ByteArrayOutputStream bOut = new ByteArrayOutputStream();  
-	    ObjectOutputStream oOut  = new ObjectOutputStream(bOut);
-		oOut.writeObject(msg);  
-		oOut.close();
+			ByteArrayOutputStream bOut = new ByteArrayOutputStream();  
+		    ObjectOutputStream oOut  = new ObjectOutputStream(bOut);
+			oOut.writeObject(msg);  
+			oOut.close();
 		
-		msgBytes = bOut.toByteArray();
-		msgObj = new Message(null);
-		msgObj.setData(msgBytes);
+			msgBytes = bOut.toByteArray();
+			msgObj = new Message(null);
+			msgObj.setData(msgBytes);
+			Metrics.getRecorder().recordValue("channel.send.bytes", msgBytes.length);
 		
-		outStream.writeObject(msgObj);
+			outStream.writeObject(msgObj);
 		
-		outStream.reset();
-		//System.out.println("Sending " + msg.getClass().getName());
+			outStream.reset();
+			//System.out.println("Sending " + msg.getClass().getName());
 		
-		//outStream.writeObject(msg);
+			//outStream.writeObject(msg);
+		} finally {
+			span.end();
+		}
 	}
 
 	/** 
@@ -140,18 +148,21 @@ public class PlainTCPChannel extends PlainChannel{
 	 * @throws IOException Any of the usual Input/Output related exceptions
 	 */
 	public Serializable receive() throws ClassNotFoundException, IOException {
+		Span span = Metrics.getRecorder().startSpan("channel.receive");
+		try {
+			//We actually received a message of class Message. We translate it back to the original object that was sent by the user and return this object. 
+			intermediate =   (Message) inStream.readObject();
+			Metrics.getRecorder().recordValue("channel.receive.bytes", intermediate.getData().length);
+			ByteArrayInputStream iInput = new ByteArrayInputStream(intermediate.getData());
+			ObjectInputStream ois = new ObjectInputStream(iInput);
 		
-
-
-		//We actually received a message of class Message. We translate it back to the original object that was sent by the user and return this object. 
-		intermediate =   (Message) inStream.readObject();
-		ByteArrayInputStream iInput = new ByteArrayInputStream(intermediate.getData());
-		ObjectInputStream ois = new ObjectInputStream(iInput);
-		
-		return (Serializable) ois.readObject();
+			return (Serializable) ois.readObject();
 		
 		
-		//return (Serializable) inStream.readObject();
+			//return (Serializable) inStream.readObject();
+		} finally {
+			span.end();
+		}
 	}
 
 	/**
@@ -34,4 +34,12 @@ public class CircuitFileFormatException extends Exception implements
    */
   private static final long serialVersionUID = 1L;
 
+  public CircuitFileFormatException() {
+    super();
+  }
+
+  public CircuitFileFormatException(String msg) {
+    super(msg);
+  }
+
 }
@@ -52,6 +52,8 @@ import edu.biu.scapi.midLayer.ciphertext.AsymmetricCiphertext;
 import edu.biu.scapi.midLayer.ciphertext.ElGamalCiphertextSendableData;
 import edu.biu.scapi.primitives.dlog.DlogGroup;
 import edu.biu.scapi.securityLevel.DDH;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This abstract class performs all the core functionality of the committer side of 
@@ -191,18 +193,21 @@ public abstract class CmtElGamalCommitterCore implements CmtCommitter {
 	 *	SEND c = (h,u,v) to R".
 	 */
 	public void commit(CmtCommitValue input, long id) throws IOException {
-		
-		//Generate the commitment object
-		CmtCCommitmentMsg c = generateCommitmentMsg(input, id);
-		
+		Span span = Metrics.getRecorder().startSpan("commitment.commit");
 		try {
-			//Send the message by the channel.
-			channel.send(c);
-		} catch (IOException e) {
-			commitmentMap.remove(Long.valueOf(id));
-			throw new IOException("failed to send the commitment. The error is: " + e.getMessage());
-		}	
+			//Generate the commitment object
+			CmtCCommitmentMsg c = generateCommitmentMsg(input, id);
 		
+			try {
+				//Send the message by the channel.
+				channel.send(c);
+			} catch (IOException e) {
+				commitmentMap.remove(Long.valueOf(id));
+				throw new IOException("failed to send the commitment. The error is: " + e.getMessage());
+			}
+		} finally {
+			span.end();
+		}
 	}
 	
 	@Override
@@ -220,13 +225,17 @@ public abstract class CmtElGamalCommitterCore implements CmtCommitter {
 	 *	OUTPUT nothing"
 	 */
 	public void decommit(long id) throws IOException {
-
-		CmtCDecommitmentMessage msg = generateDecommitmentMsg(id);
-		try{
-			channel.send(msg);
-		}
-		catch (IOException e) {
-			throw new IOException("failed to send the message. The error is: " + e.getMessage());
+		Span span = Metrics.getRecorder().startSpan("commitment.decommit");
+		try {
+			CmtCDecommitmentMessage msg = generateDecommitmentMsg(id);
+			try{
+				channel.send(msg);
+			}
+			catch (IOException e) {
+				throw new IOException("failed to send the message. The error is: " + e.getMessage());
+			}
+		} finally {
+			span.end();
 		}
 	}	
 
@@ -45,6 +45,8 @@ import edu.biu.scapi.midLayer.asymmetricCrypto.keys.ScElGamalPublicKey.ScElGamal
 import edu.biu.scapi.primitives.dlog.DlogGroup;
 import edu.biu.scapi.primitives.dlog.GroupElement;
 import edu.biu.scapi.securityLevel.DDH;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This abstract class performs all the core functionality of the receiver side of 
@@ -165,17 +167,22 @@ public abstract class CmtElGamalReceiverCore implements CmtReceiver{
 	 * @throws IOException  if there was a problem during communication phase
 	 */
 	public CmtRCommitPhaseOutput receiveCommitment() throws ClassNotFoundException, IOException {
-		 CmtElGamalCommitmentMessage msg = null;
-		try{
-			msg = (CmtElGamalCommitmentMessage) channel.receive();
-		} catch (ClassNotFoundException e) {
-			throw new ClassNotFoundException("Failed to receive commitment. The error is: " + e.getMessage());
-		} catch (IOException e) {
-			throw new IOException("Failed to receive commitment. The error is: " + e.getMessage());
-		}
+		Span span = Metrics.getRecorder().startSpan("commitment.receiveCommitment");
+		try {
+			 CmtElGamalCommitmentMessage msg = null;
+			try{
+				msg = (CmtElGamalCommitmentMessage) channel.receive();
+			} catch (ClassNotFoundException e) {
+				throw new ClassNotFoundException("Failed to receive commitment. The error is: " + e.getMessage());
+			} catch (IOException e) {
+				throw new IOException("Failed to receive commitment. The error is: " + e.getMessage());
+			}
 
-		commitmentMap.put(Long.valueOf(msg.getId()), msg);
-		return new CmtRBasicCommitPhaseOutput(msg.getId());
+			commitmentMap.put(Long.valueOf(msg.getId()), msg);
+			return new CmtRBasicCommitPhaseOutput(msg.getId());
+		} finally {
+			span.end();
+		}
 	}
 
 	/**
@@ -197,21 +204,26 @@ public abstract class CmtElGamalReceiverCore implements CmtReceiver{
 	 * @throws IllegalArgumentException
 	 */
 	public CmtCommitValue receiveDecommitment(long id) throws ClassNotFoundException, IOException, IllegalArgumentException {
-		Serializable message = null;
+		Span span = Metrics.getRecorder().startSpan("commitment.receiveDecommitment");
 		try {
-			message =  channel.receive();
+			Serializable message = null;
+			try {
+				message =  channel.receive();
 
-		} catch (ClassNotFoundException e) {
-			throw new ClassNotFoundException("Failed to receive decommitment. The error is: " + e.getMessage());
-		} catch (IOException e) {
-			throw new IOException("Failed to receive decommitment. The error is: " + e.getMessage());
-		}
-		if (!(message instanceof CmtElGamalDecommitmentMessage)){
-			throw new IllegalArgumentException("the received message is not an instance of CmtElGamalDecommitmentMessage");
-		}
-		CmtElGamalCommitmentMessage receivedCommitment = commitmentMap.get(Long.valueOf(id));
+			} catch (ClassNotFoundException e) {
+				throw new ClassNotFoundException("Failed to receive decommitment. The error is: " + e.getMessage());
+			} catch (IOException e) {
+				throw new IOException("Failed to receive decommitment. The error is: " + e.getMessage());
+			}
+			if (!(message instanceof CmtElGamalDecommitmentMessage)){
+				throw new IllegalArgumentException("the received message is not an instance of CmtElGamalDecommitmentMessage");
+			}
+			CmtElGamalCommitmentMessage receivedCommitment = commitmentMap.get(Long.valueOf(id));
 		
-		return verifyDecommitment(receivedCommitment, (CmtElGamalDecommitmentMessage) message);
+			return verifyDecommitment(receivedCommitment, (CmtElGamalDecommitmentMessage) message);
+		} finally {
+			span.end();
+		}
 	}
 	
 	@Override
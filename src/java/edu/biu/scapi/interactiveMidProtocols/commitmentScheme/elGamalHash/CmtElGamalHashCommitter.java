@@ -51,6 +51,8 @@ import edu.biu.scapi.primitives.hash.openSSL.OpenSSLSHA256;
 import edu.biu.scapi.primitives.kdf.HKDF;
 import edu.biu.scapi.primitives.prf.bc.BcHMAC;
 import edu.biu.scapi.securityLevel.SecureCommit;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This class implements the committer side of the ElGamal hash commitment. <p>
@@ -183,13 +185,17 @@ public class CmtElGamalHashCommitter extends CmtElGamalCommitterCore implements
 	 * Sends x to the receiver.
 	 */
 	public void decommit(long id) throws IOException {
-		
-		CmtCDecommitmentMessage msg = generateDecommitmentMsg(id);
-		try{
-			channel.send(msg);
-		}
-		catch (IOException e) {
-			throw new IOException("failed to send the message. The error is: " + e.getMessage());
+		Span span = Metrics.getRecorder().startSpan("commitment.decommit");
+		try {
+			CmtCDecommitmentMessage msg = generateDecommitmentMsg(id);
+			try{
+				channel.send(msg);
+			}
+			catch (IOException e) {
+				throw new IOException("failed to send the message. The error is: " + e.getMessage());
+			}
+		} finally {
+			span.end();
 		}
 	}
 
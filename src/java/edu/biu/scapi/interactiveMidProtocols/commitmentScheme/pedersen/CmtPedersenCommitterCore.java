@@ -49,6 +49,8 @@ import edu.biu.scapi.primitives.dlog.DlogGroup;
 import edu.biu.scapi.primitives.dlog.GroupElement;
 import edu.biu.scapi.securityLevel.DDH;
 import edu.biu.scapi.tools.Factories.DlogGroupFactory;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This abstract class performs all the core functionality of the committer side of Pedersen commitment. <p>
@@ -200,16 +202,19 @@ public abstract class CmtPedersenCommitterCore implements CmtCommitter{
 	 * @see edu.biu.scapi.interactiveMidProtocols.commitmentScheme.CmtCommitter#commit(edu.biu.scapi.interactiveMidProtocols.commitmentScheme.CmtCommitValue, long)
 	 */
 	public void  commit(CmtCommitValue in, long id) throws IOException, IllegalArgumentException {
-		
-		CmtCCommitmentMsg msg = generateCommitmentMsg(in, id);
+		Span span = Metrics.getRecorder().startSpan("commitment.commit");
 		try {
-			//Send the message by the channel.
-			channel.send(msg);
-		} catch (IOException e) {
-			commitmentMap.remove(Long.valueOf(id));
-			throw new IOException("failed to send the message. The error is: " + e.getMessage());
-		}	
-		
+			CmtCCommitmentMsg msg = generateCommitmentMsg(in, id);
+			try {
+				//Send the message by the channel.
+				channel.send(msg);
+			} catch (IOException e) {
+				commitmentMap.remove(Long.valueOf(id));
+				throw new IOException("failed to send the message. The error is: " + e.getMessage());
+			}
+		} finally {
+			span.end();
+		}
 	}
 
 	@Override
@@ -227,15 +232,19 @@ public abstract class CmtPedersenCommitterCore implements CmtCommitter{
 	 *	OUTPUT nothing."
 	 */
 	public void decommit(long id) throws IOException {
+		Span span = Metrics.getRecorder().startSpan("commitment.decommit");
+		try {
+			//fetch the commitment according to the requested ID
+			CmtCDecommitmentMessage msg = generateDecommitmentMsg(id);
 		
-		//fetch the commitment according to the requested ID
-		CmtCDecommitmentMessage msg = generateDecommitmentMsg(id);
-		
-		try{
-			channel.send(msg);
-		}
-		catch (IOException e) {
-			throw new IOException("failed to send the message. The error is: " + e.getMessage());
+			try{
+				channel.send(msg);
+			}
+			catch (IOException e) {
+				throw new IOException("failed to send the message. The error is: " + e.getMessage());
+			}
+		} finally {
+			span.end();
 		}
 	}	
 
@@ -48,6 +48,8 @@ import edu.biu.scapi.primitives.dlog.DlogGroup;
 import edu.biu.scapi.primitives.dlog.GroupElement;
 import edu.biu.scapi.securityLevel.DDH;
 import edu.biu.scapi.tools.Factories.DlogGroupFactory;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /*
  * This abstract class performs all the core functionality of the receiver side of Pedersen commitment. 
@@ -177,22 +179,27 @@ public abstract class CmtPedersenReceiverCore implements CmtReceiver{
 	 *  STORE values (h,c)".
 	 */
 	public CmtRBasicCommitPhaseOutput receiveCommitment() throws ClassNotFoundException, IOException {
-		Serializable message = null;
-		try{
-			message = channel.receive();
-		} catch (ClassNotFoundException e) {
-			throw new ClassNotFoundException("Failed to receive commitment. The error is: " + e.getMessage());
-		} catch (IOException e) {
-			throw new IOException("Failed to receive commitment. The error is: " + e.getMessage());
-		}
+		Span span = Metrics.getRecorder().startSpan("commitment.receiveCommitment");
+		try {
+			Serializable message = null;
+			try{
+				message = channel.receive();
+			} catch (ClassNotFoundException e) {
+				throw new ClassNotFoundException("Failed to receive commitment. The error is: " + e.getMessage());
+			} catch (IOException e) {
+				throw new IOException("Failed to receive commitment. The error is: " + e.getMessage());
+			}
 
-		if (!(message instanceof CmtPedersenCommitmentMessage)){
-			throw new IllegalArgumentException("The received message should be an instance of CmtPedersenCommitmentMessage");
-		}
-		CmtPedersenCommitmentMessage msg = (CmtPedersenCommitmentMessage) message;
+			if (!(message instanceof CmtPedersenCommitmentMessage)){
+				throw new IllegalArgumentException("The received message should be an instance of CmtPedersenCommitmentMessage");
+			}
+			CmtPedersenCommitmentMessage msg = (CmtPedersenCommitmentMessage) message;
 		
-		commitmentMap.put(Long.valueOf(msg.getId()), msg);
-		return new CmtRBasicCommitPhaseOutput(msg.getId());
+			commitmentMap.put(Long.valueOf(msg.getId()), msg);
+			return new CmtRBasicCommitPhaseOutput(msg.getId());
+		} finally {
+			span.end();
+		}
 	}
 
 	/**
@@ -202,22 +209,26 @@ public abstract class CmtPedersenReceiverCore implements CmtReceiver{
 	 * 
 	 */
 	public CmtCommitValue receiveDecommitment(long id) throws ClassNotFoundException, IOException {
-		CmtPedersenDecommitmentMessage message = null;
+		Span span = Metrics.getRecorder().startSpan("commitment.receiveDecommitment");
 		try {
-			message = (CmtPedersenDecommitmentMessage) channel.receive();
+			CmtPedersenDecommitmentMessage message = null;
+			try {
+				message = (CmtPedersenDecommitmentMessage) channel.receive();
 
-		} catch (ClassNotFoundException e) {
-			throw new ClassNotFoundException("Failed to receive decommitment. The error is: " + e.getMessage());
-		} catch (IOException e) {
-			throw new IOException("Failed to receive decommitment. The error is: " + e.getMessage());
-		}
-		if (!(message instanceof CmtPedersenDecommitmentMessage)){
-			throw new IllegalArgumentException("The received message should be an instance of CmtPedersenDecommitmentMessage");
-		}
-		CmtPedersenDecommitmentMessage msg = (CmtPedersenDecommitmentMessage) message;
+			} catch (ClassNotFoundException e) {
+				throw new ClassNotFoundException("Failed to receive decommitment. The error is: " + e.getMessage());
+			} catch (IOException e) {
+				throw new IOException("Failed to receive decommitment. The error is: " + e.getMessage());
+			}
+			if (!(message instanceof CmtPedersenDecommitmentMessage)){
+				throw new IllegalArgumentException("The received message should be an instance of CmtPedersenDecommitmentMessage");
+			}
 		
-		CmtPedersenCommitmentMessage receivedCommitment = commitmentMap.get(Long.valueOf(id));
-		return verifyDecommitment(receivedCommitment, msg);
+			CmtPedersenCommitmentMessage receivedCommitment = commitmentMap.get(Long.valueOf(id));
+			return verifyDecommitment(receivedCommitment, message);
+		} finally {
+			span.end();
+		}
 	}
 	
 	/**
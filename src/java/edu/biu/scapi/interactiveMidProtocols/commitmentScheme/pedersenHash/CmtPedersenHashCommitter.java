@@ -50,6 +50,8 @@ import edu.biu.scapi.primitives.dlog.DlogGroup;
 import edu.biu.scapi.primitives.hash.CryptographicHash;
 import edu.biu.scapi.primitives.hash.openSSL.OpenSSLSHA224;
 import edu.biu.scapi.securityLevel.PerfectlyHidingCmt;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * Concrete implementation of committer that executes the Pedersen hash commitment 
@@ -160,13 +162,17 @@ public class CmtPedersenHashCommitter extends CmtPedersenCommitterCore implement
 	 */
 	@Override
 	public void decommit(long id) throws IOException {
-
-		CmtCDecommitmentMessage msg = generateDecommitmentMsg(id);
-		try{
-			channel.send(msg);
-		}
-		catch (IOException e) {
-			throw new IOException("failed to send the message. The error is: " + e.getMessage());
+		Span span = Metrics.getRecorder().startSpan("commitment.decommit");
+		try {
+			CmtCDecommitmentMessage msg = generateDecommitmentMsg(id);
+			try{
+				channel.send(msg);
+			}
+			catch (IOException e) {
+				throw new IOException("failed to send the message. The error is: " + e.getMessage());
+			}
+		} finally {
+			span.end();
 		}
 	}
 
@@ -41,6 +41,8 @@ import edu.biu.scapi.interactiveMidProtocols.commitmentScheme.CmtCommitmentPhase
 import edu.biu.scapi.primitives.hash.CryptographicHash;
 import edu.biu.scapi.primitives.hash.openSSL.OpenSSLSHA256;
 import edu.biu.scapi.securityLevel.SecureCommit;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This class implements the committer side of Simple Hash commitment.<p>
@@ -136,15 +138,19 @@ public class CmtSimpleHashCommitter implements CmtCommitter, SecureCommit {
 	 * @see edu.biu.scapi.interactiveMidProtocols.commitmentScheme.CmtCommitter#commit(edu.biu.scapi.interactiveMidProtocols.commitmentScheme.CmtCommitValue, long)
 	 */
 	public void commit(CmtCommitValue input, long id) throws IOException {
-		
-		CmtCCommitmentMsg msg = generateCommitmentMsg(input, id);
+		Span span = Metrics.getRecorder().startSpan("commitment.commit");
 		try {
-			//Send the message by the channel.
-			channel.send(msg);
-		} catch (IOException e) {
-			commitmentMap.remove(Long.valueOf(id));
-			throw new IOException("failed to send the message. The error is: " + e.getMessage());
-		}	
+			CmtCCommitmentMsg msg = generateCommitmentMsg(input, id);
+			try {
+				//Send the message by the channel.
+				channel.send(msg);
+			} catch (IOException e) {
+				commitmentMap.remove(Long.valueOf(id));
+				throw new IOException("failed to send the message. The error is: " + e.getMessage());
+			}
+		} finally {
+			span.end();
+		}
 	}
 
 	/**
@@ -181,15 +187,18 @@ public class CmtSimpleHashCommitter implements CmtCommitter, SecureCommit {
 	 *	OUTPUT nothing."
 	 */
 	public void decommit(long id) throws IOException {
-		
-		CmtCDecommitmentMessage msg = generateDecommitmentMsg(id);
-		try{
-			channel.send(msg);
-		}
-		catch (IOException e) {
-			throw new IOException("failed to send the message. The error is: " + e.getMessage());
+		Span span = Metrics.getRecorder().startSpan("commitment.decommit");
+		try {
+			CmtCDecommitmentMessage msg = generateDecommitmentMsg(id);
+			try{
+				channel.send(msg);
+			}
+			catch (IOException e) {
+				throw new IOException("failed to send the message. The error is: " + e.getMessage());
+			}
+		} finally {
+			span.end();
 		}
-	
 	}	
 
 	/**
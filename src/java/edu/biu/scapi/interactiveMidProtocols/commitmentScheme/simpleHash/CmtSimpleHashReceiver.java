@@ -41,6 +41,8 @@ import edu.biu.scapi.interactiveMidProtocols.commitmentScheme.CmtRCommitPhaseOut
 import edu.biu.scapi.primitives.hash.CryptographicHash;
 import edu.biu.scapi.primitives.hash.openSSL.OpenSSLSHA256;
 import edu.biu.scapi.securityLevel.SecureCommit;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This class implements the receiver side of Simple Hash commitment.<p>
@@ -110,21 +112,26 @@ public class CmtSimpleHashReceiver implements CmtReceiver, SecureCommit {
 	 *	STORE c".
 	 */
 	public CmtRCommitPhaseOutput receiveCommitment() throws ClassNotFoundException, IOException {
-		Serializable message = null;
-		try{
-			message = channel.receive();
-		} catch (ClassNotFoundException e) {
-			throw new ClassNotFoundException("Failed to receive commitment. The error is: " + e.getMessage());
-		} catch (IOException e) {
-			throw new IOException("Failed to receive commitment. The error is: " + e.getMessage());
-		}
-		if (!(message instanceof CmtSimpleHashCommitmentMessage)){
-			throw new IllegalArgumentException("the received message is not an instance of CmtSimpleHashCommitmentMessage");
-		}
+		Span span = Metrics.getRecorder().startSpan("commitment.receiveCommitment");
+		try {
+			Serializable message = null;
+			try{
+				message = channel.receive();
+			} catch (ClassNotFoundException e) {
+				throw new ClassNotFoundException("Failed to receive commitment. The error is: " + e.getMessage());
+			} catch (IOException e) {
+				throw new IOException("Failed to receive commitment. The error is: " + e.getMessage());
+			}
+			if (!(message instanceof CmtSimpleHashCommitmentMessage)){
+				throw new IllegalArgumentException("the received message is not an instance of CmtSimpleHashCommitmentMessage");
+			}
 		
-		CmtSimpleHashCommitmentMessage msg = (CmtSimpleHashCommitmentMessage) message;
-		commitmentMap.put(Long.valueOf(msg.getId()), msg);
-		return new CmtRBasicCommitPhaseOutput(msg.getId());
+			CmtSimpleHashCommitmentMessage msg = (CmtSimpleHashCommitmentMessage) message;
+			commitmentMap.put(Long.valueOf(msg.getId()), msg);
+			return new CmtRBasicCommitPhaseOutput(msg.getId());
+		} finally {
+			span.end();
+		}
 	}
 
 	/**
@@ -138,26 +145,30 @@ public class CmtSimpleHashReceiver implements CmtReceiver, SecureCommit {
 	 *	  	OUTPUT ACC and value x".
 	 */
 	public CmtCommitValue receiveDecommitment(long id) throws ClassNotFoundException, IOException{
-		//Receive the message from the committer.
-		Serializable message = null;
+		Span span = Metrics.getRecorder().startSpan("commitment.receiveDecommitment");
 		try {
-			message = channel.receive();
+			//Receive the message from the committer.
+			Serializable message = null;
+			try {
+				message = channel.receive();
 
-		} catch (ClassNotFoundException e) {
-			throw new ClassNotFoundException("Failed to receive decommitment. The error is: " + e.getMessage());
-		} catch (IOException e) {
-			throw new IOException("Failed to receive decommitment. The error is: " + e.getMessage());
-		}
+			} catch (ClassNotFoundException e) {
+				throw new ClassNotFoundException("Failed to receive decommitment. The error is: " + e.getMessage());
+			} catch (IOException e) {
+				throw new IOException("Failed to receive decommitment. The error is: " + e.getMessage());
+			}
 		
-		if (!(message instanceof CmtCDecommitmentMessage)){
-			throw new IllegalArgumentException("the received message is not an instance of CmtCDecommitmentMessage");
-		}
+			if (!(message instanceof CmtCDecommitmentMessage)){
+				throw new IllegalArgumentException("the received message is not an instance of CmtCDecommitmentMessage");
+			}
 		
-		//Fetch received commitment according to ID
-		CmtSimpleHashCommitmentMessage receivedCommitment = commitmentMap.get(Long.valueOf(id));
+			//Fetch received commitment according to ID
+			CmtSimpleHashCommitmentMessage receivedCommitment = commitmentMap.get(Long.valueOf(id));
 				
-		return verifyDecommitment(receivedCommitment, (CmtCDecommitmentMessage)message);
-		
+			return verifyDecommitment(receivedCommitment, (CmtCDecommitmentMessage)message);
+		} finally {
+			span.end();
+		}
 	}
 	
 	public CmtCommitValue verifyDecommitment(CmtCCommitmentMsg commitmentMsg, CmtCDecommitmentMessage decommitmentMsg){
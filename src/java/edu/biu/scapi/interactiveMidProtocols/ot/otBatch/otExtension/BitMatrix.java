@@ -0,0 +1,142 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+/**
+ * Transposes the bit matrices of the OT extension. <p>
+ * The OT extension works on a matrix of 128 rows (one for each base OT) and one column for each OT. The matrix is created 
+ * row by row, but each OT needs its column, which is a string of 128 bits. <p>
+ * Bits are numbered from the least significant bit of the first byte: bit j of a row is bit (j mod 8) of byte j/8. 
+ * The matrix is transposed in blocks of 128x128 bits, each of which is loaded into 256 longs and transposed as four 64x64 
+ * blocks with masked swaps. This keeps each block in the cache, and writes the output sequentially.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+final class BitMatrix {
+	
+	static final int ROWS = 128;			//The number of rows of the matrix, which is the number of base OTs.
+	static final int ROW_BLOCK_SIZE = 16;	//The size in bytes of a column of the matrix.
+	
+	private static final long[] MASKS = {
+		0x00000000FFFFFFFFL, 0x0000FFFF0000FFFFL, 0x00FF00FF00FF00FFL,
+		0x0F0F0F0F0F0F0F0FL, 0x3333333333333333L, 0x5555555555555555L
+	};
+	
+	private BitMatrix() {}
+	
+	/**
+	 * Transposes a matrix of 128 rows.
+	 * @param matrix The rows of the matrix, one after the other.
+	 * @param rowSize The size in bytes of each row. Should be a multiple of 16.
+	 * @return the columns of the matrix, one after the other. Each column has 16 bytes.
+	 */
+	static byte[] transpose(byte[] matrix, int rowSize) {
+		if (rowSize % ROW_BLOCK_SIZE != 0 || matrix.length < ROWS * rowSize) {
+			throw new IllegalArgumentException("the matrix should have 128 rows whose size is a multiple of 16 bytes");
+		}
+		byte[] columns = new byte[rowSize * 8 * ROW_BLOCK_SIZE];
+		//The four 64x64 blocks of a 128x128 block: rows 0-63 / 64-127, columns 0-63 / 64-127.
+		long[] blocks = new long[4 * 64];
+		for (int block = 0; block < rowSize / ROW_BLOCK_SIZE; block++) {
+			int inputOffset = block * ROW_BLOCK_SIZE;
+			for (int i = 0; i < 64; i++) {
+				blocks[i] = getLong(matrix, i * rowSize + inputOffset);
+				blocks[64 + i] = getLong(matrix, i * rowSize + inputOffset + 8);
+				blocks[128 + i] = getLong(matrix, (64 + i) * rowSize + inputOffset);
+				blocks[192 + i] = getLong(matrix, (64 + i) * rowSize + inputOffset + 8);
+			}
+			for (int i = 0; i < 4; i++) {
+				transpose64(blocks, 64 * i);
+			}
+			//Column j < 64 is made of column j of the upper and lower left blocks, column 64 + j of the right blocks.
+			int outputOffset = block * ROWS * ROW_BLOCK_SIZE;
+			for (int j = 0; j < 64; j++) {
+				putLong(columns, outputOffset + j * ROW_BLOCK_SIZE, blocks[j]);
+				putLong(columns, outputOffset + j * ROW_BLOCK_SIZE + 8, blocks[128 + j]);
+				putLong(columns, outputOffset + (64 + j) * ROW_BLOCK_SIZE, blocks[64 + j]);
+				putLong(columns, outputOffset + (64 + j) * ROW_BLOCK_SIZE + 8, blocks[192 + j]);
+			}
+		}
+		return columns;
+	}
+	
+	/**
+	 * Transposes in place the 64x64 bit matrix held in the given 64 longs, where bit j of long i is the bit in row i and column j.
+	 */
+	private static void transpose64(long[] a, int offset) {
+		int width = 32;
+		for (int level = 0; level < MASKS.length; level++, width >>= 1) {
+			long mask = MASKS[level];
+			for (int k = 0; k < 64; k = ((k | width) + 1) & ~width) {
+				//Swaps the upper bits of row k with the lower bits of row k + width.
+				long t = ((a[offset + k] >>> width) ^ a[offset + k + width]) & mask;
+				a[offset + k + width] ^= t;
+				a[offset + k] ^= t << width;
+			}
+		}
+	}
+	
+	/**
+	 * Reads a little endian long, so that bit j of the long is bit j of the bytes.
+	 */
+	static long getLong(byte[] array, int offset) {
+		return (array[offset] & 0xFFL) | (array[offset + 1] & 0xFFL) << 8 | (array[offset + 2] & 0xFFL) << 16
+			| (array[offset + 3] & 0xFFL) << 24 | (array[offset + 4] & 0xFFL) << 32 | (array[offset + 5] & 0xFFL) << 40
+			| (array[offset + 6] & 0xFFL) << 48 | (array[offset + 7] & 0xFFL) << 56;
+	}
+	
+	/**
+	 * Writes a little endian long.
+	 */
+	static void putLong(byte[] array, int offset, long value) {
+		for (int i = 0; i < 8; i++) {
+			array[offset + i] = (byte) (value >>> (8 * i));
+		}
+	}
+	
+	/**
+	 * Packs the given bits, one bit per byte, into bytes. The size of the result is rounded up to the given size.
+	 * @param bits The bits, each of them 0 or 1.
+	 * @param size The size of the result in bytes.
+	 */
+	static byte[] pack(byte[] bits, int size) {
+		byte[] packed = new byte[size];
+		for (int j = 0; j < bits.length; j++) {
+			if (bits[j] != 0 && bits[j] != 1) {
+				throw new IllegalArgumentException("sigma should be 0 or 1");
+			}
+			packed[j >> 3] |= bits[j] << (j & 7);
+		}
+		return packed;
+	}
+	
+	/**
+	 * Returns the number of bytes in a row that has a column for each of the given number of OTs, rounded up to a full block.
+	 */
+	static int getRowSize(int numOfOts) {
+		return (numOfOts + ROWS - 1) / ROWS * ROW_BLOCK_SIZE;
+	}
+}
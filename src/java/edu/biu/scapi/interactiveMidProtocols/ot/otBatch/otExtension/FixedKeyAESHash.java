@@ -0,0 +1,124 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A tweakable correlation robust hash function built from fixed-key AES, used to break the correlation between the 
+ * columns of the OT extension. <p>
+ * H(i, x) = AES(sigma(x) XOR i) XOR sigma(x), where sigma(xL || xR) = (xL XOR xR) || xL. 
+ * (See "C. Guo, J. Katz, X. Wang and Y. Yu. Efficient and Secure Multiparty Computation from Fixed-Key Block Ciphers", 
+ * which shows that this construction is tweakable circular correlation robust.) 
+ * Outputs that are longer than 16 bytes use a different tweak for each block. <p>
+ * Many values are hashed with a single call to the cipher, which lets the JVM use the AES instructions of the processor.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+final class FixedKeyAESHash {
+	
+	private static final byte[] FIXED_KEY = { 61, -117, 50, 5, -21, 116, -92, 19, -100, 67, 41, -54, 121, -15, -33, 108 };
+	private static final int BLOCK_SIZE = 16;
+	private static final int BLOCKS_PER_CALL = 4096;	//The number of blocks hashed in each call to the cipher.
+	
+	private Cipher aes;
+	private byte[] buffer = new byte[BLOCKS_PER_CALL * BLOCK_SIZE];
+	private long[] sigmas = new long[2 * BLOCKS_PER_CALL];
+	
+	FixedKeyAESHash() {
+		try {
+			aes = Cipher.getInstance("AES/ECB/NoPadding");
+			aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(FIXED_KEY, "AES"));
+		} catch (GeneralSecurityException e) {
+			// Should not occur since AES is supported by every java implementation and the fixed key is a valid AES key.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Hashes the given 16-byte values, after XORing each of them with the given mask.
+	 * @param values The values, one after the other.
+	 * @param valuesOffset The offset of the first value.
+	 * @param mask 16 bytes that are XORed with each value before hashing, or null.
+	 * @param firstIndex The tweak of the first value; each following value uses the next index.
+	 * @param count The number of values.
+	 * @param outputSize The size in bytes of each hash.
+	 * @param output The array that the hashes are written to, one after the other.
+	 * @param outputOffset The offset of the first hash.
+	 */
+	void hash(byte[] values, int valuesOffset, byte[] mask, long firstIndex, int count, int outputSize, byte[] output, int outputOffset) {
+		long maskLow = (mask == null) ? 0 : BitMatrix.getLong(mask, 0);
+		long maskHigh = (mask == null) ? 0 : BitMatrix.getLong(mask, 8);
+		int blocksPerValue = (outputSize + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		int valuesPerCall = Math.max(1, BLOCKS_PER_CALL / blocksPerValue);
+		if (buffer.length < valuesPerCall * blocksPerValue * BLOCK_SIZE) {
+			buffer = new byte[valuesPerCall * blocksPerValue * BLOCK_SIZE];
+			sigmas = new long[2 * valuesPerCall * blocksPerValue];
+		}
+		
+		for (int first = 0; first < count; first += valuesPerCall) {
+			int valuesInCall = Math.min(valuesPerCall, count - first);
+			//Put sigma(x) XOR tweak in the buffer.
+			for (int j = 0; j < valuesInCall; j++) {
+				int offset = valuesOffset + (first + j) * BLOCK_SIZE;
+				long low = BitMatrix.getLong(values, offset) ^ maskLow;
+				long high = BitMatrix.getLong(values, offset + 8) ^ maskHigh;
+				long sigmaLow = low ^ high;
+				long sigmaHigh = low;
+				long index = firstIndex + first + j;
+				for (int b = 0; b < blocksPerValue; b++) {
+					int block = j * blocksPerValue + b;
+					sigmas[2 * block] = sigmaLow;
+					sigmas[2 * block + 1] = sigmaHigh;
+					BitMatrix.putLong(buffer, block * BLOCK_SIZE, sigmaLow ^ index);
+					BitMatrix.putLong(buffer, block * BLOCK_SIZE + 8, sigmaHigh ^ b);
+				}
+			}
+			int length = valuesInCall * blocksPerValue * BLOCK_SIZE;
+			try {
+				aes.update(buffer, 0, length, buffer, 0);
+			} catch (GeneralSecurityException e) {
+				// Should not occur since the buffer is large enough and its length is a multiple of the block size.
+				throw new IllegalStateException(e);
+			}
+			//Write AES(sigma(x) XOR tweak) XOR sigma(x), truncated to the output size.
+			for (int j = 0; j < valuesInCall; j++) {
+				int outOffset = outputOffset + (first + j) * outputSize;
+				for (int b = 0; b < blocksPerValue; b++) {
+					int block = j * blocksPerValue + b;
+					int bytes = Math.min(BLOCK_SIZE, outputSize - b * BLOCK_SIZE);
+					for (int k = 0; k < bytes; k++) {
+						long sigma = (k < 8) ? sigmas[2 * block] : sigmas[2 * block + 1];
+						output[outOffset + b * BLOCK_SIZE + k] = (byte) (buffer[block * BLOCK_SIZE + k] ^ (sigma >>> (8 * (k & 7))));
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,249 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.exceptions.InvalidDlogGroupException;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchOnByteArrayROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchOnByteArraySInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRBasicInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+
+/**
+ * The core of the IKNP OT extension, which is shared by all the pure Java OT extensions. <p>
+ * ("Y. Ishai, J. Kilian, K. Nissim and E. Petrank. Extending Oblivious Transfers Efficiently. CRYPTO 2003".) <p>
+ * 
+ * In the first call, the parties run 128 base OTs with reversed roles: the receiver of the extension samples pairs of seeds 
+ * (k0_i, k1_i) and the sender of the extension learns k_(s_i) for a random string s. Each seed keys a pseudorandom generator 
+ * (AES in counter mode), which keeps its state between the calls, so the base OTs are run only once. <p>
+ * 
+ * To extend the OTs to m OTs with choice bits r, the receiver computes t_i = G(k0_i) and sends u_i = t_i XOR G(k1_i) XOR r for 
+ * each base OT i. The sender computes q_i = G(k_(s_i)) XOR s_i*u_i. After transposing, the j-th column of the sender is 
+ * q_j = t_j XOR r_j*s, where t_j is the j-th column of the receiver. <p>
+ * 
+ * This class holds both sides, since both use the same generators and matrices.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+final class IKNPCore {
+	
+	static final int KAPPA = BitMatrix.ROWS;	//The number of base OTs.
+	private static final int SEED_SIZE = 16;
+	
+	/**
+	 * The sender side of the extension, which is the receiver of the base OTs.
+	 */
+	static final class Sender {
+		private OTBatchReceiver baseOTReceiver;
+		private SecureRandom random;
+		private byte[] s;				//The choice bits of the base OTs, packed into 16 bytes.
+		private Cipher[] generators;	//The generators keyed by k_(s_i).
+		
+		Sender(OTBatchReceiver baseOTReceiver, SecureRandom random) {
+			this.baseOTReceiver = baseOTReceiver;
+			this.random = random;
+		}
+		
+		/**
+		 * @return the choice bits of the base OTs, packed into 16 bytes. 
+		 */
+		byte[] getS() {
+			return s;
+		}
+		
+		/**
+		 * Runs the base OTs, if they were not run yet.
+		 */
+		private void runBaseOTs(Channel channel) throws IOException, ClassNotFoundException, CheatAttemptException {
+			if (generators != null) {
+				return;
+			}
+			s = new byte[SEED_SIZE];
+			random.nextBytes(s);
+			ArrayList<Byte> sigmaArr = new ArrayList<Byte>();
+			for (int i = 0; i < KAPPA; i++) {
+				sigmaArr.add((byte) getBit(s, i));
+			}
+			OTBatchROutput output = baseOTReceiver.transfer(channel, new OTBatchRBasicInput(sigmaArr));
+			if (!(output instanceof OTBatchOnByteArrayROutput)) {
+				throw new IllegalStateException("the base OT should output byte arrays");
+			}
+			ArrayList<byte[]> seeds = ((OTBatchOnByteArrayROutput) output).getXSigmaArr();
+			generators = createGenerators(seeds);
+		}
+		
+		/**
+		 * Receives the matrix u of the receiver and computes the columns q_j.
+		 * @param channel The channel between the parties.
+		 * @param numOfOts The number of OTs. The matrix has a column for each of them, rounded up to a multiple of 128.
+		 * @return the columns of the sender, 16 bytes each.
+		 * @throws CheatAttemptException if the matrix of the receiver does not have the expected size.
+		 */
+		byte[] extend(Channel channel, int numOfOts) throws IOException, ClassNotFoundException, CheatAttemptException {
+			runBaseOTs(channel);
+			int rowSize = BitMatrix.getRowSize(numOfOts);
+			Serializable msg = channel.receive();
+			if (!(msg instanceof byte[]) || ((byte[]) msg).length != KAPPA * rowSize) {
+				throw new CheatAttemptException("the received message should be the matrix u of " + KAPPA + " rows of " + rowSize + " bytes");
+			}
+			byte[] u = (byte[]) msg;
+			
+			//q_i = G(k_(s_i)) XOR s_i*u_i. The generator XORs its output into the row, so the row is first set to s_i*u_i.
+			byte[] q = new byte[KAPPA * rowSize];
+			for (int i = 0; i < KAPPA; i++) {
+				if (getBit(s, i) == 1) {
+					System.arraycopy(u, i * rowSize, q, i * rowSize, rowSize);
+				}
+				generate(generators[i], q, i * rowSize, rowSize);
+			}
+			return BitMatrix.transpose(q, rowSize);
+		}
+	}
+	
+	/**
+	 * The receiver side of the extension, which is the sender of the base OTs.
+	 */
+	static final class Receiver {
+		private OTBatchSender baseOTSender;
+		private SecureRandom random;
+		private Cipher[] generators0;	//The generators keyed by k0_i.
+		private Cipher[] generators1;	//The generators keyed by k1_i.
+		
+		Receiver(OTBatchSender baseOTSender, SecureRandom random) {
+			this.baseOTSender = baseOTSender;
+			this.random = random;
+		}
+		
+		/**
+		 * Runs the base OTs, if they were not run yet.
+		 */
+		private void runBaseOTs(Channel channel) throws IOException, ClassNotFoundException, CheatAttemptException {
+			if (generators0 != null) {
+				return;
+			}
+			ArrayList<byte[]> seeds0 = new ArrayList<byte[]>();
+			ArrayList<byte[]> seeds1 = new ArrayList<byte[]>();
+			for (int i = 0; i < KAPPA; i++) {
+				byte[] seed0 = new byte[SEED_SIZE];
+				byte[] seed1 = new byte[SEED_SIZE];
+				random.nextBytes(seed0);
+				random.nextBytes(seed1);
+				seeds0.add(seed0);
+				seeds1.add(seed1);
+			}
+			try {
+				baseOTSender.transfer(channel, new OTBatchOnByteArraySInput(seeds0, seeds1));
+			} catch (InvalidDlogGroupException e) {
+				throw new IllegalStateException("the dlog group of the base OT is invalid", e);
+			}
+			generators0 = createGenerators(seeds0);
+			generators1 = createGenerators(seeds1);
+		}
+		
+		/**
+		 * Sends the matrix u to the sender and computes the columns t_j.
+		 * @param channel The channel between the parties.
+		 * @param r The choice bits, packed into bytes. Its size should be {@link BitMatrix#getRowSize(int)} of the number of OTs.
+		 * @return the columns of the receiver, 16 bytes each.
+		 */
+		byte[] extend(Channel channel, byte[] r) throws IOException, ClassNotFoundException, CheatAttemptException {
+			runBaseOTs(channel);
+			int rowSize = r.length;
+			byte[] t = new byte[KAPPA * rowSize];
+			byte[] u = new byte[KAPPA * rowSize];
+			for (int i = 0; i < KAPPA; i++) {
+				int offset = i * rowSize;
+				//t_i = G(k0_i), u_i = t_i XOR G(k1_i) XOR r.
+				generate(generators0[i], t, offset, rowSize);
+				System.arraycopy(r, 0, u, offset, rowSize);
+				generate(generators1[i], u, offset, rowSize);
+				for (int k = 0; k < rowSize; k++) {
+					u[offset + k] ^= t[offset + k];
+				}
+			}
+			channel.send(u);
+			return BitMatrix.transpose(t, rowSize);
+		}
+	}
+	
+	private IKNPCore() {}
+	
+	/**
+	 * @return bit i of the given packed bits.
+	 */
+	static int getBit(byte[] bits, int i) {
+		return (bits[i >> 3] >> (i & 7)) & 1;
+	}
+	
+	/**
+	 * Creates an AES counter mode generator for each of the given seeds.
+	 */
+	private static Cipher[] createGenerators(ArrayList<byte[]> seeds) {
+		if (seeds.size() != KAPPA) {
+			throw new IllegalStateException("the base OT should transfer " + KAPPA + " seeds");
+		}
+		Cipher[] generators = new Cipher[KAPPA];
+		try {
+			for (int i = 0; i < KAPPA; i++) {
+				byte[] seed = seeds.get(i);
+				if (seed.length != SEED_SIZE) {
+					throw new IllegalStateException("the base OT should transfer seeds of " + SEED_SIZE + " bytes");
+				}
+				generators[i] = Cipher.getInstance("AES/CTR/NoPadding");
+				generators[i].init(Cipher.ENCRYPT_MODE, new SecretKeySpec(seed, "AES"), new IvParameterSpec(new byte[SEED_SIZE]));
+			}
+		} catch (GeneralSecurityException e) {
+			// Should not occur since AES is supported by every java implementation and the seeds are valid AES keys.
+			throw new IllegalStateException(e);
+		}
+		return generators;
+	}
+	
+	/**
+	 * XORs the next bytes of the given generator into the given part of the array.
+	 */
+	private static void generate(Cipher generator, byte[] array, int offset, int length) {
+		try {
+			generator.update(array, offset, length, array, offset);
+		} catch (GeneralSecurityException e) {
+			// Should not occur since counter mode encrypts any length in place.
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.interactiveMidProtocols.ot.OTOnByteArrayROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * Abstract class for the receiver of the pure Java OT extensions.<p>
+ * The extensions differ in the way that the columns t_j are computed, which is done by the derived classes. 
+ * Given the columns, this class computes the output H(j, t_j) and removes the masks that the sender sent in the General and Correlated versions.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+abstract class IKNPExtensionReceiverAbs implements OTBatchReceiver {
+	
+	private FixedKeyAESHash hash = new FixedKeyAESHash();
+	private long otIndex;	//The index of the next OT, which is used as the tweak of the hash function.
+	private String metricsName;
+	
+	/**
+	 * @param metricsName The prefix of the names of the span and the counter that this receiver reports.
+	 */
+	IKNPExtensionReceiverAbs(String metricsName) {
+		this.metricsName = metricsName;
+	}
+	
+	/**
+	 * Runs the extension with the given choice bits.
+	 * @param sigmaArr The choice bits, one bit per byte. They were checked to be 0 or 1.
+	 * @return the columns t_j, 16 bytes each. There should be at least sigmaArr.length columns.
+	 */
+	protected abstract byte[] extend(Channel channel, byte[] sigmaArr) throws IOException, ClassNotFoundException, CheatAttemptException;
+	
+	/**
+	 * The overloaded function that runs the protocol.<p>
+	 * The first call runs the base OTs. Further calls only use symmetric operations, no matter how much OTs there are.
+	 * @param channel The channel between the sender and the receiver.
+	 * @param input The input for the receiver specifying the version of the OT extension to run. 
+	 * Every call to the transfer function can run a different OT extension version.
+	 * @return OTOnByteArrayROutput that contains x_sigma of all the OTs, one after the other.
+	 * @throws CheatAttemptException if the sender sent a message of a wrong size or failed a consistency check.
+	 */
+	public OTBatchROutput transfer(Channel channel, OTBatchRInput input) throws CheatAttemptException, IOException, ClassNotFoundException {
+		//Check if the input is valid. If input is not instance of OTRExtensionInput, throw Exception.
+		if (!(input instanceof OTExtensionRInput)){
+			throw new IllegalArgumentException("input should be an instance of OTRExtensionInput.");
+		}
+		byte[] sigmaArr = ((OTExtensionRInput) input).getSigmaArr();
+		int numOfOts = sigmaArr.length;
+		int elementBits = ((OTExtensionRInput) input).getElementSize();
+		if (numOfOts == 0 || elementBits <= 0 || elementBits % 8 != 0) {
+			throw new IllegalArgumentException("there should be at least one OT and the element size should be a positive multiple of 8");
+		}
+		int elementSize = elementBits / 8;
+		for (int j = 0; j < numOfOts; j++) {
+			if (sigmaArr[j] != 0 && sigmaArr[j] != 1) {
+				throw new IllegalArgumentException("sigma should be 0 or 1");
+			}
+		}
+		
+		Span span = Metrics.getRecorder().startSpan(metricsName + ".receive");
+		try {
+			//The receiver's columns are t_j, so the output is H(j, t_j), corrected by the message of the sender if there is one.
+			byte[] t = extend(channel, sigmaArr);
+			byte[] output = new byte[numOfOts * elementSize];
+			hash.hash(t, 0, null, otIndex, numOfOts, elementSize, output, 0);
+			otIndex += numOfOts;
+			
+			if (input instanceof OTExtensionCorrelatedRInput){
+				//The sender sent x1 XOR H(j, q_j XOR s). Use it if sigma is 1.
+				byte[] d = receiveBytes(channel, output.length);
+				for (int j = 0; j < numOfOts; j++) {
+					if (sigmaArr[j] == 1) {
+						xor(output, j * elementSize, d, j * elementSize, elementSize);
+					}
+				}
+			} else if (!(input instanceof OTExtensionRandomRInput)){
+				//The sender sent x0 XOR H(j, q_j) and x1 XOR H(j, q_j XOR s). Use the one of sigma.
+				byte[] y = receiveBytes(channel, 2 * output.length);
+				for (int j = 0; j < numOfOts; j++) {
+					xor(output, j * elementSize, y, sigmaArr[j] * output.length + j * elementSize, elementSize);
+				}
+			}
+			Metrics.getRecorder().incrementCounter(metricsName + ".receive.ots", numOfOts);
+			
+			return new OTOnByteArrayROutput(output);
+		} finally {
+			span.end();
+		}
+	}
+	
+	/*
+	 * Receives a byte array of the given size from the sender.
+	 */
+	private static byte[] receiveBytes(Channel channel, int size) throws ClassNotFoundException, IOException, CheatAttemptException {
+		Serializable msg = channel.receive();
+		if (!(msg instanceof byte[]) || ((byte[]) msg).length != size) {
+			throw new CheatAttemptException("the received message should be a byte array of size " + size);
+		}
+		return (byte[]) msg;
+	}
+	
+	private static void xor(byte[] target, int targetOffset, byte[] source, int sourceOffset, int length) {
+		for (int i = 0; i < length; i++) {
+			target[targetOffset + i] ^= source[sourceOffset + i];
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSOutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * Abstract class for the sender of the pure Java OT extensions.<p>
+ * The extensions differ in the way that the columns q_j are computed, which is done by the derived classes. 
+ * Given the columns, this class computes the outputs of the General, Correlated and Random versions: 
+ * x0_j = H(j, q_j) and x1_j = H(j, q_j XOR s), where H is the fixed-key AES hash. 
+ * In the general version these values mask the inputs of the user, and in the correlated version they mask x1 = x0 XOR delta.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+abstract class IKNPExtensionSenderAbs implements OTBatchSender {
+	
+	private FixedKeyAESHash hash = new FixedKeyAESHash();
+	private long otIndex;	//The index of the next OT, which is used as the tweak of the hash function.
+	private String metricsName;
+	
+	/**
+	 * @param metricsName The prefix of the names of the span and the counter that this sender reports.
+	 */
+	IKNPExtensionSenderAbs(String metricsName) {
+		this.metricsName = metricsName;
+	}
+	
+	/**
+	 * Runs the extension for the given number of OTs.
+	 * @return the columns q_j, 16 bytes each. There should be at least numOfOts columns.
+	 */
+	protected abstract byte[] extend(Channel channel, int numOfOts) throws IOException, ClassNotFoundException, CheatAttemptException;
+	
+	/**
+	 * @return the choice bits of the base OTs, packed into 16 bytes.
+	 */
+	protected abstract byte[] getS();
+	
+	/**
+	 * The overloaded function that runs the protocol.<p>
+	 * The first call runs the base OTs. Further calls only use symmetric operations, no matter how much OTs there are.
+	 * @param channel The channel between the sender and the receiver.
+	 * @param input The input for the sender specifying the version of the OT extension to run. 
+	 * Every call to the transfer function can run a different OT extension version.
+	 * @return null for the general version; OTExtensionSOutput that contains x0 and x1 for the correlated and random versions.
+	 * @throws CheatAttemptException if the receiver sent a message of a wrong size or failed a consistency check.
+	 */
+	public OTBatchSOutput transfer(Channel channel, OTBatchSInput input) throws IOException, ClassNotFoundException, CheatAttemptException {
+		Span span = Metrics.getRecorder().startSpan(metricsName + ".send");
+		try {
+			// In case the given input is general input.
+			if (input instanceof OTExtensionGeneralSInput){
+				byte[] x0 = ((OTExtensionGeneralSInput) input).getX0Arr();
+				byte[] x1 = ((OTExtensionGeneralSInput) input).getX1Arr();
+				int numOfOts = ((OTExtensionGeneralSInput) input).getNumOfOts();
+				if (x0.length != x1.length) {
+					throw new IllegalArgumentException("x0 and x1 should have the same size");
+				}
+				int elementSize = getElementSize(x0.length, numOfOts);
+				
+				//Send x0 XOR H(j, q_j) and x1 XOR H(j, q_j XOR s).
+				byte[] y = new byte[2 * x0.length];
+				hashColumns(channel, numOfOts, elementSize, y, 0, y, x0.length);
+				for (int i = 0; i < x0.length; i++) {
+					y[i] ^= x0[i];
+					y[x0.length + i] ^= x1[i];
+				}
+				channel.send(y);
+				
+				//This version has no output. Return null.
+				return null;
+			
+			//In case the given input is correlated input.
+			} else if (input instanceof OTExtensionCorrelatedSInput){
+				byte[] delta = ((OTExtensionCorrelatedSInput) input).getDelta();
+				int numOfOts = ((OTExtensionCorrelatedSInput) input).getNumOfOts();
+				int elementSize = getElementSize(delta.length, numOfOts);
+				
+				//x0 = H(j, q_j) and x1 = x0 XOR delta. Send x1 XOR H(j, q_j XOR s), so that the receiver can compute x1.
+				byte[] x0 = new byte[delta.length];
+				byte[] d = new byte[delta.length];
+				hashColumns(channel, numOfOts, elementSize, x0, 0, d, 0);
+				byte[] x1 = new byte[delta.length];
+				for (int i = 0; i < delta.length; i++) {
+					x1[i] = (byte) (x0[i] ^ delta[i]);
+					d[i] ^= x1[i];
+				}
+				channel.send(d);
+				
+				return new OTExtensionSOutput(x0, x1);
+			
+			//In case the given input is random input.
+			} else if (input instanceof OTExtensionRandomSInput){
+				int numOfOts = ((OTExtensionRandomSInput) input).getNumOfOts();
+				int bitLength = ((OTExtensionRandomSInput) input).getBitLength();
+				if (bitLength <= 0 || bitLength % 8 != 0) {
+					throw new IllegalArgumentException("the bit length should be a positive multiple of 8");
+				}
+				int elementSize = bitLength / 8;
+				
+				//x0 = H(j, q_j) and x1 = H(j, q_j XOR s). Nothing else is sent.
+				byte[] x0 = new byte[numOfOts * elementSize];
+				byte[] x1 = new byte[numOfOts * elementSize];
+				hashColumns(channel, numOfOts, elementSize, x0, 0, x1, 0);
+				
+				return new OTExtensionSOutput(x0, x1);
+			
+			//If input is not instance of the above inputs, throw Exception.
+			} else {
+				throw new IllegalArgumentException("input should be an instance of OTExtensionGeneralSInput or OTExtensionCorrelatedSInput or OTExtensionRandomSInput.");
+			}
+		} finally {
+			span.end();
+		}
+	}
+	
+	/*
+	 * Extends the OTs and writes H(j, q_j) to h0 and H(j, q_j XOR s) to h1.
+	 */
+	private void hashColumns(Channel channel, int numOfOts, int elementSize, byte[] h0, int h0Offset, byte[] h1, int h1Offset) throws IOException, ClassNotFoundException, CheatAttemptException {
+		byte[] q = extend(channel, numOfOts);
+		hash.hash(q, 0, null, otIndex, numOfOts, elementSize, h0, h0Offset);
+		hash.hash(q, 0, getS(), otIndex, numOfOts, elementSize, h1, h1Offset);
+		otIndex += numOfOts;
+		Metrics.getRecorder().incrementCounter(metricsName + ".send.ots", numOfOts);
+	}
+	
+	/*
+	 * Returns the size in bytes of each element, given the total size of the elements.
+	 */
+	private static int getElementSize(int length, int numOfOts) {
+		if (numOfOts <= 0 || length == 0 || length % numOfOts != 0) {
+			throw new IllegalArgumentException("the inputs should hold numOfOts elements of the same size");
+		}
+		return length / numOfOts;
+	}
+}
@@ -0,0 +1,201 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The correlation check of the KOS OT extension. <p>
+ * ("M. Keller, E. Orsini and P. Scholl. Actively Secure OT Extension with Optimal Overhead. CRYPTO 2015".) <p>
+ * 
+ * After the IKNP extension of m' = m + EXTRA_OTS columns, the parties choose random challenges chi_j in GF(2^128) by a coin tossing, 
+ * in which the receiver commits to its seed before it sees the seed of the sender. 
+ * The receiver sends x = sum(chi_j * r_j) and t = sum(chi_j * t_j), and the sender checks that t = sum(chi_j * q_j) + x * s. 
+ * A receiver that used inconsistent choice bits in the matrix u fails the check, except with negligible probability. 
+ * The extra columns have random choice bits, so x and t do not reveal anything about the choice bits of the real OTs. <p>
+ * 
+ * The field GF(2^128) is defined by the polynomial x^128 + x^7 + x^2 + x + 1. The products are accumulated without reduction and reduced once.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+final class KOSConsistencyCheck {
+	
+	static final int EXTRA_OTS = 128 + 64;	//The computational and statistical security parameters.
+	static final int SEED_SIZE = 16;
+	static final int CHECK_SIZE = 32;		//The size of x and t.
+	static final int COMMITMENT_SIZE = 32;	//The size of a SHA-256 digest.
+	
+	private long[] tableLow = new long[32];		//The products of the two halves of chi_j with all the 4-bit values.
+	private long[] tableHigh = new long[32];
+	private long[] sum = new long[4];			//The unreduced sum of the products.
+	
+	/**
+	 * Computes the commitment of the receiver to its seed.
+	 */
+	static byte[] commit(byte[] seed) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(seed);
+		} catch (GeneralSecurityException e) {
+			// Should not occur since SHA-256 is supported by every java implementation.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Computes the challenges chi_j of the given number of columns, using the seeds of both parties.
+	 */
+	static byte[] getChallenges(byte[] senderSeed, byte[] receiverSeed, int numOfColumns) {
+		byte[] key = new byte[SEED_SIZE];
+		for (int i = 0; i < SEED_SIZE; i++) {
+			key[i] = (byte) (senderSeed[i] ^ receiverSeed[i]);
+		}
+		try {
+			Cipher prg = Cipher.getInstance("AES/CTR/NoPadding");
+			prg.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(new byte[SEED_SIZE]));
+			return prg.doFinal(new byte[numOfColumns * BitMatrix.ROW_BLOCK_SIZE]);
+		} catch (GeneralSecurityException e) {
+			// Should not occur since AES is supported by every java implementation and the key is a valid AES key.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Computes the check values of the receiver.
+	 * @param chi The challenges.
+	 * @param r The choice bits of all the columns, packed into bytes.
+	 * @param t The columns of the receiver.
+	 * @param numOfColumns The number of columns.
+	 * @return x and t, 16 bytes each.
+	 */
+	static byte[] computeReceiverCheck(byte[] chi, byte[] r, byte[] t, int numOfColumns) {
+		KOSConsistencyCheck check = new KOSConsistencyCheck();
+		long x0 = 0, x1 = 0;
+		for (int j = 0; j < numOfColumns; j++) {
+			int offset = j * BitMatrix.ROW_BLOCK_SIZE;
+			if (IKNPCore.getBit(r, j) == 1) {
+				x0 ^= BitMatrix.getLong(chi, offset);
+				x1 ^= BitMatrix.getLong(chi, offset + 8);
+			}
+			check.multiplyAdd(chi, offset, t, offset);
+		}
+		byte[] result = new byte[CHECK_SIZE];
+		BitMatrix.putLong(result, 0, x0);
+		BitMatrix.putLong(result, 8, x1);
+		check.reduce(result, 16);
+		return result;
+	}
+	
+	/**
+	 * Verifies the check values of the receiver.
+	 * @param chi The challenges.
+	 * @param q The columns of the sender.
+	 * @param s The choice bits of the base OTs.
+	 * @param receiverCheck x and t, as computed by the receiver.
+	 * @param numOfColumns The number of columns.
+	 * @return true if t = sum(chi_j * q_j) + x * s.
+	 */
+	static boolean verify(byte[] chi, byte[] q, byte[] s, byte[] receiverCheck, int numOfColumns) {
+		KOSConsistencyCheck check = new KOSConsistencyCheck();
+		for (int j = 0; j < numOfColumns; j++) {
+			int offset = j * BitMatrix.ROW_BLOCK_SIZE;
+			check.multiplyAdd(chi, offset, q, offset);
+		}
+		check.multiplyAdd(receiverCheck, 0, s, 0);
+		byte[] expected = new byte[SEED_SIZE];
+		check.reduce(expected, 0);
+		//Compare all the bytes, so that the time does not depend on the first difference.
+		int difference = 0;
+		for (int i = 0; i < SEED_SIZE; i++) {
+			difference |= expected[i] ^ receiverCheck[SEED_SIZE + i];
+		}
+		return difference == 0;
+	}
+	
+	/**
+	 * Adds the carry-less product of the two given 128-bit values to the sum.
+	 */
+	private void multiplyAdd(byte[] a, int aOffset, byte[] b, int bOffset) {
+		fillTable(BitMatrix.getLong(a, aOffset), 0);
+		fillTable(BitMatrix.getLong(a, aOffset + 8), 16);
+		long b0 = BitMatrix.getLong(b, bOffset);
+		long b1 = BitMatrix.getLong(b, bOffset + 8);
+		multiplyAdd(0, b0, 0);
+		multiplyAdd(0, b1, 1);
+		multiplyAdd(16, b0, 1);
+		multiplyAdd(16, b1, 2);
+	}
+	
+	/**
+	 * Fills the products of the given 64-bit value with all the 4-bit values.
+	 */
+	private void fillTable(long a, int offset) {
+		tableLow[offset] = 0;
+		tableHigh[offset] = 0;
+		tableLow[offset + 1] = a;
+		tableHigh[offset + 1] = 0;
+		for (int i = 2; i < 16; i += 2) {
+			tableLow[offset + i] = tableLow[offset + i / 2] << 1;
+			tableHigh[offset + i] = tableHigh[offset + i / 2] << 1 | tableLow[offset + i / 2] >>> 63;
+			tableLow[offset + i + 1] = tableLow[offset + i] ^ a;
+			tableHigh[offset + i + 1] = tableHigh[offset + i];
+		}
+	}
+	
+	/**
+	 * Adds the carry-less product of the value of the given table and b to the sum, starting at the given word.
+	 */
+	private void multiplyAdd(int tableOffset, long b, int word) {
+		long low = 0, high = 0;
+		for (int shift = 60; shift >= 0; shift -= 4) {
+			high = high << 4 | low >>> 60;
+			low <<= 4;
+			int nibble = (int) (b >>> shift) & 15;
+			low ^= tableLow[tableOffset + nibble];
+			high ^= tableHigh[tableOffset + nibble];
+		}
+		sum[word] ^= low;
+		sum[word + 1] ^= high;
+	}
+	
+	/**
+	 * Reduces the sum modulo x^128 + x^7 + x^2 + x + 1 and writes it to the given array.
+	 */
+	private void reduce(byte[] output, int offset) {
+		//x^128 = x^7 + x^2 + x + 1, so the high half is multiplied by this polynomial and added to the low half.
+		//The bits that overflow above x^128 are reduced the same way.
+		long high0 = sum[2], high1 = sum[3];
+		long overflow = (high1 >>> 63) ^ (high1 >>> 62) ^ (high1 >>> 57);
+		long low0 = sum[0] ^ high0 ^ (high0 << 1) ^ (high0 << 2) ^ (high0 << 7) ^ overflow ^ (overflow << 1) ^ (overflow << 2) ^ (overflow << 7);
+		long low1 = sum[1] ^ high1 ^ (high1 << 1 | high0 >>> 63) ^ (high1 << 2 | high0 >>> 62) ^ (high1 << 7 | high0 >>> 57);
+		BitMatrix.putLong(output, offset, low0);
+		BitMatrix.putLong(output, offset + 8, low1);
+	}
+}
@@ -0,0 +1,162 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.exceptions.InvalidDlogGroupException;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * Abstract class for the chunked OT extensions.<p>
+ * The underlying OT extension is run on one block after the other, with a separate synchronous transfer for each block. While a block is 
+ * transferred, a second thread takes the input of the next block from the iterator and gives the output of the previous block to the listener, 
+ * so only about three blocks are kept in memory. <p>
+ * The purpose of the chunking is to bound the memory. The OTs of consecutive blocks are not pipelined: the computation of a block starts only 
+ * after the messages of the previous block were exchanged, so the chunked transfer is not faster than a single transfer of all the OTs.
+ * 
+ * @param <I> The input of a block.
+ * @param <O> The output of a block.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+abstract class OTExtensionChunkedAbs<I, O> {
+	
+	private int blockSize;
+	private String metricsName;
+	
+	/**
+	 * @param blockSize The maximal number of OTs in a block.
+	 * @param metricsName The name of the span that the transfer reports.
+	 */
+	OTExtensionChunkedAbs(int blockSize, String metricsName) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("the block size should be positive");
+		}
+		this.blockSize = blockSize;
+		this.metricsName = metricsName;
+	}
+	
+	/**
+	 * @return the maximal number of OTs in a block.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+	
+	/**
+	 * @return the number of OTs in the given input.
+	 */
+	protected abstract int getNumOfOts(I input);
+	
+	/**
+	 * Runs the underlying OT extension on a single block.
+	 */
+	protected abstract O transferBlock(Channel channel, I input) throws ClassNotFoundException, IOException, CheatAttemptException, InvalidDlogGroupException;
+	
+	/**
+	 * Runs the OTs of all the blocks.
+	 * @param channel The channel between the parties.
+	 * @param blocks The inputs of the blocks.
+	 * @param listener The listener that gets the outputs of the blocks, or null.
+	 * @return the number of OTs that were transferred.
+	 */
+	long run(Channel channel, final Iterator<? extends I> blocks, final OTExtensionBlockListener<O> listener) throws ClassNotFoundException, IOException, CheatAttemptException, InvalidDlogGroupException {
+		Callable<I> nextBlock = new Callable<I>() {
+			public I call() {
+				return blocks.hasNext() ? blocks.next() : null;
+			}
+		};
+		ExecutorService helper = Executors.newSingleThreadExecutor();
+		Span span = Metrics.getRecorder().startSpan(metricsName);
+		long firstOt = 0;
+		try {
+			I input = get(helper.submit(nextBlock));
+			Future<?> lastListenerCall = null;
+			while (input != null) {
+				final int numOfOts = getNumOfOts(input);
+				if (numOfOts > blockSize) {
+					throw new IllegalArgumentException("a block should have at most " + blockSize + " OTs");
+				}
+				//Take the next block while this one is transferred.
+				Future<I> nextInput = helper.submit(nextBlock);
+				final O output = transferBlock(channel, input);
+				
+				//Give the output to the listener on the helper thread. The calls are done in order since there is a single helper thread.
+				final long blockFirstOt = firstOt;
+				if (lastListenerCall != null) {
+					get(lastListenerCall);
+				}
+				if (listener != null) {
+					lastListenerCall = helper.submit(new Runnable() {
+						public void run() {
+							listener.blockTransferred(blockFirstOt, numOfOts, output);
+						}
+					});
+				}
+				firstOt += numOfOts;
+				input = get(nextInput);
+			}
+			if (lastListenerCall != null) {
+				get(lastListenerCall);
+			}
+		} finally {
+			helper.shutdown();
+			span.end();
+		}
+		return firstOt;
+	}
+	
+	/*
+	 * Waits for the given task of the helper thread and throws the exception of the producer or the consumer, if there is one.
+	 */
+	private static <T> T get(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for the helper thread", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException){
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error){
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.exceptions.InvalidDlogGroupException;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+
+/**
+ * The receiver side of a chunked OT extension. <p>
+ * 
+ * This class runs the given OT extension receiver on blocks of at most blockSize OTs: the choice bits are taken from an iterator one block at a time, 
+ * and the outputs are given to a listener as each block completes. See {@link OTExtensionChunkedSender} for more details.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTExtensionChunkedReceiver extends OTExtensionChunkedAbs<OTBatchRInput, OTBatchROutput> {
+	
+	private OTBatchReceiver receiver;
+	
+	/**
+	 * Constructor that sets the underlying OT extension and the block size.
+	 * @param receiver The OT extension receiver that transfers each block.
+	 * @param blockSize The maximal number of OTs in a block.
+	 */
+	public OTExtensionChunkedReceiver(OTBatchReceiver receiver, int blockSize) {
+		super(blockSize, "ot.chunked.receive");
+		this.receiver = receiver;
+	}
+	
+	/**
+	 * Runs the OTs of all the blocks.
+	 * @param channel The channel between the sender and the receiver.
+	 * @param blocks The inputs of the blocks: OTExtensionGeneralRInput, OTExtensionCorrelatedRInput or OTExtensionRandomRInput of at most blockSize OTs each.
+	 * @param listener The listener that gets the output of each block, or null if the outputs are not needed.
+	 * @return the number of OTs that were transferred.
+	 */
+	public long transfer(Channel channel, Iterator<? extends OTBatchRInput> blocks, OTExtensionBlockListener<OTBatchROutput> listener) throws CheatAttemptException, IOException, ClassNotFoundException {
+		try {
+			return run(channel, blocks, listener);
+		} catch (InvalidDlogGroupException e) {
+			// Should not occur since the receiver of the OT extension does not throw this exception.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	protected int getNumOfOts(OTBatchRInput input) {
+		if (!(input instanceof OTExtensionRInput)) {
+			throw new IllegalArgumentException("input should be an instance of OTRExtensionInput.");
+		}
+		return ((OTExtensionRInput) input).getSigmaArr().length;
+	}
+	
+	protected OTBatchROutput transferBlock(Channel channel, OTBatchRInput input) throws ClassNotFoundException, IOException, CheatAttemptException {
+		return receiver.transfer(channel, input);
+	}
+}
@@ -0,0 +1,92 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.exceptions.InvalidDlogGroupException;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSOutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+
+/**
+ * The sender side of a chunked OT extension. <p>
+ * 
+ * Running a very large number of OTs in a single call requires the inputs and the outputs of all of them to be in memory. 
+ * This class runs the given OT extension sender on blocks of at most blockSize OTs instead: 
+ * the inputs are taken from an iterator one block at a time, and the outputs are given to a listener as each block completes. 
+ * The input of the next block is taken and the output of the previous block is handled on a second thread, while the current block is transferred. 
+ * The blocks themselves are transferred one after the other, so this bounds the memory but does not improve the throughput of the OTs. <p>
+ * 
+ * Each block can use any version of the OT extension (General, Correlated or Random), and the receiver should use the matching version and block sizes. 
+ * The underlying sender can be any OT extension that accepts these inputs, for example {@link OTSemiHonestIKNPExtensionSender} or {@link OTSemiHonestExtensionSender}.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTExtensionChunkedSender extends OTExtensionChunkedAbs<OTBatchSInput, OTBatchSOutput> {
+	
+	private OTBatchSender sender;
+	
+	/**
+	 * Constructor that sets the underlying OT extension and the block size.
+	 * @param sender The OT extension sender that transfers each block.
+	 * @param blockSize The maximal number of OTs in a block.
+	 */
+	public OTExtensionChunkedSender(OTBatchSender sender, int blockSize) {
+		super(blockSize, "ot.chunked.send");
+		this.sender = sender;
+	}
+	
+	/**
+	 * Runs the OTs of all the blocks.
+	 * @param channel The channel between the sender and the receiver.
+	 * @param blocks The inputs of the blocks: OTExtensionGeneralSInput, OTExtensionCorrelatedSInput or OTExtensionRandomSInput of at most blockSize OTs each.
+	 * @param listener The listener that gets the output of each block, or null if the outputs are not needed.
+	 * @return the number of OTs that were transferred.
+	 */
+	public long transfer(Channel channel, Iterator<? extends OTBatchSInput> blocks, OTExtensionBlockListener<OTBatchSOutput> listener) throws ClassNotFoundException, IOException, CheatAttemptException, InvalidDlogGroupException {
+		return run(channel, blocks, listener);
+	}
+	
+	protected int getNumOfOts(OTBatchSInput input) {
+		if (input instanceof OTExtensionGeneralSInput) {
+			return ((OTExtensionGeneralSInput) input).getNumOfOts();
+		} else if (input instanceof OTExtensionCorrelatedSInput) {
+			return ((OTExtensionCorrelatedSInput) input).getNumOfOts();
+		} else if (input instanceof OTExtensionRandomSInput) {
+			return ((OTExtensionRandomSInput) input).getNumOfOts();
+		} else {
+			throw new IllegalArgumentException("input should be an instance of OTExtensionGeneralSInput or OTExtensionCorrelatedSInput or OTExtensionRandomSInput.");
+		}
+	}
+	
+	protected OTBatchSOutput transferBlock(Channel channel, OTBatchSInput input) throws ClassNotFoundException, IOException, CheatAttemptException, InvalidDlogGroupException {
+		return sender.transfer(channel, input);
+	}
+}
@@ -0,0 +1,109 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.security.SecureRandom;
+import java.util.logging.Level;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.generals.Logging;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+import edu.biu.scapi.securityLevel.Malicious;
+
+/**
+ * A concrete class for Malicious OT extension receiver, implemented in pure Java. <P>
+ * 
+ * This is the receiver side of {@link OTMaliciousKOSExtensionSender}. See that class for more details about the protocol. <p>
+ * 
+ * The base OTs are executed in the first call to the transfer function, using the given base OT sender (the roles of the base OTs are reversed). 
+ * In order to get security against malicious adversaries, the base OT should be secure against malicious adversaries as well. 
+ * This class is tagged {@link Malicious}, but with a base OT that is not (such as the semi-honest simplest OT), the extension is only secure 
+ * against semi-honest adversaries. The constructor logs a warning in this case. <p>
+ * 
+ * There are three versions of OT extension: General, Correlated and Random. The version is chosen according to the given input instance; 
+ * the sender should use the matching input in each call. <p>
+ * 
+ * This class is not thread safe; the transfer calls of the sender and the receiver should be done in the same order.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTMaliciousKOSExtensionReceiver extends IKNPExtensionReceiverAbs implements Malicious {
+	
+	private IKNPCore.Receiver core;
+	private SecureRandom random;
+	
+	/**
+	 * Constructor that sets the base OT and the source of randomness.
+	 * @param baseOTSender The sender of the base OTs. It should accept an OTBatchOnByteArraySInput.
+	 * @param random The source of randomness for the seeds of the base OTs, the extra choice bits and the coin tossing.
+	 */
+	public OTMaliciousKOSExtensionReceiver(OTBatchSender baseOTSender, SecureRandom random) {
+		super("ot.kos");
+		if (!(baseOTSender instanceof Malicious)) {
+			Logging.getLogger().log(Level.WARNING, "the base OT sender is not secure against malicious adversaries, so the KOS extension is only secure against semi-honest adversaries");
+		}
+		core = new IKNPCore.Receiver(baseOTSender, random);
+		this.random = random;
+	}
+	
+	/**
+	 * Runs the IKNP extension with the extra columns, and proves the correlation to the sender.
+	 */
+	protected byte[] extend(Channel channel, byte[] sigmaArr) throws IOException, ClassNotFoundException, CheatAttemptException {
+		//The choice bits of the extra columns are random.
+		int numOfOts = sigmaArr.length;
+		int rowSize = BitMatrix.getRowSize(numOfOts + KOSConsistencyCheck.EXTRA_OTS);
+		byte[] r = BitMatrix.pack(sigmaArr, rowSize);
+		byte[] extraBits = new byte[rowSize];
+		random.nextBytes(extraBits);
+		r[numOfOts >> 3] |= extraBits[numOfOts >> 3] & (0xFF << (numOfOts & 7));
+		System.arraycopy(extraBits, (numOfOts >> 3) + 1, r, (numOfOts >> 3) + 1, rowSize - (numOfOts >> 3) - 1);
+		
+		//Commit to the seed of the receiver before the seed of the sender is known.
+		byte[] seed = new byte[KOSConsistencyCheck.SEED_SIZE];
+		random.nextBytes(seed);
+		channel.send(KOSConsistencyCheck.commit(seed));
+		byte[] t = core.extend(channel, r);
+		int numOfColumns = t.length / BitMatrix.ROW_BLOCK_SIZE;
+		
+		Serializable msg = channel.receive();
+		if (!(msg instanceof byte[]) || ((byte[]) msg).length != KOSConsistencyCheck.SEED_SIZE) {
+			throw new CheatAttemptException("the received message should be the seed of the sender");
+		}
+		byte[] chi = KOSConsistencyCheck.getChallenges((byte[]) msg, seed, numOfColumns);
+		
+		//Send the seed of the receiver together with x and t.
+		byte[] check = KOSConsistencyCheck.computeReceiverCheck(chi, r, t, numOfColumns);
+		byte[] reply = new byte[seed.length + check.length];
+		System.arraycopy(seed, 0, reply, 0, seed.length);
+		System.arraycopy(check, 0, reply, seed.length, check.length);
+		channel.send(reply);
+		return t;
+	}
+}
@@ -0,0 +1,127 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.logging.Level;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.generals.Logging;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.securityLevel.Malicious;
+import edu.biu.scapi.tools.metrics.Metrics;
+
+/**
+ * A concrete class for Malicious OT extension sender, implemented in pure Java. <P>
+ * 
+ * This class implements the KOS OT extension ("M. Keller, E. Orsini and P. Scholl. Actively Secure OT Extension with Optimal Overhead. CRYPTO 2015"): 
+ * the IKNP extension of {@link OTSemiHonestIKNPExtensionSender} with a correlation check that forces the receiver to use consistent choice bits. 
+ * Unlike {@link OTExtensionMaliciousSender}, this class does not need the native library and communicates using the channel given 
+ * in the transfer function. <p>
+ * 
+ * The base OTs are executed in the first call to the transfer function, using the given base OT receiver (the roles of the base OTs are reversed). 
+ * In order to get security against malicious adversaries, the base OT should be secure against malicious adversaries as well. 
+ * This class is tagged {@link Malicious}, but with a base OT that is not (such as the semi-honest simplest OT), the extension is only secure 
+ * against semi-honest adversaries. The constructor logs a warning in this case. <p>
+ * 
+ * There are three versions of OT extension: General, Correlated and Random. The version is chosen according to the given input instance, 
+ * as in {@link OTExtensionMaliciousSender}; the receiver should use the matching input in each call. <p>
+ * 
+ * This class is not thread safe; the transfer calls of the sender and the receiver should be done in the same order.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTMaliciousKOSExtensionSender extends IKNPExtensionSenderAbs implements Malicious {
+	
+	private IKNPCore.Sender core;
+	private SecureRandom random;
+	
+	/**
+	 * Constructor that sets the base OT and the source of randomness.
+	 * @param baseOTReceiver The receiver of the base OTs. Its output should be an OTBatchOnByteArrayROutput.
+	 * @param random The source of randomness for the choice bits of the base OTs and for the coin tossing.
+	 */
+	public OTMaliciousKOSExtensionSender(OTBatchReceiver baseOTReceiver, SecureRandom random) {
+		super("ot.kos");
+		if (!(baseOTReceiver instanceof Malicious)) {
+			Logging.getLogger().log(Level.WARNING, "the base OT receiver is not secure against malicious adversaries, so the KOS extension is only secure against semi-honest adversaries");
+		}
+		core = new IKNPCore.Sender(baseOTReceiver, random);
+		this.random = random;
+	}
+	
+	/**
+	 * Runs the IKNP extension with the extra columns, and checks the correlation of the receiver.
+	 * @throws CheatAttemptException if the receiver failed the correlation check.
+	 */
+	protected byte[] extend(Channel channel, int numOfOts) throws IOException, ClassNotFoundException, CheatAttemptException {
+		byte[] commitment = receiveBytes(channel, KOSConsistencyCheck.COMMITMENT_SIZE);
+		byte[] q = core.extend(channel, numOfOts + KOSConsistencyCheck.EXTRA_OTS);
+		int numOfColumns = q.length / BitMatrix.ROW_BLOCK_SIZE;
+		
+		//Send the seed of the sender only after the receiver committed to its seed and sent u.
+		byte[] seed = new byte[KOSConsistencyCheck.SEED_SIZE];
+		random.nextBytes(seed);
+		channel.send(seed);
+		
+		//Receive the seed of the receiver together with x and t.
+		byte[] msg = receiveBytes(channel, KOSConsistencyCheck.SEED_SIZE + KOSConsistencyCheck.CHECK_SIZE);
+		byte[] receiverSeed = new byte[KOSConsistencyCheck.SEED_SIZE];
+		byte[] receiverCheck = new byte[KOSConsistencyCheck.CHECK_SIZE];
+		System.arraycopy(msg, 0, receiverSeed, 0, receiverSeed.length);
+		System.arraycopy(msg, receiverSeed.length, receiverCheck, 0, receiverCheck.length);
+		if (!MessageDigest.isEqual(commitment, KOSConsistencyCheck.commit(receiverSeed))) {
+			Metrics.getRecorder().incrementCounter("ot.kos.rejected", 1);
+			throw new CheatAttemptException("the seed of the receiver does not match its commitment");
+		}
+		
+		byte[] chi = KOSConsistencyCheck.getChallenges(seed, receiverSeed, numOfColumns);
+		if (!KOSConsistencyCheck.verify(chi, q, core.getS(), receiverCheck, numOfColumns)) {
+			Metrics.getRecorder().incrementCounter("ot.kos.rejected", 1);
+			throw new CheatAttemptException("the receiver failed the correlation check");
+		}
+		return q;
+	}
+	
+	protected byte[] getS() {
+		return core.getS();
+	}
+	
+	/*
+	 * Receives a byte array of the given size from the receiver.
+	 */
+	private static byte[] receiveBytes(Channel channel, int size) throws ClassNotFoundException, IOException, CheatAttemptException {
+		Serializable msg = channel.receive();
+		if (!(msg instanceof byte[]) || ((byte[]) msg).length != size) {
+			throw new CheatAttemptException("the received message should be a byte array of size " + size);
+		}
+		return (byte[]) msg;
+	}
+}
@@ -0,0 +1,234 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.util.LinkedList;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * Abstract class for the pools of precomputed random OTs.<p>
+ * 
+ * A background thread generates blocks of random OTs on a dedicated channel, until the pool holds highWaterMark OTs more than were requested. 
+ * Both parties decide to generate the next block according to the number of OTs that were requested so far, 
+ * which is the same on both sides, so the blocks are generated in the same order without any control messages. 
+ * The derived classes define how a block is generated and how the requests are served. <p>
+ * 
+ * Each block has two parts, each of them holding a fixed number of bytes per OT. 
+ * For the sender these are r0 and r1, and for the receiver these are the random choice bits and r_c.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+abstract class OTPoolAbs {
+	
+	private Channel channel;				//The channel that is used to generate the random OTs.
+	private int blockSize;
+	private int highWaterMark;
+	private int[] partSizes;
+	private String metricsName;
+	
+	private LinkedList<byte[][]> blocks = new LinkedList<byte[][]>();
+	private int offset;						//The number of OTs that were already taken from the first block.
+	private long available;					//The number of OTs in the pool.
+	private long generated;					//The number of OTs that were generated.
+	private long requested;					//The number of OTs that were requested.
+	private long waits;						//The number of requests that had to wait for the generator.
+	private boolean closed;
+	private Exception failure;				//The exception that stopped the generator, if there is one.
+	private Thread generator;
+	
+	/**
+	 * @param channel The channel that is used to generate the random OTs. It should not be used by anything else.
+	 * @param blockSize The number of OTs in each generated block.
+	 * @param highWaterMark The number of OTs that are generated in advance.
+	 * @param partSizes The number of bytes per OT of each part of a block.
+	 * @param metricsName The prefix of the names of the spans and the counters that this pool reports.
+	 */
+	OTPoolAbs(Channel channel, int blockSize, int highWaterMark, int[] partSizes, String metricsName) {
+		if (blockSize <= 0 || highWaterMark <= 0) {
+			throw new IllegalArgumentException("the block size and the high water mark should be positive");
+		}
+		this.channel = channel;
+		this.blockSize = blockSize;
+		this.highWaterMark = highWaterMark;
+		this.partSizes = partSizes;
+		this.metricsName = metricsName;
+	}
+	
+	/**
+	 * Generates a block of random OTs.
+	 * @return the parts of the block.
+	 */
+	protected abstract byte[][] generateBlock(Channel channel, int numOfOts) throws Exception;
+	
+	/**
+	 * Starts the background generation of the random OTs, if it was not started yet. <p>
+	 * It is also started by the first request. Both parties should start their pools, or the generation waits for the other party.
+	 */
+	public synchronized void start() {
+		if (generator != null) {
+			return;
+		}
+		if (closed) {
+			throw new IllegalStateException("the pool is closed");
+		}
+		generator = new Thread(new Runnable() {
+			public void run() {
+				generate();
+			}
+		}, metricsName + ".generator");
+		//The generator can wait for the other party forever, so it should not keep the JVM alive.
+		generator.setDaemon(true);
+		generator.start();
+	}
+	
+	/**
+	 * Stops the background generation. The block that is currently generated is completed first.
+	 */
+	public synchronized void close() {
+		closed = true;
+		notifyAll();
+	}
+	
+	/**
+	 * @return the number of random OTs in the pool.
+	 */
+	public synchronized long getPoolSize() {
+		return available;
+	}
+	
+	/**
+	 * @return the number of random OTs that were generated.
+	 */
+	public synchronized long getNumberOfGeneratedOts() {
+		return generated;
+	}
+	
+	/**
+	 * @return the number of requests that had to wait for the generator, since the pool did not have enough OTs.
+	 */
+	public synchronized long getNumberOfWaits() {
+		return waits;
+	}
+	
+	/**
+	 * @return the name that is used for the metrics of this pool.
+	 */
+	String getMetricsName() {
+		return metricsName;
+	}
+	
+	/**
+	 * Takes random OTs from the pool, waiting for the generator if there are not enough of them.
+	 * @return the parts of the taken OTs.
+	 */
+	byte[][] take(int numOfOts) {
+		start();
+		synchronized (this) {
+			requested += numOfOts;
+			notifyAll();
+			if (available < numOfOts) {
+				waits++;
+				Metrics.getRecorder().incrementCounter(metricsName + ".waits", 1);
+			}
+			while (available < numOfOts) {
+				if (failure != null) {
+					throw new IllegalStateException("the generation of the random OTs failed", failure);
+				}
+				if (closed) {
+					throw new IllegalStateException("the pool is closed");
+				}
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("interrupted while waiting for the random OTs", e);
+				}
+			}
+			
+			//Copy the OTs from the first blocks.
+			byte[][] result = new byte[partSizes.length][];
+			for (int p = 0; p < partSizes.length; p++) {
+				result[p] = new byte[numOfOts * partSizes[p]];
+			}
+			int copied = 0;
+			while (copied < numOfOts) {
+				byte[][] block = blocks.getFirst();
+				int count = Math.min(numOfOts - copied, blockSize - offset);
+				for (int p = 0; p < partSizes.length; p++) {
+					System.arraycopy(block[p], offset * partSizes[p], result[p], copied * partSizes[p], count * partSizes[p]);
+				}
+				copied += count;
+				offset += count;
+				if (offset == blockSize) {
+					blocks.removeFirst();
+					offset = 0;
+				}
+			}
+			available -= numOfOts;
+			return result;
+		}
+	}
+	
+	/*
+	 * The loop of the background thread.
+	 */
+	private void generate() {
+		try {
+			while (true) {
+				synchronized (this) {
+					while (!closed && generated >= requested + highWaterMark) {
+						wait();
+					}
+					if (closed) {
+						return;
+					}
+				}
+				byte[][] block;
+				Span span = Metrics.getRecorder().startSpan(metricsName + ".generate");
+				try {
+					block = generateBlock(channel, blockSize);
+				} finally {
+					span.end();
+				}
+				Metrics.getRecorder().incrementCounter(metricsName + ".generated.ots", blockSize);
+				synchronized (this) {
+					blocks.addLast(block);
+					generated += blockSize;
+					available += blockSize;
+					notifyAll();
+				}
+			}
+		} catch (Exception e) {
+			synchronized (this) {
+				failure = e;
+				notifyAll();
+			}
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.security.SecureRandom;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.interactiveMidProtocols.ot.OTOnByteArrayROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * The receiver side of a pool of precomputed random OTs. <p>
+ * 
+ * A background thread runs the given OT extension with {@link OTExtensionRandomRInput} and random choice bits c on a dedicated channel, 
+ * and keeps c and r_c in a pool. The requests are served from the pool using Beaver's derandomization; see {@link OTPoolSender} for more details. <p>
+ * 
+ * The sender should be an {@link OTPoolSender} with the same block size and high water mark, which gets the requests in the same order.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTPoolReceiver extends OTPoolAbs implements OTBatchReceiver {
+	
+	private OTBatchReceiver extensionReceiver;
+	private int elementSize;	//The size of the random values in bytes.
+	private SecureRandom random;
+	
+	/**
+	 * Constructor that sets the OT extension and the parameters of the pool. The generation starts by calling {@link #start()} or by the first request.
+	 * @param extensionReceiver The OT extension receiver that generates the random OTs. It should accept OTExtensionRandomRInput.
+	 * @param precomputationChannel The channel that is used to generate the random OTs. It should not be used by anything else.
+	 * @param elementSize The size of the random values in bits, which should be a multiple of 8. This is the maximal size of the elements of a request.
+	 * @param blockSize The number of random OTs that are generated together.
+	 * @param highWaterMark The number of random OTs that are generated ahead of the requests.
+	 * @param random The source of randomness for the random choice bits.
+	 */
+	public OTPoolReceiver(OTBatchReceiver extensionReceiver, Channel precomputationChannel, int elementSize, int blockSize, int highWaterMark, SecureRandom random) {
+		super(precomputationChannel, blockSize, highWaterMark, new int[] {1, elementSize / 8}, "ot.pool.receiver");
+		if (elementSize <= 0 || elementSize % 8 != 0) {
+			throw new IllegalArgumentException("the element size should be a positive multiple of 8");
+		}
+		this.extensionReceiver = extensionReceiver;
+		this.elementSize = elementSize / 8;
+		this.random = random;
+	}
+	
+	protected byte[][] generateBlock(Channel channel, int numOfOts) throws Exception {
+		byte[] c = new byte[numOfOts];
+		for (int j = 0; j < numOfOts; j++) {
+			c[j] = (byte) random.nextInt(2);
+		}
+		OTBatchROutput output = extensionReceiver.transfer(channel, new OTExtensionRandomRInput(c, elementSize * 8));
+		if (!(output instanceof OTOnByteArrayROutput)) {
+			throw new IllegalStateException("the OT extension should output OTOnByteArrayROutput");
+		}
+		return new byte[][] {c, ((OTOnByteArrayROutput) output).getXSigma()};
+	}
+	
+	/**
+	 * Serves the request from the pool.
+	 * @param channel The channel between the sender and the receiver.
+	 * @param input OTExtensionGeneralRInput, OTExtensionCorrelatedRInput or OTExtensionRandomRInput.
+	 * @return OTOnByteArrayROutput that contains x_sigma of all the OTs, one after the other.
+	 * @throws CheatAttemptException if the sender sent a message of a wrong size.
+	 */
+	public OTBatchROutput transfer(Channel channel, OTBatchRInput input) throws CheatAttemptException, IOException, ClassNotFoundException {
+		//Check if the input is valid. If input is not instance of OTRExtensionInput, throw Exception.
+		if (!(input instanceof OTExtensionRInput)){
+			throw new IllegalArgumentException("input should be an instance of OTRExtensionInput.");
+		}
+		byte[] sigmaArr = ((OTExtensionRInput) input).getSigmaArr();
+		int numOfOts = sigmaArr.length;
+		int elementBits = ((OTExtensionRInput) input).getElementSize();
+		if (numOfOts == 0 || elementBits <= 0 || elementBits % 8 != 0 || elementBits / 8 > elementSize) {
+			throw new IllegalArgumentException("there should be at least one OT and the element size should be a positive multiple of 8, up to " + elementSize * 8);
+		}
+		int size = elementBits / 8;
+		//Check the choice bits before taking OTs from the pool, since the pools of both parties should stay in the same state.
+		for (int j = 0; j < numOfOts; j++) {
+			if (sigmaArr[j] != 0 && sigmaArr[j] != 1) {
+				throw new IllegalArgumentException("sigma should be 0 or 1");
+			}
+		}
+		
+		Span span = Metrics.getRecorder().startSpan(getMetricsName() + ".receive");
+		try {
+			//Send e = sigma XOR c, packed into bytes.
+			byte[][] pooled = take(numOfOts);
+			byte[] c = pooled[0];
+			byte[] rc = pooled[1];
+			for (int j = 0; j < numOfOts; j++) {
+				c[j] ^= sigmaArr[j];
+			}
+			channel.send(BitMatrix.pack(c, (numOfOts + 7) / 8));
+			
+			//The output is r_c, corrected by the message of the sender if there is one.
+			byte[] output = new byte[numOfOts * size];
+			for (int j = 0; j < numOfOts; j++) {
+				System.arraycopy(rc, j * elementSize, output, j * size, size);
+			}
+			if (input instanceof OTExtensionCorrelatedRInput){
+				//The sender sent x1 XOR r_(1-e). Use it if sigma is 1.
+				byte[] y = receiveBytes(channel, output.length);
+				for (int j = 0; j < numOfOts; j++) {
+					if (sigmaArr[j] == 1) {
+						for (int i = 0; i < size; i++) {
+							output[j * size + i] ^= y[j * size + i];
+						}
+					}
+				}
+			} else if (!(input instanceof OTExtensionRandomRInput)){
+				//The sender sent x0 XOR r_e and x1 XOR r_(1-e). Use the one of sigma.
+				byte[] y = receiveBytes(channel, 2 * output.length);
+				for (int j = 0; j < numOfOts; j++) {
+					int offset = sigmaArr[j] * output.length + j * size;
+					for (int i = 0; i < size; i++) {
+						output[j * size + i] ^= y[offset + i];
+					}
+				}
+			}
+			
+			return new OTOnByteArrayROutput(output);
+		} finally {
+			span.end();
+		}
+	}
+	
+	/*
+	 * Receives a byte array of the given size from the sender.
+	 */
+	private static byte[] receiveBytes(Channel channel, int size) throws ClassNotFoundException, IOException, CheatAttemptException {
+		Serializable msg = channel.receive();
+		if (!(msg instanceof byte[]) || ((byte[]) msg).length != size) {
+			throw new CheatAttemptException("the received message should be a byte array of size " + size);
+		}
+		return (byte[]) msg;
+	}
+}
@@ -0,0 +1,204 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSOutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * The sender side of a pool of precomputed random OTs. <p>
+ * 
+ * A background thread runs the given OT extension with {@link OTExtensionRandomSInput} on a dedicated channel, and keeps the random pairs (r0, r1) 
+ * in a pool of up to highWaterMark OTs ahead of the requests. The requests are then served from the pool using Beaver's derandomization, 
+ * so the public key and extension work is not done during the request: <p>
+ * The receiver sends e = sigma XOR c, where c is its random choice bit. 
+ * In the general version the sender replies with y0 = x0 XOR r_e and y1 = x1 XOR r_(1-e), and the receiver outputs y_sigma XOR r_c. 
+ * In the correlated version the sender chooses x0 = r_e and replies with x1 XOR r_(1-e). 
+ * In the random version the sender outputs x0 = r_e and x1 = r_(1-e) and does not reply. <p>
+ * 
+ * The elements of a request can be shorter than the elements of the pool, in which case the random values are truncated. 
+ * The receiver should be an {@link OTPoolReceiver} with the same block size and high water mark, which gets the requests in the same order.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTPoolSender extends OTPoolAbs implements OTBatchSender {
+	
+	private OTBatchSender extensionSender;
+	private int elementSize;	//The size of the random values in bytes.
+	
+	/**
+	 * Constructor that sets the OT extension and the parameters of the pool. The generation starts by calling {@link #start()} or by the first request.
+	 * @param extensionSender The OT extension sender that generates the random OTs. It should accept OTExtensionRandomSInput.
+	 * @param precomputationChannel The channel that is used to generate the random OTs. It should not be used by anything else.
+	 * @param elementSize The size of the random values in bits, which should be a multiple of 8. This is the maximal size of the elements of a request.
+	 * @param blockSize The number of random OTs that are generated together.
+	 * @param highWaterMark The number of random OTs that are generated ahead of the requests.
+	 */
+	public OTPoolSender(OTBatchSender extensionSender, Channel precomputationChannel, int elementSize, int blockSize, int highWaterMark) {
+		super(precomputationChannel, blockSize, highWaterMark, new int[] {elementSize / 8, elementSize / 8}, "ot.pool.sender");
+		if (elementSize <= 0 || elementSize % 8 != 0) {
+			throw new IllegalArgumentException("the element size should be a positive multiple of 8");
+		}
+		this.extensionSender = extensionSender;
+		this.elementSize = elementSize / 8;
+	}
+	
+	protected byte[][] generateBlock(Channel channel, int numOfOts) throws Exception {
+		OTBatchSOutput output = extensionSender.transfer(channel, new OTExtensionRandomSInput(numOfOts, elementSize * 8));
+		if (!(output instanceof OTExtensionSOutput)) {
+			throw new IllegalStateException("the OT extension should output OTExtensionSOutput");
+		}
+		return new byte[][] {((OTExtensionSOutput) output).getX0Arr(), ((OTExtensionSOutput) output).getX1Arr()};
+	}
+	
+	/**
+	 * Serves the request from the pool.
+	 * @param channel The channel between the sender and the receiver.
+	 * @param input OTExtensionGeneralSInput, OTExtensionCorrelatedSInput or OTExtensionRandomSInput.
+	 * @return null for the general version; OTExtensionSOutput that contains x0 and x1 for the correlated and random versions.
+	 * @throws CheatAttemptException if the receiver sent a message of a wrong size.
+	 */
+	public OTBatchSOutput transfer(Channel channel, OTBatchSInput input) throws IOException, ClassNotFoundException, CheatAttemptException {
+		Span span = Metrics.getRecorder().startSpan(getMetricsName() + ".send");
+		try {
+			// In case the given input is general input.
+			if (input instanceof OTExtensionGeneralSInput){
+				byte[] x0 = ((OTExtensionGeneralSInput) input).getX0Arr();
+				byte[] x1 = ((OTExtensionGeneralSInput) input).getX1Arr();
+				int numOfOts = ((OTExtensionGeneralSInput) input).getNumOfOts();
+				if (x0.length != x1.length) {
+					throw new IllegalArgumentException("x0 and x1 should have the same size");
+				}
+				int size = getElementSize(x0.length, numOfOts);
+				
+				//Send y0 = x0 XOR r_e and y1 = x1 XOR r_(1-e).
+				byte[][] r = take(numOfOts);
+				byte[] e = receiveChoices(channel, numOfOts);
+				byte[] y = new byte[2 * x0.length];
+				for (int j = 0; j < numOfOts; j++) {
+					int bit = IKNPCore.getBit(e, j);
+					xor(y, j * size, x0, r[bit], j, size);
+					xor(y, x0.length + j * size, x1, r[1 - bit], j, size);
+				}
+				channel.send(y);
+				
+				//This version has no output. Return null.
+				return null;
+				
+			//In case the given input is correlated input.
+			} else if (input instanceof OTExtensionCorrelatedSInput){
+				byte[] delta = ((OTExtensionCorrelatedSInput) input).getDelta();
+				int numOfOts = ((OTExtensionCorrelatedSInput) input).getNumOfOts();
+				int size = getElementSize(delta.length, numOfOts);
+				
+				//x0 = r_e and x1 = x0 XOR delta. Send x1 XOR r_(1-e).
+				byte[][] r = take(numOfOts);
+				byte[] e = receiveChoices(channel, numOfOts);
+				byte[] x0 = new byte[delta.length];
+				byte[] x1 = new byte[delta.length];
+				byte[] y = new byte[delta.length];
+				for (int j = 0; j < numOfOts; j++) {
+					int bit = IKNPCore.getBit(e, j);
+					System.arraycopy(r[bit], j * elementSize, x0, j * size, size);
+					xor(x1, j * size, delta, r[bit], j, size);
+					xor(y, j * size, x1, r[1 - bit], j, size);
+				}
+				channel.send(y);
+				
+				return new OTExtensionSOutput(x0, x1);
+				
+			//In case the given input is random input.
+			} else if (input instanceof OTExtensionRandomSInput){
+				int numOfOts = ((OTExtensionRandomSInput) input).getNumOfOts();
+				int bitLength = ((OTExtensionRandomSInput) input).getBitLength();
+				if (bitLength <= 0 || bitLength % 8 != 0) {
+					throw new IllegalArgumentException("the bit length should be a positive multiple of 8");
+				}
+				int size = getElementSize(numOfOts * bitLength / 8, numOfOts);
+				
+				//x0 = r_e and x1 = r_(1-e).
+				byte[][] r = take(numOfOts);
+				byte[] e = receiveChoices(channel, numOfOts);
+				byte[] x0 = new byte[numOfOts * size];
+				byte[] x1 = new byte[numOfOts * size];
+				for (int j = 0; j < numOfOts; j++) {
+					int bit = IKNPCore.getBit(e, j);
+					System.arraycopy(r[bit], j * elementSize, x0, j * size, size);
+					System.arraycopy(r[1 - bit], j * elementSize, x1, j * size, size);
+				}
+				
+				return new OTExtensionSOutput(x0, x1);
+				
+			//If input is not instance of the above inputs, throw Exception.
+			} else {
+				throw new IllegalArgumentException("input should be an instance of OTExtensionGeneralSInput or OTExtensionCorrelatedSInput or OTExtensionRandomSInput.");
+			}
+		} finally {
+			span.end();
+		}
+	}
+	
+	/*
+	 * Returns the size in bytes of each element of the request, given the total size of the elements.
+	 */
+	private int getElementSize(int length, int numOfOts) {
+		if (numOfOts <= 0 || length == 0 || length % numOfOts != 0) {
+			throw new IllegalArgumentException("the inputs should hold numOfOts elements of the same size");
+		}
+		if (length / numOfOts > elementSize) {
+			throw new IllegalArgumentException("the elements should be at most " + elementSize + " bytes long");
+		}
+		return length / numOfOts;
+	}
+	
+	/*
+	 * Receives the bits e = sigma XOR c of the receiver, packed into bytes.
+	 */
+	private static byte[] receiveChoices(Channel channel, int numOfOts) throws ClassNotFoundException, IOException, CheatAttemptException {
+		Serializable msg = channel.receive();
+		if (!(msg instanceof byte[]) || ((byte[]) msg).length != (numOfOts + 7) / 8) {
+			throw new CheatAttemptException("the received message should be the packed bits e of " + numOfOts + " OTs");
+		}
+		return (byte[]) msg;
+	}
+	
+	/*
+	 * Writes x_j XOR r_j to the target, where x_j has the given size and r_j is truncated to it.
+	 */
+	private void xor(byte[] target, int targetOffset, byte[] x, byte[] r, int j, int size) {
+		for (int i = 0; i < size; i++) {
+			target[targetOffset + i] = (byte) (x[j * size + i] ^ r[j * elementSize + i]);
+		}
+	}
+}
@@ -32,6 +32,8 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRInput;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
 import edu.biu.scapi.securityLevel.SemiHonest;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * A concrete class for Semi-Honest OT extension receiver. <P>
@@ -140,7 +142,13 @@ public class OTSemiHonestExtensionReceiver implements SemiHonest, OTBatchReceive
 		byte[] outputBytes = new byte[numOfOts*elementSize/8];
 		
 		//Run the protocol using the native code in the dll.
-		runOtAsReceiver(receiverPtr, sigmaArr, numOfOts, elementSize, outputBytes, version);
+		Span span = Metrics.getRecorder().startSpan("ot.extension.receive");
+		try {
+			runOtAsReceiver(receiverPtr, sigmaArr, numOfOts, elementSize, outputBytes, version);
+		} finally {
+			span.end();
+		}
+		Metrics.getRecorder().incrementCounter("ot.extension.receive.ots", numOfOts);
 		
 		return new OTOnByteArrayROutput(outputBytes);
 	}
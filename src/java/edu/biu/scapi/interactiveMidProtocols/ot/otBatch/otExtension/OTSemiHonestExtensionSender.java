@@ -30,6 +30,8 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSInput;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSOutput;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
 import edu.biu.scapi.securityLevel.SemiHonest;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * A concrete class for Semi-Honest OT extension sender. <P>
@@ -73,6 +75,19 @@ public class OTSemiHonestExtensionSender  implements SemiHonest, OTBatchSender{
 	 */
 	private native void runOtAsSender(long senderPtr, byte[] x0, byte[]x1, byte[] delta, int numOfOts, int bitLength, String version);
 	
+	/*
+	 * Runs the native OT extension as the sender and reports its duration and the number of OTs.
+	 */
+	private void runOtAsSender(byte[] x0, byte[]x1, byte[] delta, int numOfOts, int bitLength, String version){
+		Span span = Metrics.getRecorder().startSpan("ot.extension.send");
+		try {
+			runOtAsSender(senderPtr, x0, x1, delta, numOfOts, bitLength, version);
+		} finally {
+			span.end();
+		}
+		Metrics.getRecorder().incrementCounter("ot.extension.send.ots", numOfOts);
+	}
+	
 	//Deletes the native sender.
 	private native void deleteSender(long senderPtr);
 	
@@ -120,7 +135,7 @@ public class OTSemiHonestExtensionSender  implements SemiHonest, OTBatchSender{
 			numOfOts = ((OTExtensionGeneralSInput) input).getNumOfOts();
 			
 			//Call the native function.
-			runOtAsSender(senderPtr, x0,x1, null, numOfOts, x0.length/numOfOts*8, "general");
+			runOtAsSender(x0,x1, null, numOfOts, x0.length/numOfOts*8, "general");
 		
 			//This version has no output. Return null.
 			return null;
@@ -137,7 +152,7 @@ public class OTSemiHonestExtensionSender  implements SemiHonest, OTBatchSender{
 			numOfOts = ((OTExtensionCorrelatedSInput) input).getNumOfOts();
 			
 			//Call the native function. It will fill x0 and x1.
-			runOtAsSender(senderPtr, x0, x1, delta, numOfOts, delta.length/numOfOts*8, "correlated");
+			runOtAsSender(x0, x1, delta, numOfOts, delta.length/numOfOts*8, "correlated");
 			
 			//Return output contains x0, x1.
 			return new OTExtensionSOutput(x0,x1);
@@ -153,7 +168,7 @@ public class OTSemiHonestExtensionSender  implements SemiHonest, OTBatchSender{
 			byte[] x1 = new byte[numOfOts * bitLength/8];
 			
 			//Call the native function. It will fill x0 and x1.
-			runOtAsSender(senderPtr, x0, x1, null, numOfOts, bitLength, "random");
+			runOtAsSender(x0, x1, null, numOfOts, bitLength, "random");
 			
 			//Return output contains x0, x1.
 			return new OTExtensionSOutput(x0,x1);
@@ -0,0 +1,75 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.semiHonest.OTSemiHonestDDHBatchOnByteArraySender;
+import edu.biu.scapi.securityLevel.SemiHonest;
+
+/**
+ * A concrete class for Semi-Honest OT extension receiver, implemented in pure Java. <P>
+ * 
+ * This is the receiver side of {@link OTSemiHonestIKNPExtensionSender}. See that class for more details about the protocol. <p>
+ * 
+ * The base OTs are executed in the first call to the transfer function, using the given base OT sender (the roles of the base OTs are reversed). <p>
+ * 
+ * There are three versions of OT extension: General, Correlated and Random. The version is chosen according to the given input instance; 
+ * the sender should use the matching input in each call. <p>
+ * 
+ * This class is not thread safe; the transfer calls of the sender and the receiver should be done in the same order.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTSemiHonestIKNPExtensionReceiver extends IKNPExtensionReceiverAbs implements SemiHonest {
+	
+	private IKNPCore.Receiver core;
+	
+	/**
+	 * Default constructor. Uses the semi-honest DDH batch OT with the default dlog group as the base OT.
+	 */
+	public OTSemiHonestIKNPExtensionReceiver() {
+		this(new OTSemiHonestDDHBatchOnByteArraySender(), new SecureRandom());
+	}
+	
+	/**
+	 * Constructor that sets the base OT and the source of randomness.
+	 * @param baseOTSender The sender of the base OTs. It should accept an OTBatchOnByteArraySInput.
+	 * @param random The source of randomness for the seeds of the base OTs.
+	 */
+	public OTSemiHonestIKNPExtensionReceiver(OTBatchSender baseOTSender, SecureRandom random) {
+		super("ot.iknp");
+		core = new IKNPCore.Receiver(baseOTSender, random);
+	}
+	
+	protected byte[] extend(Channel channel, byte[] sigmaArr) throws IOException, ClassNotFoundException, CheatAttemptException {
+		return core.extend(channel, BitMatrix.pack(sigmaArr, BitMatrix.getRowSize(sigmaArr.length)));
+	}
+}
@@ -0,0 +1,85 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.otExtension;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.semiHonest.OTSemiHonestDDHBatchOnByteArrayReceiver;
+import edu.biu.scapi.securityLevel.SemiHonest;
+
+/**
+ * A concrete class for Semi-Honest OT extension sender, implemented in pure Java. <P>
+ * 
+ * This class implements the IKNP OT extension ("Y. Ishai, J. Kilian, K. Nissim and E. Petrank. Extending Oblivious Transfers Efficiently. CRYPTO 2003"),
+ * with the optimizations of "G. Asharov, Y. Lindell, T. Schneier and M. Zohner. More Efficient Oblivious Transfer and Extensions for Faster Secure Computation. ACM CCS 2013": 
+ * the base OTs are seeds of pseudorandom generators and the correlated and random versions send less or no data. <p>
+ * Unlike {@link OTSemiHonestExtensionSender}, this class does not need the native library and communicates using the channel given 
+ * in the transfer function, so it can be used anywhere that the other SCAPI protocols are used. <p>
+ * 
+ * The base OTs are executed in the first call to the transfer function, using the given base OT receiver (the roles of the base OTs are reversed). 
+ * Further calls to the transfer function only use symmetric operations: AES in counter mode as the pseudorandom generator and fixed-key AES as 
+ * the correlation robust hash function. <p>
+ * 
+ * There are three versions of OT extension: General, Correlated and Random. The version is chosen according to the given input instance, 
+ * as in {@link OTSemiHonestExtensionSender}; the receiver should use the matching input in each call. <p>
+ * 
+ * This class is not thread safe; the transfer calls of the sender and the receiver should be done in the same order.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTSemiHonestIKNPExtensionSender extends IKNPExtensionSenderAbs implements SemiHonest {
+	
+	private IKNPCore.Sender core;
+	
+	/**
+	 * Default constructor. Uses the semi-honest DDH batch OT with the default dlog group as the base OT.
+	 */
+	public OTSemiHonestIKNPExtensionSender() {
+		this(new OTSemiHonestDDHBatchOnByteArrayReceiver(), new SecureRandom());
+	}
+	
+	/**
+	 * Constructor that sets the base OT and the source of randomness.
+	 * @param baseOTReceiver The receiver of the base OTs. Its output should be an OTBatchOnByteArrayROutput.
+	 * @param random The source of randomness for the choice bits of the base OTs.
+	 */
+	public OTSemiHonestIKNPExtensionSender(OTBatchReceiver baseOTReceiver, SecureRandom random) {
+		super("ot.iknp");
+		core = new IKNPCore.Sender(baseOTReceiver, random);
+	}
+	
+	protected byte[] extend(Channel channel, int numOfOts) throws IOException, ClassNotFoundException, CheatAttemptException {
+		return core.extend(channel, numOfOts);
+	}
+	
+	protected byte[] getS() {
+		return core.getS();
+	}
+}
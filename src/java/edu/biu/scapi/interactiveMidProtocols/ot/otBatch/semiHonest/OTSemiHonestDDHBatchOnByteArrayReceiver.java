@@ -36,6 +36,7 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchOnByteArrayROutpu
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
 import edu.biu.scapi.primitives.dlog.DlogGroup;
 import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 import edu.biu.scapi.primitives.kdf.KeyDerivationFunction;
 import edu.biu.scapi.securityLevel.SemiHonest;
 import edu.biu.scapi.tools.Factories.KdfFactory;
@@ -77,6 +78,20 @@ public class OTSemiHonestDDHBatchOnByteArrayReceiver extends OTSemiHonestDDHBatc
 		super(dlog, random);
 		this.kdf = kdf;
 	}
+	
+	/**
+	 * Constructor that sets the given dlogGroup, kdf and random and splits the tuples of each batch between the given number of threads.<p>
+	 * The given dlog is used by all the threads at the same time, so it should be safe for concurrent use (the BouncyCastle based groups are, the Miracl based groups are not).
+	 * @param dlog must be DDH secure.
+	 * @param kdf
+	 * @param random
+	 * @param numOfThreads the number of threads that compute the tuples.
+	 * @throws SecurityLevelException if the given DlogGroup is not DDH secure.
+	 */
+	public OTSemiHonestDDHBatchOnByteArrayReceiver(DlogGroup dlog, KeyDerivationFunction kdf, SecureRandom random, int numOfThreads) throws SecurityLevelException{
+		super(dlog, random, numOfThreads);
+		this.kdf = kdf;
+	}
 
 	/**
 	 * Runs the following lines from the protocol:
@@ -96,16 +111,19 @@ public class OTSemiHonestDDHBatchOnByteArrayReceiver extends OTSemiHonestDDHBatc
 		OTSemiHonestDDHBatchOnByteArraySenderMsg msg = (OTSemiHonestDDHBatchOnByteArraySenderMsg)message;
 		int size = sigmaArr.size();
 		ArrayList<byte[]> xSigmaArr = new ArrayList<byte[]> ();
-		GroupElement u, kSigma;
 		byte[] vSigma, xSigma;
+		
+		//Compute kSigma = u^alpha for all the tuples.
+		GroupElementSendableData[] uArr = new GroupElementSendableData[size];
+		for (int i=0; i<size; i++){
+			uArr[i] = msg.getTuples().get(i).getU();
+		}
+		GroupElement[] kSigmaArr = computeKeys(uArr, alphaArr);
 
 		for (int i=0; i<size; i++){
 			
 			OTSemiHonestDDHOnByteArraySenderMsg tuple = msg.getTuples().get(i);
-			//Compute kSigma:
-			u = dlog.reconstructElement(true, tuple.getU());
-			kSigma = dlog.exponentiate(u, alphaArr.get(i));
-			byte[] kBytes = dlog.mapAnyGroupElementToByteArray(kSigma);
+			byte[] kBytes = dlog.mapAnyGroupElementToByteArray(kSigmaArr[i]);
 			
 			//Get v0 or v1 according to sigma.
 			if (sigmaArr.get(i) == 0){
@@ -75,6 +75,20 @@ public class OTSemiHonestDDHBatchOnByteArraySender extends OTSemiHonestDDHBatchS
 		super(dlog, random);
 		this.kdf = kdf;
 	}
+	
+	/**
+	 * Constructor that sets the given dlogGroup, kdf and random and splits the tuples of each batch between the given number of threads.<p>
+	 * The given dlog is used by all the threads at the same time, so it should be safe for concurrent use (the BouncyCastle based groups are, the Miracl based groups are not).
+	 * @param dlog must be DDH secure.
+	 * @param kdf
+	 * @param random
+	 * @param numOfThreads the number of threads that compute the tuples.
+	 * @throws SecurityLevelException if the given DlogGroup is not DDH secure.
+	 */
+	public OTSemiHonestDDHBatchOnByteArraySender(DlogGroup dlog, KeyDerivationFunction kdf, SecureRandom random, int numOfThreads) throws SecurityLevelException{
+		super(dlog, random, numOfThreads);
+		this.kdf = kdf;
+	}
 
 	/**
 	 * Runs the following lines from the protocol:
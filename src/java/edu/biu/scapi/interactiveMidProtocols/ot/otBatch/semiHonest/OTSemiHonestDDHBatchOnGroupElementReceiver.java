@@ -35,6 +35,7 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchOnGroupElementROu
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
 import edu.biu.scapi.primitives.dlog.DlogGroup;
 import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 import edu.biu.scapi.securityLevel.SemiHonest;
 
 /**
@@ -66,6 +67,18 @@ public class OTSemiHonestDDHBatchOnGroupElementReceiver extends OTSemiHonestDDHB
 		
 		super(dlog, random);
 	}
+	
+	/**
+	 * Constructor that sets the given dlogGroup and random and splits the tuples of each batch between the given number of threads.<p>
+	 * The given dlog is used by all the threads at the same time, so it should be safe for concurrent use (the BouncyCastle based groups are, the Miracl based groups are not).
+	 * @param dlog must be DDH secure.
+	 * @param random
+	 * @param numOfThreads the number of threads that compute the tuples.
+	 * @throws SecurityLevelException if the given DlogGroup is not DDH secure.
+	 */
+	public OTSemiHonestDDHBatchOnGroupElementReceiver(DlogGroup dlog, SecureRandom random, int numOfThreads) throws SecurityLevelException{
+		super(dlog, random, numOfThreads);
+	}
 
 	/**
 	 * Runs the following lines from the protocol:
@@ -85,16 +98,21 @@ public class OTSemiHonestDDHBatchOnGroupElementReceiver extends OTSemiHonestDDHB
 		OTSemiHonestDDHBatchOnGroupElementSenderMsg msg = (OTSemiHonestDDHBatchOnGroupElementSenderMsg)message;
 		int size = sigmaArr.size();
 		ArrayList<GroupElement> xSigmaArr = new ArrayList<GroupElement>();
-		GroupElement u, kSigma, vSigma;
-		BigInteger beta;
+		GroupElement vSigma;
+		
+		//Compute (kSigma)^(-1) = u^(-alpha) for all the tuples.
+		GroupElementSendableData[] uArr = new GroupElementSendableData[size];
+		ArrayList<BigInteger> betaArr = new ArrayList<BigInteger>();
+		for (int i=0; i<size; i++){
+			uArr[i] = msg.getTuples().get(i).getU();	//Get u
+			betaArr.add(i, dlog.getOrder().subtract(alphaArr.get(i)));	//Get -alpha
+		}
+		GroupElement[] kSigmaArr = computeKeys(uArr, betaArr);
 
 		for (int i=0; i<size; i++){
 			
 			OTSemiHonestDDHOnGroupElementSenderMsg tuple = msg.getTuples().get(i);
-			//Compute (kSigma)^(-1) = u^(-alpha):
-			u = dlog.reconstructElement(true, tuple.getU());	//Get u
-			beta = dlog.getOrder().subtract(alphaArr.get(i));	//Get -alpha
-			kSigma = dlog.exponentiate(u, beta);
+			GroupElement kSigma = kSigmaArr[i];
 			
 			
 			//Get v0 or v1 according to sigma.
@@ -65,6 +65,18 @@ public class OTSemiHonestDDHBatchOnGroupElementSender extends OTSemiHonestDDHBat
 		super(dlog, random);
 	}
 	
+	/**
+	 * Constructor that sets the given dlogGroup and random and splits the tuples of each batch between the given number of threads.<p>
+	 * The given dlog is used by all the threads at the same time, so it should be safe for concurrent use (the BouncyCastle based groups are, the Miracl based groups are not).
+	 * @param dlog must be DDH secure.
+	 * @param random
+	 * @param numOfThreads the number of threads that compute the tuples.
+	 * @throws SecurityLevelException if the given DlogGroup is not DDH secure.
+	 */
+	public OTSemiHonestDDHBatchOnGroupElementSender(DlogGroup dlog, SecureRandom random, int numOfThreads) throws SecurityLevelException{
+		super(dlog, random, numOfThreads);
+	}
+	
 	/**
 	 * Runs the following lines from the protocol:
 	 * "COMPUTE:
@@ -29,6 +29,7 @@ import java.io.Serializable;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.bouncycastle.util.BigIntegers;
 
@@ -43,7 +44,9 @@ import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
 import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRBasicInput;
 import edu.biu.scapi.primitives.dlog.DlogGroup;
+import edu.biu.scapi.primitives.dlog.FixedBaseExponentiator;
 import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
 import edu.biu.scapi.securityLevel.DDH;
 import edu.biu.scapi.tools.Factories.DlogGroupFactory;
 
@@ -79,6 +82,8 @@ abstract class OTSemiHonestDDHBatchReceiverAbs implements OTBatchReceiver{
 	protected DlogGroup dlog;
 	private SecureRandom random;
 	private BigInteger qMinusOne;
+	private ParallelBatch parallel;
+	private FixedBaseExponentiator gExponentiator;	//Created in the first transfer.
 	
 	/**
 	 * Constructor that chooses default values of DlogGroup and SecureRandom.
@@ -96,7 +101,7 @@ abstract class OTSemiHonestDDHBatchReceiverAbs implements OTBatchReceiver{
 		}
 		
 		try {
-			doConstruct(dlog, new SecureRandom());
+			doConstruct(dlog, new SecureRandom(), 1);
 		} catch (SecurityLevelException e1) {
 			// Should not occur since the dlog in the configuration file is as secure as needed.
 		}
@@ -110,20 +115,35 @@ abstract class OTSemiHonestDDHBatchReceiverAbs implements OTBatchReceiver{
 	 */
 	OTSemiHonestDDHBatchReceiverAbs(DlogGroup dlog, SecureRandom random) throws SecurityLevelException{
 		
-		doConstruct(dlog, random);
+		doConstruct(dlog, random, 1);
+	}
+	
+	/**
+	 * Constructor that sets the given dlogGroup and random and splits the tuples of each batch between the given number of threads.<p>
+	 * The given dlog is used by all the threads at the same time, so it should be safe for concurrent use (the BouncyCastle based groups are, the Miracl based groups are not).
+	 * @param dlog must be DDH secure.
+	 * @param random
+	 * @param numOfThreads the number of threads that compute the tuples. 1 means that the calling thread does all the work.
+	 * @throws SecurityLevelException if the given dlog is not DDH secure.
+	 */
+	OTSemiHonestDDHBatchReceiverAbs(DlogGroup dlog, SecureRandom random, int numOfThreads) throws SecurityLevelException{
+		
+		doConstruct(dlog, random, numOfThreads);
 	}
 	
 	/**
 	 * Sets the given members.
 	 * @param dlog must be DDH secure.
 	 * @param random
+	 * @param numOfThreads
 	 * @throws SecurityLevelException if the given dlog is not DDH secure.
 	 */
-	private void doConstruct(DlogGroup dlog, SecureRandom random) throws SecurityLevelException {
+	private void doConstruct(DlogGroup dlog, SecureRandom random, int numOfThreads) throws SecurityLevelException {
 		//The underlying dlog group must be DDH secure.
 		if (!(dlog instanceof DDH)){
 			throw new SecurityLevelException("DlogGroup should have DDH security level");
 		}
+		this.parallel = new ParallelBatch(numOfThreads);
 		
 		this.dlog = dlog;
 		this.random = random;
@@ -166,11 +186,19 @@ abstract class OTSemiHonestDDHBatchReceiverAbs implements OTBatchReceiver{
 		
 		//For every i=1,...,m, SAMPLE random values alphaI <- Zq.
 		ArrayList<BigInteger> alphaArr = new ArrayList<BigInteger>();
-		ArrayList<GroupElement> hArr = new ArrayList<GroupElement>();
 		for (int i=0; i<size; i++){
 			alphaArr.add(i, BigIntegers.createRandomInRange(BigInteger.ZERO, qMinusOne, random));
-			hArr.add(i, dlog.createRandomElement());
 		}
+		//For every i=1,...,m, SAMPLE random hi <- G.
+		final GroupElement[] h = new GroupElement[size];
+		parallel.run(size, new ParallelBatch.RangeTask() {
+			public void run(int from, int to) {
+				for (int i=from; i<to; i++){
+					h[i] = dlog.createRandomElement();
+				}
+			}
+		});
+		ArrayList<GroupElement> hArr = new ArrayList<GroupElement>(Arrays.asList(h));
 		
 		//Compute h0, h1
 		OTRGroupElementBatchMsg tuple = computeTuples(alphaArr, hArr, sigmaArr);
@@ -195,27 +223,81 @@ abstract class OTSemiHonestDDHBatchReceiverAbs implements OTBatchReceiver{
 	 * @param sigma input for the protocol
 	 * @return OTRSemiHonestMessage contains the tuple (h0, h1).
 	 */
-	private OTRGroupElementBatchMsg computeTuples(ArrayList<BigInteger> alphaArr, ArrayList<GroupElement> hArr, ArrayList<Byte> sigmaArr) {
+	private OTRGroupElementBatchMsg computeTuples(final ArrayList<BigInteger> alphaArr, final ArrayList<GroupElement> hArr, final ArrayList<Byte> sigmaArr) {
 		int size = alphaArr.size();
-		GroupElement g = dlog.getGenerator();
-		ArrayList<OTRGroupElementPairMsg> tuples = new ArrayList<OTRGroupElementPairMsg>();
-		for (int i=0; i<size; i++){
-			//Calculate g^alphaI.
-			GroupElement gAlpha = dlog.exponentiate(g, alphaArr.get(i));
+		//The generator is the base of all the exponentiations, so they are done using a precomputed table of its powers.
+		if (gExponentiator == null){
+			gExponentiator = new FixedBaseExponentiator(dlog, dlog.getGenerator());
+		}
+		final OTRGroupElementPairMsg[] tuples = new OTRGroupElementPairMsg[size];
+		parallel.run(size, new ParallelBatch.RangeTask() {
+			public void run(int from, int to) {
+				for (int i=from; i<to; i++){
+					//Calculate g^alphaI.
+					GroupElement gAlpha = gExponentiator.exponentiate(alphaArr.get(i));
 					
-			GroupElement h0 = null;
-			GroupElement h1 = null;
-			//If SigmaI = 0 then hi0 = g^alphaI  and hi1=hi
-			if (sigmaArr.get(i) == 0){
-				h0 = gAlpha;
-				h1 = hArr.get(i);
-			} else{ //If SigmaI = 1 then hi0=hi and hi1 = g^alphaI
-				h0 = hArr.get(i);
-				h1 = gAlpha;
+					GroupElement h0 = null;
+					GroupElement h1 = null;
+					//If SigmaI = 0 then hi0 = g^alphaI  and hi1=hi
+					if (sigmaArr.get(i) == 0){
+						h0 = gAlpha;
+						h1 = hArr.get(i);
+					} else{ //If SigmaI = 1 then hi0=hi and hi1 = g^alphaI
+						h0 = hArr.get(i);
+						h1 = gAlpha;
+					}
+					tuples[i] = new OTRGroupElementPairMsg(h0.generateSendableData(), h1.generateSendableData());
+				}
 			}
-			tuples.add(i, new OTRGroupElementPairMsg(h0.generateSendableData(), h1.generateSendableData()));
+		});
+		return new OTRGroupElementBatchMsg(new ArrayList<OTRGroupElementPairMsg>(Arrays.asList(tuples)));
+	}
+	
+	/**
+	 * Computes kI = uI^exponentI for every i=1,...,m.<p>
+	 * The sender of this protocol uses a single u for all the tuples. In that case u is reconstructed and checked to be in the group once, 
+	 * and the exponentiations are done using a precomputed table of its powers. Otherwise, each uI is reconstructed, checked and exponentiated separately.
+	 * @param uArr the data of uI for every i=1,...,m, as received from the sender.
+	 * @param exponents the exponents to raise the elements to.
+	 * @return the array of kI.
+	 */
+	protected GroupElement[] computeKeys(final GroupElementSendableData[] uArr, final ArrayList<BigInteger> exponents) {
+		int size = uArr.length;
+		final GroupElement[] keys = new GroupElement[size];
+		if (size == 0){
+			return keys;
 		}
-		return new OTRGroupElementBatchMsg(tuples);
+		
+		//Check if all the tuples have the same u. 
+		//The other elements are compared to the checked one, so they do not need to be checked themselves.
+		GroupElement u = dlog.reconstructElement(true, uArr[0]);
+		boolean singleU = true;
+		for (int i=1; i<size && singleU; i++){
+			singleU = u.equals(dlog.reconstructElement(false, uArr[i]));
+		}
+		
+		if (singleU){
+			final FixedBaseExponentiator uExponentiator = new FixedBaseExponentiator(dlog, u);
+			parallel.run(size, new ParallelBatch.RangeTask() {
+				public void run(int from, int to) {
+					for (int i=from; i<to; i++){
+						keys[i] = uExponentiator.exponentiate(exponents.get(i));
+					}
+				}
+			});
+		} else {
+			parallel.run(size, new ParallelBatch.RangeTask() {
+				public void run(int from, int to) {
+					for (int i=from; i<to; i++){
+						keys[i] = dlog.reconstructElement(true, uArr[i]);
+					}
+					for (int i=from; i<to; i++){
+						keys[i] = dlog.exponentiate(keys[i], exponents.get(i));
+					}
+				}
+			});
+		}
+		return keys;
 	}
 	
 	/**
@@ -269,5 +351,14 @@ abstract class OTSemiHonestDDHBatchReceiverAbs implements OTBatchReceiver{
 	 * @return OTROutput contains XSigma
 	 */
 	protected abstract OTBatchROutput computeFinalXSigma(ArrayList<Byte> sigma, ArrayList<BigInteger> alpha, OTSMsg message);
+	
+	/**
+	 * Stops the threads that compute the tuples, in case this object was created with more than one thread. 
+	 * Idle threads also end by themselves after a while, so calling this function is not required. 
+	 * The object can still be used after it was closed; the threads are created again by the next transfer.
+	 */
+	public void close() {
+		parallel.close();
+	}
 
 }
@@ -29,6 +29,7 @@ import java.io.Serializable;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.logging.Level;
 
 import edu.biu.scapi.generals.Logging;
@@ -82,6 +83,7 @@ abstract class OTSemiHonestDDHBatchSenderAbs implements OTBatchSender{
 	protected DlogGroup dlog;
 	private SecureRandom random;
 	private BigInteger qMinusOne;
+	private ParallelBatch parallel;
 
 	/**
 	 * Constructor that chooses default values of DlogGroup and SecureRandom.
@@ -99,7 +101,7 @@ abstract class OTSemiHonestDDHBatchSenderAbs implements OTBatchSender{
 		}
 		
 		try {
-			doConstruct(dlog, new SecureRandom());
+			doConstruct(dlog, new SecureRandom(), 1);
 		} catch (SecurityLevelException e1) {
 			// Should not occur since the dlog in the configuration file is as secure as needed.
 		}
@@ -113,20 +115,35 @@ abstract class OTSemiHonestDDHBatchSenderAbs implements OTBatchSender{
 	 */
 	OTSemiHonestDDHBatchSenderAbs(DlogGroup dlog, SecureRandom random) throws SecurityLevelException{
 
-		doConstruct(dlog, random);
+		doConstruct(dlog, random, 1);
+	}
+	
+	/**
+	 * Constructor that sets the given dlogGroup and random and splits the tuples of each batch between the given number of threads.<p>
+	 * The given dlog is used by all the threads at the same time, so it should be safe for concurrent use (the BouncyCastle based groups are, the Miracl based groups are not).
+	 * @param dlog must be DDH secure.
+	 * @param random
+	 * @param numOfThreads the number of threads that compute the tuples. 1 means that the calling thread does all the work.
+	 * @throws SecurityLevelException if the given dlog is not DDH secure
+	 */
+	OTSemiHonestDDHBatchSenderAbs(DlogGroup dlog, SecureRandom random, int numOfThreads) throws SecurityLevelException{
+
+		doConstruct(dlog, random, numOfThreads);
 	}
 
 	/**
 	 * Sets the given members.
 	 * @param dlog must be DDH secure.
 	 * @param random
+	 * @param numOfThreads
 	 * @throws SecurityLevelException if the given dlog is not DDH secure.
 	 */
-	private void doConstruct(DlogGroup dlog, SecureRandom random) throws SecurityLevelException {
+	private void doConstruct(DlogGroup dlog, SecureRandom random, int numOfThreads) throws SecurityLevelException {
 		//The underlying dlog group must be DDH secure.
 		if (!(dlog instanceof DDH)){
 			throw new SecurityLevelException("DlogGroup should have DDH security level");
 		}
+		this.parallel = new ParallelBatch(numOfThreads);
 
 		this.dlog = dlog;
 		this.random = random;
@@ -157,32 +174,40 @@ abstract class OTSemiHonestDDHBatchSenderAbs implements OTBatchSender{
 		OTRGroupElementBatchMsg message = waitForMessageFromReceiver(channel);
 		
 		//SAMPLE a random value r in  [0, . . . , q-1] 
-		BigInteger r = BigIntegers.createRandomInRange(BigInteger.ZERO, qMinusOne, random);
+		final BigInteger r = BigIntegers.createRandomInRange(BigInteger.ZERO, qMinusOne, random);
 		GroupElement g = dlog.getGenerator(); //Get the group generator.
 		
 		//Calculate u = g^r.
 		GroupElement u = dlog.exponentiate(g, r);
 		
-		ArrayList<OTRGroupElementPairMsg> tuples = message.getTuples();
+		final ArrayList<OTRGroupElementPairMsg> tuples = message.getTuples();
 		int size = tuples.size();
-		ArrayList<GroupElement> k0Array = new ArrayList<GroupElement>();
-		ArrayList<GroupElement> k1Array = new ArrayList<GroupElement>();
-		GroupElement h0, h1;
-		OTRGroupElementPairMsg tuple;
+		final GroupElement[] k0 = new GroupElement[size];
+		final GroupElement[] k1 = new GroupElement[size];
 		
 		//For every i=1,...,m, COMPUTE:
 		//	ki0 = (hi0)^r
 		//	ki1 = (hi1)^r
-		for (int i=0; i<size; i++){
-			tuple = tuples.get(i);
-			//Recreate h0 from the data in the received message.
-			h0 = dlog.reconstructElement(true, tuple.getFirstGE());
-			h1 = dlog.reconstructElement(true, tuple.getSecondGE());
-			
-			//Calculate k0 = h0^r.
-			k0Array.add(i, dlog.exponentiate(h0, r));
-			k1Array.add(i, dlog.exponentiate(h1, r));
-		}
+		//Each range of tuples is first reconstructed (and checked to be in the group) and only then exponentiated, 
+		//so that an invalid message is rejected before most of the work is done.
+		parallel.run(size, new ParallelBatch.RangeTask() {
+			public void run(int from, int to) {
+				OTRGroupElementPairMsg tuple;
+				for (int i=from; i<to; i++){
+					tuple = tuples.get(i);
+					//Recreate h0 and h1 from the data in the received message.
+					k0[i] = dlog.reconstructElement(true, tuple.getFirstGE());
+					k1[i] = dlog.reconstructElement(true, tuple.getSecondGE());
+				}
+				for (int i=from; i<to; i++){
+					//Calculate k0 = h0^r and k1 = h1^r.
+					k0[i] = dlog.exponentiate(k0[i], r);
+					k1[i] = dlog.exponentiate(k1[i], r);
+				}
+			}
+		});
+		ArrayList<GroupElement> k0Array = new ArrayList<GroupElement>(Arrays.asList(k0));
+		ArrayList<GroupElement> k1Array = new ArrayList<GroupElement>(Arrays.asList(k1));
 		
 		OTSMsg messageToSend = computeMsg(input, u, k0Array, k1Array);
 		sendTupleToReceiver(channel, messageToSend);
@@ -243,5 +268,14 @@ abstract class OTSemiHonestDDHBatchSenderAbs implements OTBatchSender{
 			throw new IOException("failed to send the message. The thrown message is: " + e.getMessage());
 		}	
 	}
+	
+	/**
+	 * Stops the threads that compute the tuples, in case this object was created with more than one thread. 
+	 * Idle threads also end by themselves after a while, so calling this function is not required. 
+	 * The object can still be used after it was closed; the threads are created again by the next transfer.
+	 */
+	public void close() {
+		parallel.close();
+	}
 
 }
@@ -0,0 +1,152 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.semiHonest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits the tuples of a batch OT between several threads.<p>
+ * The tuples are split into one contiguous range per thread, and each range is handled by a single task. 
+ * The threads are created in the first parallel run and end after they were idle for {@link #IDLE_TIMEOUT_SECONDS} seconds, 
+ * so a batch OT that is no longer used does not keep its threads alive. {@link #close()} stops them immediately. 
+ * The threads are daemon threads, so they never prevent the JVM from exiting.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+final class ParallelBatch {
+	
+	/**
+	 * The work that is done on a range of tuples.
+	 */
+	interface RangeTask {
+		void run(int from, int to);
+	}
+	
+	static final long IDLE_TIMEOUT_SECONDS = 60;
+	
+	private int numOfThreads;
+	private ThreadPoolExecutor executor;	//Created in the first parallel run.
+	
+	/**
+	 * @param numOfThreads The number of threads to use. 1 means that all the work is done by the calling thread.
+	 */
+	ParallelBatch(int numOfThreads) {
+		if (numOfThreads <= 0) {
+			throw new IllegalArgumentException("the number of threads should be positive");
+		}
+		this.numOfThreads = numOfThreads;
+	}
+	
+	/**
+	 * @return true if the work is split between several threads.
+	 */
+	boolean isParallel() {
+		return numOfThreads > 1;
+	}
+	
+	/**
+	 * Runs the given task on all the tuples and waits for all the ranges to complete.
+	 * @param size The number of tuples.
+	 * @param task The work to do on each range.
+	 */
+	void run(int size, final RangeTask task) {
+		int numOfRanges = Math.min(numOfThreads, size);
+		if (numOfRanges <= 1) {
+			task.run(0, size);
+			return;
+		}
+		List<Callable<Object>> ranges = new ArrayList<Callable<Object>>(numOfRanges);
+		for (int r = 0; r < numOfRanges; r++) {
+			final int from = (int) ((long) size * r / numOfRanges);
+			final int to = (int) ((long) size * (r + 1) / numOfRanges);
+			ranges.add(new Callable<Object>() {
+				public Object call() {
+					task.run(from, to);
+					return null;
+				}
+			});
+		}
+		List<Future<Object>> futures;
+		try {
+			futures = getExecutor().invokeAll(ranges);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for the tuples", e);
+		}
+		for (Future<Object> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				// Should not occur since invokeAll returns after all the tasks are done.
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("interrupted while waiting for the tuples", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException){
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error){
+					throw (Error) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+	
+	/**
+	 * Stops the threads. A later parallel run creates new threads.
+	 */
+	synchronized void close() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+	
+	private synchronized ThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			executor = new ThreadPoolExecutor(numOfThreads, numOfThreads, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS, 
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "batchOT");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			//Let the idle threads end, so that they are not kept for the life of the JVM if the batch OT is not closed.
+			executor.allowCoreThreadTimeOut(true);
+		}
+		return executor;
+	}
+}
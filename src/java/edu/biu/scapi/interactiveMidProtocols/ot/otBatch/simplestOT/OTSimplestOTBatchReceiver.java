@@ -0,0 +1,255 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.simplestOT;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+
+import org.bouncycastle.util.BigIntegers;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.exceptions.FactoriesException;
+import edu.biu.scapi.exceptions.InvalidDlogGroupException;
+import edu.biu.scapi.exceptions.SecurityLevelException;
+import edu.biu.scapi.generals.ScapiDefaultConfiguration;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchOnByteArrayROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRBasicInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchRInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchROutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchReceiver;
+import edu.biu.scapi.primitives.dlog.DlogEllipticCurve;
+import edu.biu.scapi.primitives.dlog.DlogGroup;
+import edu.biu.scapi.primitives.dlog.FixedBaseExponentiator;
+import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
+import edu.biu.scapi.primitives.kdf.KeyDerivationFunction;
+import edu.biu.scapi.securityLevel.DDH;
+import edu.biu.scapi.securityLevel.SemiHonest;
+import edu.biu.scapi.tools.Factories.DlogGroupFactory;
+import edu.biu.scapi.tools.Factories.KdfFactory;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * Concrete class for the batch "simplest OT" receiver of Chou and Orlandi, on byte arrays.<p>
+ * For every OT, the receiver computes g^b and A^b using precomputed tables of the powers of g and A, 
+ * so the cost of each OT is two fixed base exponentiations.<p>
+ * 
+ * The sender and the receiver should use the same elliptic curve and KDF. 
+ * See {@link OTSimplestOTBatchSender} for the details of the protocol and its security, which is only against semi-honest adversaries.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTSimplestOTBatchReceiver implements OTBatchReceiver, SemiHonest {
+
+	/*	
+	  This class runs the following protocol:
+			WAIT for message A from S
+			IF NOT A is in the group and A != 1, REPORT ERROR
+			For every i=1,...,m, SAMPLE a random value bi <- {1, . . . , q-1} and COMPUTE:
+			*	Bi = g^bi if sigmaI = 0, or Bi = A * g^bi if sigmaI = 1
+			*	kI = A^bi
+			SEND (B1,...,Bm) to S
+			WAIT for message (v10,v11),...,(vm0,vm1) from S
+			For every i=1,...,m, OUTPUT xISigma = vISigma XOR KDF(i,A,Bi,kI)
+	 */
+	
+	private DlogEllipticCurve dlog;
+	private KeyDerivationFunction kdf;
+	private SecureRandom random;
+	private BigInteger qMinusOne;
+	private FixedBaseExponentiator gExponentiator;	//Created in the first transfer.
+	
+	/**
+	 * Constructor that chooses default values of DlogGroup, KDF and SecureRandom.<p>
+	 * The default DlogGroup is the one that the DDH based OTs use, and it should be an elliptic curve.
+	 */
+	public OTSimplestOTBatchReceiver(){
+		//Read the default DlogGroup name from a configuration file.
+		String dlogName = ScapiDefaultConfiguration.getInstance().getProperty("DDHDlogGroup");
+		DlogGroup dlog = null;
+		KeyDerivationFunction kdf = null;
+		try {
+			//Create the default DlogGroup and KDF by the factory.
+			dlog = DlogGroupFactory.getInstance().getObject(dlogName);
+			kdf = KdfFactory.getInstance().getObject("HKDF(HMac(SHA-256))");
+		} catch (FactoriesException e) {
+			// Should not occur since the dlog name in the configuration file and the kdf name are valid.
+		}
+		if (!(dlog instanceof DlogEllipticCurve)){
+			throw new IllegalStateException("the default DlogGroup should be an elliptic curve");
+		}
+		
+		try {
+			doConstruct((DlogEllipticCurve) dlog, kdf, new SecureRandom());
+		} catch (SecurityLevelException e) {
+			// Should not occur since the dlog in the configuration file is as secure as needed.
+		} catch (InvalidDlogGroupException e) {
+			// Should not occur since the dlog in the configuration file is valid.
+		}
+	}
+	
+	/**
+	 * Constructor that sets the given elliptic curve, kdf and random.
+	 * @param dlog must be DDH secure.
+	 * @param kdf
+	 * @param random
+	 * @throws SecurityLevelException if the given dlog is not DDH secure.
+	 * @throws InvalidDlogGroupException if the given dlog is not valid.
+	 */
+	public OTSimplestOTBatchReceiver(DlogEllipticCurve dlog, KeyDerivationFunction kdf, SecureRandom random) throws SecurityLevelException, InvalidDlogGroupException{
+		doConstruct(dlog, kdf, random);
+	}
+	
+	private void doConstruct(DlogEllipticCurve dlog, KeyDerivationFunction kdf, SecureRandom random) throws SecurityLevelException, InvalidDlogGroupException {
+		//The underlying dlog group must be DDH secure.
+		if (!(dlog instanceof DDH)){
+			throw new SecurityLevelException("DlogGroup should have DDH security level");
+		}
+		//Check that the given dlog is valid.
+		if(!dlog.validateGroup()){
+			throw new InvalidDlogGroupException();
+		}
+		
+		this.dlog = dlog;
+		this.kdf = kdf;
+		this.random = random;
+		qMinusOne = dlog.getOrder().subtract(BigInteger.ONE);
+	}
+
+	/**
+	 * Runs the transfer phase of the protocol.<p>
+	 * "WAIT for message A from S<p>
+	 *	IF NOT A is in the group and A != 1, REPORT ERROR<p>
+	 *	For every i=1,...,m, SAMPLE a random value bi <- {1, . . . , q-1} and COMPUTE:<p>
+	 *		*	Bi = g^bi if sigmaI = 0, or Bi = A * g^bi if sigmaI = 1<p>
+	 *		*	kI = A^bi<p>
+	 *	SEND (B1,...,Bm) to S<p>
+	 *	WAIT for message (v10,v11),...,(vm0,vm1) from S<p>
+	 *	For every i=1,...,m, OUTPUT xISigma = vISigma XOR KDF(i,A,Bi,kI)"<p>
+	 * @return OTBatchOnByteArrayROutput contains xSigma for every i=1,...,m.
+	 * @throws CheatAttemptException if the sender sent an invalid A or a wrong number of values.
+	 */
+	public OTBatchROutput transfer(Channel channel, OTBatchRInput input) throws CheatAttemptException, IOException, ClassNotFoundException {
+		//If input is not instance of OTBatchRBasicInput, throw Exception.
+		if (!(input instanceof OTBatchRBasicInput)){
+			throw new IllegalArgumentException("input should be an instance of OTBatchRBasicInput");
+		}
+		ArrayList<Byte> sigmaArr = ((OTBatchRBasicInput) input).getSigmaArr();
+		int size = sigmaArr.size();
+		for (int i=0; i<size; i++){
+			//The given sigmaI should be 0 or 1.
+			if ((sigmaArr.get(i) != 0) && (sigmaArr.get(i)!= 1)){
+				throw new IllegalArgumentException("Sigma should be 0 or 1");
+			}
+		}
+		
+		Span span = Metrics.getRecorder().startSpan("ot.simplest.receive");
+		try {
+			//The generator is the base of half of the exponentiations, so they are done using a precomputed table of its powers.
+			if (gExponentiator == null){
+				gExponentiator = new FixedBaseExponentiator(dlog, dlog.getGenerator());
+			}
+			
+			//WAIT for message A from S and check that A is in the group and A != 1.
+			GroupElement aElement = OTSimplestOTUtil.reconstruct(dlog, waitForMessage(channel, OTSimplestOTSenderSetupMsg.class).getA());
+			if (aElement.isIdentity()){
+				throw new CheatAttemptException("the sender's element should not be the identity");
+			}
+			byte[] aBytes = dlog.mapAnyGroupElementToByteArray(aElement);
+			//A is the base of the other half of the exponentiations.
+			FixedBaseExponentiator aExponentiator = new FixedBaseExponentiator(dlog, aElement);
+			
+			//For every i=1,...,m, compute Bi and kI.
+			GroupElement[] bArr = new GroupElement[size];
+			GroupElement[] kArr = new GroupElement[size];
+			ArrayList<GroupElementSendableData> bDataArr = new ArrayList<GroupElementSendableData>(size);
+			for (int i=0; i<size; i++){
+				BigInteger b = BigIntegers.createRandomInRange(BigInteger.ONE, qMinusOne, random);
+				//Bi = g^bi if sigmaI = 0, or Bi = A * g^bi if sigmaI = 1.
+				bArr[i] = gExponentiator.exponentiate(b);
+				if (sigmaArr.get(i) == 1){
+					bArr[i] = dlog.multiplyGroupElements(aElement, bArr[i]);
+				}
+				//kI = A^bi.
+				kArr[i] = aExponentiator.exponentiate(b);
+				bDataArr.add(bArr[i].generateSendableData());
+			}
+			
+			//SEND (B1,...,Bm) to S.
+			try {
+				channel.send(new OTSimplestOTReceiverMsg(bDataArr));
+			} catch (IOException e) {
+				throw new IOException("failed to send the message. The thrown message is: " + e.getMessage());
+			}
+			
+			//WAIT for message (v10,v11),...,(vm0,vm1) from S.
+			OTSimplestOTSenderMsg message = waitForMessage(channel, OTSimplestOTSenderMsg.class);
+			ArrayList<byte[]> v0Arr = message.getV0Arr();
+			ArrayList<byte[]> v1Arr = message.getV1Arr();
+			if (v0Arr == null || v1Arr == null || v0Arr.size() != size || v1Arr.size() != size){
+				throw new CheatAttemptException("the sender should send " + size + " pairs of values");
+			}
+			
+			//For every i=1,...,m, OUTPUT xISigma = vISigma XOR KDF(i,A,Bi,kI).
+			ArrayList<byte[]> xSigmaArr = new ArrayList<byte[]>(size);
+			for (int i=0; i<size; i++){
+				byte[] vSigma = (sigmaArr.get(i) == 0) ? v0Arr.get(i) : v1Arr.get(i);
+				xSigmaArr.add(OTSimplestOTUtil.xor(vSigma, OTSimplestOTUtil.deriveKey(dlog, kdf, i, aBytes, bArr[i], kArr[i], vSigma.length)));
+			}
+			Metrics.getRecorder().incrementCounter("ot.simplest.receive.ots", size);
+			return new OTBatchOnByteArrayROutput(xSigmaArr);
+		} finally {
+			span.end();
+		}
+	}
+	
+	/**
+	 * Receives a message of the given type from the sender.
+	 * @param channel
+	 * @param type the expected type of the message.
+	 * @return the received message.
+	 * @throws ClassNotFoundException
+	 * @throws IOException if failed to receive a message.
+	 * @throws CheatAttemptException if the received message is not of the given type.
+	 */
+	private <T extends Serializable> T waitForMessage(Channel channel, Class<T> type) throws ClassNotFoundException, IOException, CheatAttemptException {
+		Serializable message;
+		try {
+			message = channel.receive();
+		} catch (IOException e) {
+			throw new IOException("failed to receive message. The thrown message is: " + e.getMessage());
+		}
+		if (!type.isInstance(message)){
+			throw new CheatAttemptException("the received message should be an instance of " + type.getSimpleName());
+		}
+		return type.cast(message);
+	}
+}
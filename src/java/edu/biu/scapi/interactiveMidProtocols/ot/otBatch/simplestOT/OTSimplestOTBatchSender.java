@@ -0,0 +1,255 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.simplestOT;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+
+import org.bouncycastle.util.BigIntegers;
+
+import edu.biu.scapi.comm.Channel;
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.exceptions.FactoriesException;
+import edu.biu.scapi.exceptions.InvalidDlogGroupException;
+import edu.biu.scapi.exceptions.SecurityLevelException;
+import edu.biu.scapi.generals.ScapiDefaultConfiguration;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchOnByteArraySInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSInput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSOutput;
+import edu.biu.scapi.interactiveMidProtocols.ot.otBatch.OTBatchSender;
+import edu.biu.scapi.primitives.dlog.DlogEllipticCurve;
+import edu.biu.scapi.primitives.dlog.DlogGroup;
+import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
+import edu.biu.scapi.primitives.kdf.KeyDerivationFunction;
+import edu.biu.scapi.securityLevel.DDH;
+import edu.biu.scapi.securityLevel.SemiHonest;
+import edu.biu.scapi.tools.Factories.DlogGroupFactory;
+import edu.biu.scapi.tools.Factories.KdfFactory;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
+
+/**
+ * Concrete class for the batch "simplest OT" sender of Chou and Orlandi, on byte arrays.<p>
+ * The protocol works over an elliptic curve group, and all the OTs of the batch use the same sender element A = g^a. 
+ * The receiver does two exponentiations of a fixed base per OT, and the sender does a single exponentiation per OT. 
+ * This makes it much cheaper than the DDH based OTs, and it is meant to be used as the base OT of the OT extension protocols.<p>
+ * 
+ * The keys are derived by a KDF of the index of the OT, A, B and the shared element 
+ * (T. Chou and C. Orlandi, "The Simplest Protocol for Oblivious Transfer", LATINCRYPT 2015). <p>
+ * 
+ * This implementation is secure against semi-honest adversaries in the random oracle model. It checks that the received elements are 
+ * in the group, but it is not secure against malicious adversaries: the sender does not prove knowledge of a, so its messages can not 
+ * be extracted, and the plain protocol is known to fall short of simulation based (and UC) security against a malicious party. 
+ * An OT extension that uses it as its base OT is therefore only secure against semi-honest adversaries.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class OTSimplestOTBatchSender implements OTBatchSender, SemiHonest {
+
+	/*	
+	  This class runs the following protocol:
+			SAMPLE a random value a <- {1, . . . , q-1} and COMPUTE A = g^a
+			SEND A to R
+			WAIT for message (B1,...,Bm) from R
+			IF NOT every Bi is in the group, REPORT ERROR
+			For every i=1,...,m, COMPUTE:
+			*	ki0 = (Bi)^a
+			*	ki1 = (Bi/A)^a = ki0 * A^(-a)
+			*	vi0 = xi0 XOR KDF(i,A,Bi,ki0)
+			*	vi1 = xi1 XOR KDF(i,A,Bi,ki1)
+			SEND (v10,v11),...,(vm0,vm1) to R
+			OUTPUT nothing
+	 */
+	
+	private DlogEllipticCurve dlog;
+	private KeyDerivationFunction kdf;
+	private SecureRandom random;
+	private BigInteger qMinusOne;
+	
+	/**
+	 * Constructor that chooses default values of DlogGroup, KDF and SecureRandom.<p>
+	 * The default DlogGroup is the one that the DDH based OTs use, and it should be an elliptic curve.
+	 */
+	public OTSimplestOTBatchSender(){
+		//Read the default DlogGroup name from a configuration file.
+		String dlogName = ScapiDefaultConfiguration.getInstance().getProperty("DDHDlogGroup");
+		DlogGroup dlog = null;
+		KeyDerivationFunction kdf = null;
+		try {
+			//Create the default DlogGroup and KDF by the factory.
+			dlog = DlogGroupFactory.getInstance().getObject(dlogName);
+			kdf = KdfFactory.getInstance().getObject("HKDF(HMac(SHA-256))");
+		} catch (FactoriesException e) {
+			// Should not occur since the dlog name in the configuration file and the kdf name are valid.
+		}
+		if (!(dlog instanceof DlogEllipticCurve)){
+			throw new IllegalStateException("the default DlogGroup should be an elliptic curve");
+		}
+		
+		try {
+			doConstruct((DlogEllipticCurve) dlog, kdf, new SecureRandom());
+		} catch (SecurityLevelException e) {
+			// Should not occur since the dlog in the configuration file is as secure as needed.
+		} catch (InvalidDlogGroupException e) {
+			// Should not occur since the dlog in the configuration file is valid.
+		}
+	}
+	
+	/**
+	 * Constructor that sets the given elliptic curve, kdf and random.
+	 * @param dlog must be DDH secure.
+	 * @param kdf
+	 * @param random
+	 * @throws SecurityLevelException if the given dlog is not DDH secure.
+	 * @throws InvalidDlogGroupException if the given dlog is not valid.
+	 */
+	public OTSimplestOTBatchSender(DlogEllipticCurve dlog, KeyDerivationFunction kdf, SecureRandom random) throws SecurityLevelException, InvalidDlogGroupException{
+		doConstruct(dlog, kdf, random);
+	}
+	
+	private void doConstruct(DlogEllipticCurve dlog, KeyDerivationFunction kdf, SecureRandom random) throws SecurityLevelException, InvalidDlogGroupException {
+		//The underlying dlog group must be DDH secure.
+		if (!(dlog instanceof DDH)){
+			throw new SecurityLevelException("DlogGroup should have DDH security level");
+		}
+		//Check that the given dlog is valid.
+		if(!dlog.validateGroup()){
+			throw new InvalidDlogGroupException();
+		}
+		
+		this.dlog = dlog;
+		this.kdf = kdf;
+		this.random = random;
+		qMinusOne = dlog.getOrder().subtract(BigInteger.ONE);
+	}
+
+	/**
+	 * Runs the transfer phase of the protocol.<p>
+	 * "SAMPLE a random value a <- {1, . . . , q-1} and COMPUTE A = g^a<p>
+	 *	SEND A to R<p>
+	 *	WAIT for message (B1,...,Bm) from R<p>
+	 *	IF NOT every Bi is in the group, REPORT ERROR<p>
+	 *	For every i=1,...,m, COMPUTE:<p>
+	 *		*	ki0 = (Bi)^a<p>
+	 *		*	ki1 = (Bi/A)^a = ki0 * A^(-a)<p>
+	 *		*	vi0 = xi0 XOR KDF(i,A,Bi,ki0)<p>
+	 *		*	vi1 = xi1 XOR KDF(i,A,Bi,ki1)<p>
+	 *	SEND (v10,v11),...,(vm0,vm1) to R<p>
+	 *	OUTPUT nothing"<p>
+	 * @return null, this protocol has no output.
+	 * @throws CheatAttemptException if the receiver sent an element that is not in the group, or a wrong number of elements.
+	 */
+	public OTBatchSOutput transfer(Channel channel, OTBatchSInput input) throws ClassNotFoundException, IOException, CheatAttemptException {
+		//If input is not instance of OTBatchOnByteArraySInput, throw Exception.
+		if (!(input instanceof OTBatchOnByteArraySInput)){
+			throw new IllegalArgumentException("input should be an instance of OTBatchOnByteArraySInput");
+		}
+		ArrayList<byte[]> x0Arr = ((OTBatchOnByteArraySInput) input).getX0Arr();
+		ArrayList<byte[]> x1Arr = ((OTBatchOnByteArraySInput) input).getX1Arr();
+		int size = x0Arr.size();
+		if (x1Arr.size() != size){
+			throw new IllegalArgumentException("x0Arr and x1Arr should have the same size");
+		}
+		
+		Span span = Metrics.getRecorder().startSpan("ot.simplest.send");
+		try {
+			//SAMPLE a random value a <- {1, . . . , q-1} and COMPUTE A = g^a.
+			BigInteger a = BigIntegers.createRandomInRange(BigInteger.ONE, qMinusOne, random);
+			GroupElement aElement = dlog.exponentiate(dlog.getGenerator(), a);
+			//A^(-a) = g^(-a*a).
+			GroupElement aInverse = dlog.exponentiate(dlog.getGenerator(), a.multiply(a).negate().mod(dlog.getOrder()));
+			byte[] aBytes = dlog.mapAnyGroupElementToByteArray(aElement);
+			
+			//SEND A to R.
+			sendMessage(channel, new OTSimplestOTSenderSetupMsg(aElement.generateSendableData()));
+			
+			//WAIT for message (B1,...,Bm) from R.
+			ArrayList<GroupElementSendableData> bArr = waitForMessageFromReceiver(channel).getBArr();
+			if (bArr == null || bArr.size() != size){
+				throw new CheatAttemptException("the receiver should send " + size + " elements");
+			}
+			
+			ArrayList<byte[]> v0Arr = new ArrayList<byte[]>(size);
+			ArrayList<byte[]> v1Arr = new ArrayList<byte[]>(size);
+			for (int i=0; i<size; i++){
+				//Check that Bi is in the group.
+				GroupElement b = OTSimplestOTUtil.reconstruct(dlog, bArr.get(i));
+				
+				//ki0 = (Bi)^a, ki1 = ki0 * A^(-a).
+				GroupElement k0 = dlog.exponentiate(b, a);
+				GroupElement k1 = dlog.multiplyGroupElements(k0, aInverse);
+				
+				//vi0 = xi0 XOR KDF(i,A,Bi,ki0), vi1 = xi1 XOR KDF(i,A,Bi,ki1).
+				byte[] x0 = x0Arr.get(i);
+				byte[] x1 = x1Arr.get(i);
+				v0Arr.add(OTSimplestOTUtil.xor(x0, OTSimplestOTUtil.deriveKey(dlog, kdf, i, aBytes, b, k0, x0.length)));
+				v1Arr.add(OTSimplestOTUtil.xor(x1, OTSimplestOTUtil.deriveKey(dlog, kdf, i, aBytes, b, k1, x1.length)));
+			}
+			
+			//SEND (v10,v11),...,(vm0,vm1) to R.
+			sendMessage(channel, new OTSimplestOTSenderMsg(v0Arr, v1Arr));
+			Metrics.getRecorder().incrementCounter("ot.simplest.send.ots", size);
+		} finally {
+			span.end();
+		}
+		
+		return null; //This protocol has no output.
+	}
+	
+	/**
+	 * Runs the following line from the protocol:
+	 * "WAIT for message (B1,...,Bm) from R"
+	 * @param channel
+	 * @return the received message.
+	 * @throws ClassNotFoundException
+	 * @throws IOException if failed to receive a message.
+	 * @throws CheatAttemptException if the received message is not the receiver's message.
+	 */
+	private OTSimplestOTReceiverMsg waitForMessageFromReceiver(Channel channel) throws ClassNotFoundException, IOException, CheatAttemptException {
+		Serializable message;
+		try {
+			message = channel.receive();
+		} catch (IOException e) {
+			throw new IOException("failed to receive message. The thrown message is: " + e.getMessage());
+		}
+		if (!(message instanceof OTSimplestOTReceiverMsg)){
+			throw new CheatAttemptException("the received message should be an instance of OTSimplestOTReceiverMsg");
+		}
+		return (OTSimplestOTReceiverMsg) message;
+	}
+	
+	private void sendMessage(Channel channel, Serializable message) throws IOException {
+		try {
+			channel.send(message);
+		} catch (IOException e) {
+			throw new IOException("failed to send the message. The thrown message is: " + e.getMessage());
+		}
+	}
+}
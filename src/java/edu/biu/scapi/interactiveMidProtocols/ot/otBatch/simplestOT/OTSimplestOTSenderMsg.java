@@ -0,0 +1,59 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.simplestOT;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * The last message of the simplest OT: the sender's inputs, each one masked by the key derived for it.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+class OTSimplestOTSenderMsg implements Serializable {
+
+	private static final long serialVersionUID = 6635271942086012975L;
+
+	private ArrayList<byte[]> v0Arr;
+	private ArrayList<byte[]> v1Arr;
+	
+	/**
+	 * @param v0Arr vi0 = xi0 XOR KDF(i,A,Bi,ki0), for every i=1,...,m.
+	 * @param v1Arr vi1 = xi1 XOR KDF(i,A,Bi,ki1), for every i=1,...,m.
+	 */
+	OTSimplestOTSenderMsg(ArrayList<byte[]> v0Arr, ArrayList<byte[]> v1Arr){
+		this.v0Arr = v0Arr;
+		this.v1Arr = v1Arr;
+	}
+	
+	ArrayList<byte[]> getV0Arr(){
+		return v0Arr;
+	}
+	
+	ArrayList<byte[]> getV1Arr(){
+		return v1Arr;
+	}
+}
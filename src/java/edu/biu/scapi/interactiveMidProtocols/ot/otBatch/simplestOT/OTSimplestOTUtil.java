@@ -0,0 +1,101 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.interactiveMidProtocols.ot.otBatch.simplestOT;
+
+import edu.biu.scapi.exceptions.CheatAttemptException;
+import edu.biu.scapi.primitives.dlog.DlogEllipticCurve;
+import edu.biu.scapi.primitives.dlog.ECElementSendableData;
+import edu.biu.scapi.primitives.dlog.GroupElement;
+import edu.biu.scapi.primitives.dlog.GroupElementSendableData;
+import edu.biu.scapi.primitives.kdf.KeyDerivationFunction;
+
+/**
+ * Operations that are common to the sender and the receiver of the simplest OT.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+final class OTSimplestOTUtil {
+	
+	private OTSimplestOTUtil(){}
+	
+	/**
+	 * Recreates an element that was received from the other party and checks that it is a point of the group.
+	 * @param dlog
+	 * @param data the received data.
+	 * @return the element.
+	 * @throws CheatAttemptException if the data does not represent a point of the group.
+	 */
+	static GroupElement reconstruct(DlogEllipticCurve dlog, GroupElementSendableData data) throws CheatAttemptException{
+		if (!(data instanceof ECElementSendableData)){
+			throw new CheatAttemptException("the received element is not a point of an elliptic curve");
+		}
+		try {
+			return dlog.reconstructElement(true, data);
+		} catch (IllegalArgumentException e) {
+			throw new CheatAttemptException("the received element is not a member of the group");
+		}
+	}
+	
+	/**
+	 * Derives the key of the i-th OT of the batch.<p>
+	 * The key is KDF(i,A,B,k). Hashing the index and the transcript together with k makes the keys of different OTs independent, 
+	 * even if the receiver sends the same B in several of them.
+	 * @param dlog
+	 * @param kdf
+	 * @param index the index of the OT in the batch.
+	 * @param aBytes the byte representation of A.
+	 * @param b the receiver's element of the OT.
+	 * @param k the group element that the key is derived from.
+	 * @param len the required key length in bytes.
+	 * @return the derived key.
+	 */
+	static byte[] deriveKey(DlogEllipticCurve dlog, KeyDerivationFunction kdf, int index, byte[] aBytes, GroupElement b, GroupElement k, int len){
+		byte[] bBytes = dlog.mapAnyGroupElementToByteArray(b);
+		byte[] kBytes = dlog.mapAnyGroupElementToByteArray(k);
+		byte[] input = new byte[4 + aBytes.length + bBytes.length + kBytes.length];
+		input[0] = (byte) (index >>> 24);
+		input[1] = (byte) (index >>> 16);
+		input[2] = (byte) (index >>> 8);
+		input[3] = (byte) index;
+		System.arraycopy(aBytes, 0, input, 4, aBytes.length);
+		System.arraycopy(bBytes, 0, input, 4 + aBytes.length, bBytes.length);
+		System.arraycopy(kBytes, 0, input, 4 + aBytes.length + bBytes.length, kBytes.length);
+		return kdf.deriveKey(input, 0, input.length, len).getEncoded();
+	}
+	
+	/**
+	 * Xors the given value with the given key, in place.
+	 * @param value
+	 * @param key has at least the length of value.
+	 * @return the given key after the xor.
+	 */
+	static byte[] xor(byte[] value, byte[] key){
+		for (int j=0; j<value.length; j++){
+			key[j] = (byte) (key[j] ^ value[j]);
+		}
+		return key;
+	}
+}
@@ -31,6 +31,8 @@ import edu.biu.scapi.comm.Channel;
 import edu.biu.scapi.exceptions.CheatAttemptException;
 import edu.biu.scapi.interactiveMidProtocols.sigmaProtocol.utility.SigmaProverInput;
 import edu.biu.scapi.interactiveMidProtocols.sigmaProtocol.utility.SigmaProtocolMsg;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This class manages the communication functionality of all the sigma protocol provers.<p>
@@ -77,11 +79,16 @@ public class SigmaProver implements SigmaProtocolProver{
 	 * @param input
 	 */
 	public void prove(SigmaProverInput input) throws CheatAttemptException, IOException, ClassNotFoundException{
-		//Step one of the protocol.
-		processFirstMsg(input);
-		
-		//Step two of the protocol.
-		processSecondMsg();
+		Span span = Metrics.getRecorder().startSpan("sigma.prove");
+		try {
+			//Step one of the protocol.
+			processFirstMsg(input);
+			
+			//Step two of the protocol.
+			processSecondMsg();
+		} finally {
+			span.end();
+		}
 	}
 	
 	/**
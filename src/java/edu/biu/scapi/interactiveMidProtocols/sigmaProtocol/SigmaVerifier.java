@@ -30,6 +30,8 @@ import java.io.Serializable;
 import edu.biu.scapi.comm.Channel;
 import edu.biu.scapi.interactiveMidProtocols.sigmaProtocol.utility.SigmaCommonInput;
 import edu.biu.scapi.interactiveMidProtocols.sigmaProtocol.utility.SigmaProtocolMsg;
+import edu.biu.scapi.tools.metrics.Metrics;
+import edu.biu.scapi.tools.metrics.Span;
 
 /**
  * This class manages the communication functionality of all the sigma protocol verifiers, 
@@ -75,12 +77,21 @@ public class SigmaVerifier implements SigmaProtocolVerifier{
 	 * @return true if the proof has been verified; false, otherwise.
 	 */
 	public boolean verify(SigmaCommonInput input) throws ClassNotFoundException, IOException{
-		//Samples the challenge.
-		sampleChallenge();
-		//Sends the challenge.
-		sendChallenge();
-		//Verifies the proof.
-		return processVerify(input);
+		Span span = Metrics.getRecorder().startSpan("sigma.verify");
+		try {
+			//Samples the challenge.
+			sampleChallenge();
+			//Sends the challenge.
+			sendChallenge();
+			//Verifies the proof.
+			boolean verified = processVerify(input);
+			if (!verified){
+				Metrics.getRecorder().incrementCounter("sigma.verify.rejected", 1);
+			}
+			return verified;
+		} finally {
+			span.end();
+		}
 	}
 	
 	/**
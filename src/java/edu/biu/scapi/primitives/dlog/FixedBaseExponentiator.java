@@ -0,0 +1,101 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.primitives.dlog;
+
+import java.math.BigInteger;
+
+/**
+ * Raises a fixed base to many exponents, using a precomputed table. <p>
+ * The exponent is split into windows of 4 bits, and the table holds base^(j * 16^i) for every window i and every value j of the window. 
+ * Each exponentiation is then a product of one table entry per window, so it takes about (log q)/4 multiplications instead of 
+ * the squarings and multiplications of a regular exponentiation. Building the table costs about as much as a few exponentiations, 
+ * so it pays off when the same base is raised to many exponents, such as the generator and the first message in batch OTs. <p>
+ * 
+ * Unlike {@link DlogGroup#exponentiateWithPreComputedValues(GroupElement, BigInteger)}, the table is not kept in the Dlog group and is not changed after 
+ * the construction, so an instance can be used by several threads at the same time, as long as the Dlog group's multiplication is thread safe.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public final class FixedBaseExponentiator {
+	
+	private static final int WINDOW_SIZE = 4;
+	private static final int WINDOW_VALUES = 1 << WINDOW_SIZE;
+	
+	private DlogGroup dlog;
+	private GroupElement base;
+	private GroupElement[][] table;	//table[i][j] = base^(j * 16^i), for j > 0.
+	private int numOfBits;
+	
+	/**
+	 * Builds the table of the given base.
+	 * @param dlog The Dlog group of the base.
+	 * @param base The base to raise.
+	 */
+	public FixedBaseExponentiator(DlogGroup dlog, GroupElement base) {
+		this.dlog = dlog;
+		this.base = base;
+		numOfBits = dlog.getOrder().bitLength();
+		int numOfWindows = (numOfBits + WINDOW_SIZE - 1) / WINDOW_SIZE;
+		table = new GroupElement[numOfWindows][WINDOW_VALUES];
+		GroupElement power = base;	//base^(16^i)
+		for (int i = 0; i < numOfWindows; i++) {
+			table[i][1] = power;
+			for (int j = 2; j < WINDOW_VALUES; j++) {
+				table[i][j] = dlog.multiplyGroupElements(table[i][j - 1], power);
+			}
+			power = dlog.multiplyGroupElements(table[i][WINDOW_VALUES - 1], power);
+		}
+	}
+	
+	/**
+	 * @return the base of this exponentiator.
+	 */
+	public GroupElement getBase() {
+		return base;
+	}
+	
+	/**
+	 * Raises the base to the given exponent.
+	 * @param exponent The exponent. Exponents that are negative or longer than the order of the group are reduced modulo the order.
+	 * @return base^exponent.
+	 */
+	public GroupElement exponentiate(BigInteger exponent) {
+		if (exponent.signum() < 0 || exponent.bitLength() > numOfBits) {
+			exponent = exponent.mod(dlog.getOrder());
+		}
+		GroupElement result = null;
+		for (int i = 0; i < table.length; i++) {
+			int window = 0;
+			for (int k = WINDOW_SIZE - 1; k >= 0; k--) {
+				window = (window << 1) | (exponent.testBit(i * WINDOW_SIZE + k) ? 1 : 0);
+			}
+			if (window != 0) {
+				result = (result == null) ? table[i][window] : dlog.multiplyGroupElements(result, table[i][window]);
+			}
+		}
+		return (result == null) ? dlog.getIdentity() : result;
+	}
+}
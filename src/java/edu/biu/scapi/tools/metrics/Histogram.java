@@ -0,0 +1,159 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.tools.metrics;
+
+/**
+ * A histogram of long values, whose buckets are powers of two. <p>
+ * Bucket 0 counts the values that are smaller than 1, and bucket i > 0 counts the values in [2^(i-1), 2^i). 
+ * This class is thread safe.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class Histogram {
+	
+	/**
+	 * The number of buckets in the histogram.
+	 */
+	public static final int NUMBER_OF_BUCKETS = 64;
+	
+	private long[] buckets = new long[NUMBER_OF_BUCKETS];
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+	
+	/**
+	 * Records the given value.
+	 * @param value The value to record.
+	 */
+	public synchronized void record(long value) {
+		buckets[getBucket(value)]++;
+		count++;
+		sum += value;
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+	}
+	
+	/**
+	 * @return the bucket of the given value.
+	 */
+	private static int getBucket(long value) {
+		if (value < 1) {
+			return 0;
+		}
+		return Math.min(NUMBER_OF_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+	}
+	
+	/**
+	 * @return the number of recorded values.
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return the sum of the recorded values.
+	 */
+	public synchronized long getSum() {
+		return sum;
+	}
+	
+	/**
+	 * @return the smallest recorded value, or 0 if no value was recorded.
+	 */
+	public synchronized long getMin() {
+		return (count == 0) ? 0 : min;
+	}
+	
+	/**
+	 * @return the largest recorded value, or 0 if no value was recorded.
+	 */
+	public synchronized long getMax() {
+		return (count == 0) ? 0 : max;
+	}
+	
+	/**
+	 * @return the average of the recorded values, or 0 if no value was recorded.
+	 */
+	public synchronized double getMean() {
+		return (count == 0) ? 0 : (double) sum / count;
+	}
+	
+	/**
+	 * @param bucket The index of the bucket.
+	 * @return the number of recorded values in the given bucket.
+	 */
+	public synchronized long getBucketCount(int bucket) {
+		return buckets[bucket];
+	}
+	
+	/**
+	 * Returns an upper bound of the given percentile, which is the end of the bucket that contains it. 
+	 * The result is at most the largest recorded value.
+	 * @param percentile A number between 0 and 100.
+	 * @return an upper bound of the percentile, or 0 if no value was recorded.
+	 */
+	public synchronized long getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("the percentile should be between 0 and 100");
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile / 100 * count);
+		long seen = 0;
+		for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+			seen += buckets[i];
+			if (seen >= rank && seen > 0) {
+				long bound = (i == 0) ? 0 : (i == NUMBER_OF_BUCKETS - 1) ? Long.MAX_VALUE : (1L << i) - 1;
+				return Math.min(bound, max);
+			}
+		}
+		return max;
+	}
+	
+	/**
+	 * @return a copy of this histogram.
+	 */
+	public synchronized Histogram copy() {
+		Histogram copy = new Histogram();
+		System.arraycopy(buckets, 0, copy.buckets, 0, NUMBER_OF_BUCKETS);
+		copy.count = count;
+		copy.sum = sum;
+		copy.min = min;
+		copy.max = max;
+		return copy;
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "count=" + count + " mean=" + getMean() + " min=" + getMin() + " p50<=" + getPercentile(50) + " p99<=" + getPercentile(99) + " max=" + getMax();
+	}
+}
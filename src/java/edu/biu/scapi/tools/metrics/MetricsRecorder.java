@@ -0,0 +1,61 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.tools.metrics;
+
+/**
+ * General interface for recorders of timing and metrics. <p>
+ * The protocols of SCAPI report their phases, counters and measured values to the recorder returned by {@link Metrics#getRecorder()}. 
+ * By default this is a {@link NoOpMetricsRecorder} that ignores everything; an application that wants to monitor the protocols sets 
+ * its own recorder using {@link Metrics#setRecorder(MetricsRecorder)}, for example a {@link RecordingMetricsRecorder} or an adapter 
+ * to the monitoring system of the application. <p>
+ * Implementations should be thread safe, since the protocols may report from several threads.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public interface MetricsRecorder {
+	
+	/**
+	 * Starts timing a phase. The phase ends when {@link Span#end()} is called on the returned span, which should be done in a finally block.<p>
+	 * Spans that are started by a thread while another span of the same thread is open are nested in it, and should be ended before it.
+	 * @param name The name of the phase.
+	 * @return the span that measures the phase.
+	 */
+	public Span startSpan(String name);
+	
+	/**
+	 * Adds the given amount to a counter.
+	 * @param name The name of the counter.
+	 * @param delta The amount to add.
+	 */
+	public void incrementCounter(String name, long delta);
+	
+	/**
+	 * Records a value in a histogram, for example the size of a message.
+	 * @param name The name of the histogram.
+	 * @param value The value to record.
+	 */
+	public void recordValue(String name, long value);
+}
@@ -0,0 +1,175 @@
+/**
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+* Copyright (c) 2012 - SCAPI (http://crypto.biu.ac.il/scapi)
+* This file is part of the SCAPI project.
+* DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+* to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+* and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+* FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+* WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+* 
+* We request that any publication and/or code referring to and/or based on SCAPI contain an appropriate citation to SCAPI, including a reference to
+* http://crypto.biu.ac.il/SCAPI.
+* 
+* SCAPI uses Crypto++, Miracl, NTL and Bouncy Castle. Please see these projects for any further licensing issues.
+* %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
+* 
+*/
+package edu.biu.scapi.tools.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A recorder that keeps all the reports in memory, so that they can be read and exported to a monitoring system. <p>
+ * The duration of each span is recorded, in nanoseconds, in the histogram named by the span's path: the names of the enclosing spans 
+ * of the same thread and the name of the span, separated by "/". For example, an OT that runs inside the "yao.partyOne" phase is 
+ * recorded in "yao.partyOne/ot.extension.transfer". <p>
+ * This class is thread safe.
+ * 
+ * @author Cryptography and Computer Security Research Group Department of Computer Science Bar-Ilan University
+ *
+ */
+public class RecordingMetricsRecorder implements MetricsRecorder {
+	
+	/**
+	 * A span that records its duration when it ends.
+	 */
+	private class RecordingSpan implements Span {
+		private String path;
+		private RecordingSpan parent;
+		private long start;
+		private boolean ended;
+		
+		private RecordingSpan(String path, RecordingSpan parent) {
+			this.path = path;
+			this.parent = parent;
+			start = System.nanoTime();
+		}
+		
+		public void end() {
+			if (ended) {
+				return;
+			}
+			ended = true;
+			recordValue(path, System.nanoTime() - start);
+			//If inner spans of this span were not ended (for example, because an exception skipped their end), they are removed 
+			//together with this span. Otherwise, they would stay the current span of the thread and later spans would be recorded 
+			//under them. A span that is not in the thread's chain (it was ended by another thread) does not change it.
+			for (RecordingSpan span = currentSpan.get(); span != null; span = span.parent) {
+				if (span == this) {
+					currentSpan.set(parent);
+					break;
+				}
+			}
+		}
+	}
+	
+	private ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+	private ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+	private ThreadLocal<RecordingSpan> currentSpan = new ThreadLocal<RecordingSpan>();
+	
+	public Span startSpan(String name) {
+		RecordingSpan parent = currentSpan.get();
+		String path = (parent == null) ? name : parent.path + "/" + name;
+		RecordingSpan span = new RecordingSpan(path, parent);
+		currentSpan.set(span);
+		return span;
+	}
+
+	public void incrementCounter(String name, long delta) {
+		AtomicLong counter = counters.get(name);
+		if (counter == null) {
+			AtomicLong newCounter = new AtomicLong();
+			counter = counters.putIfAbsent(name, newCounter);
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		counter.addAndGet(delta);
+	}
+
+	public void recordValue(String name, long value) {
+		Histogram histogram = histograms.get(name);
+		if (histogram == null) {
+			Histogram newHistogram = new Histogram();
+			histogram = histograms.putIfAbsent(name, newHistogram);
+			if (histogram == null) {
+				histogram = newHistogram;
+			}
+		}
+		histogram.record(value);
+	}
+	
+	/**
+	 * @param name The name of the counter.
+	 * @return the value of the counter, or 0 if it was never incremented.
+	 */
+	public long getCounter(String name) {
+		AtomicLong counter = counters.get(name);
+		return (counter == null) ? 0 : counter.get();
+	}
+	
+	/**
+	 * @param name The name of the histogram, or the path of a span.
+	 * @return a copy of the histogram, or null if no value was recorded in it.
+	 */
+	public Histogram getHistogram(String name) {
+		Histogram histogram = histograms.get(name);
+		return (histogram == null) ? null : histogram.copy();
+	}
+	
+	/**
+	 * @return a copy of all the counters, sorted by name.
+	 */
+	public Map<String, Long> getCounters() {
+		Map<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().get());
+		}
+		return result;
+	}
+	
+	/**
+	 * @return a copy of all the histograms, sorted by name.
+	 */
+	public Map<String, Histogram> getHistograms() {
+		Map<String, Histogram> result = new TreeMap<String, Histogram>();
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().copy());
+		}
+		return result;
+	}
+	
+	/**
+	 * Removes all the counters and histograms. Spans that are open are recorded when they end.
+	 */
+	public void reset() {
+		counters.clear();
+		histograms.clear();
+	}
+	
+	/**
+	 * @return a readable summary of the counters and histograms, one per line. Durations of spans are in nanoseconds.
+	 */
+	public String getReport() {
+		StringBuilder report = new StringBuilder();
+		for (Map.Entry<String, Long> entry : getCounters().entrySet()) {
+			report.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+		}
+		for (Map.Entry<String, Histogram> entry : getHistograms().entrySet()) {
+			report.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+		}
+		return report.toString();
+	}
+}
@@ -214,6 +214,154 @@ JNIEXPORT jbyteArray JNICALL Java_edu_biu_scapi_circuits_fastGarbledCircuit_ScNa
 	return result;
 
 }
+/* function getDirectAddress : This function returns the address of the given position in the given direct buffer.
+ * If the buffer is not a direct buffer, an IllegalArgumentException is thrown in java and NULL is returned.
+ */
+static jbyte* getDirectAddress(JNIEnv *env, jobject buffer, jint position){
+
+	jbyte *address = (jbyte *) env->GetDirectBufferAddress(buffer);
+	if (address == NULL){
+		env->ThrowNew(env->FindClass("java/lang/IllegalArgumentException"), "the given buffer should be a direct buffer");
+		return NULL;
+	}
+	return address + position;
+}
+
+/* function getTablesSize : This function returns the size in bytes of the garbled tables of the given circuit.
+ */
+static int getTablesSize(GarbledBooleanCircuit * garbledCircuit){
+
+	int mult = 4;//for a regular circuit we have 4 blocks for each gate
+
+	if(garbledCircuit->getIsRowReduction()==true){
+
+		mult = 3;//in row reduction we only have 3 rows
+	}
+
+	return (garbledCircuit->getNumberOfGates() - garbledCircuit->getNumOfXorGates()) *mult * 16;
+}
+
+/* function getGarbledTablesSize : This function returns the size in bytes of the garbled tables.
+ */
+JNIEXPORT jint JNICALL Java_edu_biu_scapi_circuits_fastGarbledCircuit_ScNativeGarbledBooleanCircuit_getGarbledTablesSize
+  (JNIEnv *, jobject, jlong gbcPtr){
+
+	return getTablesSize((GarbledBooleanCircuit*) gbcPtr);
+}
+
+/* function getGarbleTablesDirect : This function copies the garbled tables of the native circuit into the given direct buffer, 
+ * starting at the given position. The copy is done in the native memory, without passing through the java heap.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_circuits_fastGarbledCircuit_ScNativeGarbledBooleanCircuit_getGarbleTablesDirect
+  (JNIEnv *env, jobject, jlong gbcPtr, jobject buffer, jint position){
+
+	//get the garbled circuit
+	GarbledBooleanCircuit * garbledCircuit= (GarbledBooleanCircuit*) gbcPtr;
+
+	jbyte *address = getDirectAddress(env, buffer, position);
+	if (address == NULL){
+		return;
+	}
+
+	//copy the garbled table of the native code to the buffer
+	memcpy(address, garbledCircuit->getGarbledTables(), getTablesSize(garbledCircuit));
+}
+
+/* function setGarbleTablesDirect : This function sets the garbled tables of the native circuit from the given direct buffer, 
+ * starting at the given position. The copy is done in the native memory, without passing through the java heap.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_circuits_fastGarbledCircuit_ScNativeGarbledBooleanCircuit_setGarbleTablesDirect
+  (JNIEnv *env, jobject, jlong gbcPtr, jobject buffer, jint position){
+
+	//get the garbled circuit
+	GarbledBooleanCircuit * garbledCircuit= (GarbledBooleanCircuit*) gbcPtr;
+
+	jbyte *address = getDirectAddress(env, buffer, position);
+	if (address == NULL){
+		return;
+	}
+
+	//copy the garbled table to the native circuit
+	memcpy(garbledCircuit->getGarbledTables(), address, getTablesSize(garbledCircuit));
+}
+
+/* function garbleDirect : This function garbles the circuit as the garble function does, but writes the input keys, 
+ * output keys and translation table into the given direct buffers instead of java arrays.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_circuits_fastGarbledCircuit_ScNativeGarbledBooleanCircuit_garbleDirect
+  (JNIEnv *env, jobject, jobject allInputWireValues, jint inputsPosition, jobject allOutputWireValues, jint outputsPosition, 
+  jobject translationTable, jint translationPosition, jbyteArray seed, jlong gbcPtr){
+
+	jbyte *inputsAddress = getDirectAddress(env, allInputWireValues, inputsPosition);
+	if (inputsAddress == NULL){
+		return;
+	}
+	jbyte *outputsAddress = getDirectAddress(env, allOutputWireValues, outputsPosition);
+	if (outputsAddress == NULL){
+		return;
+	}
+	jbyte *translationAddress = getDirectAddress(env, translationTable, translationPosition);
+	if (translationAddress == NULL){
+		return;
+	}
+
+	jbyte *jseed = env->GetByteArrayElements(seed, 0);
+
+	block seedBlock = _mm_set_epi8(jseed[15],jseed[14],jseed[13],jseed[12],jseed[11],jseed[10],jseed[9],jseed[8],jseed[7],jseed[6],jseed[5],jseed[4],jseed[3],jseed[2],jseed[1],jseed[0]);
+
+	//get the garbled circuit
+	GarbledBooleanCircuit * garbledCircuit= (GarbledBooleanCircuit *)gbcPtr;
+
+	//the keys are generated into aligned memory, since the buffers are not necessarily aligned
+	block *inputs = (block *) _aligned_malloc(sizeof(block) *2 * garbledCircuit->getNumberOfInputs(), 16); 
+	block *outputs = (block *) _aligned_malloc(sizeof(block) * 2 *garbledCircuit->getNumberOfOutputs(), 16); 
+
+	garbledCircuit->garble(inputs, outputs, (unsigned char*)translationAddress, seedBlock);
+
+	//copy the keys to the given buffers
+	memcpy(inputsAddress, inputs, 2 * garbledCircuit->getNumberOfInputs()*SIZE_OF_BLOCK);
+	memcpy(outputsAddress, outputs, 2 * garbledCircuit->getNumberOfOutputs()*SIZE_OF_BLOCK);
+
+	//release memory
+	_aligned_free(inputs);
+	_aligned_free(outputs);
+	env->ReleaseByteArrayElements(seed,jseed,JNI_ABORT);
+}
+
+/* function computeDirect : This function computes the circuit as the compute function does, but reads the input keys from a direct 
+ * buffer and writes the output keys into a direct buffer instead of java arrays.
+ */
+JNIEXPORT void JNICALL Java_edu_biu_scapi_circuits_fastGarbledCircuit_ScNativeGarbledBooleanCircuit_computeDirect
+  (JNIEnv *env, jobject, jlong gbcPtr, jobject singleInputs, jint inputsPosition, jobject singleOutputs, jint outputsPosition){
+
+	jbyte *inputsAddress = getDirectAddress(env, singleInputs, inputsPosition);
+	if (inputsAddress == NULL){
+		return;
+	}
+	jbyte *outputsAddress = getDirectAddress(env, singleOutputs, outputsPosition);
+	if (outputsAddress == NULL){
+		return;
+	}
+
+	//get the garbled circuit
+	GarbledBooleanCircuit * garbledCircuit= (GarbledBooleanCircuit *) gbcPtr;
+
+	//allocate aligned memory for the input keys and the output keys
+	block *inputs = (block *) _aligned_malloc(sizeof(block)  * garbledCircuit->getNumberOfInputs(), 16); 
+	block *outputs = (block *)_aligned_malloc(sizeof(block)  * garbledCircuit->getNumberOfOutputs(), 16);
+
+	memcpy(inputs, inputsAddress, garbledCircuit->getNumberOfInputs()  * 16);
+
+	//call the native function compute of the garbled circuit
+	garbledCircuit->compute(inputs, outputs);
+
+	memcpy(outputsAddress, outputs, garbledCircuit->getNumberOfOutputs() * 16);
+
+	//free dynamicallly allocated memory
+	_aligned_free(outputs);
+	_aligned_free(inputs);
+}
+
 /* function garble : This function calls the garble of the native code garbled circuit that garbles the circuit.
  * It creates aligned memory for the inputs and outputs, and memory for the translation table so the native garble can work properly and eventually copies back
  * the results to the input empty arrays